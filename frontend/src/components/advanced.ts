@@ -8,6 +8,7 @@ import {
     fetchActiveUsers,
     fetchReportsWithRelatedEvents
 } from '../services/advanced-service.ts';
+import { addLoadMore, Page } from '../services/api.ts';
 
 export async function loadAdvancedReportsTab() {
     try {
@@ -131,8 +132,7 @@ async function generateReport() {
         // Fetch data based on selected report type
         switch (selectedReport) {
             case 'complex-event':
-                data = await fetchComplexEventReport();
-                displayComplexEventReport(data);
+                await showPagedReport(fetchComplexEventReport, displayComplexEventReport);
                 break;
 
             case 'alert-summary':
@@ -146,8 +146,7 @@ async function generateReport() {
                 break;
 
             case 'critical-events':
-                data = await fetchReportsWithCriticalEvents();
-                displayReportsWithCriticalEvents(data);
+                await showPagedReport(fetchReportsWithCriticalEvents, displayReportsWithCriticalEvents);
                 break;
 
             case 'frequent-rules':
@@ -167,8 +166,8 @@ async function generateReport() {
             case 'related-events':
                 const alertIdInput = document.getElementById('alert-id') as HTMLInputElement;
                 const alertId = parseInt(alertIdInput?.value || '1');
-                data = await fetchReportsWithRelatedEvents(alertId);
-                displayReportsWithRelatedEvents(data, alertId);
+                await showPagedReport(cursor => fetchReportsWithRelatedEvents(alertId, cursor),
+                    rows => displayReportsWithRelatedEvents(rows, alertId));
                 break;
 
             default:
@@ -186,6 +185,22 @@ async function generateReport() {
     }
 }
 
+// Show the first page of a paged report; "Load more" fetches the next page and redraws the report with both
+async function showPagedReport(fetchReport: (cursor: string | null) => Promise<Page<any>>,
+                               display: (data: any[]) => void,
+                               cursor: string | null = null, loaded: any[] = []) {
+    const page = await fetchReport(cursor);
+    const data = loaded.concat(page.items);
+    display(data);
+
+    const reportResult = document.getElementById('report-result');
+    if (reportResult) {
+        addLoadMore(reportResult, page.nextCursor, next =>
+            showPagedReport(fetchReport, display, next, data)
+                .catch(error => console.error('Error loading more of the report:', error)));
+    }
+}
+
 function displayComplexEventReport(data: any[]) {
     const reportResult = document.getElementById('report-result');
     if (!reportResult) return;
@@ -1,10 +1,10 @@
 // In services/advanced-service.ts
-import { fetchApi } from './api';
+import { fetchApi, fetchPage, Page } from './api';
 
-export async function fetchComplexEventReport() {
+// The complex event report and the report lists are paged: each call fetches one page, the first or the one after cursor
+export async function fetchComplexEventReport(cursor: string | null = null): Promise<Page<any>> {
     try {
-        const response = await fetchApi('/events/complex-report');
-        return await response.json();
+        return await fetchPage('/events/complex-report', cursor);
     } catch (error) {
         console.error('Error fetching complex event report:', error);
         throw error;
@@ -31,10 +31,9 @@ export async function fetchHighTrafficSources() {
     }
 }
 
-export async function fetchReportsWithCriticalEvents() {
+export async function fetchReportsWithCriticalEvents(cursor: string | null = null): Promise<Page<any>> {
     try {
-        const response = await fetchApi('/incidents/reports/with-critical-events');
-        return await response.json();
+        return await fetchPage('/incidents/reports/with-critical-events', cursor);
     } catch (error) {
         console.error('Error fetching reports with critical events:', error);
         throw error;
@@ -61,10 +60,9 @@ export async function fetchActiveUsers(minActions = 3) {
     }
 }
 
-export async function fetchReportsWithRelatedEvents(alertId: number) {
+export async function fetchReportsWithRelatedEvents(alertId: number, cursor: string | null = null): Promise<Page<any>> {
     try {
-        const response = await fetchApi(`/incidents/reports/with-related-events?alertId=${alertId}`);
-        return await response.json();
+        return await fetchPage(`/incidents/reports/with-related-events?alertId=${alertId}`, cursor);
     } catch (error) {
         console.error('Error fetching reports with related events:', error);
         throw error;
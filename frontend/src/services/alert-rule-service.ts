@@ -1,4 +1,4 @@
-import { fetchApi, postApi } from './api';
+import { fetchApi, postApi, fetchPage, addLoadMore, Page } from './api';
 import { Alertrule } from '../types';
 
 /**
@@ -167,13 +167,13 @@ export async function getRuleById(ruleId: string) {
 }
 
 /**
- * Gets alerts triggered by a specific rule
+ * Gets a page of the alerts triggered by a specific rule
  * @param ruleId The ID of the rule to get alerts for
+ * @param cursor The page to load, null for the first one
  */
-export async function getAlertsByRule(ruleId: string) {
+export async function getAlertsByRule(ruleId: string, cursor: string | null = null): Promise<Page<any>> {
     try {
-        const response = await fetchApi(`/alerts/rule/${ruleId}`);
-        return await response.json();
+        return await fetchPage(`/alerts/rule/${ruleId}`, cursor);
     } catch (error) {
         console.error(`Error getting alerts for rule ${ruleId}:`, error);
         throw error;
@@ -485,12 +485,15 @@ async function viewRuleDetails(ruleId: string) {
 }
 
 /**
- * Shows alerts triggered by a specific rule
+ * Shows the first page of alerts triggered by a specific rule; "Load more" adds the next page
  * @param ruleId The ID of the rule to show alerts for
+ * @param cursor The page to load, null for the first one
+ * @param loaded The alerts already shown
  */
-async function showRuleAlerts(ruleId: string) {
+async function showRuleAlerts(ruleId: string, cursor: string | null = null, loaded: any[] = []) {
     try {
-        const alerts = await getAlertsByRule(ruleId);
+        const page = await getAlertsByRule(ruleId, cursor);
+        const alerts = loaded.concat(page.items);
         const rule = await getRuleById(ruleId);
 
         // Create a modal to show the alerts
@@ -556,6 +559,8 @@ async function showRuleAlerts(ruleId: string) {
                     }
                 });
             });
+
+            addLoadMore(alertsListDiv, page.nextCursor, next => showRuleAlerts(ruleId, next, alerts));
         }
 
         // Show the modal
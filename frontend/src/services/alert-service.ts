@@ -1,12 +1,12 @@
-import { fetchApi } from './api';
+import { fetchApi, fetchPage, addLoadMore } from './api';
 import { Alert, AlertRule } from '../types';
 
-// Function to load alerts for the alerts tab
-export async function loadAlerts() {
+// Function to load alerts for the alerts tab: the first page, and with "Load more" the next page added to the ones shown
+export async function loadAlerts(cursor: string | null = null, loaded: Alert[] = []) {
     try {
         // Fetch the alerts data
-        const response = await fetchApi('/alerts');
-        const alerts = await response.json();
+        const page = await fetchPage<Alert>('/alerts', cursor);
+        const alerts = loaded.concat(page.items);
         console.log("Alerts data:", alerts);
 
         // Get the alerts tab element
@@ -115,6 +115,8 @@ export async function loadAlerts() {
             });
         });
 
+        addLoadMore(alertsTab, page.nextCursor, next => loadAlerts(next, alerts));
+
     } catch (error) {
         console.error('Error loading alerts:', error);
         const alertsTab = document.getElementById('tab-alerts');
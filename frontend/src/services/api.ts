@@ -11,6 +11,35 @@ export async function fetchApi(endpoint: string, options = {}) {
     return response;
 }
 
+// Paginated lists answer { items, nextCursor }; nextCursor is null on the last page
+export interface Page<T> {
+    items: T[];
+    nextCursor: string | null;
+}
+
+// Fetch one page of a paginated list, the first one or the one after cursor
+export async function fetchPage<T = any>(endpoint: string, cursor: string | null = null): Promise<Page<T>> {
+    const separator = endpoint.includes('?') ? '&' : '?';
+    const after = cursor ? `${separator}cursor=${encodeURIComponent(cursor)}` : '';
+    const response = await fetchApi(`${endpoint}${after}`);
+    return await response.json();
+}
+
+// Add a "Load more" button under a list when there is a next page; load fetches and shows it
+export function addLoadMore(container: HTMLElement, nextCursor: string | null, load: (cursor: string) => void) {
+    if (!nextCursor) {
+        return;
+    }
+    const button = document.createElement('button');
+    button.className = 'load-more-btn';
+    button.textContent = 'Load more';
+    button.addEventListener('click', () => {
+        button.disabled = true;
+        load(nextCursor);
+    });
+    container.appendChild(button);
+}
+
 // HTTP methods
 export async function deleteApi(endpoint: string) {
     return fetchApi(endpoint, { method: 'DELETE' });
@@ -1,10 +1,11 @@
-import {deleteApi, fetchApi} from './api';
+import { deleteApi, fetchPage, addLoadMore } from './api';
 import { Device } from '../types'
 
-export async function loadDevices() {
+// Shows the first page of devices; "Load more" adds the next page to the ones already shown
+export async function loadDevices(cursor: string | null = null, loaded: Device[] = []) {
     try {
-        const response = await fetchApi('/devices');
-        const devices = await response.json();
+        const page = await fetchPage<Device>('/devices', cursor);
+        const devices = loaded.concat(page.items);
         const devicesTab = document.getElementById('tab-devices');
 
         if (!devicesTab) {
@@ -76,6 +77,7 @@ export async function loadDevices() {
         }
 
         initializeDeviceActionButtons();
+        addLoadMore(devicesTab, page.nextCursor, next => loadDevices(next, devices));
 
     } catch (error) {
         console.error('Error loading devices:', error);
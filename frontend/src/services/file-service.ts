@@ -1,10 +1,11 @@
-import {fetchApi, postApi} from './api';
+import { BASE_URL, fetchApi, postApi, fetchPage, addLoadMore } from './api';
 import { Logfile } from '../types';
 
-export async function loadLogFiles() {
+// Shows the first page of log files; "Load more" adds the next page to the ones already shown
+export async function loadLogFiles(cursor: string | null = null, loaded: Logfile[] = []) {
     try {
-        const response = await fetchApi('/events/logfiles');
-        const logFiles = await response.json();
+        const page = await fetchPage<Logfile>('/events/logfiles', cursor);
+        const logFiles = loaded.concat(page.items);
         const logFilesTab = document.getElementById('tab-log-files');
 
         if (!logFilesTab) {
@@ -12,8 +13,9 @@ export async function loadLogFiles() {
             return;
         }
 
-        // Create table structure first with upload form
-        logFilesTab.innerHTML = `
+        // The upload form is created with the first page only, so "Load more" keeps what was entered in it
+        if (!cursor) {
+            logFilesTab.innerHTML = `
         <div class="upload-container">
           <h3>Upload Log File</h3>
           <div class="upload-form">
@@ -40,7 +42,21 @@ export async function loadLogFiles() {
           </div>
           <div id="upload-status" class="upload-status"></div>
         </div>
-        <div class="table-container" id="log-files-table-container">
+        <div class="table-container" id="log-files-table-container"></div>
+        `;
+
+            // Initialize the upload button event listener
+            initializeUploadButton();
+        }
+
+        const logFilesTableContainer = document.getElementById('log-files-table-container');
+
+        if (!logFilesTableContainer) {
+            console.error('Log files table container element not found after creation');
+            return;
+        }
+
+        logFilesTableContainer.innerHTML = `
           <h3>Log Files</h3>
           <table class="data-table" id="log-files-table">
             <thead>
@@ -58,7 +74,6 @@ export async function loadLogFiles() {
               <!-- Log files will be loaded here -->
             </tbody>
           </table>
-        </div>
         `;
 
         const logFilesTableBody = document.getElementById('log-files-body');
@@ -107,9 +122,7 @@ export async function loadLogFiles() {
 
         // Add event listeners for action buttons
         initializeLogFileActionButtons();
-
-        // Initialize the upload button event listener
-        initializeUploadButton();
+        addLoadMore(logFilesTableContainer, page.nextCursor, next => loadLogFiles(next, logFiles));
 
     } catch (error) {
         console.error('Error loading log files:', error);
@@ -152,6 +165,15 @@ export async function viewLogFile(id: string) {
         const response = await fetchApi(`/events/logfiles/${id}`);
         const logFile = await response.json();
 
+        // The original file is not kept for every upload (404 when there is none)
+        let rawcontent: string | null = null;
+        try {
+            const content = await fetchApi(`/events/logfiles/${id}/content`);
+            rawcontent = await content.text();
+        } catch {
+            // Show the details without the content
+        }
+
         // Create and show modal with log file details
         const modalContent = document.getElementById('log-file-details');
         if (modalContent) {
@@ -190,10 +212,10 @@ export async function viewLogFile(id: string) {
                         </tr>
                     </table>
                 </div>
-                ${logFile.rawcontent ? `
+                ${rawcontent ? `
                 <div class="log-file-content">
                     <h3>File Content</h3>
-                    <pre>${logFile.rawcontent}</pre>
+                    <pre>${rawcontent}</pre>
                 </div>` : ''}
             `;
 
@@ -213,9 +235,18 @@ export async function viewLogFile(id: string) {
 async function deleteLogFile(id: string) {
     if (confirm('Are you sure you want to delete this log file?')) {
         try {
-            await fetchApi(`/events/logfiles/${id}`, {
+            const response = await fetch(`${BASE_URL}/events/logfiles/${id}`, {
                 method: 'DELETE'
             });
+            if (response.status === 409) {
+                // Later uploads skipped lines that were only ingested with this file
+                const conflict = await response.json();
+                alert(`Delete log files ${conflict.dependentFileIds.join(', ')} first: they rely on lines of this file`);
+                return;
+            }
+            if (!response.ok) {
+                throw new Error(`API error: ${response.status} ${response.statusText}`);
+            }
 
             // Reload the log files after deletion
             loadLogFiles();
@@ -1,13 +1,15 @@
-import { fetchApi, postApi } from './api';
+import { fetchApi, postApi, fetchPage, addLoadMore, Page } from './api';
 import { Incidentreport } from '../types';
 
 /**
- * Loads all incident reports and displays them in the incident reports tab
+ * Loads the newest incident reports into the incident reports tab; "Load more" adds the next page
+ * @param cursor The page to load, null for the first one
+ * @param loaded The reports already shown
  */
-export async function loadIncidentReports() {
+export async function loadIncidentReports(cursor: string | null = null, loaded: Incidentreport[] = []) {
     try {
-        const response = await fetchApi('/incidents/reports/dateRange?startDate=1970-01-01T00:00:00Z&endDate=2099-12-31T23:59:59Z');
-        const reports = await response.json();
+        const page = await fetchPage<Incidentreport>('/incidents/reports', cursor);
+        const reports = loaded.concat(page.items);
         const incidentReportsTab = document.getElementById('tab-incident-reports');
 
         if (!incidentReportsTab) {
@@ -75,6 +77,7 @@ export async function loadIncidentReports() {
 
         // Add event listeners for action buttons
         addReportActionListeners();
+        addLoadMore(incidentReportsTab, page.nextCursor, next => loadIncidentReports(next, reports));
 
     } catch (error) {
         console.error('Error loading incident reports:', error);
@@ -87,14 +90,17 @@ export async function loadIncidentReports() {
 }
 
 /**
- * Loads incident reports related to a specific alert
+ * Loads incident reports related to a specific alert, a page at a time
  * @param alertId The ID of the alert to get related reports for
+ * @param cursor The page to load, null for the first one
+ * @param loaded The reports already shown
  */
-export async function loadReportsByAlert(alertId: string) {
+export async function loadReportsByAlert(alertId: string, cursor: string | null = null, loaded: Incidentreport[] = []) {
     try {
-        const response = await fetchApi(`/incidents/reports/alert/${alertId}`);
-        const reports = await response.json();
-        displayFilteredReports(reports, `Incident Reports for Alert #${alertId}`);
+        const page = await fetchPage<Incidentreport>(`/incidents/reports/alert/${alertId}`, cursor);
+        const reports = loaded.concat(page.items);
+        displayFilteredReports(reports, `Incident Reports for Alert #${alertId}`,
+            page.nextCursor, next => loadReportsByAlert(alertId, next, reports));
     } catch (error) {
         console.error(`Error loading reports for alert ${alertId}:`, error);
         showReportLoadError(`Failed to load reports for alert ${alertId}`);
@@ -102,14 +108,17 @@ export async function loadReportsByAlert(alertId: string) {
 }
 
 /**
- * Loads reports created by a specific user
+ * Loads reports created by a specific user, a page at a time
  * @param userId The ID of the user who created the reports
+ * @param cursor The page to load, null for the first one
+ * @param loaded The reports already shown
  */
-export async function loadReportsByUser(userId: string) {
+export async function loadReportsByUser(userId: string, cursor: string | null = null, loaded: Incidentreport[] = []) {
     try {
-        const response = await fetchApi(`/incidents/reports/user/${userId}`);
-        const reports = await response.json();
-        displayFilteredReports(reports, `Incident Reports by User #${userId}`);
+        const page = await fetchPage<Incidentreport>(`/incidents/reports/user/${userId}`, cursor);
+        const reports = loaded.concat(page.items);
+        displayFilteredReports(reports, `Incident Reports by User #${userId}`,
+            page.nextCursor, next => loadReportsByUser(userId, next, reports));
     } catch (error) {
         console.error(`Error loading reports for user ${userId}:`, error);
         showReportLoadError(`Failed to load reports for user ${userId}`);
@@ -120,21 +129,10 @@ export async function loadReportsByUser(userId: string) {
  * Gets a specific incident report by ID
  * @param reportId The ID of the report to retrieve
  */
-export async function getReportById(reportId: string) {
+export async function getReportById(reportId: string): Promise<Incidentreport> {
     try {
-        // The API doesn't have a direct endpoint for getting a report by ID,
-        // so we'll use the title endpoint and find the report in the results
-        const allReportsResponse = await fetchApi('/incidents/reports/dateRange?startDate=1970-01-01T00:00:00Z&endDate=2099-12-31T23:59:59Z');
-        const allReports = await allReportsResponse.json();
-
-        // Find the report with the matching ID
-        const report = allReports.find((r: Incidentreport) => r.id.toString() === reportId);
-
-        if (!report) {
-            throw new Error(`Report with ID ${reportId} not found`);
-        }
-
-        return report;
+        const response = await fetchApi(`/incidents/reports/${reportId}`);
+        return await response.json();
     } catch (error) {
         console.error(`Error getting report ${reportId}:`, error);
         throw error;
@@ -142,13 +140,13 @@ export async function getReportById(reportId: string) {
 }
 
 /**
- * Gets events linked to a specific incident report
+ * Gets a page of the events linked to a specific incident report
  * @param reportId The ID of the report to get linked events for
+ * @param cursor The page to load, null for the first one
  */
-export async function getLinkedEvents(reportId: string) {
+export async function getLinkedEvents(reportId: string, cursor: string | null = null): Promise<Page<any>> {
     try {
-        const response = await fetchApi(`/incidents/links/report/${reportId}`);
-        return await response.json();
+        return await fetchPage(`/incidents/links/report/${reportId}`, cursor);
     } catch (error) {
         console.error(`Error getting linked events for report ${reportId}:`, error);
         throw error;
@@ -209,8 +207,11 @@ export async function linkEventToReport(reportId: string, eventId: string) {
  * Displays filtered incident reports with a custom heading
  * @param reports The reports to display
  * @param heading The heading to show above the reports
+ * @param nextCursor The page after the reports shown, null when there is none
+ * @param loadNext Loads and shows the next page
  */
-function displayFilteredReports(reports: Incidentreport[], heading: string) {
+function displayFilteredReports(reports: Incidentreport[], heading: string,
+                                nextCursor: string | null, loadNext: (cursor: string) => void) {
     const incidentReportsTab = document.getElementById('tab-incident-reports');
 
     if (!incidentReportsTab) {
@@ -279,6 +280,7 @@ function displayFilteredReports(reports: Incidentreport[], heading: string) {
 
     // Add event listeners for action buttons
     addReportActionListeners();
+    addLoadMore(incidentReportsTab, nextCursor, loadNext);
 }
 
 /**
@@ -346,12 +348,15 @@ async function viewReportDetails(reportId: string) {
 }
 
 /**
- * Shows events linked to a specific incident report
+ * Shows the first page of events linked to a specific incident report; "Load more" adds the next page
  * @param reportId The ID of the report to show linked events for
+ * @param cursor The page to load, null for the first one
+ * @param loaded The links already shown
  */
-async function showLinkedEvents(reportId: string) {
+async function showLinkedEvents(reportId: string, cursor: string | null = null, loaded: any[] = []) {
     try {
-        const links = await getLinkedEvents(reportId);
+        const page = await getLinkedEvents(reportId, cursor);
+        const links = loaded.concat(page.items);
         const report = await getReportById(reportId);
 
         // Create a modal to show the linked events
@@ -417,6 +422,8 @@ async function showLinkedEvents(reportId: string) {
                     }
                 });
             });
+
+            addLoadMore(eventsListDiv, page.nextCursor, next => showLinkedEvents(reportId, next, links));
         }
 
         // Show the modal
@@ -1,13 +1,15 @@
-import { fetchApi, postApi, deleteApi } from './api';
+import { fetchApi, postApi, deleteApi, fetchPage, addLoadMore } from './api';
 import { Rawline } from '../types';
 
 /**
- * Loads all rawlines and displays them in the rawlines tab
+ * Loads the first page of rawlines into the rawlines tab; "Load more" adds the next page
+ * @param cursor The page to load, null for the first one
+ * @param loaded The rawlines already shown
  */
-export async function loadRawlines() {
+export async function loadRawlines(cursor: string | null = null, loaded: Rawline[] = []) {
     try {
-        const response = await fetchApi('/events/rawlines');
-        const rawlines = await response.json();
+        const page = await fetchPage<Rawline>('/events/rawlines', cursor);
+        const rawlines = loaded.concat(page.items);
         const rawlinesTab = document.getElementById('tab-rawlines');
 
         if (!rawlinesTab) {
@@ -80,6 +82,7 @@ export async function loadRawlines() {
 
         // Add event listeners for action buttons
         addRawlineActionListeners();
+        addLoadMore(rawlinesTab, page.nextCursor, next => loadRawlines(next, rawlines));
 
     } catch (error) {
         console.error('Error loading rawlines:', error);
@@ -92,15 +95,18 @@ export async function loadRawlines() {
 }
 
 /**
- * Searches for rawlines based on a search term
+ * Searches for rawlines based on a search term, a page at a time
  * @param searchTerm The search term to use
+ * @param cursor The page to load, null for the first one
+ * @param loaded The results already shown
  */
-export async function searchRawlines(searchTerm: string) {
+export async function searchRawlines(searchTerm: string, cursor: string | null = null, loaded: Rawline[] = []) {
     try {
         const encodedTerm = encodeURIComponent(searchTerm);
-        const response = await fetchApi(`/events/rawlines/search?term=${encodedTerm}`);
-        const rawlines = await response.json();
-        displayFilteredRawlines(rawlines, `Search Results for: "${searchTerm}"`);
+        const page = await fetchPage<Rawline>(`/events/rawlines/search?term=${encodedTerm}`, cursor);
+        const rawlines = loaded.concat(page.items);
+        displayFilteredRawlines(rawlines, `Search Results for: "${searchTerm}"`,
+            page.nextCursor, next => searchRawlines(searchTerm, next, rawlines));
     } catch (error) {
         console.error('Error searching rawlines:', error);
         showRawlineLoadError(`Failed to search rawlines: ${error instanceof Error ? error.message : String(error)}`);
@@ -124,7 +130,7 @@ export async function fullTextSearchRawlines(searchTerm: string) {
 }
 
 /**
- * Performs an advanced search for rawlines based on multiple criteria
+ * Performs an advanced search for rawlines based on multiple criteria, a page at a time
  */
 export async function advancedSearchRawlines(
     sourceDeviceId?: number,
@@ -132,7 +138,9 @@ export async function advancedSearchRawlines(
     sourcePort?: number,
     destPort?: number,
     actionId?: string,
-    messageText?: string
+    messageText?: string,
+    cursor: string | null = null,
+    loaded: Rawline[] = []
 ) {
     try {
         // Build query string with only the provided parameters
@@ -144,9 +152,10 @@ export async function advancedSearchRawlines(
         if (actionId) params.append('actionId', actionId);
         if (messageText) params.append('messageText', messageText);
 
-        const response = await fetchApi(`/events/rawlines/advanced-search?${params.toString()}`);
-        const rawlines = await response.json();
-        displayFilteredRawlines(rawlines, 'Advanced Search Results');
+        const page = await fetchPage<Rawline>(`/events/rawlines/advanced-search?${params.toString()}`, cursor);
+        const rawlines = loaded.concat(page.items);
+        displayFilteredRawlines(rawlines, 'Advanced Search Results', page.nextCursor,
+            next => advancedSearchRawlines(sourceDeviceId, destDeviceId, sourcePort, destPort, actionId, messageText, next, rawlines));
     } catch (error) {
         console.error('Error performing advanced search:', error);
         showRawlineLoadError(`Failed to perform advanced search: ${error instanceof Error ? error.message : String(error)}`);
@@ -219,8 +228,11 @@ export async function deleteRawline(rawline: string) {
  * Displays filtered rawlines with a custom heading
  * @param rawlines The rawlines to display
  * @param heading The heading to show above the rawlines
+ * @param nextCursor The page after the rawlines shown, null when there is none
+ * @param loadNext Loads and shows the next page
  */
-function displayFilteredRawlines(rawlines: Rawline[], heading: string) {
+function displayFilteredRawlines(rawlines: Rawline[], heading: string,
+                                 nextCursor: string | null = null, loadNext: (cursor: string) => void = () => {}) {
     const rawlinesTab = document.getElementById('tab-rawlines');
 
     if (!rawlinesTab) {
@@ -294,6 +306,7 @@ function displayFilteredRawlines(rawlines: Rawline[], heading: string) {
 
     // Add event listeners for action buttons
     addRawlineActionListeners();
+    addLoadMore(rawlinesTab, nextCursor, loadNext);
 }
 
 /**
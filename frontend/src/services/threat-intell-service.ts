@@ -1,13 +1,15 @@
-import { fetchApi } from './api';
+import { fetchApi, fetchPage, addLoadMore } from './api';
 import { Threatintel } from '../types';
 
 /**
- * Loads threat intelligence data and displays it in the threat intel tab
+ * Loads the first page of threat intelligence into the threat intel tab; "Load more" adds the next page
+ * @param cursor The page to load, null for the first one
+ * @param loaded The threats already shown
  */
-export async function loadThreatIntel() {
+export async function loadThreatIntel(cursor: string | null = null, loaded: Threatintel[] = []) {
     try {
-        const response = await fetchApi('/threats');
-        const threats = await response.json();
+        const page = await fetchPage<Threatintel>('/threats', cursor);
+        const threats = loaded.concat(page.items);
         const threatIntelTab = document.getElementById('tab-threat-intel');
 
         if (!threatIntelTab) {
@@ -71,6 +73,8 @@ export async function loadThreatIntel() {
             threatIntelTableBody.appendChild(emptyRow);
         }
 
+        addLoadMore(threatIntelTab, page.nextCursor, next => loadThreatIntel(next, threats));
+
     } catch (error) {
         console.error('Error loading threat intelligence:', error);
         const threatIntelTab = document.getElementById('tab-threat-intel');
@@ -82,15 +86,18 @@ export async function loadThreatIntel() {
 }
 
 /**
- * Gets threat intelligence by a specific type
+ * Gets threat intelligence by a specific type, a page at a time
  * @param type The type of threat to filter by
+ * @param cursor The page to load, null for the first one
+ * @param loaded The threats already shown
  */
-export async function loadThreatsByType(type: string) {
+export async function loadThreatsByType(type: string, cursor: string | null = null, loaded: Threatintel[] = []) {
     try {
         const encodedType = encodeURIComponent(type);
-        const response = await fetchApi(`/threats/type/${encodedType}`);
-        const threats = await response.json();
-        displayFilteredThreats(threats, `Threats of Type: ${type}`);
+        const page = await fetchPage<Threatintel>(`/threats/type/${encodedType}`, cursor);
+        const threats = loaded.concat(page.items);
+        displayFilteredThreats(threats, `Threats of Type: ${type}`,
+            page.nextCursor, next => loadThreatsByType(type, next, threats));
     } catch (error) {
         console.error(`Error loading threats by type ${type}:`, error);
         showThreatLoadError(`Failed to load threats by type: ${type}`);
@@ -98,15 +105,18 @@ export async function loadThreatsByType(type: string) {
 }
 
 /**
- * Gets threat intelligence filtered by severity
+ * Gets threat intelligence filtered by severity, a page at a time
  * @param severity The severity level to filter by
+ * @param cursor The page to load, null for the first one
+ * @param loaded The threats already shown
  */
-export async function loadThreatsBySeverity(severity: string) {
+export async function loadThreatsBySeverity(severity: string, cursor: string | null = null, loaded: Threatintel[] = []) {
     try {
         const encodedSeverity = encodeURIComponent(severity);
-        const response = await fetchApi(`/threats/severity/${encodedSeverity}`);
-        const threats = await response.json();
-        displayFilteredThreats(threats, `${severity} Severity Threats`);
+        const page = await fetchPage<Threatintel>(`/threats/severity/${encodedSeverity}`, cursor);
+        const threats = loaded.concat(page.items);
+        displayFilteredThreats(threats, `${severity} Severity Threats`,
+            page.nextCursor, next => loadThreatsBySeverity(severity, next, threats));
     } catch (error) {
         console.error(`Error loading threats by severity ${severity}:`, error);
         showThreatLoadError(`Failed to load threats by severity: ${severity}`);
@@ -138,8 +148,11 @@ export async function getThreatByIndicator(indicator: string) {
  * Displays a filtered set of threats with a custom heading
  * @param threats The threats to display
  * @param heading The heading to show above the threats
+ * @param nextCursor The page after the threats shown, null when there is none
+ * @param loadNext Loads and shows the next page
  */
-function displayFilteredThreats(threats: Threatintel[], heading: string) {
+function displayFilteredThreats(threats: Threatintel[], heading: string,
+                                nextCursor: string | null, loadNext: (cursor: string) => void) {
     const threatIntelTab = document.getElementById('tab-threat-intel');
 
     if (!threatIntelTab) {
@@ -203,6 +216,8 @@ function displayFilteredThreats(threats: Threatintel[], heading: string) {
         emptyRow.innerHTML = '<td colspan="4" class="empty-message">No threat intelligence found</td>';
         threatIntelTableBody.appendChild(emptyRow);
     }
+
+    addLoadMore(threatIntelTab, nextCursor, loadNext);
 }
 
 /**
@@ -61,6 +61,15 @@ export interface Logfile {
     filename?: string;
     uploadtime?: string;
     status?: 'Uploaded' | 'Pending' | 'Failed';
+    // Parser used: 'generic', 'syslog', 'access', 'cef' or 'json'; detected on ingestion if not sent
+    logformat?: string;
+    // SHA-256 of the content and its line count, once ingested
+    contenthash?: string;
+    linecount?: number;
+    // Leading lines already ingested with the earlier upload duplicateof, and not ingested again
+    skippedlines?: number;
+    duplicateof?: number;
+    // Upload only; download the content from /events/logfiles/{id}/content
     rawcontent?: string;
 }
 
@@ -137,6 +146,7 @@ export interface Alertrule {
 }
 
 export interface Rawline {
+    id?: number;
     rawline: string;
     sourcedeviceid?: {
         id: number;
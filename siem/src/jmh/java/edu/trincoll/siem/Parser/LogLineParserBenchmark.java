@@ -0,0 +1,84 @@
+package edu.trincoll.siem.Parser;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-line cost of {@link LogLineParser} against the previous LogfileService parsing,
+ * which compiled every regex and built a Gson instance for each line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LogLineParserBenchmark {
+
+    private static final String[] LINES = {
+            "Apr 17 09:23:41 dc01.corp.local: User bob failed login attempt - Reason: wrong password",
+            "Apr 17 09:25:18 fw01.corp.local: Connection from 192.168.1.45:52631 to 8.8.8.8:53",
+            "Apr 17 09:27:33 web01.corp.local: GET /login.php - 404",
+            "Apr 17 09:30:12 db01.corp.local: Database backup completed successfully",
+            "Apr 17 09:32:55 mail01.corp.local: Source IP: 192.168.1.100 Destination IP: 10.0.0.25:25",
+            "Apr 17 09:38:47 app01.corp.local: Application startup completed in 12.5 seconds",
+    };
+
+    private final LogLineParser parser = new LogLineParser();
+
+    @Benchmark
+    public void precompiled(Blackhole blackhole) {
+        for (String line : LINES) {
+            blackhole.consume(parser.parse(line));
+        }
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        for (String line : LINES) {
+            blackhole.consume(legacyParse(line));
+            blackhole.consume(legacyTimestamp(line));
+        }
+    }
+
+    // The regex work the old parseLogLine did per line, without the database lookups
+    @SuppressWarnings("unchecked")
+    private static Object legacyParse(String line) {
+        Map<String, Object> dataMap = null;
+        Matcher header = Pattern.compile("^(\\w{3}\\s+\\d{1,2}\\s+\\d{2}:\\d{2}:\\d{2})\\s+([^:]+):").matcher(line);
+        if (header.find()) {
+            JsonObject hostnameData = new JsonObject();
+            hostnameData.addProperty("timestamp", header.group(1));
+            hostnameData.addProperty("hostname", header.group(2));
+            dataMap = new Gson().fromJson(hostnameData.toString(), Map.class);
+        }
+        Matcher login = Pattern.compile("User\\s+(\\S+)\\s+failed\\s+login\\s+attempt").matcher(line);
+        if (login.find()) {
+            Pattern.compile("Reason:\\s+(.+?)(?:$|-)").matcher(line).find();
+        }
+        Pattern.compile("Connection from (\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})(?::(\\d+))? to (\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})(?::(\\d+))?").matcher(line).find();
+        Pattern.compile("(GET|POST|PUT|DELETE|HEAD|OPTIONS|PATCH)\\s+(\\S+)\\s+-\\s+(\\d{3})").matcher(line).find();
+        Pattern.compile("Source IP:\\s+(\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})(?::(\\d+))?").matcher(line).find();
+        Pattern.compile("Destination IP:\\s+(\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})(?::(\\d+))?").matcher(line).find();
+        return dataMap;
+    }
+
+    private static Object legacyTimestamp(String line) {
+        Matcher matcher = Pattern.compile("^(\\w{3}\\s+\\d{1,2}\\s+\\d{2}:\\d{2}:\\d{2})").matcher(line);
+        if (matcher.find()) {
+            String fullTimestamp = matcher.group(1) + " " + LocalDate.now().getYear();
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd HH:mm:ss yyyy", Locale.ENGLISH);
+            return LocalDateTime.parse(fullTimestamp, formatter).atZone(ZoneId.systemDefault()).toInstant();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,53 @@
+package edu.trincoll.siem.Parser;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-timestamp cost of {@link TimestampParser} against the java.time parsing the format
+ * parsers used before: a DateTimeFormatter (built per line in the original parser) and
+ * string concatenation to add the year. The target is well under 100 ns per timestamp.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TimestampParserBenchmark {
+
+    @Param({"Apr 17 09:23:41", "2025-03-09T10:15:30.003+01:00", "09/Mar/2025:10:15:30 +0100", "1741515330123"})
+    public String timestamp;
+
+    private static final DateTimeFormatter SYSLOG = DateTimeFormatter.ofPattern("MMM d HH:mm:ss yyyy", Locale.ENGLISH);
+    private static final DateTimeFormatter APACHE = DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH);
+
+    private final TimestampParser parser = TimestampParser.of(Instant.now(), ZoneId.of("America/New_York"));
+
+    @Benchmark
+    public Instant timestampParser() {
+        return parser.parse(timestamp);
+    }
+
+    @Benchmark
+    public Instant javaTime() {
+        char first = timestamp.charAt(0);
+        if (first > '9') {
+            String withYear = timestamp + " " + LocalDate.now().getYear();
+            return LocalDateTime.parse(withYear, SYSLOG).atZone(ZoneId.of("America/New_York")).toInstant();
+        }
+        if (timestamp.charAt(4) == '-') {
+            return OffsetDateTime.parse(timestamp).toInstant();
+        }
+        if (timestamp.charAt(2) == '/') {
+            return ZonedDateTime.parse(timestamp, APACHE).toInstant();
+        }
+        return Instant.ofEpochMilli(Long.parseLong(timestamp));
+    }
+}
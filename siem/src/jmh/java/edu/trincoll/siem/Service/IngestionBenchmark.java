@@ -0,0 +1,114 @@
+package edu.trincoll.siem.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.trincoll.siem.Model.Logevent;
+import edu.trincoll.siem.Model.Logfile;
+import edu.trincoll.siem.Model.Rawline;
+import edu.trincoll.siem.Model.RawlineHash;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old row-at-a-time insert path with {@link LogIngestionWriter}.
+ * Needs the local PostgreSQL from the README (override with -Dsiem.bench.url/user/password).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IngestionBenchmark {
+
+    @Param({"50000"})
+    public int lines;
+
+    @Param({"1000"})
+    public int batchSize;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private LogIngestionWriter writer;
+    private Logfile logfile;
+    private List<Logevent> events;
+    private int run;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getProperty("siem.bench.url", "jdbc:postgresql://localhost:5432/postgres?reWriteBatchedInserts=true"),
+                System.getProperty("siem.bench.user", "postgres"),
+                System.getProperty("siem.bench.password", "postgres"));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Today's logevent partition, which both the baseline and the writer insert into
+        PartitionManager partitionManager = new PartitionManager(jdbcTemplate, transactionManager, 0, 0, 0);
+        partitionManager.maintain();
+        writer = new LogIngestionWriter(jdbcTemplate, transactionManager, new ObjectMapper(),
+                new EventRollups(jdbcTemplate, transactionManager), partitionManager,
+                new LogfileContentStore(jdbcTemplate, transactionManager), batchSize, Long.MAX_VALUE);
+
+        Integer fileId = jdbcTemplate.queryForObject(
+                "INSERT INTO logfile (filename, status) VALUES ('jmh-ingest.log', 'Pending') RETURNING fileid",
+                Integer.class);
+        logfile = new Logfile();
+        logfile.setId(fileId);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        // Fresh line text per invocation so the rawline primary key never short-circuits an insert
+        run++;
+        events = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            Rawline rawline = new Rawline();
+            rawline.setRawline("jmh-" + run + "-" + i + " fw01.corp.local: Connection from 10.0.0." + (i % 255) + " to 8.8.8.8:53");
+            rawline.setMessage(rawline.getRawline());
+
+            Logevent event = new Logevent();
+            event.setFileid(logfile);
+            event.setRawline(rawline);
+            event.setTimestamp(Instant.now());
+            events.add(event);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        jdbcTemplate.update("DELETE FROM logfile WHERE fileid = ?", logfile.getId());
+        jdbcTemplate.update("DELETE FROM rawline WHERE rawline LIKE 'jmh-%'");
+    }
+
+    @Benchmark
+    public void rowByRow() {
+        // Mirrors the previous path: one INSERT per rawline and per logevent inside a single transaction
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Logevent event : events) {
+                long rawlineId = RawlineHash.id(event.getRawline().getRawline());
+                jdbcTemplate.update("INSERT INTO rawline (rawlineid, rawline, message) VALUES (?, ?, ?)",
+                        rawlineId, event.getRawline().getRawline(), event.getRawline().getMessage());
+                jdbcTemplate.update("INSERT INTO logevent (fileid, \"timestamp\", rawlineid) VALUES (?, ?, ?)",
+                        logfile.getId(), Timestamp.from(event.getTimestamp()), rawlineId);
+            }
+        });
+    }
+
+    @Benchmark
+    public long batched() {
+        try (LogIngestionWriter.Batch batch = writer.openBatch(logfile)) {
+            for (Logevent event : events) {
+                batch.add(event);
+            }
+            batch.flush();
+            return batch.getWritten();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves LogFile.RawContent into LogFileContent, gzip-compressed, and drops the column.
+ * Written in Java because PostgreSQL has no gzip function. Each file becomes one chunk;
+ * new uploads are stored in many (LogfileContentStore).
+ */
+public class V14__compress_logfile_rawcontent extends BaseJavaMigration {
+
+    private static final String CREATE_TABLE_SQL = """
+            CREATE TABLE LogFileContent (
+                FileID INTEGER NOT NULL,
+                ChunkNo INTEGER NOT NULL,
+                Length INTEGER NOT NULL,
+                Content BYTEA NOT NULL,
+                PRIMARY KEY (FileID, ChunkNo),
+                FOREIGN KEY (FileID) REFERENCES LogFile(FileID)
+                    ON DELETE CASCADE
+                    ON UPDATE CASCADE
+            )""";
+
+    // Chunks are gzip already; keep them out of line without TOAST compressing them again
+    private static final String STORAGE_SQL = "ALTER TABLE LogFileContent ALTER COLUMN Content SET STORAGE EXTERNAL";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO LogFileContent (FileID, ChunkNo, Length, Content) VALUES (?, 0, ?, ?)";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_TABLE_SQL);
+            statement.execute(STORAGE_SQL);
+        }
+
+        // One file in memory at a time
+        List<Integer> fileIds = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT FileID FROM LogFile WHERE RawContent IS NOT NULL AND RawContent <> ''")) {
+            while (rs.next()) {
+                fileIds.add(rs.getInt(1));
+            }
+        }
+        try (PreparedStatement select = connection.prepareStatement("SELECT RawContent FROM LogFile WHERE FileID = ?");
+             PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+            for (int fileId : fileIds) {
+                select.setInt(1, fileId);
+                byte[] content;
+                try (ResultSet rs = select.executeQuery()) {
+                    rs.next();
+                    content = rs.getString(1).getBytes(StandardCharsets.UTF_8);
+                }
+                insert.setInt(1, fileId);
+                insert.setInt(2, content.length);
+                insert.setBytes(3, gzip(content));
+                insert.executeUpdate();
+            }
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE LogFile DROP COLUMN RawContent");
+        }
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer) {
+            {
+                def.setLevel(Deflater.BEST_SPEED);
+            }
+        }) {
+            gzip.write(content);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -21,6 +21,11 @@ public class CorsConfig {
         config.setAllowedOrigins(List.of("http://localhost:5173")); // Replace with your React app's origin
         config.addAllowedHeader("*");
         config.addAllowedMethod("*");
+        // Lets the browser read the next-page token of keyset paginated lists
+        config.addExposedHeader("X-Next-Cursor");
+        // ...and how current a materialized view's data is
+        config.addExposedHeader("X-Refreshed-At");
+        config.addExposedHeader("X-Staleness-Seconds");
 
         source.registerCorsConfiguration("/**", config);
         return new CorsFilter(source);
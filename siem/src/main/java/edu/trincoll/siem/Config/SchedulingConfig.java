@@ -0,0 +1,31 @@
+package edu.trincoll.siem.Config;
+
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+// Runs the @Scheduled jobs. The short periodic ones (materialized view refreshes, parse pattern
+// reload) share taskScheduler; the nightly partition maintenance and retention archive, which can
+// hold a thread for hours, run one after the other on maintenanceScheduler so they never delay them.
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    public static final String MAINTENANCE_SCHEDULER = "maintenanceScheduler";
+
+    // Declared here because Boot backs off its own taskScheduler once another TaskScheduler bean exists
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(MAINTENANCE_SCHEDULER)
+    public ThreadPoolTaskScheduler maintenanceScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("maintenance-");
+        return scheduler;
+    }
+}
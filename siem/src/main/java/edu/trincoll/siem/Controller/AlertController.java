@@ -1,20 +1,28 @@
 package edu.trincoll.siem.Controller;
 
+import edu.trincoll.siem.Detection.DetectionEngine;
 import edu.trincoll.siem.Model.Alert;
 import edu.trincoll.siem.Model.Alertrule;
 import edu.trincoll.siem.Model.Enums.AlertStatus;
 import edu.trincoll.siem.Model.Enums.Severity;
 import edu.trincoll.siem.Model.Threatintel;
+import edu.trincoll.siem.Model.View.AlertView;
 import edu.trincoll.siem.Service.AlertService;
 import edu.trincoll.siem.Service.AlertruleService;
+import edu.trincoll.siem.Service.CursorPage;
+import edu.trincoll.siem.Service.ThreatFeedImporter;
 import edu.trincoll.siem.Service.ThreatintelService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -30,11 +38,20 @@ public class AlertController {
     @Autowired
     private ThreatintelService threatintelService;
 
+    @Autowired
+    private DetectionEngine detectionEngine;
+
+    @Autowired
+    private ThreatFeedImporter threatFeedImporter;
+
     // ** Alert Endpoints **
 
+    // Alert lists are keyset paginated, newest first; pass nextCursor back as ?cursor=
     @GetMapping("/alerts")
-    public List<Alert> getAllAlerts() {
-        return alertService.getAllAlerts();
+    public ResponseEntity<CursorPage<AlertView>> getAllAlerts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(alertService.getAlertsPage(cursor, limit));
     }
 
     @GetMapping("/alerts/{id}")
@@ -43,35 +60,42 @@ public class AlertController {
     }
 
     @GetMapping("/alerts/status/{status}")
-    public List<Alert> getAlertsByStatus(@PathVariable AlertStatus status) {
-        return alertService.getAlertsByStatus(status);
+    public ResponseEntity<CursorPage<AlertView>> getAlertsByStatus(
+            @PathVariable AlertStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(alertService.getAlertsByStatusPage(status, cursor, limit));
     }
 
+    // A rule's alerts, keyset paginated newest first; an unknown rule has none
     @GetMapping("/alerts/rule/{ruleId}")
-    public List<Alert> getAlertsByRule(@PathVariable Integer ruleId) {
-        Alertrule rule = alertruleService.getAlertruleById(ruleId).orElse(null);
-        if (rule != null) {
-            return alertService.getAlertsByRule(rule);
-        }
-        return List.of();
+    public ResponseEntity<CursorPage<AlertView>> getAlertsByRule(
+            @PathVariable Integer ruleId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(alertService.getAlertsByRulePage(ruleId, null, cursor, limit));
     }
 
     @GetMapping("/alerts/range")
-    public List<Alert> getAlertsByTimeRange(@RequestParam Instant start, @RequestParam Instant end) {
-        return alertService.getAlertsByTimeRange(start, end);
+    public ResponseEntity<CursorPage<AlertView>> getAlertsByTimeRange(
+            @RequestParam Instant start,
+            @RequestParam Instant end,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(alertService.getAlertsByTimeRangePage(start, end, cursor, limit));
     }
 
     @GetMapping("/alerts/rule/{ruleId}/status/{status}")
-    public List<Alert> getAlertsByRuleAndStatus(@PathVariable Integer ruleId, @PathVariable AlertStatus status) {
-        Alertrule rule = alertruleService.getAlertruleById(ruleId).orElse(null);
-        if (rule != null) {
-            return alertService.getAlertsByRuleAndStatus(rule, status);
-        }
-        return List.of();
+    public ResponseEntity<CursorPage<AlertView>> getAlertsByRuleAndStatus(
+            @PathVariable Integer ruleId,
+            @PathVariable AlertStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(alertService.getAlertsByRulePage(ruleId, status, cursor, limit));
     }
 
     @GetMapping("/alerts/latest")
-    public List<Alert> getLatestAlerts(@RequestParam int limit) {
+    public List<AlertView> getLatestAlerts(@RequestParam int limit) {
         return alertService.getLatestAlerts(limit);
     }
 
@@ -139,8 +163,10 @@ public class AlertController {
     // ** ThreatIntel Endpoints **
 
     @GetMapping("/threats")
-    public List<Threatintel> getAllThreats() {
-        return threatintelService.getAllThreats();
+    public ResponseEntity<CursorPage<Threatintel>> getAllThreats(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(threatintelService.getThreatsPage(cursor, limit));
     }
 
     @GetMapping("/threats/{id}")
@@ -153,19 +179,31 @@ public class AlertController {
         return threatintelService.getThreatByIndicator(indicator);
     }
 
+    // Filtered threat lists are keyset paginated in id order, like /threats
     @GetMapping("/threats/severity/{severity}")
-    public List<Threatintel> getThreatsBySeverity(@PathVariable Severity severity) {
-        return threatintelService.getThreatsBySeverity(severity);
+    public ResponseEntity<CursorPage<Threatintel>> getThreatsBySeverity(
+            @PathVariable Severity severity,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(threatintelService.getThreatsBySeverityPage(severity, cursor, limit));
     }
 
     @GetMapping("/threats/type/{type}")
-    public List<Threatintel> getThreatsByType(@PathVariable String type) {
-        return threatintelService.getThreatsByType(type);
+    public ResponseEntity<CursorPage<Threatintel>> getThreatsByType(
+            @PathVariable String type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(threatintelService.getThreatsByTypePage(type, cursor, limit));
     }
 
     @GetMapping("/threats/advanced")
-    public List<Threatintel> advancedSearch(@RequestParam String type, @RequestParam Severity severity, @RequestParam String indicatorTerm) {
-        return threatintelService.advancedSearch(type, severity, indicatorTerm);
+    public ResponseEntity<CursorPage<Threatintel>> advancedSearch(
+            @RequestParam String type,
+            @RequestParam Severity severity,
+            @RequestParam String indicatorTerm,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(threatintelService.advancedSearchPage(type, severity, indicatorTerm, cursor, limit));
     }
 
     @GetMapping("/threats/top")
@@ -183,6 +221,33 @@ public class AlertController {
         threatintelService.deleteThreatintelById(id);
     }
 
+    /**
+     * Import a threat-intel feed (csv or jsonl) streamed in the request body as one delta.
+     * With full=true the feed replaces all indicators previously imported from the same source.
+     */
+    @PostMapping(value = "/threats/feed",
+            consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                    MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<?> importThreatFeed(
+            @RequestParam String source,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean full,
+            InputStream body) {
+        try {
+            return ResponseEntity.ok(threatFeedImporter.importFeed(body, format, source, full));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Could not read feed: " + e.getMessage());
+        }
+    }
+
+    // Size of the in-memory indicator index used at ingest, and lookup/match counters
+    @GetMapping("/threats/matcher/stats")
+    public Map<String, Object> getThreatMatcherStats() {
+        return threatintelService.getMatcherStats();
+    }
+
     /**
      * Gets summary statistics of alerts grouped by rule using subqueries
      * Uses aggregate functions (COUNT, MAX) with subqueries
@@ -192,6 +257,13 @@ public class AlertController {
         return ResponseEntity.ok(alertService.getAlertSummaryByRule());
     }
 
+    // Per-severity alert statistics from the alert_statistics materialized view, with its staleness headers
+    @GetMapping("/alerts/statistics/materialized")
+    public ResponseEntity<List<Object[]>> getAlertStatistics() {
+        return MaterializedResponse.of(alertService.getAlertStatisticsFromMaterializedView(),
+                alertService.getAlertStatisticsFreshness());
+    }
+
     /**
      * Finds alert rules that have been triggered frequently
      * Uses GROUP BY with HAVING clause
@@ -202,4 +274,10 @@ public class AlertController {
             @RequestParam(defaultValue = "5") int minAlerts) {
         return ResponseEntity.ok(alertruleService.getFrequentlyTriggeredRules(minAlerts));
     }
-}
\ No newline at end of file
+
+    // Rule engine counters: compiled rules, rules skipped (with the reason), events evaluated, alerts raised
+    @GetMapping("/detection/stats")
+    public Map<String, Object> getDetectionStats() {
+        return detectionEngine.getStats();
+    }
+}
@@ -1,6 +1,7 @@
 package edu.trincoll.siem.Controller;
 
 import edu.trincoll.siem.Model.Device;
+import edu.trincoll.siem.Service.CursorPage;
 import edu.trincoll.siem.Service.DeviceService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -9,6 +10,7 @@ import org.springframework.web.bind.annotation.*;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,9 +24,12 @@ public class DeviceController {
     @Autowired
     private DeviceService deviceService;
 
+    // Keyset paginated in id order; pass nextCursor back as ?cursor= for the next page
     @GetMapping
-    public List<Device> getAllDevices() {
-        return deviceService.getAllDevices();
+    public ResponseEntity<CursorPage<Device>> getAllDevices(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(deviceService.getDevicesPage(cursor, limit));
     }
 
     @GetMapping("/{id}")
@@ -53,29 +58,45 @@ public class DeviceController {
         return deviceService.getDeviceByHostname(hostname);
     }
 
+    // Searches and filters are keyset paginated in id order, like the device list
     @GetMapping("/search")
-    public List<Device> searchDevices(@RequestParam String query) {
-        return deviceService.searchDevices(query);
+    public ResponseEntity<CursorPage<Device>> searchDevices(
+            @RequestParam String query,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(deviceService.searchDevicesPage(query, cursor, limit));
     }
 
     @GetMapping("/os")
-    public List<Device> getDevicesByOperatingSystem(@RequestParam String os) {
-        return deviceService.getDevicesByOperatingSystem(os);
+    public ResponseEntity<CursorPage<Device>> getDevicesByOperatingSystem(
+            @RequestParam String os,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(deviceService.getDevicesByOperatingSystemPage(os, cursor, limit));
     }
 
     @GetMapping("/location")
-    public List<Device> getDevicesByLocation(@RequestParam String location) {
-        return deviceService.getDevicesByLocation(location);
+    public ResponseEntity<CursorPage<Device>> getDevicesByLocation(
+            @RequestParam String location,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(deviceService.getDevicesByLocationPage(location, cursor, limit));
     }
 
     @GetMapping("/type")
-    public List<Device> getDevicesByDeviceType(@RequestParam String type) {
-        return deviceService.getDevicesByDeviceType(type);
+    public ResponseEntity<CursorPage<Device>> getDevicesByDeviceType(
+            @RequestParam String type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(deviceService.getDevicesByDeviceTypePage(type, cursor, limit));
     }
 
     @GetMapping("/subnet")
-    public List<Device> getDevicesBySubnet(@RequestParam String subnet) {
-        return deviceService.getDevicesBySubnet(subnet);
+    public ResponseEntity<CursorPage<Device>> getDevicesBySubnet(
+            @RequestParam String subnet,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(deviceService.getDevicesBySubnetPage(subnet, cursor, limit));
     }
 
     @GetMapping("/count/os")
@@ -94,8 +115,18 @@ public class DeviceController {
     }
 
     @GetMapping("/filter")
-    public List<Device> getDevicesByLocationAndType(@RequestParam String location, @RequestParam String type) {
-        return deviceService.getDevicesByLocationAndType(location, type);
+    public ResponseEntity<CursorPage<Device>> getDevicesByLocationAndType(
+            @RequestParam String location,
+            @RequestParam String type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(deviceService.getDevicesByLocationAndTypePage(location, type, cursor, limit));
+    }
+
+    // Hit/miss counters for the device lookup cache used during ingestion
+    @GetMapping("/cache/stats")
+    public Map<String, Object> getCacheStats() {
+        return deviceService.getCacheStats();
     }
 
     @PostMapping
@@ -2,17 +2,26 @@ package edu.trincoll.siem.Controller;
 
 import edu.trincoll.siem.Model.*;
 import edu.trincoll.siem.Model.Enums.LogFileStatus;
+import edu.trincoll.siem.Model.View.LogeventView;
+import edu.trincoll.siem.Model.View.RawlineView;
 import edu.trincoll.siem.Service.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.Optional;
 
 // Handles: LogEvent, RawLine, LogFile, EventCategory, Action features
 @RestController
@@ -24,14 +33,22 @@ public class EventController {
     private final RawlineService rawlineService;
     private final LogfileService logfileService;
     private final ActionService actionService;
+    private final IngestionScheduler ingestionScheduler;
+    private final LogeventExporter logeventExporter;
+    private final RetentionArchiver retentionArchiver;
+    private final LogTailer logTailer;
 
     @Autowired
-    public EventController(EventcategoryService eventcategoryService, LogeventService logeventService, RawlineService rawlineService, LogfileService logfileService, ActionService actionService) {
+    public EventController(EventcategoryService eventcategoryService, LogeventService logeventService, RawlineService rawlineService, LogfileService logfileService, ActionService actionService, IngestionScheduler ingestionScheduler, LogeventExporter logeventExporter, RetentionArchiver retentionArchiver, LogTailer logTailer) {
         this.eventcategoryService = eventcategoryService;
         this.logeventService = logeventService;
         this.rawlineService = rawlineService;
         this.logfileService = logfileService;
         this.actionService = actionService;
+        this.ingestionScheduler = ingestionScheduler;
+        this.logeventExporter = logeventExporter;
+        this.retentionArchiver = retentionArchiver;
+        this.logTailer = logTailer;
     }
 
     // EventCategory methods
@@ -165,10 +182,12 @@ public class EventController {
 
     // LogEvent methods
 
-    // Get all events
+    // Get events, newest first, one keyset page at a time (next page token in nextCursor)
     @GetMapping("/logevents")
-    public List<Logevent> getAllEvents() {
-        return logeventService.getAllEvents();
+    public ResponseEntity<CursorPage<LogeventView>> getAllEvents(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(logeventService.getEventsPage(cursor, limit));
     }
 
     // Get event by ID
@@ -181,29 +200,62 @@ public class EventController {
 
     // Get events by file ID
     @GetMapping("/logevents/by-file/{fileId}")
-    public List<Logevent> getEventsByFile(@PathVariable Integer fileId) {
-        Logfile file = new Logfile();
-        file.setId(fileId);
-        return logeventService.getEventsByFile(file);
+    public ResponseEntity<CursorPage<LogeventView>> getEventsByFile(
+            @PathVariable Integer fileId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(logeventService.getEventsByFilePage(fileId, cursor, limit));
     }
 
     // Get events with no alert
     @GetMapping("/logevents/no-alert")
-    public List<Logevent> getEventsWithNoAlert() {
-        return logeventService.getEventsWithNoAlert();
+    public ResponseEntity<CursorPage<LogeventView>> getEventsWithNoAlert(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(logeventService.getEventsWithNoAlertPage(cursor, limit));
     }
 
     // Get events between timestamps
     @GetMapping("/logevents/time-range")
-    public List<Logevent> getEventsBetween(
+    public ResponseEntity<CursorPage<LogeventView>> getEventsBetween(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startTime,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endTime) {
-        return logeventService.getEventsBetween(startTime, endTime);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endTime,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(logeventService.getEventsBetweenPage(startTime, endTime, cursor, limit));
+    }
+
+    /**
+     * Stream every event in a time range (optionally of one file), oldest first, as NDJSON or CSV.
+     * Rows are written to the response as they are read, so any range size can be exported.
+     */
+    @GetMapping("/logevents/export")
+    public ResponseEntity<StreamingResponseBody> exportEvents(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endTime,
+            @RequestParam(required = false) Integer fileId,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        LogeventExporter.Format exportFormat;
+        try {
+            exportFormat = LogeventExporter.Format.from(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (endTime.isBefore(startTime)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> logeventExporter.export(startTime, endTime, fileId, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"logevents." + exportFormat.getExtension() + "\"")
+                .body(body);
     }
 
     // Get latest events
     @GetMapping("/logevents/latest")
-    public List<Logevent> getLatestEvents(@RequestParam(defaultValue = "10") int limit) {
+    public List<LogeventView> getLatestEvents(@RequestParam(defaultValue = "10") int limit) {
         return logeventService.getLatestEvents(limit);
     }
 
@@ -212,9 +264,80 @@ public class EventController {
         return logeventService.getEventCountTimeSeries(startTime, endTime);
     }
 
+    /**
+     * Event counts per minute or hour for each file, action or source device, served from the
+     * rollup table. Each row is [bucket, group, count, average message length].
+     */
+    @GetMapping("/event-count/rollup")
+    public ResponseEntity<List<Object[]>> getEventRollup(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endTime,
+            @RequestParam(defaultValue = "hour") String resolution,
+            @RequestParam(defaultValue = "file") String groupBy) {
+        if (endTime.isBefore(startTime)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(logeventService.getEventRollup(startTime, endTime, resolution, groupBy));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Recompute the rollups of a time range from the stored events; archived or dropped events in it are no longer counted
+    @PostMapping("/event-count/rollup/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildEventRollup(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endTime) {
+        if (endTime.isBefore(startTime)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(Map.of("rows", logeventService.rebuildEventRollups(startTime, endTime)));
+    }
+
+    // Hourly counts from the logevent_count_per_hour materialized view, with its staleness headers
     @GetMapping("/event-count/materialized")
-    public List<Object[]> getEventPerHour(@RequestParam Instant startTime, @RequestParam Instant endTime) {
-        return logeventService.getEventCountFromMaterializedView(startTime, endTime);
+    public ResponseEntity<List<Object[]>> getEventPerHour(@RequestParam Instant startTime, @RequestParam Instant endTime) {
+        return MaterializedResponse.of(logeventService.getEventCountFromMaterializedView(startTime, endTime),
+                logeventService.getEventCountFreshness());
+    }
+
+    /**
+     * Load archived events of a time range back into the database, for all files of a source type
+     * or for one file. The window then stays in the database for siem.retention.restore-hold-days.
+     */
+    @PostMapping("/archive/restore")
+    public ResponseEntity<Map<String, Long>> restoreArchive(
+            @RequestParam(required = false) String sourceType,
+            @RequestParam(required = false) Integer fileId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant startTime,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant endTime) throws IOException {
+        if (endTime.isBefore(startTime)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(retentionArchiver.restore(sourceType, fileId, startTime, endTime));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Retention policies, events archived and restored, and the last run
+    @GetMapping("/retention/stats")
+    public Map<String, Object> getRetentionStats() {
+        return retentionArchiver.getStats();
+    }
+
+    // Daily partitions of logevent and alert: count, oldest and newest day, retention
+    @GetMapping("/partitions/stats")
+    public Map<String, Object> getPartitionStats() {
+        return logeventService.getPartitionStats();
+    }
+
+    // Last refresh, refresh duration and skipped/failed refreshes per materialized view
+    @GetMapping("/materialized-views/stats")
+    public Map<String, Object> getMaterializedViewStats() {
+        return logeventService.getMaterializedViewStats();
     }
 
     // Create a new event
@@ -262,10 +385,12 @@ public class EventController {
 
     // RawLine methods
 
-    // Get all raw lines
+    // Get raw lines in id order, one keyset page at a time
     @GetMapping("/rawlines")
-    public List<Rawline> getAllRawlines() {
-        return rawlineService.getAllRawlines();
+    public ResponseEntity<CursorPage<RawlineView>> getAllRawlines(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(rawlineService.getRawlinesPage(cursor, limit));
     }
 
     // Get raw line by content using POST (to handle special characters)
@@ -281,30 +406,38 @@ public class EventController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    // Search raw lines by message
+    // Search raw lines by message, keyset paginated in id order
     @GetMapping("/rawlines/search")
-    public List<Rawline> searchRawlines(@RequestParam String term) {
-        return rawlineService.searchRawlinesByMessage(term);
+    public ResponseEntity<CursorPage<RawlineView>> searchRawlines(
+            @RequestParam String term,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(rawlineService.searchRawlinesByMessagePage(term, cursor, limit));
     }
 
-    // Full text search
+    // Full text search. Ranked by relevance, so not paginated: returns the `limit` best matches
+    // (at most 1000); ask for more rather than expecting a next page
     @GetMapping("/rawlines/fulltext")
-    public List<Rawline> fullTextSearch(@RequestParam String term) {
-        return rawlineService.fullTextSearch(term);
+    public List<Rawline> fullTextSearch(
+            @RequestParam String term,
+            @RequestParam(defaultValue = "100") int limit) {
+        return rawlineService.fullTextSearch(term, limit);
     }
 
-    // Advanced search
+    // Advanced search, keyset paginated in id order
     @GetMapping("/rawlines/advanced-search")
-    public List<Rawline> advancedSearch(
+    public ResponseEntity<CursorPage<RawlineView>> advancedSearch(
             @RequestParam(required = false) Integer sourceDeviceId,
             @RequestParam(required = false) Integer destDeviceId,
             @RequestParam(required = false) Integer sourcePort,
             @RequestParam(required = false) Integer destPort,
             @RequestParam(required = false) String actionId,
-            @RequestParam(required = false) String messageText) {
+            @RequestParam(required = false) String messageText,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
 
-        return rawlineService.advancedSearch(
-                sourceDeviceId, destDeviceId, sourcePort, destPort, actionId, messageText);
+        return PagedResponse.of(rawlineService.advancedSearchPage(
+                sourceDeviceId, destDeviceId, sourcePort, destPort, actionId, messageText, cursor, limit));
     }
 
     // Create a new raw line
@@ -331,10 +464,12 @@ public class EventController {
 
     // LogFile methods
 
-    // Get all log files
+    // Get log files, most recent first, one keyset page at a time
     @GetMapping("/logfiles")
-    public List<Logfile> getAllLogfiles() {
-        return logfileService.getAllLogfiles();
+    public ResponseEntity<CursorPage<Logfile>> getAllLogfiles(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(logfileService.getLogfilesPage(cursor, limit));
     }
 
     // Get log file by ID
@@ -345,11 +480,44 @@ public class EventController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    // Create a new log file
+    /**
+     * Download the original content of a log file, decompressed as it is sent. 404 if the file
+     * does not exist or its content was not kept (or has been archived by retention).
+     */
+    @GetMapping("/logfiles/{id}/content")
+    public ResponseEntity<StreamingResponseBody> getLogfileContent(@PathVariable Integer id) {
+        Optional<Logfile> logfile = logfileService.getLogfileById(id);
+        Long length = logfile.isPresent() ? logfileService.getContentLength(id) : null;
+        if (length == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String filename = logfile.get().getFilename() != null ? logfile.get().getFilename() : "logfile-" + id + ".log";
+        StreamingResponseBody body = out -> logfileService.copyContentTo(id, out);
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .contentLength(length)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename, StandardCharsets.UTF_8).build().toString())
+                .body(body);
+    }
+
+    // Create a new log file; its content is parsed asynchronously by the ingestion scheduler.
+    // logformat picks the parser (see /ingest/parsers); if omitted it is configured or detected.
+    // Content already ingested from the same source is not ingested again: 200 with the existing file.
     @PostMapping("/logfiles")
-    public ResponseEntity<Logfile> createLogfile(@RequestBody Logfile logfile) {
-        // Set the status to "Uploaded" regardless of what was provided
-        logfile.setStatus(LogFileStatus.Uploaded);
+    public ResponseEntity<Logfile> createLogfile(
+            @RequestBody Logfile logfile,
+            @RequestParam(defaultValue = "0") int priority) {
+        if (!isKnownLogFormat(logfile.getLogformat())) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<Logfile> copy = logfileService.findUploadedCopy(logfile);
+        if (copy.isPresent()) {
+            return ResponseEntity.ok(copy.get());
+        }
+        // Pending until the ingestion job finishes (then Uploaded or Failed)
+        logfile.setStatus(LogFileStatus.Pending);
 
         // Set the current timestamp if not provided
         if (logfile.getUploadtime() == null) {
@@ -359,14 +527,103 @@ public class EventController {
         // Save the log file first to get an ID
         Logfile savedLogfile = logfileService.saveLogfile(logfile);
 
-        // Process the file content asynchronously
-        CompletableFuture.runAsync(() -> {
-            logfileService.processLogfileContent(savedLogfile);
-        });
-
+        // Queue the file content for processing
+        try {
+            ingestionScheduler.submit(savedLogfile, priority);
+        } catch (IngestionRejectedException e) {
+            // Don't leave a Pending file behind that will never be processed
+            logfileService.deleteLogfile(savedLogfile.getId());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .build();
+        }
 
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(logfileService.saveLogfile(logfile));
+                .body(savedLogfile);
+    }
+
+    /**
+     * Stream a log file from the raw request body. Lines are parsed and persisted while the
+     * body is being read, so the whole file is never held in memory.
+     * Set storeRawContent=true to also keep the original file, compressed, for /logfiles/{id}/content,
+     * and format to choose the parser instead of the configured or detected one.
+     */
+    @PostMapping(value = "/logfiles/stream",
+            consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<Logfile> streamLogfile(
+            @RequestParam String filename,
+            @RequestParam(required = false) String sourcename,
+            @RequestParam(required = false) String sourcetype,
+            @RequestParam(defaultValue = "false") boolean storeRawContent,
+            @RequestParam(required = false) String format,
+            InputStream body) {
+        if (!isKnownLogFormat(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+        Logfile logfile = new Logfile();
+        logfile.setFilename(filename);
+        logfile.setSourcename(sourcename);
+        logfile.setSourcetype(sourcetype);
+        logfile.setLogformat(format);
+        logfile.setUploadtime(Instant.now());
+        logfile.setStatus(LogFileStatus.Pending);
+
+        // Save the log file first to get an ID
+        Logfile savedLogfile = logfileService.saveLogfile(logfile);
+
+        // Waits for an ingestion slot like a queued upload, and is turned away when the queue is full
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ingestionScheduler.runInline(savedLogfile,
+                            job -> logfileService.ingestStream(savedLogfile, body, storeRawContent, job)));
+        } catch (IngestionRejectedException e) {
+            logfileService.deleteLogfile(savedLogfile.getId());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .build();
+        }
+    }
+
+    // Ingestion jobs (queued, running and recently finished) with per-file progress
+    @GetMapping("/ingest/jobs")
+    public List<IngestionJob> getIngestionJobs() {
+        return ingestionScheduler.getJobs();
+    }
+
+    // Stored original files: chunks written, bytes in and stored, compression ratio, downloads
+    @GetMapping("/ingest/content/stats")
+    public Map<String, Object> getContentStats() {
+        return logfileService.getContentStats();
+    }
+
+    // Log formats with the files parsed with each, and how many of those were detected
+    @GetMapping("/ingest/parsers")
+    public Map<String, Object> getParserStats() {
+        return logfileService.getParserStats();
+    }
+
+    // Re-uploads recognized by content fingerprint: duplicates, overlapping uploads and lines skipped
+    @GetMapping("/ingest/duplicates")
+    public Map<String, Object> getFingerprintStats() {
+        return logfileService.getFingerprintStats();
+    }
+
+    // Files followed in the local log directories, with the offset read up to, and lines read, rotations and truncations
+    @GetMapping("/ingest/tail")
+    public Map<String, Object> getTailStats() {
+        return logTailer.getStats();
+    }
+
+    // A requested format must name a parser; none requested is fine
+    private boolean isKnownLogFormat(String format) {
+        return format == null || format.isBlank() || logfileService.getLogFormats().contains(format.trim());
+    }
+
+    @GetMapping("/ingest/jobs/{id}")
+    public ResponseEntity<IngestionJob> getIngestionJob(@PathVariable Long id) {
+        return ingestionScheduler.getJob(id)
+                .map(job -> ResponseEntity.ok(job))
+                .orElse(ResponseEntity.notFound().build());
     }
 
     // Update a log file
@@ -392,13 +649,20 @@ public class EventController {
     }
 
     // Delete a log file
+    // 409 with the ids of later uploads whose leading lines were only ingested with this file
     @DeleteMapping("/logfiles/{id}")
-    public ResponseEntity<Void> deleteLogfile(@PathVariable Integer id) {
-        if (logfileService.logfileExists(id)) {
-            logfileService.deleteLogfile(id);
-            return ResponseEntity.noContent().build();
+    public ResponseEntity<?> deleteLogfile(@PathVariable Integer id) {
+        if (!logfileService.logfileExists(id)) {
+            return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.notFound().build();
+        List<Integer> dependents = logfileService.getDependentUploads(id);
+        if (!dependents.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", "Later uploads skipped lines already ingested with this file; delete them first",
+                    "dependentFileIds", dependents));
+        }
+        logfileService.deleteLogfile(id);
+        return ResponseEntity.noContent().build();
     }
 
     // Statistics endpoints
@@ -446,8 +710,10 @@ public class EventController {
      * This query involves 4+ relations (LogEvent, RawLine, LogFile, Device, Action)
      */
     @GetMapping("/complex-report")
-    public ResponseEntity<List<Object[]>> getComplexEventReport() {
-        return ResponseEntity.ok(logeventService.getComplexEventReport());
+    public ResponseEntity<CursorPage<Object[]>> getComplexEventReport(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(logeventService.getComplexEventReportPage(cursor, limit));
     }
 
     /**
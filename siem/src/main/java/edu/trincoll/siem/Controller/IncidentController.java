@@ -3,6 +3,7 @@ package edu.trincoll.siem.Controller;
 import edu.trincoll.siem.Model.Incidentreport;
 import edu.trincoll.siem.Model.Incidenteventlink;
 import edu.trincoll.siem.Model.Logevent;
+import edu.trincoll.siem.Service.CursorPage;
 import edu.trincoll.siem.Service.IncidentreportService;
 import edu.trincoll.siem.Service.IncidenteventlinkService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,39 +32,59 @@ public class IncidentController {
         return report.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
-    // Get incident reports by a user
+    // Get all incident reports, newest first, one keyset page at a time
+    @GetMapping("/reports")
+    public ResponseEntity<CursorPage<Incidentreport>> getReports(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(incidentreportService.getReportsPage(cursor, limit));
+    }
+
+    // Get an incident report by its ID
+    @GetMapping("/reports/{reportId:\\d+}")
+    public ResponseEntity<Incidentreport> getReportById(@PathVariable Integer reportId) {
+        return incidentreportService.getReportById(reportId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    // Get incident reports by a user, newest first, one keyset page at a time
     @GetMapping("/reports/user/{userId}")
-    public ResponseEntity<List<Incidentreport>> getReportsByUser(@PathVariable Integer userId) {
-        List<Incidentreport> reports = incidentreportService.getReportsByUser(userId);
-        return ResponseEntity.ok(reports);
+    public ResponseEntity<CursorPage<Incidentreport>> getReportsByUser(
+            @PathVariable Integer userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(incidentreportService.getReportsByUserPage(userId, cursor, limit));
     }
 
-    // Get incident reports by alert
+    // Get incident reports by alert, newest first, one keyset page at a time
     @GetMapping("/reports/alert/{alertId}")
-    public ResponseEntity<List<Incidentreport>> getReportsByAlert(@PathVariable Integer alertId) {
-        List<Incidentreport> reports = incidentreportService.getReportsByAlert(alertId);
-        return ResponseEntity.ok(reports);
+    public ResponseEntity<CursorPage<Incidentreport>> getReportsByAlert(
+            @PathVariable Integer alertId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(incidentreportService.getReportsByAlertPage(alertId, cursor, limit));
     }
 
-    // Get all links for a specific incident report
+    // Get the links of a specific incident report, one keyset page at a time in event id order
     @GetMapping("/links/report/{reportId}")
-    public ResponseEntity<List<Incidenteventlink>> getLinksByReport(@PathVariable Integer reportId) {
-        Incidentreport report = incidentreportService.getReportById(reportId).orElse(null);
-        if (report != null) {
-            List<Incidenteventlink> links = incidenteventlinkService.getLinksByIncidentReport(report);
-            return ResponseEntity.ok(links);
-        } else {
+    public ResponseEntity<CursorPage<Incidenteventlink>> getLinksByReport(
+            @PathVariable Integer reportId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (incidentreportService.getReportById(reportId).isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
+        return PagedResponse.of(incidenteventlinkService.getLinksByReportPage(reportId, cursor, limit));
     }
 
-    // Get all links for a specific log event
+    // Get the links of a specific log event, one keyset page at a time in report id order
     @GetMapping("/links/event/{eventId}")
-    public ResponseEntity<List<Incidenteventlink>> getLinksByEvent(@PathVariable Integer eventId) {
-        Logevent event = new Logevent();
-        event.setId(eventId);
-        List<Incidenteventlink> links = incidenteventlinkService.getLinksByLogEvent(event);
-        return ResponseEntity.ok(links);
+    public ResponseEntity<CursorPage<Incidenteventlink>> getLinksByEvent(
+            @PathVariable Integer eventId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(incidenteventlinkService.getLinksByEventPage(eventId, cursor, limit));
     }
 
     // Check if a specific link exists
@@ -122,7 +143,7 @@ public class IncidentController {
         return ResponseEntity.noContent().build();
     }
 
-    // Get reports with the most linked events (paginated)
+    // Get reports with the most linked events (offset paginated; size is capped at 1000)
     @GetMapping("/reports/most-linked")
     public ResponseEntity<List<Object[]>> getReportsWithMostLinkedEvents(
             @RequestParam(value = "page", defaultValue = "0") int page,
@@ -131,13 +152,14 @@ public class IncidentController {
         return ResponseEntity.ok(reports);
     }
 
-    // Get reports created within a specific date range
+    // Get reports created within a specific date range, newest first, one keyset page at a time
     @GetMapping("/reports/dateRange")
-    public ResponseEntity<List<Incidentreport>> getReportsByDateRange(
+    public ResponseEntity<CursorPage<Incidentreport>> getReportsByDateRange(
             @RequestParam Instant startDate,
-            @RequestParam Instant endDate) {
-        List<Incidentreport> reports = incidentreportService.getReportsByDateRange(startDate, endDate);
-        return ResponseEntity.ok(reports);
+            @RequestParam Instant endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(incidentreportService.getReportsByDateRangePage(startDate, endDate, cursor, limit));
     }
 
     // Create a new incident report
@@ -156,21 +178,25 @@ public class IncidentController {
 
     /**
      * Finds incident reports linked to critical events using subqueries
-     * This is a non-trivial subquery application
+     * This is a non-trivial subquery application. Newest (highest id) first, one keyset page at a time
      */
     @GetMapping("/reports/with-critical-events")
-    public ResponseEntity<List<Incidentreport>> getReportsWithCriticalEvents() {
-        return ResponseEntity.ok(incidentreportService.getReportsWithCriticalEvents());
+    public ResponseEntity<CursorPage<Incidentreport>> getReportsWithCriticalEvents(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(incidentreportService.getReportsWithCriticalEventsPage(cursor, limit));
     }
 
     /**
      * Finds reports with events related to a specific alert using set operations (UNION, EXCEPT)
-     * This implements set operations in SQL
+     * This implements set operations in SQL. Newest (highest id) first, one keyset page at a time
      * @param alertId The ID of the alert to find related events for
      */
     @GetMapping("/reports/with-related-events")
-    public ResponseEntity<List<Incidentreport>> getReportsWithRelatedEvents(
-            @RequestParam Integer alertId) {
-        return ResponseEntity.ok(incidentreportService.getReportsWithRelatedEvents(alertId));
+    public ResponseEntity<CursorPage<Incidentreport>> getReportsWithRelatedEvents(
+            @RequestParam Integer alertId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return PagedResponse.of(incidentreportService.getReportsWithRelatedEventsPage(alertId, cursor, limit));
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package edu.trincoll.siem.Controller;
+
+import edu.trincoll.siem.Service.MaterializedViewRefresher;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+
+/**
+ * Responses served from a materialized view say how old the data is: X-Refreshed-At is when the
+ * view was last rebuilt, X-Staleness-Seconds how long ago it was last known to match its source
+ * tables. Both are absent until the first refresh since startup.
+ */
+final class MaterializedResponse {
+
+    static final String REFRESHED_AT_HEADER = "X-Refreshed-At";
+    static final String STALENESS_HEADER = "X-Staleness-Seconds";
+
+    private MaterializedResponse() {
+    }
+
+    static <T> ResponseEntity<T> of(T body, MaterializedViewRefresher.Freshness freshness) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (freshness.refreshedAt() != null) {
+            response.header(REFRESHED_AT_HEADER, freshness.refreshedAt().toString());
+            response.header(STALENESS_HEADER, Long.toString(freshness.staleness(Instant.now()).toSeconds()));
+        }
+        return response.body(body);
+    }
+}
@@ -0,0 +1,25 @@
+package edu.trincoll.siem.Controller;
+
+import edu.trincoll.siem.Service.CursorPage;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Keyset-paginated endpoints return {@code {"items": [...], "nextCursor": "..."}}, so a client
+ * cannot mistake the first page for the whole list: nextCursor is null only on the last page.
+ * It is passed back as ?cursor= for the next page, and is also sent in the X-Next-Cursor header.
+ */
+final class PagedResponse {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private PagedResponse() {
+    }
+
+    static <T> ResponseEntity<CursorPage<T>> of(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page);
+    }
+}
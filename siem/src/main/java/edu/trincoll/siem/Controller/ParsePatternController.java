@@ -0,0 +1,99 @@
+package edu.trincoll.siem.Controller;
+
+import edu.trincoll.siem.Model.Parsepattern;
+import edu.trincoll.siem.Service.ParsepatternService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+// Handles: user-defined grok-style ParsePattern features. Changes apply to files ingested afterwards.
+@RestController
+@RequestMapping("/api/patterns")
+public class ParsePatternController {
+
+    private final ParsepatternService parsepatternService;
+
+    @Autowired
+    public ParsePatternController(ParsepatternService parsepatternService) {
+        this.parsepatternService = parsepatternService;
+    }
+
+    @GetMapping
+    public List<Parsepattern> getAllPatterns() {
+        return parsepatternService.getAllParsepatterns();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<Parsepattern> getPatternById(@PathVariable Integer id) {
+        return parsepatternService.getParsepatternById(id)
+                .map(pattern -> ResponseEntity.ok(pattern))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // 400 with the reason if the pattern does not compile or the name is taken
+    @PostMapping
+    public ResponseEntity<?> createPattern(@RequestBody Parsepattern parsepattern) {
+        parsepattern.setId(null);
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(parsepatternService.saveParsepattern(parsepattern));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<?> updatePattern(@PathVariable Integer id, @RequestBody Parsepattern parsepattern) {
+        if (!parsepatternService.parsepatternExists(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        parsepattern.setId(id);
+        try {
+            return ResponseEntity.ok(parsepatternService.saveParsepattern(parsepattern));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deletePattern(@PathVariable Integer id) {
+        if (!parsepatternService.parsepatternExists(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        parsepatternService.deleteParsepatternById(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Try a pattern on a sample line without saving it: {"pattern": "...", "line": "..."}.
+     * Returns the captured fields, 422 if the line does not match, 400 if the pattern is invalid.
+     */
+    @PostMapping("/test")
+    public ResponseEntity<?> testPattern(@RequestBody Map<String, String> payload) {
+        String line = payload.get("line");
+        if (line == null) {
+            return ResponseEntity.badRequest().body("line is required");
+        }
+        try {
+            Map<String, Object> fields = parsepatternService.testPattern(payload.get("pattern"), line);
+            return fields != null ? ResponseEntity.ok(fields) : ResponseEntity.unprocessableEntity().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // The built-in %{NAME} patterns
+    @GetMapping("/library")
+    public Map<String, String> getLibrary() {
+        return parsepatternService.getLibrary();
+    }
+
+    // Version of the compiled set, and per pattern: lines tried, matched, match rate and cost per line
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return parsepatternService.getStats();
+    }
+}
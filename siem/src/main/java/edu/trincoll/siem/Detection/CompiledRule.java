@@ -0,0 +1,80 @@
+package edu.trincoll.siem.Detection;
+
+import edu.trincoll.siem.Model.Alertrule;
+import edu.trincoll.siem.Service.ThreatIntelMatcher;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * An active alert rule together with the evaluator built from its condition logic.
+ * <p>
+ * Supported conditions:
+ * <ul>
+ *   <li>{@code {"condition":"count","field":"Action","value":"LOGIN_FAILED","threshold":5,"timeWindow":600,"groupBy":"username"}}
+ *   (groupBy is optional; without it all matching events are counted together;
+ *   "threshold" is accepted as another name for "count")</li>
+ *   <li>{@code {"condition":"match","field":"SourceIP","values":["10.0.0.1","10.0.0.2"]}} (or a single "value")</li>
+ *   <li>{@code {"condition":"match","field":"SourceIP","list":"malicious_ips"}} (threat intel, see {@link ThreatListEvaluator})</li>
+ * </ul>
+ */
+record CompiledRule(Integer ruleId, String name, long suppressMillis, RuleEvaluator evaluator) {
+
+    // How long a fired alert keeps absorbing matching events when the rule has no timeWindow
+    static final long DEFAULT_SUPPRESS_MILLIS = 600_000L;
+
+    /**
+     * @throws IllegalArgumentException if the condition logic is missing fields or uses an unsupported condition
+     */
+    static CompiledRule compile(Alertrule rule, SlidingWindowStore windows, ThreatIntelMatcher threatIntel) {
+        Map<String, Object> logic = rule.getConditionlogic();
+        if (logic == null) {
+            throw new IllegalArgumentException("Rule has no condition logic");
+        }
+        String condition = requireString(logic, "condition");
+        String field = requireString(logic, "field");
+
+        long windowMillis = logic.get("timeWindow") instanceof Number seconds
+                ? seconds.longValue() * 1000L
+                : DEFAULT_SUPPRESS_MILLIS;
+
+        RuleEvaluator evaluator = switch (condition.toLowerCase(Locale.ROOT)) {
+            case "count", "threshold" -> {
+                if (!(logic.get("threshold") instanceof Number threshold) || threshold.intValue() < 1) {
+                    throw new IllegalArgumentException("count rule needs a positive threshold");
+                }
+                if (!(logic.get("timeWindow") instanceof Number)) {
+                    throw new IllegalArgumentException("count rule needs a timeWindow in seconds");
+                }
+                String groupBy = logic.get("groupBy") instanceof String name ? name : null;
+                yield new CountEvaluator(rule.getId(), EventField.of(field), requireString(logic, "value"),
+                        groupBy != null ? EventField.of(groupBy) : null, threshold.intValue(), windowMillis, windows);
+            }
+            case "match" -> logic.get("list") instanceof String list
+                    ? new ThreatListEvaluator(EventField.of(field), list, threatIntel)
+                    : new MatchEvaluator(EventField.of(field), matchValues(logic));
+            default -> throw new IllegalArgumentException("Unsupported condition '" + condition + "'");
+        };
+        return new CompiledRule(rule.getId(), rule.getName(), windowMillis, evaluator);
+    }
+
+    private static Set<String> matchValues(Map<String, Object> logic) {
+        Object values = logic.get("values");
+        if (values instanceof Collection<?> list && !list.isEmpty()) {
+            return list.stream()
+                    .map(value -> value.toString().toLowerCase(Locale.ROOT))
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+        return Set.of(requireString(logic, "value").toLowerCase(Locale.ROOT));
+    }
+
+    private static String requireString(Map<String, Object> logic, String key) {
+        if (logic.get(key) instanceof String value && !value.isBlank()) {
+            return value;
+        }
+        throw new IllegalArgumentException("Missing '" + key + "'");
+    }
+}
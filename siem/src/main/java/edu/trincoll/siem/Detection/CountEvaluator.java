@@ -0,0 +1,56 @@
+package edu.trincoll.siem.Detection;
+
+import edu.trincoll.siem.Parser.ParsedLogLine;
+
+import java.util.function.Function;
+
+/**
+ * "count" rules: fire when at least threshold matching events for the same group fall
+ * within timeWindow seconds. Counts live in the shared {@link SlidingWindowStore}; the
+ * group's window starts over after the rule fires.
+ */
+class CountEvaluator implements RuleEvaluator {
+
+    private static final String ALL = "";
+
+    private final int ruleId;
+    private final Function<ParsedLogLine, String> field;
+    private final String value;
+    private final Function<ParsedLogLine, String> groupBy;
+    private final int threshold;
+    private final long windowMillis;
+    private final SlidingWindowStore windows;
+
+    CountEvaluator(int ruleId, Function<ParsedLogLine, String> field, String value,
+                   Function<ParsedLogLine, String> groupBy, int threshold, long windowMillis,
+                   SlidingWindowStore windows) {
+        this.ruleId = ruleId;
+        this.field = field;
+        this.value = value;
+        this.groupBy = groupBy;
+        this.threshold = threshold;
+        this.windowMillis = windowMillis;
+        this.windows = windows;
+    }
+
+    @Override
+    public String match(ParsedLogLine parsed) {
+        String actual = field.apply(parsed);
+        if (actual == null || !actual.equalsIgnoreCase(value)) {
+            return null;
+        }
+        if (groupBy == null) {
+            return ALL;
+        }
+        return groupBy.apply(parsed);
+    }
+
+    @Override
+    public boolean record(String groupKey, long epochMillis) {
+        if (windows.increment(ruleId, groupKey, epochMillis, windowMillis) >= threshold) {
+            windows.reset(ruleId, groupKey);
+            return true;
+        }
+        return false;
+    }
+}
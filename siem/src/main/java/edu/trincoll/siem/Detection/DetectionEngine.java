@@ -0,0 +1,200 @@
+package edu.trincoll.siem.Detection;
+
+import edu.trincoll.siem.Model.Alert;
+import edu.trincoll.siem.Model.Alertrule;
+import edu.trincoll.siem.Model.Logevent;
+import edu.trincoll.siem.Parser.ParsedLogLine;
+import edu.trincoll.siem.Repository.AlertruleRepository;
+import edu.trincoll.siem.Service.ThreatIntelMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Types;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Evaluates the active alert rules against every event as it is ingested. Rules are compiled
+ * once into evaluators that keep their sliding-window state in memory ({@link SlidingWindowStore}),
+ * so no query runs per event. When a rule fires an Alert row is inserted right away and the event is linked to it;
+ * further matching events for the same rule and group attach to that alert until its window
+ * has passed instead of raising new ones.
+ */
+@Component
+public class DetectionEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(DetectionEngine.class);
+
+    private static final String INSERT_ALERT_SQL =
+            "INSERT INTO alert (triggeredat, ruleid, status) VALUES (?, ?, 'Open') RETURNING alertid";
+
+    // Drop expired entries from activeAlerts once it grows past this size
+    private static final int ACTIVE_ALERT_PURGE_SIZE = 10_000;
+
+    private final AlertruleRepository alertruleRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final SlidingWindowStore windows;
+    private final ThreatIntelMatcher threatIntel;
+
+    private volatile List<CompiledRule> rules;
+    private volatile Map<Integer, String> skippedRules = Map.of();
+
+    // Open alert per "ruleId|groupKey"
+    private final Map<String, ActiveAlert> activeAlerts = new ConcurrentHashMap<>();
+
+    private final LongAdder eventsEvaluated = new LongAdder();
+    private final LongAdder alertsRaised = new LongAdder();
+
+    public DetectionEngine(AlertruleRepository alertruleRepository, JdbcTemplate jdbcTemplate,
+                           SlidingWindowStore windows, ThreatIntelMatcher threatIntel) {
+        this.alertruleRepository = alertruleRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.windows = windows;
+        this.threatIntel = threatIntel;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        reload();
+    }
+
+    /**
+     * Recompile the active rules. Window state starts over, since the rules may have changed.
+     */
+    public synchronized void reload() {
+        List<CompiledRule> compiled = new ArrayList<>();
+        Map<Integer, String> skipped = new LinkedHashMap<>();
+        for (Alertrule rule : alertruleRepository.findByIsactive(true)) {
+            try {
+                compiled.add(CompiledRule.compile(rule, windows, threatIntel));
+            } catch (IllegalArgumentException e) {
+                // Leave the rule out rather than failing ingestion
+                logger.warn("Skipping alert rule {} ({}): {}", rule.getId(), rule.getName(), e.getMessage());
+                skipped.put(rule.getId(), e.getMessage());
+            }
+        }
+        activeAlerts.clear();
+        windows.clear();
+        skippedRules = skipped;
+        rules = List.copyOf(compiled);
+    }
+
+    // Drop the compiled rules; the next event recompiles them
+    public synchronized void invalidate() {
+        rules = null;
+    }
+
+    /**
+     * Run one event through every active rule, linking it to the alert of the first rule that
+     * fires (or is already firing) for it. Must be called before the event is written.
+     */
+    public void evaluate(Logevent event, ParsedLogLine parsed) {
+        List<CompiledRule> current = rules();
+        if (current.isEmpty()) {
+            return;
+        }
+        eventsEvaluated.increment();
+        long time = event.getTimestamp().toEpochMilli();
+
+        for (CompiledRule rule : current) {
+            String groupKey = rule.evaluator().match(parsed);
+            if (groupKey == null) {
+                continue;
+            }
+            // compute serializes events of the same rule and group, so a window fires once. It only
+            // decides: the alert row is inserted afterwards, without holding the map bin
+            String key = rule.ruleId() + "|" + groupKey;
+            ActiveAlert pending = new ActiveAlert(null, time + rule.suppressMillis());
+            ActiveAlert alert = activeAlerts.compute(key, (k, active) -> {
+                if (active != null && time < active.expiresAt()) {
+                    return active;
+                }
+                return rule.evaluator().record(groupKey, time) ? pending : null;
+            });
+            if (alert == pending) {
+                alert = raise(rule, key, pending);
+            }
+            // A pending alert (still being inserted by another thread) absorbs the event unlinked
+            if (alert != null && alert.alertId() != null && event.getAssociatedalertid() == null) {
+                event.setAssociatedalertid(reference(alert.alertId()));
+            }
+        }
+
+        if (activeAlerts.size() > ACTIVE_ALERT_PURGE_SIZE) {
+            activeAlerts.values().removeIf(active -> active.expiresAt() <= time);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        List<CompiledRule> current = rules;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rules", current != null ? current.size() : 0);
+        stats.put("skippedRules", skippedRules);
+        stats.put("eventsEvaluated", eventsEvaluated.sum());
+        stats.put("alertsRaised", alertsRaised.sum());
+        stats.put("activeAlerts", activeAlerts.size());
+        stats.put("windows", windows.getStats());
+        return stats;
+    }
+
+    private List<CompiledRule> rules() {
+        List<CompiledRule> current = rules;
+        if (current == null) {
+            synchronized (this) {
+                if (rules == null) {
+                    reload();
+                }
+                current = rules;
+            }
+        }
+        return current;
+    }
+
+    // Swap the pending entry for the inserted alert; on failure drop it so the rule can fire again
+    private ActiveAlert raise(CompiledRule rule, String key, ActiveAlert pending) {
+        Integer alertId = raiseAlert(rule);
+        if (alertId == null) {
+            activeAlerts.remove(key, pending);
+            return null;
+        }
+        ActiveAlert raised = new ActiveAlert(alertId, pending.expiresAt());
+        activeAlerts.replace(key, pending, raised);
+        return raised;
+    }
+
+    // Inserted outside the ingest batch so the alert is visible as soon as it fires
+    private Integer raiseAlert(CompiledRule rule) {
+        try {
+            Integer alertId = jdbcTemplate.queryForObject(INSERT_ALERT_SQL,
+                    new Object[]{Instant.now().atOffset(ZoneOffset.UTC), rule.ruleId()},
+                    new int[]{Types.TIMESTAMP_WITH_TIMEZONE, Types.INTEGER},
+                    Integer.class);
+            alertsRaised.increment();
+            return alertId;
+        } catch (DataAccessException e) {
+            logger.error("Could not raise alert for rule {} ({})", rule.ruleId(), rule.name(), e);
+            return null;
+        }
+    }
+
+    private static Alert reference(Integer alertId) {
+        Alert alert = new Alert();
+        alert.setId(alertId);
+        return alert;
+    }
+
+    // alertId is null while the firing thread is still inserting the alert
+    private record ActiveAlert(Integer alertId, long expiresAt) {
+    }
+}
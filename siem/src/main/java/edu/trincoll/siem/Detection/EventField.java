@@ -0,0 +1,44 @@
+package edu.trincoll.siem.Detection;
+
+import edu.trincoll.siem.Parser.ParsedLogLine;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Resolves the field names used in Alertrule.conditionlogic ("Action", "SourceIP", ...) to
+ * accessors on a parsed line. Names are case-insensitive; anything that is not a known
+ * column is looked up in the line's parsed data (e.g. "username").
+ */
+final class EventField {
+
+    private EventField() {
+    }
+
+    static Function<ParsedLogLine, String> of(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "action" -> ParsedLogLine::getAction;
+            case "hostname" -> ParsedLogLine::getHostname;
+            case "message" -> ParsedLogLine::getMessage;
+            case "sourceip" -> parsed -> parsed.getSourceIp() != null ? parsed.getSourceIp() : parsed.getConnectionSourceIp();
+            case "destinationip" -> parsed -> parsed.getDestinationIp() != null ? parsed.getDestinationIp() : parsed.getConnectionDestinationIp();
+            case "sourceport" -> parsed -> parsed.getSourceport() != null ? parsed.getSourceport().toString() : null;
+            case "destinationport" -> parsed -> parsed.getDestinationport() != null ? parsed.getDestinationport().toString() : null;
+            default -> parsed -> parsedData(parsed, name);
+        };
+    }
+
+    private static String parsedData(ParsedLogLine parsed, String name) {
+        Map<String, Object> data = parsed.getParseddata();
+        if (data == null) {
+            return null;
+        }
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(name)) {
+                return entry.getValue() != null ? entry.getValue().toString() : null;
+            }
+        }
+        return null;
+    }
+}
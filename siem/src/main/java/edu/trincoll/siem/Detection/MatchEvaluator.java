@@ -0,0 +1,35 @@
+package edu.trincoll.siem.Detection;
+
+import edu.trincoll.siem.Parser.ParsedLogLine;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * "match" rules: fire on every event whose field equals one of the listed values.
+ */
+class MatchEvaluator implements RuleEvaluator {
+
+    private final Function<ParsedLogLine, String> field;
+    private final Set<String> values;
+
+    MatchEvaluator(Function<ParsedLogLine, String> field, Set<String> values) {
+        this.field = field;
+        this.values = values;
+    }
+
+    @Override
+    public String match(ParsedLogLine parsed) {
+        String value = field.apply(parsed);
+        if (value == null || !values.contains(value.toLowerCase(Locale.ROOT))) {
+            return null;
+        }
+        return value;
+    }
+
+    @Override
+    public boolean record(String groupKey, long epochMillis) {
+        return true;
+    }
+}
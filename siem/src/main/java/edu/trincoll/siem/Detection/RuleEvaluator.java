@@ -0,0 +1,21 @@
+package edu.trincoll.siem.Detection;
+
+import edu.trincoll.siem.Parser.ParsedLogLine;
+
+/**
+ * Compiled form of one alert rule's condition logic.
+ */
+interface RuleEvaluator {
+
+    /**
+     * The group key an event falls under if it passes the rule's filter, or null if the
+     * rule does not apply to it. Rules without a groupBy use a single group.
+     */
+    String match(ParsedLogLine parsed);
+
+    /**
+     * Record a matching event for a group; true when the rule fires. The engine calls this
+     * for one group at a time.
+     */
+    boolean record(String groupKey, long epochMillis);
+}
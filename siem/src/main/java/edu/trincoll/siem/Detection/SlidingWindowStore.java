@@ -0,0 +1,246 @@
+package edu.trincoll.siem.Detection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Event counts over a sliding time window for each (rule, group key), used by count rules.
+ * <p>
+ * Each key owns a slot: a ring of {@code buckets} int counters covering one window, so a key
+ * costs the same few dozen bytes however many events it sees, and counting allocates nothing.
+ * Slots live in flat primitive arrays (grown by doubling) and are linked in least-recently-used
+ * order. A key that has not been touched for longer than its window is evicted, and once
+ * maxKeys slots are in use the least recently used key is dropped to make room.
+ * <p>
+ * Counts are approximate to one bucket: the window is the last {@code buckets} buckets of
+ * width windowMillis / buckets. All methods are synchronized.
+ */
+@Component
+public class SlidingWindowStore {
+
+    // Rough heap cost of the map entry and key string for one slot, beyond the key's characters
+    private static final int KEY_OVERHEAD_BYTES = 96;
+    private static final int INITIAL_SLOTS = 1024;
+    private static final int NONE = -1;
+
+    private final int buckets;
+    private final int maxKeys;
+    private final LongSupplier clock;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+
+    // Per slot; counts holds `buckets` entries per slot
+    private String[] keys = new String[0];
+    private int[] counts = new int[0];
+    private long[] headBucket = new long[0];
+    private long[] bucketMillis = new long[0];
+    private long[] lastAccess = new long[0];
+    private int[] prev = new int[0];
+    private int[] next = new int[0];
+
+    // LRU list (head = most recent) and free slots (chained through next)
+    private int mostRecent = NONE;
+    private int leastRecent = NONE;
+    private int free = NONE;
+    private int allocated;
+    private long keyChars;
+
+    private long evictedIdle;
+    private long evictedLru;
+
+    @Autowired
+    public SlidingWindowStore(@Value("${siem.detection.window-buckets:16}") int buckets,
+                              @Value("${siem.detection.window-memory-mb:128}") int memoryMb) {
+        this(buckets, maxKeysFor(buckets, memoryMb), System::currentTimeMillis);
+    }
+
+    SlidingWindowStore(int buckets, int maxKeys, LongSupplier clock) {
+        if (buckets < 1 || maxKeys < 1) {
+            throw new IllegalArgumentException("buckets and maxKeys must be at least 1");
+        }
+        this.buckets = buckets;
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+    }
+
+    private static int maxKeysFor(int buckets, int memoryMb) {
+        // Assume keys of about 32 characters
+        long perKey = slotBytes(buckets) + KEY_OVERHEAD_BYTES + 32;
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, memoryMb * 1024L * 1024L / perKey));
+    }
+
+    private static long slotBytes(int buckets) {
+        // counts + headBucket + bucketMillis + lastAccess + prev + next + keys reference
+        return buckets * 4L + 8 + 8 + 8 + 4 + 4 + 4;
+    }
+
+    /**
+     * Count one event for the key and return the number of events in the window that ends
+     * at the event's bucket. Events older than the window are ignored.
+     */
+    public synchronized int increment(int ruleId, String groupKey, long epochMillis, long windowMillis) {
+        long now = clock.getAsLong();
+        evictIdle(now);
+
+        String key = ruleId + "|" + groupKey;
+        long width = Math.max(1, windowMillis / buckets);
+        long bucket = Math.floorDiv(epochMillis, width);
+
+        Integer existing = slots.get(key);
+        int slot;
+        if (existing == null) {
+            slot = allocate(key);
+            bucketMillis[slot] = width;
+            headBucket[slot] = bucket;
+        } else {
+            slot = existing;
+            unlink(slot);
+        }
+        linkMostRecent(slot);
+        lastAccess[slot] = now;
+
+        int base = slot * buckets;
+        long head = headBucket[slot];
+        if (bucket > head) {
+            // Clear the buckets that slid out of the window
+            long steps = Math.min(bucket - head, buckets);
+            for (long i = 1; i <= steps; i++) {
+                counts[base + Math.floorMod(head + i, buckets)] = 0;
+            }
+            headBucket[slot] = bucket;
+        }
+        if (bucket > headBucket[slot] - buckets) {
+            counts[base + Math.floorMod(bucket, buckets)]++;
+        }
+
+        int total = 0;
+        for (int i = 0; i < buckets; i++) {
+            total += counts[base + i];
+        }
+        return total;
+    }
+
+    // Forget a key, e.g. after its rule fired
+    public synchronized void reset(int ruleId, String groupKey) {
+        Integer slot = slots.get(ruleId + "|" + groupKey);
+        if (slot != null) {
+            release(slot);
+        }
+    }
+
+    public synchronized void clear() {
+        slots.clear();
+        keys = new String[0];
+        counts = new int[0];
+        headBucket = new long[0];
+        bucketMillis = new long[0];
+        lastAccess = new long[0];
+        prev = new int[0];
+        next = new int[0];
+        mostRecent = leastRecent = free = NONE;
+        allocated = 0;
+        keyChars = 0;
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("keys", slots.size());
+        stats.put("maxKeys", maxKeys);
+        stats.put("allocatedSlots", allocated);
+        stats.put("buckets", buckets);
+        stats.put("estimatedBytes", keys.length * slotBytes(buckets)
+                + slots.size() * (long) KEY_OVERHEAD_BYTES + keyChars);
+        stats.put("evictedIdle", evictedIdle);
+        stats.put("evictedLru", evictedLru);
+        return stats;
+    }
+
+    // Least recently used keys come first, so stop at the first one still inside its window
+    private void evictIdle(long now) {
+        while (leastRecent != NONE
+                && now - lastAccess[leastRecent] > bucketMillis[leastRecent] * buckets) {
+            release(leastRecent);
+            evictedIdle++;
+        }
+    }
+
+    private int allocate(String key) {
+        if (slots.size() >= maxKeys) {
+            release(leastRecent);
+            evictedLru++;
+        }
+        int slot;
+        if (free != NONE) {
+            slot = free;
+            free = next[slot];
+        } else {
+            if (allocated == keys.length) {
+                grow();
+            }
+            slot = allocated++;
+        }
+        Arrays.fill(counts, slot * buckets, (slot + 1) * buckets, 0);
+        keys[slot] = key;
+        slots.put(key, slot);
+        keyChars += key.length();
+        return slot;
+    }
+
+    private void release(int slot) {
+        unlink(slot);
+        slots.remove(keys[slot]);
+        keyChars -= keys[slot].length();
+        keys[slot] = null;
+        next[slot] = free;
+        free = slot;
+    }
+
+    private void grow() {
+        int capacity = (int) Math.min(maxKeys, Math.max(INITIAL_SLOTS, keys.length * 2L));
+        keys = Arrays.copyOf(keys, capacity);
+        counts = Arrays.copyOf(counts, capacity * buckets);
+        headBucket = Arrays.copyOf(headBucket, capacity);
+        bucketMillis = Arrays.copyOf(bucketMillis, capacity);
+        lastAccess = Arrays.copyOf(lastAccess, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        next = Arrays.copyOf(next, capacity);
+    }
+
+    private void linkMostRecent(int slot) {
+        prev[slot] = NONE;
+        next[slot] = mostRecent;
+        if (mostRecent != NONE) {
+            prev[mostRecent] = slot;
+        }
+        mostRecent = slot;
+        if (leastRecent == NONE) {
+            leastRecent = slot;
+        }
+    }
+
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            mostRecent = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        } else {
+            leastRecent = before;
+        }
+    }
+}
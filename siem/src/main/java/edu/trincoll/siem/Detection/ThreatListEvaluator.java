@@ -0,0 +1,43 @@
+package edu.trincoll.siem.Detection;
+
+import edu.trincoll.siem.Parser.ParsedLogLine;
+import edu.trincoll.siem.Service.ThreatIntelMatcher;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * "match" rules against a threat-intel list, e.g. {"condition":"match","field":"SourceIP","list":"malicious_ips"}.
+ * Lookups go to the in-memory {@link ThreatIntelMatcher}; the group key is the matched value.
+ */
+class ThreatListEvaluator implements RuleEvaluator {
+
+    private final Function<ParsedLogLine, String> field;
+    private final Function<String, Optional<ThreatIntelMatcher.Match>> lookup;
+
+    ThreatListEvaluator(Function<ParsedLogLine, String> field, String list, ThreatIntelMatcher matcher) {
+        this.field = field;
+        this.lookup = switch (list) {
+            case "malicious_ips" -> matcher::matchIp;
+            case "malicious_domains" -> matcher::matchDomain;
+            case "malicious_urls" -> matcher::matchUrl;
+            case "threatintel" -> matcher::match;
+            default -> throw new IllegalArgumentException("Unknown list '" + list
+                    + "' (expected malicious_ips, malicious_domains, malicious_urls or threatintel)");
+        };
+    }
+
+    @Override
+    public String match(ParsedLogLine parsed) {
+        String value = field.apply(parsed);
+        if (value == null || lookup.apply(value).isEmpty()) {
+            return null;
+        }
+        return value;
+    }
+
+    @Override
+    public boolean record(String groupKey, long epochMillis) {
+        return true;
+    }
+}
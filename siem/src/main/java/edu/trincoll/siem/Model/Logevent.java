@@ -29,7 +29,7 @@ public class Logevent {
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @OnDelete(action = OnDeleteAction.CASCADE)
-    @JoinColumn(name = "rawline", nullable = false)
+    @JoinColumn(name = "rawlineid", nullable = false)
     private Rawline rawline;
 
     @ManyToOne(fetch = FetchType.LAZY)
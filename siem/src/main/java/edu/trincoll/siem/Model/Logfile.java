@@ -1,5 +1,6 @@
 package edu.trincoll.siem.Model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import edu.trincoll.siem.Model.Enums.LogFileStatus;
 import jakarta.persistence.*;
 import lombok.Getter;
@@ -42,7 +43,28 @@ public class Logfile {
     @Column(name = "status", length = 50)
     private LogFileStatus status;
 
-    @Column(name = "rawcontent", length = Integer.MAX_VALUE)
+    // Parser the content is read with, e.g. "syslog" or "cef"; detected on ingestion if not set
+    @Column(name = "logformat", length = 20)
+    private String logformat;
+
+    // SHA-256 of the content (lines ending in '\n') and its line count, set once ingestion finishes
+    @Column(name = "contenthash", length = 64)
+    private String contenthash;
+
+    @Column(name = "linecount")
+    private Long linecount;
+
+    // Leading lines that repeat the earlier upload duplicateof and were not ingested again
+    @Column(name = "skippedlines")
+    private Long skippedlines;
+
+    @Column(name = "duplicateof")
+    private Integer duplicateof;
+
+    // Content of an upload, until ingestion compresses it into LogfileContentStore; never read back
+    // from the database or written to JSON responses (download it from /logfiles/{id}/content)
+    @Transient
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String rawcontent;
 
 }
\ No newline at end of file
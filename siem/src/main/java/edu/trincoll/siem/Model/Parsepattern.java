@@ -0,0 +1,42 @@
+package edu.trincoll.siem.Model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "parsepattern")
+public class Parsepattern {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "patternid", nullable = false)
+    private Integer id;
+
+    @Column(name = "name", nullable = false, length = 100)
+    private String name;
+
+    // Grok-style pattern, e.g. "user=%{USERNAME:username} from %{IPV4:sourceIp}" (see GrokPattern)
+    @Column(name = "pattern", nullable = false, length = Integer.MAX_VALUE)
+    private String pattern;
+
+    // Log file SourceType the pattern applies to; null for every file
+    @Column(name = "sourcetype", length = 50)
+    private String sourcetype;
+
+    // Patterns are tried highest priority first; the first match wins
+    @Column(name = "priority", nullable = false)
+    private Integer priority = 0;
+
+    @Column(name = "isactive", nullable = false)
+    private Boolean isactive = true;
+
+    @ColumnDefault("CURRENT_TIMESTAMP")
+    @Column(name = "updatedat", nullable = false)
+    private Instant updatedat;
+
+}
@@ -15,7 +15,11 @@ import java.util.Map;
 @Entity
 @Table(name = "rawline")
 public class Rawline {
+    // Hash of the line text (see RawlineHash), so joins and indexes compare a bigint instead of the text
     @Id
+    @Column(name = "rawlineid", nullable = false)
+    private Long id;
+
     @Column(name = "rawline", nullable = false, length = Integer.MAX_VALUE)
     private String rawline;
 
@@ -0,0 +1,59 @@
+package edu.trincoll.siem.Model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Raw lines are addressed by the first 64 bits of the MD5 of their text, read as a signed
+ * big-endian long. This is the same value PostgreSQL computes with
+ * {@code ('x' || substr(md5(rawline), 1, 16))::bit(64)::bigint}.
+ * <p>
+ * On the (very unlikely) collision the line moves to the next id, so a line is always found
+ * within MAX_PROBES ids of its hash.
+ */
+public final class RawlineHash {
+
+    public static final int MAX_PROBES = 8;
+
+    private RawlineHash() {
+    }
+
+    public static byte[] md5(String rawline) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(rawline.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+
+    // Lowercase hex, as returned by PostgreSQL's md5()
+    public static String hex(byte[] md5) {
+        return HexFormat.of().formatHex(md5);
+    }
+
+    public static long id(byte[] md5) {
+        long id = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            id = (id << 8) | (md5[i] & 0xFF);
+        }
+        return id;
+    }
+
+    public static long id(String rawline) {
+        return id(md5(rawline));
+    }
+
+    // Ids a line can be stored under, in probe order
+    public static List<Long> candidates(String rawline) {
+        long id = id(rawline);
+        List<Long> candidates = new ArrayList<>(MAX_PROBES);
+        for (int i = 0; i < MAX_PROBES; i++) {
+            candidates.add(id + i);
+        }
+        return candidates;
+    }
+}
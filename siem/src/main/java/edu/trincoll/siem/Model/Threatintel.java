@@ -29,4 +29,8 @@ public class Threatintel {
     @Column(name = "description", length = Integer.MAX_VALUE)
     private String description;
 
+    // Feed this indicator was imported from; null when entered by hand
+    @Column(name = "source", length = 100)
+    private String source;
+
 }
\ No newline at end of file
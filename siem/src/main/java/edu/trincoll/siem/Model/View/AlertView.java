@@ -0,0 +1,21 @@
+package edu.trincoll.siem.Model.View;
+
+import edu.trincoll.siem.Model.Enums.AlertStatus;
+import edu.trincoll.siem.Model.Enums.Severity;
+
+import java.time.Instant;
+
+/**
+ * Read-only alert for list endpoints, with its rule's name and severity joined in the same query.
+ */
+public record AlertView(Integer id, Instant triggeredat, RuleRef ruleid, AlertStatus status) {
+
+    public record RuleRef(Integer id, String name, Severity severity) {
+    }
+
+    // Flat form used by the JPQL constructor expressions in AlertRepository
+    public AlertView(Integer id, Instant triggeredat, Integer ruleId, String ruleName, Severity severity,
+                     AlertStatus status) {
+        this(id, triggeredat, new RuleRef(ruleId, ruleName, severity), status);
+    }
+}
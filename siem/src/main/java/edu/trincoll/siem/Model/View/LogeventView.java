@@ -0,0 +1,35 @@
+package edu.trincoll.siem.Model.View;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Read-only log event for list endpoints, filled by a single joined query instead of
+ * lazily loading the file, raw line, devices and action per row. Field names follow the
+ * Logevent entity's JSON.
+ */
+public record LogeventView(Integer id,
+                           Instant timestamp,
+                           FileRef fileid,
+                           RawlineView rawline,
+                           AlertRef associatedalertid) {
+
+    public record FileRef(Integer id, String filename) {
+    }
+
+    public record AlertRef(Integer id) {
+    }
+
+    // Flat form used by the JPQL constructor expressions in LogeventRepository
+    public LogeventView(Integer id, Instant timestamp, Integer fileId, String filename,
+                        Long rawlineId, String rawline, String message, String action,
+                        Integer sourceDeviceId, String sourceHostname, Integer sourceport,
+                        Integer destinationDeviceId, String destinationHostname, Integer destinationport,
+                        Map<String, Object> parseddata, Integer alertId) {
+        this(id, timestamp, new FileRef(fileId, filename),
+                new RawlineView(rawlineId, rawline, message, action,
+                        sourceDeviceId, sourceHostname, sourceport,
+                        destinationDeviceId, destinationHostname, destinationport, parseddata),
+                alertId != null ? new AlertRef(alertId) : null);
+    }
+}
@@ -0,0 +1,36 @@
+package edu.trincoll.siem.Model.View;
+
+import java.util.Map;
+
+/**
+ * Read-only raw line for list endpoints, filled by a single joined query. Field names follow
+ * the Rawline entity's JSON, with devices and action reduced to the fields clients display.
+ */
+public record RawlineView(Long id,
+                          String rawline,
+                          DeviceRef sourcedeviceid,
+                          Integer sourceport,
+                          DeviceRef destinationdeviceid,
+                          Integer destinationport,
+                          ActionRef action,
+                          String message,
+                          Map<String, Object> parseddata) {
+
+    public record DeviceRef(Integer id, String hostname) {
+    }
+
+    public record ActionRef(String action) {
+    }
+
+    // Flat form used by the JPQL constructor expressions (they cannot nest "new")
+    public RawlineView(Long id, String rawline, String message, String action,
+                       Integer sourceDeviceId, String sourceHostname, Integer sourceport,
+                       Integer destinationDeviceId, String destinationHostname, Integer destinationport,
+                       Map<String, Object> parseddata) {
+        this(id, rawline,
+                sourceDeviceId != null ? new DeviceRef(sourceDeviceId, sourceHostname) : null, sourceport,
+                destinationDeviceId != null ? new DeviceRef(destinationDeviceId, destinationHostname) : null, destinationport,
+                action != null ? new ActionRef(action) : null,
+                message, parseddata);
+    }
+}
@@ -0,0 +1,168 @@
+package edu.trincoll.siem.Parser;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+/**
+ * Apache / Nginx access logs in the common or combined format:
+ * {@code 10.0.0.5 - bob [09/Mar/2025:10:15:30 +0100] "GET /login.php HTTP/1.1" 404 512 "referer" "agent"}.
+ * Fields are read left to right in one pass, without regular expressions.
+ */
+@Component
+public class AccessLogParser implements LogFormatParser {
+
+    public static final String NAME = "access";
+
+    // Access log times carry their offset, so the zone does not matter when checking a line's shape
+    private static final TimestampParser ANY_ZONE = TimestampParser.of(Instant.EPOCH, ZoneOffset.UTC);
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean matches(String line) {
+        return read(line, ANY_ZONE) != null;
+    }
+
+    @Override
+    public ParsedLogLine parse(String line, TimestampParser timestamps) {
+        ParsedLogLine parsed = new ParsedLogLine(line);
+        Entry entry = read(line, timestamps);
+        if (entry == null) {
+            return parsed;
+        }
+
+        parsed.setTimestamp(entry.time());
+        parsed.putParsedData("clientIp", entry.client());
+        if (Fields.isIpv4(entry.client())) {
+            parsed.setSourceIp(entry.client());
+        } else {
+            parsed.setHostname(entry.client());
+        }
+        if (!entry.user().equals("-")) {
+            parsed.putParsedData("username", entry.user());
+        }
+        parsed.putParsedData("statusCode", entry.status());
+        if (!entry.bytes().equals("-")) {
+            parsed.putParsedData("bytes", entry.bytes());
+        }
+        if (entry.referer() != null && !entry.referer().equals("-")) {
+            parsed.putParsedData("referer", entry.referer());
+        }
+        if (entry.userAgent() != null && !entry.userAgent().equals("-")) {
+            parsed.putParsedData("userAgent", entry.userAgent());
+        }
+
+        // "GET /login.php HTTP/1.1"; a malformed request line is kept whole
+        String request = entry.request();
+        int methodEnd = request.indexOf(' ');
+        if (methodEnd > 0) {
+            int urlEnd = request.indexOf(' ', methodEnd + 1);
+            String method = request.substring(0, methodEnd);
+            String url = urlEnd > 0 ? request.substring(methodEnd + 1, urlEnd) : request.substring(methodEnd + 1);
+            parsed.setAction(method);
+            parsed.putParsedData("url", url);
+            if (urlEnd > 0) {
+                parsed.putParsedData("protocol", request.substring(urlEnd + 1));
+            }
+            parsed.setMessage("HTTP " + method + " request to " + url + " returned " + entry.status());
+        } else {
+            parsed.putParsedData("request", request);
+        }
+        return parsed;
+    }
+
+    private record Entry(String client, String user, Instant time, String request, String status, String bytes,
+                         String referer, String userAgent) {
+    }
+
+    // The fields of a line, or null if it is not in the format
+    private static Entry read(String line, TimestampParser timestamps) {
+        int clientEnd = line.indexOf(' ');
+        if (clientEnd <= 0) {
+            return null;
+        }
+        int identEnd = line.indexOf(' ', clientEnd + 1);
+        if (identEnd < 0) {
+            return null;
+        }
+        int userEnd = line.indexOf(' ', identEnd + 1);
+        if (userEnd < 0 || userEnd + 1 >= line.length() || line.charAt(userEnd + 1) != '[') {
+            return null;
+        }
+        int timeEnd = line.indexOf(']', userEnd + 2);
+        if (timeEnd < 0) {
+            return null;
+        }
+        Instant time = timestamps.parse(line, userEnd + 2, timeEnd);
+        if (time == null || timeEnd + 2 >= line.length() || line.charAt(timeEnd + 1) != ' ' || line.charAt(timeEnd + 2) != '"') {
+            return null;
+        }
+
+        int requestEnd = quotedEnd(line, timeEnd + 3);
+        if (requestEnd < 0 || requestEnd + 5 > line.length() || line.charAt(requestEnd + 1) != ' ') {
+            return null;
+        }
+        int statusStart = requestEnd + 2;
+        if (Fields.digits(line, statusStart, statusStart + 3) == Fields.NONE
+                || statusStart + 3 >= line.length() || line.charAt(statusStart + 3) != ' ') {
+            return null;
+        }
+        int bytesEnd = line.indexOf(' ', statusStart + 4);
+        if (bytesEnd < 0) {
+            bytesEnd = line.length();
+        }
+
+        String referer = null;
+        String userAgent = null;
+        // Combined format: two more quoted fields
+        if (bytesEnd + 1 < line.length() && line.charAt(bytesEnd + 1) == '"') {
+            int refererEnd = quotedEnd(line, bytesEnd + 2);
+            if (refererEnd > 0) {
+                referer = unescape(line, bytesEnd + 2, refererEnd);
+                if (refererEnd + 2 < line.length() && line.charAt(refererEnd + 2) == '"') {
+                    int agentEnd = quotedEnd(line, refererEnd + 3);
+                    if (agentEnd > 0) {
+                        userAgent = unescape(line, refererEnd + 3, agentEnd);
+                    }
+                }
+            }
+        }
+
+        return new Entry(line.substring(0, clientEnd), line.substring(identEnd + 1, userEnd), time,
+                unescape(line, timeEnd + 3, requestEnd), line.substring(statusStart, statusStart + 3),
+                line.substring(statusStart + 4, bytesEnd), referer, userAgent);
+    }
+
+    // Index of the quote closing a field that starts at index, skipping \" escapes; -1 if unterminated
+    private static int quotedEnd(String line, int from) {
+        for (int i = from; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String unescape(String line, int from, int to) {
+        if (line.indexOf('\\', from) < 0 || line.indexOf('\\', from) >= to) {
+            return line.substring(from, to);
+        }
+        StringBuilder value = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < to) {
+                c = line.charAt(++i);
+            }
+            value.append(c);
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,179 @@
+package edu.trincoll.siem.Parser;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * ArcSight Common Event Format, optionally behind a syslog header:
+ * {@code CEF:0|Vendor|Product|1.0|100|Port scan|7|src=10.0.0.5 dst=10.0.0.9 dpt=22 msg=Scan detected}.
+ * The seven header fields are split on unescaped pipes and the extension into key=value pairs,
+ * both by scanning characters once.
+ */
+@Component
+public class CefParser implements LogFormatParser {
+
+    public static final String NAME = "cef";
+
+    private static final String PREFIX = "CEF:";
+    private static final String[] HEADER_KEYS = {
+            "cefVersion", "deviceVendor", "deviceProduct", "deviceVersion", "signatureId", "name", "severity"
+    };
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean matches(String line) {
+        int start = line.indexOf(PREFIX);
+        return start >= 0 && headerEnd(line, start + PREFIX.length(), null) != Fields.NONE;
+    }
+
+    @Override
+    public ParsedLogLine parse(String line, TimestampParser timestamps) {
+        ParsedLogLine parsed = new ParsedLogLine(line);
+        int start = line.indexOf(PREFIX);
+        if (start < 0) {
+            return parsed;
+        }
+        String[] header = new String[HEADER_KEYS.length];
+        int extensionStart = headerEnd(line, start + PREFIX.length(), header);
+        if (extensionStart == Fields.NONE) {
+            return parsed;
+        }
+
+        if (start > 0) {
+            parseSyslogPrefix(parsed, line, start, timestamps);
+        }
+        for (int i = 0; i < header.length; i++) {
+            parsed.putParsedData(HEADER_KEYS[i], header[i]);
+        }
+        parsed.setMessage(header[5]);
+
+        Map<String, String> extension = parseExtension(line, extensionStart);
+        extension.forEach(parsed::putParsedData);
+
+        setIfIpv4(extension.get("src"), parsed::setSourceIp);
+        setIfIpv4(extension.get("dst"), parsed::setDestinationIp);
+        parsed.setSourceport(Fields.port(extension.get("spt")));
+        parsed.setDestinationport(Fields.port(extension.get("dpt")));
+        String host = extension.getOrDefault("shost", extension.get("dvchost"));
+        if (host != null) {
+            parsed.setHostname(host);
+        }
+        if (extension.containsKey("act")) {
+            parsed.setAction(extension.get("act"));
+        }
+        if (extension.containsKey("msg")) {
+            parsed.setMessage(extension.get("msg"));
+        }
+        // Receipt time, in epoch milliseconds or "MMM dd yyyy HH:mm:ss"; wins over the syslog prefix
+        String receiptTime = extension.get("rt");
+        if (receiptTime != null) {
+            Instant time = timestamps.parse(receiptTime);
+            if (time != null) {
+                parsed.setTimestamp(time);
+            }
+        }
+        return parsed;
+    }
+
+    // Splits the seven header fields after "CEF:" into header (if not null); returns the extension start, or NONE
+    private static int headerEnd(String line, int at, String[] header) {
+        StringBuilder field = header != null ? new StringBuilder() : null;
+        int fields = 0;
+        for (int i = at; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length() && (line.charAt(i + 1) == '|' || line.charAt(i + 1) == '\\')) {
+                i++;
+                if (field != null) {
+                    field.append(line.charAt(i));
+                }
+            } else if (c == '|') {
+                if (field != null) {
+                    header[fields] = field.toString();
+                    field.setLength(0);
+                }
+                if (++fields == HEADER_KEYS.length) {
+                    return i + 1;
+                }
+            } else if (field != null) {
+                field.append(c);
+            }
+        }
+        return Fields.NONE;
+    }
+
+    // "k1=v1 k2=some value k3=v3": a value runs until the space before the next unescaped '='
+    private static Map<String, String> parseExtension(String line, int at) {
+        Map<String, String> extension = new LinkedHashMap<>();
+        String key = null;
+        int valueStart = Fields.NONE;
+        int tokenStart = at;
+        for (int i = at; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == ' ') {
+                tokenStart = i + 1;
+            } else if (c == '=' && tokenStart < i && tokenStart >= valueStart) {
+                // A key is the last word before '='; an unescaped '=' inside a value is kept
+                if (key != null) {
+                    extension.put(key, unescape(line, valueStart, tokenStart - 1));
+                }
+                key = line.substring(tokenStart, i);
+                valueStart = i + 1;
+            }
+        }
+        if (key != null) {
+            extension.put(key, unescape(line, valueStart, line.length()).stripTrailing());
+        }
+        return extension;
+    }
+
+    // Extension values escape '=' and '\' with a backslash, and encode line breaks as \n or \r
+    private static String unescape(String line, int from, int to) {
+        if (from >= to) {
+            return "";
+        }
+        int backslash = line.indexOf('\\', from);
+        if (backslash < 0 || backslash >= to) {
+            return line.substring(from, to);
+        }
+        StringBuilder value = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < to) {
+                char next = line.charAt(++i);
+                c = next == 'n' ? '\n' : next == 'r' ? '\r' : next;
+            }
+            value.append(c);
+        }
+        return value.toString();
+    }
+
+    // The host of a "<PRI>Mmm dd hh:mm:ss host " prefix before "CEF:"
+    private static void parseSyslogPrefix(ParsedLogLine parsed, String line, int cefStart, TimestampParser timestamps) {
+        int at = line.charAt(0) == '<' ? line.indexOf('>') + 1 : 0;
+        int end = Fields.syslogTimestampEnd(line, at);
+        if (end == Fields.NONE || end >= cefStart) {
+            return;
+        }
+        parsed.setTimestamp(timestamps.parse(line, at, end));
+        int hostEnd = line.indexOf(' ', end + 1);
+        if (hostEnd > end + 1 && hostEnd < cefStart) {
+            parsed.setHostname(line.substring(end + 1, hostEnd));
+        }
+    }
+
+    private static void setIfIpv4(String value, Consumer<String> setter) {
+        if (Fields.isIpv4(value)) {
+            setter.accept(value);
+        }
+    }
+}
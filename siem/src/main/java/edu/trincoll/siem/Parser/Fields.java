@@ -0,0 +1,82 @@
+package edu.trincoll.siem.Parser;
+
+/**
+ * Character-level helpers shared by the hand-written format parsers. They read fields in place
+ * and return a sentinel instead of throwing, so a malformed line costs no exception.
+ */
+final class Fields {
+
+    static final int NONE = -1;
+
+    private static final String MONTHS = "JanFebMarAprMayJunJulAugSepOctNovDec";
+
+    private Fields() {
+    }
+
+    // Value of the decimal digits in [from, to), or NONE if the range is empty or has a non-digit
+    static int digits(String s, int from, int to) {
+        if (from >= to || to > s.length() || to - from > 9) {
+            return NONE;
+        }
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return NONE;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // Month number 1-12 of the English three letter abbreviation at index, or NONE
+    static int month(String s, int at) {
+        if (at + 3 > s.length()) {
+            return NONE;
+        }
+        for (int month = 0; month < 12; month++) {
+            if (s.regionMatches(false, at, MONTHS, month * 3, 3)) {
+                return month + 1;
+            }
+        }
+        return NONE;
+    }
+
+    // "Mmm dd hh:mm:ss" (day space-padded or not) at index; returns the index after it, or NONE
+    static int syslogTimestampEnd(String s, int at) {
+        if (month(s, at) == NONE || at + 3 >= s.length() || s.charAt(at + 3) != ' ') {
+            return NONE;
+        }
+        int day = at + 4;
+        if (day < s.length() && s.charAt(day) == ' ') {
+            day++;
+        }
+        int dayEnd = day;
+        while (dayEnd < s.length() && dayEnd - day < 2 && Character.isDigit(s.charAt(dayEnd))) {
+            dayEnd++;
+        }
+        if (dayEnd == day || dayEnd + 9 > s.length() || s.charAt(dayEnd) != ' ') {
+            return NONE;
+        }
+        int time = dayEnd + 1;
+        if (s.charAt(time + 2) != ':' || s.charAt(time + 5) != ':'
+                || digits(s, time, time + 2) == NONE || digits(s, time + 3, time + 5) == NONE
+                || digits(s, time + 6, time + 8) == NONE) {
+            return NONE;
+        }
+        return time + 8;
+    }
+
+    // Port number, or null if the text is not one
+    static Integer port(String s) {
+        if (s == null) {
+            return null;
+        }
+        int port = digits(s, 0, s.length());
+        return port >= 0 && port <= 65535 ? port : null;
+    }
+
+    static boolean isIpv4(String s) {
+        return s != null && Ipv4.parse(s) != Ipv4.INVALID;
+    }
+}
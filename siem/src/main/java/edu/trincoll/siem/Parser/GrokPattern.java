@@ -0,0 +1,278 @@
+package edu.trincoll.siem.Parser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A user-defined, grok-style parsing pattern compiled to one regular expression:
+ * {@code %{IPV4:sourceIp} .* user=%{USERNAME:username} took %{INT:ms:int}ms}.
+ * {@code %{NAME}} expands to a pattern from the built-in library, {@code %{NAME:field}} also
+ * captures it as field, and an optional {@code :int} or {@code :float} suffix converts the value.
+ * Anything else is a plain Java regular expression, searched for anywhere in the line.
+ * <p>
+ * The longest literal every match must contain (e.g. " user=") is kept, so lines without it
+ * are rejected with an indexOf instead of running the regex. Instances are immutable and
+ * thread-safe.
+ */
+public final class GrokPattern {
+
+    // Library patterns may refer to each other, but never capture
+    private static final Map<String, String> LIBRARY = new HashMap<>();
+
+    static {
+        LIBRARY.put("WORD", "\\b\\w+\\b");
+        LIBRARY.put("NOTSPACE", "\\S+");
+        LIBRARY.put("SPACE", "\\s*");
+        LIBRARY.put("DATA", ".*?");
+        LIBRARY.put("GREEDYDATA", ".*");
+        LIBRARY.put("INT", "[+-]?\\d+");
+        LIBRARY.put("POSINT", "\\b[1-9]\\d*\\b");
+        LIBRARY.put("NONNEGINT", "\\b\\d+\\b");
+        LIBRARY.put("NUMBER", "[+-]?(?:\\d+(?:\\.\\d*)?|\\.\\d+)");
+        LIBRARY.put("BASE16NUM", "(?:0[xX])?[0-9A-Fa-f]+");
+        LIBRARY.put("QUOTEDSTRING", "\"(?:[^\"\\\\]|\\\\.)*\"");
+        LIBRARY.put("UUID", "[A-Fa-f0-9]{8}-(?:[A-Fa-f0-9]{4}-){3}[A-Fa-f0-9]{12}");
+        LIBRARY.put("MAC", "(?:[A-Fa-f0-9]{2}[:-]){5}[A-Fa-f0-9]{2}");
+        LIBRARY.put("IPV4", "(?<![0-9])(?:(?:25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\.){3}(?:25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)(?![0-9])");
+        LIBRARY.put("IPV6", "(?:[0-9A-Fa-f]{0,4}:){2,7}(?:[0-9A-Fa-f]{1,4}|%{IPV4})?");
+        LIBRARY.put("IP", "(?:%{IPV4}|%{IPV6})");
+        LIBRARY.put("HOSTNAME", "\\b[0-9A-Za-z][0-9A-Za-z-]{0,62}(?:\\.[0-9A-Za-z][0-9A-Za-z-]{0,62})*\\.?\\b");
+        LIBRARY.put("IPORHOST", "(?:%{IP}|%{HOSTNAME})");
+        LIBRARY.put("HOSTPORT", "%{IPORHOST}:%{POSINT}");
+        LIBRARY.put("USERNAME", "[a-zA-Z0-9._-]+");
+        LIBRARY.put("USER", "%{USERNAME}");
+        LIBRARY.put("EMAILADDRESS", "[a-zA-Z0-9!#$%&'*+/=?^_`{|}~.-]+@%{HOSTNAME}");
+        LIBRARY.put("PATH", "(?:/[^\\s/]*)+/?");
+        LIBRARY.put("URIPATH", "/[^\\s?#]*");
+        LIBRARY.put("URI", "[A-Za-z][A-Za-z0-9+.-]*://\\S+");
+        LIBRARY.put("LOGLEVEL", "(?i:trace|debug|info|notice|warn(?:ing)?|err(?:or)?|crit(?:ical)?|alert|fatal|severe|emerg(?:ency)?)");
+        LIBRARY.put("MONTH", "\\b(?:Jan|Feb|Mar|Apr|May|Jun|Jul|Aug|Sep|Oct|Nov|Dec)[a-z]*\\b");
+        LIBRARY.put("MONTHDAY", "(?:0[1-9]|[12]\\d|3[01]|[1-9])");
+        LIBRARY.put("YEAR", "\\d{4}");
+        LIBRARY.put("TIME", "(?:[01]?\\d|2[0-3]):[0-5]\\d(?::[0-5]\\d(?:[.,]\\d+)?)?");
+        LIBRARY.put("SYSLOGTIMESTAMP", "%{MONTH} +%{MONTHDAY} %{TIME}");
+        LIBRARY.put("TIMESTAMP_ISO8601", "\\d{4}-\\d{2}-\\d{2}[T ]\\d{2}:\\d{2}(?::\\d{2}(?:[.,]\\d+)?)?(?:Z|[+-]\\d{2}:?\\d{2})?");
+        LIBRARY.put("HTTPDATE", "%{MONTHDAY}/%{MONTH}/%{YEAR}:%{TIME} [+-]\\d{4}");
+    }
+
+    // Library references expanded inside one another, guarding against a cycle
+    private static final int MAX_DEPTH = 8;
+
+    private static final String REGEX_META = "\\^$.|?*+()[]{}";
+
+    private enum Type { STRING, INT, FLOAT }
+
+    private record Capture(String group, String field, Type type) {
+    }
+
+    private final String source;
+    private final Pattern regex;
+    private final List<Capture> captures;
+    private final String requiredLiteral;
+
+    private GrokPattern(String source, Pattern regex, List<Capture> captures, String requiredLiteral) {
+        this.source = source;
+        this.regex = regex;
+        this.captures = captures;
+        this.requiredLiteral = requiredLiteral;
+    }
+
+    /**
+     * Compile a pattern.
+     *
+     * @throws IllegalArgumentException if it refers to an unknown library pattern, has a bad
+     *                                  field or type, or is not a valid regular expression
+     */
+    public static GrokPattern compile(String pattern) {
+        if (pattern == null || pattern.isBlank()) {
+            throw new IllegalArgumentException("Pattern is empty");
+        }
+        List<Capture> captures = new ArrayList<>();
+        StringBuilder regex = new StringBuilder(pattern.length() * 4);
+        expand(pattern, regex, captures, 0);
+        if (captures.isEmpty()) {
+            throw new IllegalArgumentException("Pattern captures no fields; name one like %{IPV4:sourceIp}");
+        }
+        try {
+            return new GrokPattern(pattern, Pattern.compile(regex.toString()), List.copyOf(captures), requiredLiteral(pattern));
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid regular expression: " + e.getDescription(), e);
+        }
+    }
+
+    // Replace each %{NAME[:field[:type]]} with its (capturing) regex
+    private static void expand(String pattern, StringBuilder regex, List<Capture> captures, int depth) {
+        int at = 0;
+        while (at < pattern.length()) {
+            int start = pattern.indexOf("%{", at);
+            if (start < 0) {
+                regex.append(pattern, at, pattern.length());
+                return;
+            }
+            int end = pattern.indexOf('}', start + 2);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed %{ at index " + start);
+            }
+            regex.append(pattern, at, start);
+
+            String[] parts = pattern.substring(start + 2, end).split(":", -1);
+            String library = LIBRARY.get(parts[0]);
+            if (library == null) {
+                throw new IllegalArgumentException("Unknown pattern %{" + parts[0] + "}");
+            }
+            if (parts.length > 3 || (parts.length > 1 && parts[1].isEmpty())) {
+                throw new IllegalArgumentException("Expected %{NAME}, %{NAME:field} or %{NAME:field:int|float}, got "
+                        + pattern.substring(start, end + 1));
+            }
+            if (depth >= MAX_DEPTH) {
+                throw new IllegalArgumentException("Library patterns nested too deeply at %{" + parts[0] + "}");
+            }
+
+            if (parts.length == 1) {
+                regex.append("(?:");
+                expand(library, regex, captures, depth + 1);
+                regex.append(')');
+            } else {
+                if (depth > 0) {
+                    throw new IllegalArgumentException("Library pattern captures a field");
+                }
+                String group = "g" + captures.size();
+                captures.add(new Capture(group, parts[1], parts.length == 3 ? type(parts[2]) : Type.STRING));
+                regex.append("(?<").append(group).append('>');
+                expand(library, regex, captures, depth + 1);
+                regex.append(')');
+            }
+            at = end + 1;
+        }
+    }
+
+    // The built-in %{NAME} patterns and their regular expressions, by name
+    public static Map<String, String> library() {
+        return new TreeMap<>(LIBRARY);
+    }
+
+    private static Type type(String name) {
+        return switch (name) {
+            case "int", "long" -> Type.INT;
+            case "float", "double" -> Type.FLOAT;
+            default -> throw new IllegalArgumentException("Unknown field type " + name + ", expected int or float");
+        };
+    }
+
+    /**
+     * The longest run of literal characters outside any group, alternation or quantifier,
+     * which every match must contain; null if there is none worth checking.
+     */
+    static String requiredLiteral(String pattern) {
+        if (pattern.contains("|") || pattern.contains("(?i")) {
+            return null;
+        }
+        String best = "";
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '%' && i + 1 < pattern.length() && pattern.charAt(i + 1) == '{') {
+                best = longer(best, run);
+                i = Math.max(i, pattern.indexOf('}', i));
+            } else if (c == '\\' && i + 1 < pattern.length() && REGEX_META.indexOf(pattern.charAt(i + 1)) >= 0) {
+                // An escaped metacharacter is a literal
+                if (depth == 0 && !quantified(pattern, i + 2)) {
+                    run.append(pattern.charAt(++i));
+                } else {
+                    best = longer(best, run);
+                    i++;
+                }
+            } else if (c == '\\' || REGEX_META.indexOf(c) >= 0) {
+                best = longer(best, run);
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                } else if (c == '[' || c == '{') {
+                    // Skip the character class or repetition count
+                    int close = pattern.indexOf(c == '[' ? ']' : '}', i + 2);
+                    i = close > 0 ? close : pattern.length();
+                } else if (c == '\\') {
+                    i++; // \d, \s, ... match a class of characters
+                }
+            } else if (depth == 0 && !quantified(pattern, i + 1)) {
+                run.append(c);
+            } else {
+                best = longer(best, run);
+            }
+        }
+        best = longer(best, run);
+        return best.length() >= 2 ? best : null;
+    }
+
+    private static boolean quantified(String pattern, int next) {
+        if (next >= pattern.length()) {
+            return false;
+        }
+        char c = pattern.charAt(next);
+        return c == '?' || c == '*' || c == '+' || c == '{';
+    }
+
+    private static String longer(String best, StringBuilder run) {
+        String candidate = run.toString();
+        run.setLength(0);
+        return candidate.length() > best.length() ? candidate : best;
+    }
+
+    /**
+     * The captured fields of the first match in the line, in pattern order, or null if it does
+     * not match. Fields whose group did not participate in the match are left out.
+     */
+    public Map<String, Object> match(String line) {
+        if (requiredLiteral != null && !line.contains(requiredLiteral)) {
+            return null;
+        }
+        Matcher matcher = regex.matcher(line);
+        if (!matcher.find()) {
+            return null;
+        }
+        Map<String, Object> fields = new LinkedHashMap<>();
+        for (Capture capture : captures) {
+            String value = matcher.group(capture.group());
+            if (value != null) {
+                fields.put(capture.field(), convert(value, capture.type()));
+            }
+        }
+        return fields;
+    }
+
+    private static Object convert(String value, Type type) {
+        try {
+            return switch (type) {
+                case STRING -> value;
+                case INT -> Long.parseLong(value.startsWith("+") ? value.substring(1) : value);
+                case FLOAT -> Double.parseDouble(value);
+            };
+        } catch (NumberFormatException e) {
+            // Keep the text if the library pattern let through something that is not a number
+            return value;
+        }
+    }
+
+    // Whether match can skip the regex for lines without the required literal
+    public boolean hasRequiredLiteral() {
+        return requiredLiteral != null;
+    }
+
+    public List<String> getFields() {
+        return captures.stream().map(Capture::field).toList();
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
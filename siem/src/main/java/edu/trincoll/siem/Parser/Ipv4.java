@@ -0,0 +1,79 @@
+package edu.trincoll.siem.Parser;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Allocation-free helpers for dotted-quad IPv4 addresses. Unlike InetAddress.getByName
+ * these never fall back to a DNS lookup for text that is not a literal address.
+ */
+public final class Ipv4 {
+
+    public static final long INVALID = -1L;
+
+    private Ipv4() {
+    }
+
+    /**
+     * Parse a dotted quad into its unsigned 32-bit value, or {@link #INVALID} if the text is not an IPv4 address.
+     */
+    public static long parse(CharSequence text) {
+        return text == null ? INVALID : parse(text, 0, text.length());
+    }
+
+    public static long parse(CharSequence text, int start, int end) {
+        long value = 0;
+        int octet = 0;
+        int digits = 0;
+        int dots = 0;
+
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = octet * 10 + (c - '0');
+                if (++digits > 3 || octet > 255) {
+                    return INVALID;
+                }
+            } else if (c == '.') {
+                if (digits == 0 || ++dots > 3) {
+                    return INVALID;
+                }
+                value = (value << 8) | octet;
+                octet = 0;
+                digits = 0;
+            } else {
+                return INVALID;
+            }
+        }
+
+        if (dots != 3 || digits == 0) {
+            return INVALID;
+        }
+        return (value << 8) | octet;
+    }
+
+    // 32-bit value of an IPv4 address, or INVALID for IPv6
+    public static long fromInetAddress(InetAddress address) {
+        if (!(address instanceof Inet4Address)) {
+            return INVALID;
+        }
+        byte[] bytes = address.getAddress();
+        return ((bytes[0] & 0xFFL) << 24) | ((bytes[1] & 0xFFL) << 16) | ((bytes[2] & 0xFFL) << 8) | (bytes[3] & 0xFFL);
+    }
+
+    public static InetAddress toInetAddress(long address) {
+        byte[] bytes = {
+                (byte) (address >>> 24),
+                (byte) (address >>> 16),
+                (byte) (address >>> 8),
+                (byte) address
+        };
+        try {
+            return InetAddress.getByAddress(bytes);
+        } catch (UnknownHostException e) {
+            // Only thrown for an illegal array length, which cannot happen here
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package edu.trincoll.siem.Parser;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * One JSON object per line, as written by most structured loggers and log shippers. Top-level
+ * fields are read with Jackson's streaming parser, without building a tree; all of them go into
+ * parseddata, and well-known names ({@link WellKnownFields}) also fill the event columns.
+ */
+@Component
+public class JsonLineParser implements LogFormatParser {
+
+    public static final String NAME = "json";
+
+    private final ObjectMapper objectMapper;
+
+    public JsonLineParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean matches(String line) {
+        String trimmed = line.strip();
+        return trimmed.length() >= 2 && trimmed.charAt(0) == '{' && trimmed.charAt(trimmed.length() - 1) == '}';
+    }
+
+    @Override
+    public ParsedLogLine parse(String line, TimestampParser timestamps) {
+        ParsedLogLine parsed = new ParsedLogLine(line);
+        try (JsonParser json = objectMapper.getFactory().createParser(line)) {
+            if (json.nextToken() != JsonToken.START_OBJECT) {
+                return parsed;
+            }
+            while (json.nextToken() == JsonToken.FIELD_NAME) {
+                String name = json.currentName();
+                JsonToken token = json.nextToken();
+                Object value = token.isStructStart() ? json.readValueAs(Object.class) : scalar(json, token);
+                if (value != null) {
+                    parsed.putParsedData(name, value);
+                    WellKnownFields.apply(parsed, name, value, timestamps);
+                }
+            }
+        } catch (IOException e) {
+            // Not valid JSON after all: keep whatever was read, the whole line stays the message
+        }
+        return parsed;
+    }
+
+    private static Object scalar(JsonParser json, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_STRING -> json.getText();
+            case VALUE_NUMBER_INT -> json.getNumberValue();
+            case VALUE_NUMBER_FLOAT -> json.getDoubleValue();
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package edu.trincoll.siem.Parser;
+
+/**
+ * Parser for one log format. {@link ParserRegistry} picks one per log file, so each line only
+ * goes through the parser of its file's format. Implementations hold no mutable state and are
+ * shared across threads.
+ */
+public interface LogFormatParser {
+
+    // Name used in siem.parser.formats-by-source and stored as logfile.LogFormat, e.g. "cef"
+    String getName();
+
+    // Whether a line looks like this format; used on a sample of lines to detect a file's format
+    boolean matches(String line);
+
+    /**
+     * @param timestamps Reads the line's timestamp in the zone of its source, inferring a missing year
+     */
+    ParsedLogLine parse(String line, TimestampParser timestamps);
+
+    // Parse outside of a file's ingestion: times without an offset in the system zone, years relative to now
+    default ParsedLogLine parse(String line) {
+        return parse(line, TimestampParser.systemDefault());
+    }
+}
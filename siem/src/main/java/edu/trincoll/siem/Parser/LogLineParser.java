@@ -0,0 +1,171 @@
+package edu.trincoll.siem.Parser;
+
+import org.springframework.stereotype.Component;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts structured data from a log line in a single pass. Patterns are compiled once,
+ * and each one is guarded by a cheap substring check so lines that cannot match never
+ * run the regex. The parser holds no mutable state and is safe to share across threads.
+ * <p>
+ * This is the "generic" format ("Apr 17 09:23:41 host: message"), used when no other format
+ * is configured or detected. Its message rules also classify the free text of syslog messages.
+ */
+@Component
+public class LogLineParser implements LogFormatParser {
+
+    public static final String NAME = "generic";
+
+    // Syslog header like "Apr 17 09:23:41 dc01.corp.local:"
+    private static final Pattern HEADER = Pattern.compile("^(\\w{3})\\s+(\\d{1,2})\\s+(\\d{2}:\\d{2}:\\d{2})\\s+([^:]+):");
+    private static final Pattern LOGIN_FAILED = Pattern.compile("User\\s+(\\S+)\\s+failed\\s+login\\s+attempt");
+    private static final Pattern REASON = Pattern.compile("Reason:\\s+(.+?)(?:$|-)");
+    private static final Pattern CONNECTION = Pattern.compile("Connection from (\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})(?::(\\d+))? to (\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})(?::(\\d+))?");
+    private static final Pattern HTTP = Pattern.compile("(GET|POST|PUT|DELETE|HEAD|OPTIONS|PATCH)\\s+(\\S+)\\s+-\\s+(\\d{3})");
+    private static final Pattern SOURCE_IP = Pattern.compile("Source IP:\\s+(\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})(?::(\\d+))?");
+    private static final Pattern DESTINATION_IP = Pattern.compile("Destination IP:\\s+(\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})(?::(\\d+))?");
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean matches(String line) {
+        return line.length() >= 16 && isWordChar(line.charAt(0)) && HEADER.matcher(line).find();
+    }
+
+    @Override
+    public ParsedLogLine parse(String line, TimestampParser timestamps) {
+        ParsedLogLine parsed = new ParsedLogLine(line);
+
+        parseHeader(parsed, line, timestamps);
+        parseMessage(parsed, line);
+        return parsed;
+    }
+
+    /**
+     * Set the action, message and fields recognized in free text: failed logins, connections,
+     * HTTP requests and explicit source / destination IPs.
+     */
+    void parseMessage(ParsedLogLine parsed, String line) {
+        if (line.contains("failed")) {
+            parseLoginFailure(parsed, line);
+        }
+        if (line.contains("Connection from ")) {
+            parseConnection(parsed, line);
+        }
+        if (line.indexOf('-') >= 0) {
+            parseHttp(parsed, line);
+        }
+        if (line.contains("Source IP:")) {
+            parseSourceIp(parsed, line);
+        }
+        if (line.contains("Destination IP:")) {
+            parseDestinationIp(parsed, line);
+        }
+    }
+
+    private void parseHeader(ParsedLogLine parsed, String line, TimestampParser timestamps) {
+        // The header always starts with a three character month
+        if (line.length() < 16 || !isWordChar(line.charAt(0))) {
+            return;
+        }
+
+        Matcher header = HEADER.matcher(line);
+        if (!header.find()) {
+            return;
+        }
+
+        parsed.setHostname(header.group(4));
+        parsed.putParsedData("timestamp", line.substring(header.start(1), header.end(3)));
+        parsed.putParsedData("hostname", header.group(4));
+        // The header has no year; the timestamp parser infers it. Left unset if it is not a valid date
+        parsed.setTimestamp(timestamps.parse(line, header.start(1), header.end(3)));
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private void parseLoginFailure(ParsedLogLine parsed, String line) {
+        Matcher loginMatch = LOGIN_FAILED.matcher(line);
+        if (!loginMatch.find()) {
+            return;
+        }
+
+        parsed.setAction("LOGIN_FAILED");
+        parsed.setMessage("Failed login attempt for user " + loginMatch.group(1));
+        // Always set: detection rules group failed logins by it
+        parsed.putParsedData("username", loginMatch.group(1));
+
+        Matcher reasonMatch = REASON.matcher(line);
+        if (reasonMatch.find()) {
+            parsed.putParsedData("failureReason", reasonMatch.group(1).trim());
+        }
+    }
+
+    private void parseConnection(ParsedLogLine parsed, String line) {
+        Matcher connectionMatch = CONNECTION.matcher(line);
+        if (!connectionMatch.find()) {
+            return;
+        }
+
+        parsed.setConnectionSourceIp(connectionMatch.group(1));
+        parsed.setConnectionDestinationIp(connectionMatch.group(3));
+
+        if (connectionMatch.group(2) != null) {
+            parsed.setSourceport(Integer.parseInt(connectionMatch.group(2)));
+        }
+        if (connectionMatch.group(4) != null) {
+            parsed.setDestinationport(Integer.parseInt(connectionMatch.group(4)));
+        }
+
+        parsed.setAction("CONNECTION");
+        parsed.setMessage("Connection from " + connectionMatch.group(1) +
+                (connectionMatch.group(2) != null ? ":" + connectionMatch.group(2) : "") +
+                " to " + connectionMatch.group(3) +
+                (connectionMatch.group(4) != null ? ":" + connectionMatch.group(4) : ""));
+    }
+
+    private void parseHttp(ParsedLogLine parsed, String line) {
+        Matcher httpMatch = HTTP.matcher(line);
+        if (!httpMatch.find()) {
+            return;
+        }
+
+        parsed.setAction(httpMatch.group(1));
+        parsed.putParsedData("url", httpMatch.group(2));
+        parsed.putParsedData("statusCode", httpMatch.group(3));
+        parsed.setMessage("HTTP " + httpMatch.group(1) + " request to " +
+                httpMatch.group(2) + " returned " + httpMatch.group(3));
+    }
+
+    private void parseSourceIp(ParsedLogLine parsed, String line) {
+        Matcher sourceIpMatch = SOURCE_IP.matcher(line);
+        if (!sourceIpMatch.find()) {
+            return;
+        }
+
+        parsed.setSourceIp(sourceIpMatch.group(1));
+        if (sourceIpMatch.group(2) != null) {
+            parsed.setSourceport(Integer.parseInt(sourceIpMatch.group(2)));
+        }
+        parsed.putParsedData("sourceIp", sourceIpMatch.group(1));
+    }
+
+    private void parseDestinationIp(ParsedLogLine parsed, String line) {
+        Matcher destIpMatch = DESTINATION_IP.matcher(line);
+        if (!destIpMatch.find()) {
+            return;
+        }
+
+        parsed.setDestinationIp(destIpMatch.group(1));
+        if (destIpMatch.group(2) != null) {
+            parsed.setDestinationport(Integer.parseInt(destIpMatch.group(2)));
+        }
+        parsed.putParsedData("destinationIp", destIpMatch.group(1));
+    }
+}
@@ -0,0 +1,53 @@
+package edu.trincoll.siem.Parser;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fields extracted from a single log line. Device and action names are kept as plain
+ * strings; resolving them to entities is left to the ingestion service.
+ */
+@Getter
+@Setter
+public class ParsedLogLine {
+
+    private final String line;
+
+    private Instant timestamp;
+
+    // Hostname from the syslog header
+    private String hostname;
+
+    // IPs from a "Connection from A to B" message
+    private String connectionSourceIp;
+    private String connectionDestinationIp;
+
+    // IPs from explicit "Source IP:" / "Destination IP:" fields
+    private String sourceIp;
+    private String destinationIp;
+
+    private Integer sourceport;
+    private Integer destinationport;
+
+    private String action;
+
+    private String message;
+
+    private Map<String, Object> parseddata;
+
+    public ParsedLogLine(String line) {
+        this.line = line;
+        this.message = line; // Default message is the whole line
+    }
+
+    public void putParsedData(String key, Object value) {
+        if (parseddata == null) {
+            parseddata = new HashMap<>();
+        }
+        parseddata.put(key, value);
+    }
+}
@@ -0,0 +1,227 @@
+package edu.trincoll.siem.Parser;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The known log formats, and which one a log file is parsed with. Formats are chosen once per
+ * file, not per line: an explicitly requested format wins, then the format configured for the
+ * file's source name or source type, and otherwise the format most lines of a sample match.
+ * Files no format recognizes use the generic parser.
+ * <p>
+ * It also holds the zone each source writes its local times in, for the file's {@link TimestampParser}.
+ */
+@Component
+public class ParserRegistry {
+
+    private final Map<String, LogFormatParser> parsers = new LinkedHashMap<>();
+    private final LogFormatParser fallback;
+    private final Map<String, String> formatsBySource;
+    private final int detectLines;
+    private final ZoneId defaultZone;
+    private final Map<String, ZoneId> zonesBySource;
+
+    // Per format: files parsed with it, how many of them were detected rather than configured,
+    // and lines whose time could not be read from the line
+    private final Map<String, LongAdder> selected = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> detected = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> inferred = new ConcurrentHashMap<>();
+
+    public ParserRegistry(List<LogFormatParser> parsers,
+                          LogLineParser fallback,
+                          @Value("${siem.parser.formats-by-source:}") String formatsBySource,
+                          @Value("${siem.parser.detect-lines:50}") int detectLines,
+                          @Value("${siem.timestamp.default-zone:}") String defaultZone,
+                          @Value("${siem.timestamp.zones-by-source:}") String zonesBySource) {
+        for (LogFormatParser parser : parsers) {
+            if (this.parsers.putIfAbsent(parser.getName(), parser) != null) {
+                throw new IllegalStateException("Two log format parsers are named " + parser.getName());
+            }
+        }
+        this.parsers.putIfAbsent(fallback.getName(), fallback);
+        this.fallback = fallback;
+        this.formatsBySource = parseFormats(formatsBySource);
+        this.detectLines = Math.max(1, detectLines);
+        for (String format : this.formatsBySource.values()) {
+            if (!this.parsers.containsKey(format)) {
+                throw new IllegalArgumentException("siem.parser.formats-by-source: unknown log format " + format
+                        + ", expected one of " + this.parsers.keySet());
+            }
+        }
+        this.defaultZone = defaultZone == null || defaultZone.isBlank()
+                ? ZoneId.systemDefault() : zone(defaultZone.trim(), "siem.timestamp.default-zone");
+        this.zonesBySource = parseZones(zonesBySource);
+    }
+
+    // "Firewall:cef, nginx-01:access" -> {Firewall=cef, nginx-01=access}
+    static Map<String, String> parseFormats(String formats) {
+        Map<String, String> result = new HashMap<>();
+        if (formats == null || formats.isBlank()) {
+            return result;
+        }
+        for (String entry : formats.split(",")) {
+            int colon = entry.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("siem.parser.formats-by-source: expected <source name or type>:<format>, got " + entry);
+            }
+            result.put(entry.substring(0, colon).trim(), entry.substring(colon + 1).trim());
+        }
+        return result;
+    }
+
+    // "Firewall:UTC, web-01:Europe/Berlin" -> {Firewall=UTC, web-01=Europe/Berlin}; split at the first colon, as offsets contain one
+    static Map<String, ZoneId> parseZones(String zones) {
+        Map<String, ZoneId> result = new HashMap<>();
+        if (zones == null || zones.isBlank()) {
+            return result;
+        }
+        for (String entry : zones.split(",")) {
+            int colon = entry.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("siem.timestamp.zones-by-source: expected <source name or type>:<zone>, got " + entry);
+            }
+            result.put(entry.substring(0, colon).trim(), zone(entry.substring(colon + 1).trim(), "siem.timestamp.zones-by-source"));
+        }
+        return result;
+    }
+
+    private static ZoneId zone(String id, String property) {
+        try {
+            return ZoneId.of(id);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException(property + ": unknown zone " + id, e);
+        }
+    }
+
+    /**
+     * The timestamp parser for a log file: times without an offset are in the zone configured
+     * for its source name, else its source type, else the default zone.
+     *
+     * @param reference When the file was uploaded; lines without a year are placed before it
+     */
+    public TimestampParser timestamps(String sourceName, String sourceType, Instant reference) {
+        ZoneId zone = sourceName != null ? zonesBySource.get(sourceName) : null;
+        if (zone == null && sourceType != null) {
+            zone = zonesBySource.get(sourceType);
+        }
+        return TimestampParser.of(reference, zone != null ? zone : defaultZone);
+    }
+
+    // Lines of a file in this format whose time was inferred because none could be read
+    public void countInferredTimestamps(String format, long lines) {
+        if (lines > 0) {
+            inferred.computeIfAbsent(format, name -> new LongAdder()).add(lines);
+        }
+    }
+
+    /**
+     * The parser named format.
+     *
+     * @throws IllegalArgumentException if no parser has that name
+     */
+    public LogFormatParser get(String format) {
+        LogFormatParser parser = parsers.get(format);
+        if (parser == null) {
+            throw new IllegalArgumentException("Unknown log format " + format + ", expected one of " + parsers.keySet());
+        }
+        return parser;
+    }
+
+    public List<String> getFormats() {
+        return new ArrayList<>(parsers.keySet());
+    }
+
+    /**
+     * Choose the parser for a log file.
+     *
+     * @param format     Format requested for this upload, or null
+     * @param sourceName The file's source name, checked against siem.parser.formats-by-source first
+     * @param sourceType The file's source type, checked second
+     * @param sample     The first lines of the file, used to detect the format if none is set
+     * @throws IllegalArgumentException if a requested format is unknown
+     */
+    public LogFormatParser select(String format, String sourceName, String sourceType, List<String> sample) {
+        if (format == null || format.isBlank()) {
+            format = sourceName != null ? formatsBySource.get(sourceName) : null;
+        }
+        if (format == null && sourceType != null) {
+            format = formatsBySource.get(sourceType);
+        }
+        if (format != null && !format.isBlank()) {
+            return count(get(format.trim()), false);
+        }
+        return count(detect(sample), true);
+    }
+
+    /**
+     * The format most non-blank lines of the sample match, if at least half of them do;
+     * the generic parser otherwise. Only the first detect-lines lines are looked at.
+     */
+    LogFormatParser detect(List<String> sample) {
+        LogFormatParser best = fallback;
+        int bestMatches = 0;
+        for (LogFormatParser parser : parsers.values()) {
+            if (parser == fallback) {
+                continue;
+            }
+            int lines = 0;
+            int matches = 0;
+            for (String line : sample) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (parser.matches(line)) {
+                    matches++;
+                }
+                if (++lines >= detectLines) {
+                    break;
+                }
+            }
+            if (matches > bestMatches && matches * 2 >= lines) {
+                best = parser;
+                bestMatches = matches;
+            }
+        }
+        return best;
+    }
+
+    private LogFormatParser count(LogFormatParser parser, boolean wasDetected) {
+        selected.computeIfAbsent(parser.getName(), name -> new LongAdder()).increment();
+        if (wasDetected) {
+            detected.computeIfAbsent(parser.getName(), name -> new LongAdder()).increment();
+        }
+        return parser;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (String format : parsers.keySet()) {
+            Map<String, Object> formatStats = new LinkedHashMap<>();
+            LongAdder files = selected.get(format);
+            LongAdder detectedFiles = detected.get(format);
+            LongAdder inferredLines = inferred.get(format);
+            formatStats.put("files", files != null ? files.sum() : 0L);
+            formatStats.put("detected", detectedFiles != null ? detectedFiles.sum() : 0L);
+            formatStats.put("timestampsInferred", inferredLines != null ? inferredLines.sum() : 0L);
+            stats.put(format, formatStats);
+        }
+        stats.put("detectLines", detectLines);
+        stats.put("formatsBySource", formatsBySource);
+        stats.put("defaultZone", defaultZone.getId());
+        Map<String, String> zones = new LinkedHashMap<>();
+        zonesBySource.forEach((source, zone) -> zones.put(source, zone.getId()));
+        stats.put("zonesBySource", zones);
+        return stats;
+    }
+}
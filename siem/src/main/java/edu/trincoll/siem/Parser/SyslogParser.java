@@ -0,0 +1,256 @@
+package edu.trincoll.siem.Parser;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Syslog lines in RFC 5424 ("<34>1 2025-03-09T10:15:30.003Z host app 42 ID47 [sd@1 k="v"] msg")
+ * or RFC 3164 ("<34>Mar  9 10:15:30 host sshd[42]: msg", with or without the priority) form.
+ * The header is read with a hand-written tokenizer; the message is then classified by the
+ * generic parser's message rules.
+ */
+@Component
+public class SyslogParser implements LogFormatParser {
+
+    public static final String NAME = "syslog";
+
+    private static final String NIL = "-";
+    private static final char BOM = '\uFEFF';
+
+    private final LogLineParser messageParser;
+
+    public SyslogParser(LogLineParser messageParser) {
+        this.messageParser = messageParser;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean matches(String line) {
+        int at = priorityEnd(line);
+        if (at > 0) {
+            return true;
+        }
+        // Without a priority, tell "Mar  9 10:15:30 host tag: msg" from the generic "Mar  9 10:15:30 host: msg"
+        int end = Fields.syslogTimestampEnd(line, 0);
+        if (end == Fields.NONE || end >= line.length() || line.charAt(end) != ' ') {
+            return false;
+        }
+        int hostEnd = line.indexOf(' ', end + 1);
+        return hostEnd > end + 1 && line.charAt(hostEnd - 1) != ':' && tagEnd(line, hostEnd + 1) != Fields.NONE;
+    }
+
+    @Override
+    public ParsedLogLine parse(String line, TimestampParser timestamps) {
+        ParsedLogLine parsed = new ParsedLogLine(line);
+        int at = priorityEnd(line);
+        if (at > 0) {
+            int priority = Fields.digits(line, 1, at - 1);
+            parsed.putParsedData("facility", priority / 8);
+            parsed.putParsedData("severity", priority % 8);
+        } else {
+            at = 0;
+        }
+
+        String message;
+        if (at + 1 < line.length() && line.charAt(at) == '1' && line.charAt(at + 1) == ' ') {
+            message = parse5424(parsed, line, at + 2, timestamps);
+        } else {
+            message = parse3164(parsed, line, at, timestamps);
+        }
+
+        if (message != null) {
+            parsed.setMessage(message);
+            messageParser.parseMessage(parsed, message);
+        } else {
+            messageParser.parseMessage(parsed, line);
+        }
+        return parsed;
+    }
+
+    // Index after "<PRI>", or NONE
+    private static int priorityEnd(String line) {
+        if (line.isEmpty() || line.charAt(0) != '<') {
+            return Fields.NONE;
+        }
+        int close = line.indexOf('>', 1);
+        if (close < 2 || close > 4) {
+            return Fields.NONE;
+        }
+        int priority = Fields.digits(line, 1, close);
+        return priority >= 0 && priority <= 191 ? close + 1 : Fields.NONE;
+    }
+
+    // Returns the message, or null when the header is malformed (the whole line stays the message)
+    private static String parse3164(ParsedLogLine parsed, String line, int at, TimestampParser timestamps) {
+        int end = Fields.syslogTimestampEnd(line, at);
+        if (end == Fields.NONE || end >= line.length() || line.charAt(end) != ' ') {
+            return null;
+        }
+        parsed.setTimestamp(timestamps.parse(line, at, end));
+        parsed.putParsedData("timestamp", line.substring(at, end));
+
+        int hostStart = end + 1;
+        int hostEnd = line.indexOf(' ', hostStart);
+        if (hostEnd < 0) {
+            return null;
+        }
+        String hostname = line.substring(hostStart, hostEnd);
+        parsed.setHostname(hostname);
+        parsed.putParsedData("hostname", hostname);
+
+        int tagStart = hostEnd + 1;
+        int tagEnd = tagEnd(line, tagStart);
+        if (tagEnd == Fields.NONE) {
+            return line.substring(tagStart);
+        }
+        // "sshd[42]:" or "sshd:"
+        int colon = tagEnd - 1;
+        int bracket = line.lastIndexOf('[', colon);
+        if (bracket > tagStart && line.charAt(colon - 1) == ']') {
+            parsed.putParsedData("program", line.substring(tagStart, bracket));
+            parsed.putParsedData("pid", line.substring(bracket + 1, colon - 1));
+        } else {
+            parsed.putParsedData("program", line.substring(tagStart, colon));
+        }
+        return tagEnd < line.length() && line.charAt(tagEnd) == ' ' ? line.substring(tagEnd + 1) : line.substring(tagEnd);
+    }
+
+    // Index after the "tag:" token starting at index, or NONE if the token does not end with a colon
+    private static int tagEnd(String line, int at) {
+        int end = at;
+        while (end < line.length() && line.charAt(end) != ' ') {
+            end++;
+        }
+        return end - at > 1 && line.charAt(end - 1) == ':' ? end : Fields.NONE;
+    }
+
+    private static String parse5424(ParsedLogLine parsed, String line, int at, TimestampParser timestamps) {
+        Tokenizer tokens = new Tokenizer(line, at);
+        String timestamp = tokens.next();
+        String hostname = tokens.next();
+        String appName = tokens.next();
+        String procId = tokens.next();
+        String msgId = tokens.next();
+        if (msgId == null) {
+            return null;
+        }
+
+        if (!timestamp.equals(NIL)) {
+            parsed.putParsedData("timestamp", timestamp);
+            parsed.setTimestamp(timestamps.parse(timestamp));
+        }
+        if (!hostname.equals(NIL)) {
+            parsed.setHostname(hostname);
+            parsed.putParsedData("hostname", hostname);
+        }
+        if (!appName.equals(NIL)) {
+            parsed.putParsedData("program", appName);
+        }
+        if (!procId.equals(NIL)) {
+            parsed.putParsedData("pid", procId);
+        }
+        if (!msgId.equals(NIL)) {
+            parsed.putParsedData("msgid", msgId);
+        }
+
+        int pos = tokens.position();
+        // Structured data is "-" or one or more [elements]
+        if (pos < line.length() && line.charAt(pos) == '[') {
+            Map<String, Map<String, String>> structuredData = new LinkedHashMap<>();
+            pos = parseStructuredData(line, pos, structuredData);
+            if (pos == Fields.NONE) {
+                return null;
+            }
+            parsed.putParsedData("structuredData", structuredData);
+        } else if (pos < line.length() && line.charAt(pos) == '-') {
+            pos++;
+        }
+
+        if (pos < line.length() && line.charAt(pos) == ' ') {
+            pos++;
+        }
+        if (pos < line.length() && line.charAt(pos) == BOM) {
+            pos++;
+        }
+        return line.substring(pos);
+    }
+
+    // Reads "[id k="v" ...][id2 ...]" starting at index; returns the index after it, or NONE
+    private static int parseStructuredData(String line, int pos, Map<String, Map<String, String>> into) {
+        while (pos < line.length() && line.charAt(pos) == '[') {
+            int idEnd = pos + 1;
+            while (idEnd < line.length() && line.charAt(idEnd) != ' ' && line.charAt(idEnd) != ']') {
+                idEnd++;
+            }
+            if (idEnd >= line.length()) {
+                return Fields.NONE;
+            }
+            Map<String, String> params = new LinkedHashMap<>();
+            into.put(line.substring(pos + 1, idEnd), params);
+            pos = idEnd;
+
+            while (pos < line.length() && line.charAt(pos) == ' ') {
+                int eq = line.indexOf('=', pos + 1);
+                if (eq < 0 || eq + 1 >= line.length() || line.charAt(eq + 1) != '"') {
+                    return Fields.NONE;
+                }
+                StringBuilder value = new StringBuilder();
+                int i = eq + 2;
+                for (; i < line.length() && line.charAt(i) != '"'; i++) {
+                    char c = line.charAt(i);
+                    // '"', '\' and ']' are escaped with a backslash
+                    if (c == '\\' && i + 1 < line.length()) {
+                        c = line.charAt(++i);
+                    }
+                    value.append(c);
+                }
+                if (i >= line.length()) {
+                    return Fields.NONE;
+                }
+                params.put(line.substring(pos + 1, eq), value.toString());
+                pos = i + 1;
+            }
+            if (pos >= line.length() || line.charAt(pos) != ']') {
+                return Fields.NONE;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    // Space separated header fields
+    private static final class Tokenizer {
+
+        private final String line;
+        private int pos;
+
+        private Tokenizer(String line, int pos) {
+            this.line = line;
+            this.pos = pos;
+        }
+
+        // The next field, or null at the end of the line
+        String next() {
+            if (pos >= line.length()) {
+                return null;
+            }
+            int end = line.indexOf(' ', pos);
+            if (end < 0) {
+                end = line.length();
+            }
+            String token = line.substring(pos, end);
+            pos = Math.min(end + 1, line.length());
+            return token;
+        }
+
+        int position() {
+            return pos;
+        }
+    }
+}
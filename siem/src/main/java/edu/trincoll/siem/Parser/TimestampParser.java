@@ -0,0 +1,391 @@
+package edu.trincoll.siem.Parser;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * Reads log timestamps in the formats the parsers meet, detected from their shape:
+ * <ul>
+ *   <li>RFC 3164 / BSD syslog: {@code Mar  9 10:15:30}, optionally with a year ({@code Mar 9 2025 10:15:30})
+ *   and fraction</li>
+ *   <li>RFC 5424 / ISO-8601: {@code 2025-03-09T10:15:30.003Z}, {@code 2025-03-09 10:15:30+01:00}, ...</li>
+ *   <li>Apache / Nginx: {@code 09/Mar/2025:10:15:30 +0100}</li>
+ *   <li>Epoch seconds, milliseconds, microseconds or nanoseconds (by digit count), with an optional fraction</li>
+ * </ul>
+ * Digits are read in place and the date is converted with integer arithmetic, so nothing but the
+ * resulting Instant is allocated. Times without an offset are in the zone of the log source.
+ * Times without a year take the year that puts them closest before the reference time (the
+ * upload time of the file), so December lines uploaded in January land in the previous year.
+ * <p>
+ * One instance serves one file. It is thread-safe: the only mutable state is a cached
+ * UTC offset window, replaced as a whole.
+ */
+public final class TimestampParser {
+
+    // A timestamp without a year may be this far after the reference (clock skew) before it is moved back a year
+    private static final long FUTURE_TOLERANCE_SECONDS = 86_400;
+
+    private static final int NOT_FIXED = Integer.MIN_VALUE;
+
+    private final Instant reference;
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    private final int fixedOffset;
+    private final long referenceSecond;
+    private final int referenceYear;
+
+    // Local time range with a single UTC offset, around the last time converted
+    private volatile OffsetWindow window;
+
+    private record OffsetWindow(long fromLocal, long untilLocal, int offsetSeconds) {
+    }
+
+    private TimestampParser(Instant reference, ZoneId zone) {
+        this.reference = reference;
+        this.zone = zone;
+        this.rules = zone.getRules();
+        this.fixedOffset = rules.isFixedOffset() ? rules.getOffset(reference).getTotalSeconds() : NOT_FIXED;
+        this.referenceSecond = reference.getEpochSecond();
+        this.referenceYear = LocalDateTime.ofInstant(reference, zone).getYear();
+    }
+
+    /**
+     * @param reference When the lines were written at the latest, usually the upload time; years are inferred from it
+     * @param zone      Zone of times that carry no offset
+     */
+    public static TimestampParser of(Instant reference, ZoneId zone) {
+        return new TimestampParser(reference, zone);
+    }
+
+    // Current time and the system zone, for parsing outside of a file's ingestion
+    public static TimestampParser systemDefault() {
+        return new TimestampParser(Instant.now(), ZoneId.systemDefault());
+    }
+
+    public Instant getReference() {
+        return reference;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public Instant parse(String s) {
+        return s != null ? parse(s, 0, s.length()) : null;
+    }
+
+    /**
+     * The timestamp filling [from, to) exactly, in any supported format, or null if it is not one.
+     */
+    public Instant parse(String s, int from, int to) {
+        if (from < 0 || to > s.length() || to - from < 6) {
+            return null;
+        }
+        char first = s.charAt(from);
+        if (first >= '0' && first <= '9') {
+            if (to - from >= 10 && s.charAt(from + 4) == '-') {
+                return parseIso(s, from, to);
+            }
+            if (s.charAt(from + 2) == '/') {
+                return parseApache(s, from, to);
+            }
+            return parseEpoch(s, from, to);
+        }
+        return parseSyslog(s, from, to);
+    }
+
+    /**
+     * An epoch number, read as seconds, milliseconds, microseconds or nanoseconds by its magnitude.
+     */
+    public static Instant fromEpoch(long value) {
+        long abs = Math.abs(value);
+        if (abs < 100_000_000_000L) {
+            return Instant.ofEpochSecond(value);
+        }
+        if (abs < 100_000_000_000_000L) {
+            return Instant.ofEpochMilli(value);
+        }
+        if (abs < 100_000_000_000_000_000L) {
+            return Instant.ofEpochSecond(Math.floorDiv(value, 1_000_000L), Math.floorMod(value, 1_000_000L) * 1_000L);
+        }
+        return Instant.ofEpochSecond(Math.floorDiv(value, 1_000_000_000L), Math.floorMod(value, 1_000_000_000L));
+    }
+
+    // "Mmm d[d] [yyyy ]hh:mm:ss[.fff]"; the day may be space-padded
+    private Instant parseSyslog(String s, int from, int to) {
+        int month = Fields.month(s, from);
+        if (month == Fields.NONE || s.charAt(from + 3) != ' ') {
+            return null;
+        }
+        int at = from + 4;
+        if (at < to && s.charAt(at) == ' ') {
+            at++;
+        }
+        int dayEnd = at;
+        while (dayEnd < to && dayEnd - at < 2 && isDigit(s.charAt(dayEnd))) {
+            dayEnd++;
+        }
+        int day = Fields.digits(s, at, dayEnd);
+        if (day == Fields.NONE || dayEnd >= to || s.charAt(dayEnd) != ' ') {
+            return null;
+        }
+        at = dayEnd + 1;
+
+        int year = Fields.NONE;
+        if (at + 5 <= to && s.charAt(at + 4) == ' ') {
+            year = Fields.digits(s, at, at + 4);
+            if (year == Fields.NONE) {
+                return null;
+            }
+            at += 5;
+        }
+
+        if (at + 8 > to || s.charAt(at + 2) != ':' || s.charAt(at + 5) != ':') {
+            return null;
+        }
+        int hour = twoDigits(s, at);
+        int minute = twoDigits(s, at + 3);
+        int second = twoDigits(s, at + 6);
+        at += 8;
+        int nanos = 0;
+        if (at < to && (s.charAt(at) == '.' || s.charAt(at) == ',')) {
+            int fractionEnd = digitsEnd(s, at + 1, to);
+            nanos = fraction(s, at + 1, fractionEnd);
+            at = fractionEnd;
+        }
+        if (at != to || nanos < 0 || !validTime(hour, minute, second)) {
+            return null;
+        }
+
+        if (year != Fields.NONE) {
+            return validDate(year, month, day) ? local(year, month, day, hour, minute, second, nanos) : null;
+        }
+        // No year: the reference year, unless that puts the line in the future
+        for (int candidate = referenceYear; candidate >= referenceYear - 4; candidate--) {
+            if (!validDate(candidate, month, day)) {
+                continue; // Feb 29 outside a leap year
+            }
+            long epochSecond = toEpochSecond(localSecond(candidate, month, day, hour, minute, second));
+            if (epochSecond <= referenceSecond + FUTURE_TOLERANCE_SECONDS) {
+                return Instant.ofEpochSecond(epochSecond, nanos);
+            }
+        }
+        return null;
+    }
+
+    // "yyyy-MM-dd[(T| )HH:mm[:ss[.f]]][Z|+hh[:mm]|+hhmm]"
+    private Instant parseIso(String s, int from, int to) {
+        if (s.charAt(from + 7) != '-') {
+            return null;
+        }
+        int year = Fields.digits(s, from, from + 4);
+        int month = twoDigits(s, from + 5);
+        int day = twoDigits(s, from + 8);
+        if (year == Fields.NONE || month == Fields.NONE || day == Fields.NONE || !validDate(year, month, day)) {
+            return null;
+        }
+        int at = from + 10;
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        int nanos = 0;
+        if (at < to) {
+            char separator = s.charAt(at);
+            if ((separator != 'T' && separator != 't' && separator != ' ') || at + 6 > to || s.charAt(at + 3) != ':') {
+                return null;
+            }
+            hour = twoDigits(s, at + 1);
+            minute = twoDigits(s, at + 4);
+            at += 6;
+            if (at < to && s.charAt(at) == ':') {
+                if (at + 3 > to) {
+                    return null;
+                }
+                second = twoDigits(s, at + 1);
+                at += 3;
+                if (at < to && (s.charAt(at) == '.' || s.charAt(at) == ',')) {
+                    int fractionEnd = digitsEnd(s, at + 1, to);
+                    nanos = fraction(s, at + 1, fractionEnd);
+                    at = fractionEnd;
+                }
+            }
+            if (nanos < 0 || !validTime(hour, minute, second)) {
+                return null;
+            }
+        }
+
+        if (at == to) {
+            return local(year, month, day, hour, minute, second, nanos);
+        }
+        int offset = offsetSeconds(s, at, to);
+        if (offset == NOT_FIXED) {
+            return null;
+        }
+        return Instant.ofEpochSecond(localSecond(year, month, day, hour, minute, second) - offset, nanos);
+    }
+
+    // "dd/Mmm/yyyy:HH:mm:ss +hhmm"
+    private Instant parseApache(String s, int from, int to) {
+        if (to - from != 26 || s.charAt(from + 6) != '/' || s.charAt(from + 11) != ':' || s.charAt(from + 20) != ' ') {
+            return null;
+        }
+        int day = twoDigits(s, from);
+        int month = Fields.month(s, from + 3);
+        int year = Fields.digits(s, from + 7, from + 11);
+        int hour = twoDigits(s, from + 12);
+        int minute = twoDigits(s, from + 15);
+        int second = twoDigits(s, from + 18);
+        int offset = offsetSeconds(s, from + 21, to);
+        if (day == Fields.NONE || month == Fields.NONE || year == Fields.NONE || offset == NOT_FIXED
+                || !validDate(year, month, day) || !validTime(hour, minute, second)) {
+            return null;
+        }
+        return Instant.ofEpochSecond(localSecond(year, month, day, hour, minute, second) - offset);
+    }
+
+    // At least nine digits (so small numbers are not taken for 1970), optionally ".fraction" of a second
+    private static Instant parseEpoch(String s, int from, int to) {
+        int end = digitsEnd(s, from, to);
+        if (end - from < 9 || end - from > 19) {
+            return null;
+        }
+        long value = 0;
+        for (int i = from; i < end; i++) {
+            value = value * 10 + (s.charAt(i) - '0');
+        }
+        if (end == to) {
+            return fromEpoch(value);
+        }
+        if (s.charAt(end) != '.' || end - from > 11) {
+            return null;
+        }
+        int fractionEnd = digitsEnd(s, end + 1, to);
+        int nanos = fraction(s, end + 1, fractionEnd);
+        return fractionEnd == to && nanos >= 0 ? Instant.ofEpochSecond(value, nanos) : null;
+    }
+
+    // "Z", "+hh", "+hhmm" or "+hh:mm" filling [at, to); NOT_FIXED if it is none of them
+    private static int offsetSeconds(String s, int at, int to) {
+        char sign = s.charAt(at);
+        if ((sign == 'Z' || sign == 'z') && at + 1 == to) {
+            return 0;
+        }
+        if (sign != '+' && sign != '-') {
+            return NOT_FIXED;
+        }
+        int hours = twoDigits(s, at + 1);
+        int minutes;
+        if (to - at == 3) {
+            minutes = 0;
+        } else if (to - at == 5) {
+            minutes = twoDigits(s, at + 3);
+        } else if (to - at == 6 && s.charAt(at + 3) == ':') {
+            minutes = twoDigits(s, at + 4);
+        } else {
+            return NOT_FIXED;
+        }
+        if (hours == Fields.NONE || minutes == Fields.NONE || hours > 18 || minutes > 59) {
+            return NOT_FIXED;
+        }
+        int seconds = hours * 3600 + minutes * 60;
+        return sign == '-' ? -seconds : seconds;
+    }
+
+    private Instant local(int year, int month, int day, int hour, int minute, int second, int nanos) {
+        return Instant.ofEpochSecond(toEpochSecond(localSecond(year, month, day, hour, minute, second)), nanos);
+    }
+
+    // Local date-time in the zone to epoch seconds; gaps and overlaps resolve like ZonedDateTime.of
+    private long toEpochSecond(long localSecond) {
+        if (fixedOffset != NOT_FIXED) {
+            return localSecond - fixedOffset;
+        }
+        OffsetWindow current = window;
+        if (current != null && localSecond >= current.fromLocal() && localSecond < current.untilLocal()) {
+            return localSecond - current.offsetSeconds();
+        }
+        return resolve(localSecond);
+    }
+
+    private long resolve(long localSecond) {
+        int offset = rules.getOffset(LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC)).getTotalSeconds();
+        Instant instant = Instant.ofEpochSecond(localSecond - offset);
+        ZoneOffsetTransition previous = rules.previousTransition(instant.plusSeconds(1));
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        // Local times between the transitions that are neither skipped nor repeated
+        long from = previous == null ? Long.MIN_VALUE : Math.max(
+                previous.getDateTimeBefore().toEpochSecond(ZoneOffset.UTC), previous.getDateTimeAfter().toEpochSecond(ZoneOffset.UTC));
+        long until = next == null ? Long.MAX_VALUE : Math.min(
+                next.getDateTimeBefore().toEpochSecond(ZoneOffset.UTC), next.getDateTimeAfter().toEpochSecond(ZoneOffset.UTC));
+        if (localSecond >= from && localSecond < until) {
+            window = new OffsetWindow(from, until, offset);
+        }
+        return localSecond - offset;
+    }
+
+    // Seconds since the epoch of a date-time read as UTC (days from civil date, proleptic Gregorian)
+    static long localSecond(int year, int month, int day, int hour, int minute, int second) {
+        int y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long epochDay = era * 146_097 + dayOfEra - 719_468;
+        return epochDay * 86_400 + hour * 3600L + minute * 60L + second;
+    }
+
+    private static boolean validDate(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1) {
+            return false;
+        }
+        int days = switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+        return day <= days;
+    }
+
+    // Second 60 is a leap second; it reads as the first second of the next minute
+    private static boolean validTime(int hour, int minute, int second) {
+        return hour >= 0 && hour < 24 && minute >= 0 && minute < 60 && second >= 0 && second <= 60;
+    }
+
+    // Value of the two digits at index, or NONE; the fixed-width fields are read without a loop
+    private static int twoDigits(String s, int at) {
+        if (at < 0 || at + 2 > s.length()) {
+            return Fields.NONE;
+        }
+        int tens = s.charAt(at) - '0';
+        int ones = s.charAt(at + 1) - '0';
+        return tens >= 0 && tens <= 9 && ones >= 0 && ones <= 9 ? tens * 10 + ones : Fields.NONE;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int digitsEnd(String s, int from, int to) {
+        int end = from;
+        while (end < to && isDigit(s.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    // Nanoseconds of the fraction digits in [from, to), digits past the ninth ignored; -1 if there are none
+    private static int fraction(String s, int from, int to) {
+        if (from >= to) {
+            return -1;
+        }
+        int nanos = 0;
+        for (int i = 0; i < 9; i++) {
+            nanos = nanos * 10 + (from + i < to ? s.charAt(from + i) - '0' : 0);
+        }
+        return nanos;
+    }
+}
@@ -0,0 +1,76 @@
+package edu.trincoll.siem.Parser;
+
+import java.time.Instant;
+
+/**
+ * The field names common loggers, shippers and user patterns use for the event columns
+ * ("timestamp", "host", "src_ip", "sourceIp", ...). JSON lines and grok-style pattern captures
+ * both go through here, so a field is named the same way in either.
+ */
+public final class WellKnownFields {
+
+    private WellKnownFields() {
+    }
+
+    /**
+     * Fill the event column a field name stands for, if any. Other names are ignored.
+     *
+     * @param timestamps Reads timestamp fields, in any format it supports
+     */
+    public static void apply(ParsedLogLine parsed, String name, Object value, TimestampParser timestamps) {
+        switch (name) {
+            case "timestamp", "@timestamp", "time", "ts" -> {
+                Instant timestamp = timestamp(value, timestamps);
+                if (timestamp != null) {
+                    parsed.setTimestamp(timestamp);
+                }
+            }
+            case "host", "hostname" -> {
+                if (value instanceof String host) {
+                    parsed.setHostname(host);
+                }
+            }
+            case "src_ip", "source_ip", "src", "client_ip", "sourceIp" -> {
+                if (Fields.isIpv4(String.valueOf(value))) {
+                    parsed.setSourceIp(String.valueOf(value));
+                }
+            }
+            case "dst_ip", "dest_ip", "destination_ip", "dst", "destinationIp" -> {
+                if (Fields.isIpv4(String.valueOf(value))) {
+                    parsed.setDestinationIp(String.valueOf(value));
+                }
+            }
+            case "src_port", "source_port", "sourcePort" -> parsed.setSourceport(Fields.port(String.valueOf(value)));
+            case "dst_port", "dest_port", "destination_port", "destinationPort" ->
+                    parsed.setDestinationport(Fields.port(String.valueOf(value)));
+            case "action", "event_type" -> {
+                if (value instanceof String action && !action.isEmpty()) {
+                    parsed.setAction(action);
+                }
+            }
+            case "message", "msg" -> {
+                if (value instanceof String message) {
+                    parsed.setMessage(message);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    // Text in any supported format, or an epoch number (seconds, milliseconds, ... told apart by magnitude)
+    private static Instant timestamp(Object value, TimestampParser timestamps) {
+        if (value instanceof Double seconds && Math.abs(seconds) < 100_000_000_000d) {
+            // Fractional epoch seconds, e.g. 1741515330.25
+            long whole = (long) Math.floor(seconds);
+            return Instant.ofEpochSecond(whole, (long) ((seconds - whole) * 1_000_000_000L));
+        }
+        if (value instanceof Number number) {
+            return TimestampParser.fromEpoch(number.longValue());
+        }
+        if (value instanceof String text) {
+            return timestamps.parse(text);
+        }
+        return null;
+    }
+}
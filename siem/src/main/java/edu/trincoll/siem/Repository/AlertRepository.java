@@ -3,6 +3,8 @@ package edu.trincoll.siem.Repository;
 import edu.trincoll.siem.Model.Alert;
 import edu.trincoll.siem.Model.Alertrule;
 import edu.trincoll.siem.Model.Enums.AlertStatus;
+import edu.trincoll.siem.Model.View.AlertView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -37,6 +39,56 @@ public interface AlertRepository extends JpaRepository<Alert, Integer> {
     @Query("SELECT a FROM Alert a ORDER BY a.triggeredat DESC")
     List<Alert> findLatestAlerts(org.springframework.data.domain.Pageable pageable);
 
+    // Alert rows with their rule joined in, for list endpoints
+    String VIEW_SELECT =
+            "SELECT new edu.trincoll.siem.Model.View.AlertView(a.id, a.triggeredat, r.id, r.name, r.severity, a.status) " +
+                    "FROM Alert a JOIN a.ruleid r ";
+
+    @Query(VIEW_SELECT + "ORDER BY a.triggeredat DESC")
+    List<AlertView> findLatestViews(Pageable pageable);
+
+    // Keyset pages, newest first; triggeredat is NOT NULL since V12 (see LogeventRepository.findPageAfter for the extra bound)
+    @Query(VIEW_SELECT + "WHERE a.triggeredat IS NOT NULL ORDER BY a.triggeredat DESC, a.id DESC")
+    List<AlertView> findPage(Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE a.triggeredat <= :triggeredat AND (a.triggeredat < :triggeredat OR a.id < :id) " +
+            "ORDER BY a.triggeredat DESC, a.id DESC")
+    List<AlertView> findPageAfter(@Param("triggeredat") Instant triggeredat, @Param("id") Integer id, Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE a.status = :status AND a.triggeredat IS NOT NULL " +
+            "ORDER BY a.triggeredat DESC, a.id DESC")
+    List<AlertView> findByStatusPage(@Param("status") AlertStatus status, Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE a.status = :status " +
+            "AND a.triggeredat <= :triggeredat AND (a.triggeredat < :triggeredat OR a.id < :id) " +
+            "ORDER BY a.triggeredat DESC, a.id DESC")
+    List<AlertView> findByStatusPageAfter(@Param("status") AlertStatus status, @Param("triggeredat") Instant triggeredat,
+                                          @Param("id") Integer id, Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE a.triggeredat BETWEEN :startTime AND :endTime " +
+            "ORDER BY a.triggeredat DESC, a.id DESC")
+    List<AlertView> findRangePage(@Param("startTime") Instant startTime, @Param("endTime") Instant endTime,
+                                  Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE a.triggeredat >= :startTime " +
+            "AND a.triggeredat <= :triggeredat AND (a.triggeredat < :triggeredat OR a.id < :id) " +
+            "ORDER BY a.triggeredat DESC, a.id DESC")
+    List<AlertView> findRangePageAfter(@Param("startTime") Instant startTime, @Param("triggeredat") Instant triggeredat,
+                                       @Param("id") Integer id, Pageable pageable);
+
+    // Keyset pages of one rule's alerts, optionally with one status
+    @Query(VIEW_SELECT + "WHERE r.id = :ruleId AND (:status IS NULL OR a.status = :status) " +
+            "ORDER BY a.triggeredat DESC, a.id DESC")
+    List<AlertView> findByRulePage(@Param("ruleId") Integer ruleId, @Param("status") AlertStatus status,
+                                   Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE r.id = :ruleId AND (:status IS NULL OR a.status = :status) " +
+            "AND a.triggeredat <= :triggeredat AND (a.triggeredat < :triggeredat OR a.id < :id) " +
+            "ORDER BY a.triggeredat DESC, a.id DESC")
+    List<AlertView> findByRulePageAfter(@Param("ruleId") Integer ruleId, @Param("status") AlertStatus status,
+                                        @Param("triggeredat") Instant triggeredat, @Param("id") Integer id,
+                                        Pageable pageable);
+
     // Find alerts by rule severity (using join)
     @Query("SELECT a FROM Alert a WHERE a.ruleid.severity = :severity")
     List<Alert> findByRuleSeverity(@Param("severity") edu.trincoll.siem.Model.Enums.Severity severity);
@@ -52,4 +104,8 @@ public interface AlertRepository extends JpaRepository<Alert, Integer> {
                     "GROUP BY ar.ruleid, ar.name, ar.severity " +
                     "ORDER BY alert_count DESC")
     List<Object[]> getAlertSummaryByRule();
+
+    // Alert count and average detection delay per severity, as of the last refresh of alert_statistics
+    @Query(nativeQuery = true, value = "SELECT severity, alert_count, avg_detection_time FROM alert_statistics ORDER BY severity")
+    List<Object[]> getAlertStatistics();
 }
\ No newline at end of file
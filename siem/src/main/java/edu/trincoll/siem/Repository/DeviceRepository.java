@@ -1,6 +1,7 @@
 package edu.trincoll.siem.Repository;
 
 import edu.trincoll.siem.Model.Device;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -36,9 +37,11 @@ public interface DeviceRepository extends JpaRepository<Device, Integer> {
     // Find devices by device type containing a string (case-insensitive)
     List<Device> findByDevicetypeContainingIgnoreCase(String deviceTypeSubstring);
 
-    // Find devices by IP address in a specific subnet (native query for PostgreSQL)
-    @Query(value = "SELECT * FROM device WHERE ipaddress << :subnet", nativeQuery = true)
-    List<Device> findByIpaddressInSubnet(@Param("subnet") String subnet);
+    // Find devices by IP address in a specific subnet (native query for PostgreSQL), one keyset page in id order
+    @Query(value = "SELECT * FROM device WHERE ipaddress << :subnet AND deviceid > :afterId " +
+            "ORDER BY deviceid LIMIT :limit", nativeQuery = true)
+    List<Device> findByIpaddressInSubnetPage(@Param("subnet") String subnet, @Param("afterId") Integer afterId,
+                                             @Param("limit") int limit);
 
     // Count devices by operating system
     @Query("SELECT d.operatingsystem, COUNT(d) FROM Device d GROUP BY d.operatingsystem")
@@ -52,14 +55,31 @@ public interface DeviceRepository extends JpaRepository<Device, Integer> {
     @Query("SELECT d.devicetype, COUNT(d) FROM Device d GROUP BY d.devicetype")
     List<Object[]> countDevicesByDeviceType();
 
+    // Keyset pages in id order
+    List<Device> findAllByOrderByIdAsc(Pageable pageable);
+
+    List<Device> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
+
+    // Filtered keyset pages in id order; the first page seeks past id 0
+    List<Device> findByOperatingsystemAndIdGreaterThanOrderByIdAsc(String operatingSystem, Integer id, Pageable pageable);
+
+    List<Device> findByLocationAndIdGreaterThanOrderByIdAsc(String location, Integer id, Pageable pageable);
+
+    List<Device> findByDevicetypeAndIdGreaterThanOrderByIdAsc(String deviceType, Integer id, Pageable pageable);
+
+    List<Device> findByLocationAndDevicetypeAndIdGreaterThanOrderByIdAsc(String location, String deviceType, Integer id,
+                                                                          Pageable pageable);
+
     // Find devices by multiple criteria
     List<Device> findByLocationAndDevicetype(String location, String deviceType);
 
-    // Search devices by any field containing the search term (custom query)
-    @Query("SELECT d FROM Device d WHERE " +
+    // Search devices by any field containing the search term (custom query), one keyset page in id order
+    @Query("SELECT d FROM Device d WHERE (" +
             "LOWER(d.hostname) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
             "LOWER(d.operatingsystem) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
             "LOWER(d.location) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-            "LOWER(d.devicetype) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
-    List<Device> searchDevices(@Param("searchTerm") String searchTerm);
+            "LOWER(d.devicetype) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) " +
+            "AND d.id > :afterId ORDER BY d.id")
+    List<Device> searchDevicesPage(@Param("searchTerm") String searchTerm, @Param("afterId") Integer afterId,
+                                   Pageable pageable);
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import edu.trincoll.siem.Model.Incidenteventlink;
 import edu.trincoll.siem.Model.IncidenteventlinkId;
 import edu.trincoll.siem.Model.Incidentreport;
 import edu.trincoll.siem.Model.Logevent;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -20,6 +21,18 @@ public interface IncidenteventlinkRepository extends JpaRepository<Incidentevent
     // Find all links by log event
     List<Incidenteventlink> findByLogeventid(Logevent event);
 
+    // Keyset pages of a report's links in event id order, and of an event's links in report id order;
+    // afterId is 0 on the first page
+    @Query("SELECT l FROM Incidenteventlink l WHERE l.id.reportid = :reportId AND l.id.logeventid > :afterId " +
+            "ORDER BY l.id.logeventid")
+    List<Incidenteventlink> findByReportPage(@Param("reportId") Integer reportId, @Param("afterId") Integer afterId,
+                                             Pageable pageable);
+
+    @Query("SELECT l FROM Incidenteventlink l WHERE l.id.logeventid = :eventId AND l.id.reportid > :afterId " +
+            "ORDER BY l.id.reportid")
+    List<Incidenteventlink> findByEventPage(@Param("eventId") Integer eventId, @Param("afterId") Integer afterId,
+                                            Pageable pageable);
+
     // Find specific link by both report and event (returns Optional since it's a unique combination)
     Optional<Incidenteventlink> findByReportidAndLogeventid(Incidentreport report, Logevent event);
 
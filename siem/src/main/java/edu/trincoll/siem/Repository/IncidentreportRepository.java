@@ -24,6 +24,10 @@ public interface IncidentreportRepository extends JpaRepository<Incidentreport,
 
     List<Incidentreport> findByRelatedalertid(Alert relatedAlert);
 
+    // Keyset pages of an alert's reports, newest (highest id) first
+    List<Incidentreport> findByRelatedalertidAndIdLessThanOrderByIdDesc(Alert relatedAlert, Integer id,
+                                                                       org.springframework.data.domain.Pageable pageable);
+
     List<Incidentreport> findByCreatedatBetween(Instant startDate, Instant endDate);
 
     List<Incidentreport> findByCreatedatAfter(Instant date);
@@ -41,6 +45,39 @@ public interface IncidentreportRepository extends JpaRepository<Incidentreport,
     @Query("SELECT i FROM Incidentreport i ORDER BY i.createdat DESC")
     List<Incidentreport> findLatestReports(org.springframework.data.domain.Pageable pageable);
 
+    // Keyset pages, newest first (see LogeventRepository.findPageAfter for the extra bound). createdat is NOT NULL since V20
+    @Query("SELECT i FROM Incidentreport i ORDER BY i.createdat DESC, i.id DESC")
+    List<Incidentreport> findPage(org.springframework.data.domain.Pageable pageable);
+
+    @Query("SELECT i FROM Incidentreport i WHERE i.createdat <= :createdat AND (i.createdat < :createdat OR i.id < :id) " +
+            "ORDER BY i.createdat DESC, i.id DESC")
+    List<Incidentreport> findPageAfter(@Param("createdat") Instant createdat, @Param("id") Integer id,
+                                       org.springframework.data.domain.Pageable pageable);
+
+    @Query("SELECT i FROM Incidentreport i WHERE i.createdat BETWEEN :startDate AND :endDate " +
+            "ORDER BY i.createdat DESC, i.id DESC")
+    List<Incidentreport> findByDateRangePage(@Param("startDate") Instant startDate, @Param("endDate") Instant endDate,
+                                             org.springframework.data.domain.Pageable pageable);
+
+    @Query("SELECT i FROM Incidentreport i WHERE i.createdat >= :startDate " +
+            "AND i.createdat <= :createdat AND (i.createdat < :createdat OR i.id < :id) " +
+            "ORDER BY i.createdat DESC, i.id DESC")
+    List<Incidentreport> findByDateRangePageAfter(@Param("startDate") Instant startDate,
+                                                  @Param("createdat") Instant createdat, @Param("id") Integer id,
+                                                  org.springframework.data.domain.Pageable pageable);
+
+    @Query("SELECT i FROM Incidentreport i WHERE i.createdby.id = :userId AND i.createdat IS NOT NULL " +
+            "ORDER BY i.createdat DESC, i.id DESC")
+    List<Incidentreport> findByCreatorPage(@Param("userId") Integer userId,
+                                           org.springframework.data.domain.Pageable pageable);
+
+    @Query("SELECT i FROM Incidentreport i WHERE i.createdby.id = :userId " +
+            "AND i.createdat <= :createdat AND (i.createdat < :createdat OR i.id < :id) " +
+            "ORDER BY i.createdat DESC, i.id DESC")
+    List<Incidentreport> findByCreatorPageAfter(@Param("userId") Integer userId,
+                                                @Param("createdat") Instant createdat, @Param("id") Integer id,
+                                                org.springframework.data.domain.Pageable pageable);
+
     @Query("SELECT i FROM Incidentreport i WHERE " +
             "LOWER(i.title) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
             "LOWER(i.description) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
@@ -64,10 +101,12 @@ public interface IncidentreportRepository extends JpaRepository<Incidentreport,
                     "    JOIN eventcategory ec ON a.categoryname = ec.categoryname " +
                     "    WHERE ec.categoryname IN ('Critical', 'Security', 'Intrusion') " +
                     ") " +
-                    "ORDER BY ir.createdat DESC")
-    List<Incidentreport> getReportsWithCriticalEvents();
+                    "AND ir.reportid < :beforeId " +
+                    "ORDER BY ir.reportid DESC LIMIT :limit")
+    List<Incidentreport> getReportsWithCriticalEventsPage(@Param("beforeId") Integer beforeId, @Param("limit") int limit);
 
     @Query(nativeQuery = true, value =
+            "SELECT * FROM (" +
             "SELECT * FROM incidentreport WHERE " +
                     "relatedalertid = :alertId " +
                     "UNION " +
@@ -77,6 +116,8 @@ public interface IncidentreportRepository extends JpaRepository<Incidentreport,
                     "WHERE le.associatedalertid = :alertId " +
                     "EXCEPT " +
                     "SELECT ir.* FROM incidentreport ir " +
-                    "WHERE ir.createdat < (SELECT triggeredat FROM alert WHERE alertid = :alertId)")
-    List<Incidentreport> getReportsWithRelatedEvents(@Param("alertId") Integer alertId);
+                    "WHERE ir.createdat < (SELECT triggeredat FROM alert WHERE alertid = :alertId)" +
+            ") related WHERE reportid < :beforeId ORDER BY reportid DESC LIMIT :limit")
+    List<Incidentreport> getReportsWithRelatedEventsPage(@Param("alertId") Integer alertId,
+                                                         @Param("beforeId") Integer beforeId, @Param("limit") int limit);
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import edu.trincoll.siem.Model.Alert;
 import edu.trincoll.siem.Model.Logfile;
 import edu.trincoll.siem.Model.Logevent;
 import edu.trincoll.siem.Model.Rawline;
+import edu.trincoll.siem.Model.View.LogeventView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -58,15 +60,33 @@ public interface LogeventRepository extends JpaRepository<Logevent, Integer> {
     List<Logevent> findLatestEvents(org.springframework.data.domain.Pageable pageable);
 
     // Find events by raw line content (requires join)
-    @Query("SELECT l FROM Logevent l WHERE LOWER(l.rawline) LIKE LOWER(CONCAT('%', :content, '%'))")
+    @Query("SELECT l FROM Logevent l WHERE LOWER(l.rawline.rawline) LIKE LOWER(CONCAT('%', :content, '%'))")
     List<Logevent> findByRawlineContentContaining(@Param("content") String content);
 
-    @Query(value = "SELECT date_trunc('hour', l1_0.\"timestamp\") AS truncated_timestamp, count(l1_0.logeventid) " +
-            "FROM logevent l1_0 " +
-            "WHERE l1_0.\"timestamp\" BETWEEN :startTime AND :endTime " +
-            "GROUP BY truncated_timestamp " +
-            "ORDER BY truncated_timestamp", nativeQuery = true)
-    List<Object[]> getEventCountTimeSeries(@Param("startTime") Instant startTime, @Param("endTime") Instant endTime);
+    // Hourly counts from the event rollups; startHour is startTime truncated to the hour
+    @Query(value = "SELECT bucket AS truncated_timestamp, SUM(eventcount) " +
+            "FROM eventrollup " +
+            "WHERE resolution = 'h' AND bucket BETWEEN :startHour AND :endTime " +
+            "GROUP BY bucket " +
+            "ORDER BY bucket", nativeQuery = true)
+    List<Object[]> getEventCountTimeSeries(@Param("startHour") Instant startHour, @Param("endTime") Instant endTime);
+
+    // Rollup counts per bucket and file, action or source device (groupBy), with the average message length.
+    // Events without an action / source device are reported under null.
+    @Query(value = "SELECT bucket, " +
+            "CASE :groupBy WHEN 'file' THEN CAST(fileid AS TEXT) " +
+            "WHEN 'action' THEN NULLIF(action, '') " +
+            "ELSE CAST(NULLIF(sourcedeviceid, 0) AS TEXT) END AS grp, " +
+            "SUM(eventcount) AS logs_count, " +
+            "CAST(SUM(messagelengthsum) AS DOUBLE PRECISION) / SUM(eventcount) AS avg_message_length " +
+            "FROM eventrollup " +
+            "WHERE resolution = :resolution AND bucket BETWEEN :startBucket AND :endTime " +
+            "GROUP BY bucket, grp " +
+            "ORDER BY bucket, grp", nativeQuery = true)
+    List<Object[]> getEventRollup(@Param("resolution") String resolution,
+                                  @Param("groupBy") String groupBy,
+                                  @Param("startBucket") Instant startBucket,
+                                  @Param("endTime") Instant endTime);
 
     // Find events by file and alert status
     @Query("SELECT l FROM Logevent l WHERE l.fileid = :file AND " +
@@ -74,17 +94,85 @@ public interface LogeventRepository extends JpaRepository<Logevent, Integer> {
             "(:hasAlert = false AND l.associatedalertid IS NULL))")
     List<Logevent> findByFileAndAlertStatus(@Param("file") Logfile file, @Param("hasAlert") boolean hasAlert);
 
-    @Query(nativeQuery = true, value =
+    // Shared by the full and the keyset-paged complex report
+    String COMPLEX_REPORT_SELECT =
             "SELECT le.logeventid, le.timestamp, lf.filename, lf.sourcename, " +
                     "r.rawline, r.message, sd.hostname AS source_hostname, dd.hostname AS dest_hostname, " +
                     "a.action, ec.categoryname " +
                     "FROM logevent le " +
                     "JOIN logfile lf ON le.fileid = lf.fileid " +
-                    "JOIN rawline r ON le.rawline = r.rawline " +
+                    "JOIN rawline r ON le.rawlineid = r.rawlineid " +
                     "LEFT JOIN device sd ON r.sourcedeviceid = sd.deviceid " +
                     "LEFT JOIN device dd ON r.destinationdeviceid = dd.deviceid " +
                     "LEFT JOIN action a ON r.action = a.action " +
-                    "LEFT JOIN eventcategory ec ON a.categoryname = ec.categoryname " +
-                    "ORDER BY le.timestamp DESC")
+                    "LEFT JOIN eventcategory ec ON a.categoryname = ec.categoryname ";
+
+    @Query(nativeQuery = true, value = COMPLEX_REPORT_SELECT + "ORDER BY le.timestamp DESC")
     List<Object[]> getComplexEventReport();
+
+    // Flat event rows for list endpoints: one statement per page, nothing left to load lazily
+    String VIEW_SELECT =
+            "SELECT new edu.trincoll.siem.Model.View.LogeventView(l.id, l.timestamp, f.id, f.filename, " +
+                    "r.id, r.rawline, r.message, a.action, sd.id, sd.hostname, r.sourceport, " +
+                    "dd.id, dd.hostname, r.destinationport, r.parseddata, al.id) " +
+                    "FROM Logevent l " +
+                    "JOIN l.fileid f " +
+                    "JOIN l.rawline r " +
+                    "LEFT JOIN r.action a " +
+                    "LEFT JOIN r.sourcedeviceid sd " +
+                    "LEFT JOIN r.destinationdeviceid dd " +
+                    "LEFT JOIN l.associatedalertid al ";
+
+    @Query(VIEW_SELECT + "ORDER BY l.timestamp DESC")
+    List<LogeventView> findLatestViews(Pageable pageable);
+
+    // Keyset pages, newest first; timestamp is NOT NULL since V12, so no event is skipped. The "timestamp <= :timestamp"
+    // bound lets the (timestamp, logeventid) index seek straight to the cursor instead of filtering from the top.
+    @Query(VIEW_SELECT + "WHERE l.timestamp IS NOT NULL ORDER BY l.timestamp DESC, l.id DESC")
+    List<LogeventView> findPage(Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE l.timestamp <= :timestamp AND (l.timestamp < :timestamp OR l.id < :id) " +
+            "ORDER BY l.timestamp DESC, l.id DESC")
+    List<LogeventView> findPageAfter(@Param("timestamp") Instant timestamp, @Param("id") Integer id, Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE l.associatedalertid IS NULL AND l.timestamp IS NOT NULL " +
+            "ORDER BY l.timestamp DESC, l.id DESC")
+    List<LogeventView> findNoAlertPage(Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE l.associatedalertid IS NULL " +
+            "AND l.timestamp <= :timestamp AND (l.timestamp < :timestamp OR l.id < :id) " +
+            "ORDER BY l.timestamp DESC, l.id DESC")
+    List<LogeventView> findNoAlertPageAfter(@Param("timestamp") Instant timestamp, @Param("id") Integer id, Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE f.id = :fileId AND l.timestamp IS NOT NULL " +
+            "ORDER BY l.timestamp DESC, l.id DESC")
+    List<LogeventView> findByFilePage(@Param("fileId") Integer fileId, Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE f.id = :fileId " +
+            "AND l.timestamp <= :timestamp AND (l.timestamp < :timestamp OR l.id < :id) " +
+            "ORDER BY l.timestamp DESC, l.id DESC")
+    List<LogeventView> findByFilePageAfter(@Param("fileId") Integer fileId, @Param("timestamp") Instant timestamp,
+                                           @Param("id") Integer id, Pageable pageable);
+
+    // Time-range pages; the cursor moves the upper bound down, so only the first page needs endTime
+    @Query(VIEW_SELECT + "WHERE l.timestamp BETWEEN :startTime AND :endTime " +
+            "ORDER BY l.timestamp DESC, l.id DESC")
+    List<LogeventView> findRangePage(@Param("startTime") Instant startTime, @Param("endTime") Instant endTime,
+                                     Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE l.timestamp >= :startTime " +
+            "AND l.timestamp <= :timestamp AND (l.timestamp < :timestamp OR l.id < :id) " +
+            "ORDER BY l.timestamp DESC, l.id DESC")
+    List<LogeventView> findRangePageAfter(@Param("startTime") Instant startTime, @Param("timestamp") Instant timestamp,
+                                          @Param("id") Integer id, Pageable pageable);
+
+    @Query(nativeQuery = true, value = COMPLEX_REPORT_SELECT +
+            "WHERE le.timestamp IS NOT NULL ORDER BY le.timestamp DESC, le.logeventid DESC LIMIT :limit")
+    List<Object[]> getComplexEventReportPage(@Param("limit") int limit);
+
+    @Query(nativeQuery = true, value = COMPLEX_REPORT_SELECT +
+            "WHERE (le.timestamp, le.logeventid) < (:timestamp, :id) " +
+            "ORDER BY le.timestamp DESC, le.logeventid DESC LIMIT :limit")
+    List<Object[]> getComplexEventReportPageAfter(@Param("timestamp") Instant timestamp, @Param("id") Integer id,
+                                                  @Param("limit") int limit);
 }
\ No newline at end of file
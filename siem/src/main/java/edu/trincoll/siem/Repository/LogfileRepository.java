@@ -1,7 +1,42 @@
 package edu.trincoll.siem.Repository;
 
+import edu.trincoll.siem.Model.Enums.LogFileStatus;
 import edu.trincoll.siem.Model.Logfile;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
 
 public interface LogfileRepository extends JpaRepository<Logfile, Integer> {
-}
\ No newline at end of file
+    // Keyset pages, most recently uploaded first
+    List<Logfile> findAllByOrderByIdDesc(Pageable pageable);
+
+    List<Logfile> findByIdLessThanOrderByIdDesc(Integer id, Pageable pageable);
+
+    // Update only the status column, leaving the other columns untouched
+    @Modifying
+    @Transactional
+    @Query("UPDATE Logfile l SET l.status = :status WHERE l.id = :id")
+    int updateStatus(@Param("id") Integer id, @Param("status") LogFileStatus status);
+
+    // Uploads still Pending from before a restart; files followed by the log tailer stay Pending while active
+    @Query(value = "SELECT fileid FROM logfile WHERE status = 'Pending' AND uploadtime < :before " +
+            "AND NOT EXISTS (SELECT 1 FROM logfiletail t WHERE t.fileid = logfile.fileid AND t.active) ORDER BY fileid",
+            nativeQuery = true)
+    List<Integer> findPendingIdsUploadedBefore(@Param("before") Instant before);
+
+    // Later uploads whose leading lines were ingested with this file only (see Logfile.duplicateof)
+    @Query("SELECT l.id FROM Logfile l WHERE l.duplicateof = :id ORDER BY l.id")
+    List<Integer> findIdsByDuplicateof(@Param("id") Integer id);
+
+    // Record the format ingestion chose, likewise without rewriting the row
+    @Modifying
+    @Transactional
+    @Query("UPDATE Logfile l SET l.logformat = :logformat WHERE l.id = :id")
+    int updateLogformat(@Param("id") Integer id, @Param("logformat") String logformat);
+}
@@ -0,0 +1,21 @@
+package edu.trincoll.siem.Repository;
+
+import edu.trincoll.siem.Model.Parsepattern;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ParsepatternRepository extends JpaRepository<Parsepattern, Integer> {
+    Parsepattern findByName(String name);
+
+    // Active patterns in the order they are tried
+    List<Parsepattern> findByIsactiveOrderByPriorityDescIdAsc(Boolean isActive);
+
+    // Changes whenever a pattern is added, edited or removed; polled to hot-reload edits made elsewhere.
+    // Hashes every column of every row, so an UPDATE that leaves UpdatedAt alone is seen too (the table is small)
+    @Query(nativeQuery = true, value = "SELECT md5(COALESCE(string_agg(p::text, ',' ORDER BY p.patternid), '')) FROM parsepattern p")
+    String findVersionSignature();
+}
@@ -3,6 +3,9 @@ package edu.trincoll.siem.Repository;
 import edu.trincoll.siem.Model.Action;
 import edu.trincoll.siem.Model.Device;
 import edu.trincoll.siem.Model.Rawline;
+import edu.trincoll.siem.Model.RawlineHash;
+import edu.trincoll.siem.Model.View.RawlineView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,9 +15,32 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface RawlineRepository extends JpaRepository<Rawline, String> {
-    // Find by exact raw line (this is redundant as it's the primary key, but included for completeness)
-    Optional<Rawline> findByRawline(String rawline);
+public interface RawlineRepository extends JpaRepository<Rawline, Long> {
+    // Find by exact raw line through its hash ids, so only a few primary key rows are compared
+    default Optional<Rawline> findByRawline(String rawline) {
+        return findByIdInAndRawline(RawlineHash.candidates(rawline), rawline).stream().findFirst();
+    }
+
+    List<Rawline> findByIdInAndRawline(List<Long> ids, String rawline);
+
+    // Rows currently stored under any of these ids
+    List<Rawline> findByIdIn(List<Long> ids);
+
+    // Raw line rows with devices and action joined in, for list endpoints
+    String VIEW_SELECT =
+            "SELECT new edu.trincoll.siem.Model.View.RawlineView(r.id, r.rawline, r.message, a.action, " +
+                    "sd.id, sd.hostname, r.sourceport, dd.id, dd.hostname, r.destinationport, r.parseddata) " +
+                    "FROM Rawline r " +
+                    "LEFT JOIN r.action a " +
+                    "LEFT JOIN r.sourcedeviceid sd " +
+                    "LEFT JOIN r.destinationdeviceid dd ";
+
+    // Keyset pages in id order
+    @Query(VIEW_SELECT + "ORDER BY r.id")
+    List<RawlineView> findPage(Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE r.id > :id ORDER BY r.id")
+    List<RawlineView> findPageAfter(@Param("id") Long id, Pageable pageable);
 
     // Find by source device
     List<Rawline> findBySourcedeviceid(Device sourceDevice);
@@ -31,8 +57,15 @@ public interface RawlineRepository extends JpaRepository<Rawline, String> {
     // Find by destination port
     List<Rawline> findByDestinationport(Integer destinationPort);
 
-    // Find by message containing text (case-insensitive)
-    List<Rawline> findByMessageContainingIgnoreCase(String messageSubstring);
+    // Find by message containing text (case-insensitive), as keyset pages in id order
+    String MESSAGE_SEARCH_WHERE = "WHERE LOWER(r.message) LIKE LOWER(CONCAT('%', :messageSubstring, '%')) ";
+
+    @Query(VIEW_SELECT + MESSAGE_SEARCH_WHERE + "ORDER BY r.id")
+    List<RawlineView> searchByMessagePage(@Param("messageSubstring") String messageSubstring, Pageable pageable);
+
+    @Query(VIEW_SELECT + MESSAGE_SEARCH_WHERE + "AND r.id > :id ORDER BY r.id")
+    List<RawlineView> searchByMessagePageAfter(@Param("messageSubstring") String messageSubstring, @Param("id") Long id,
+                                               Pageable pageable);
 
     // Find by source device and action
     List<Rawline> findBySourcedeviceidAndAction(Device sourceDevice, Action action);
@@ -49,12 +82,12 @@ public interface RawlineRepository extends JpaRepository<Rawline, String> {
     // Find by destination device and port
     List<Rawline> findByDestinationdeviceidAndDestinationport(Device destinationDevice, Integer destinationPort);
 
-    // Full text search using PostgreSQL tsvector ordered by relevance score
+    // Full text search using PostgreSQL tsvector: the `limit` most relevant lines
     @Query(value = "SELECT *, ts_rank(search_vector, plainto_tsquery('english', :searchTerms)) AS rank " +
             "FROM rawline WHERE search_vector @@ plainto_tsquery('english', :searchTerms) " +
-            "ORDER BY rank DESC",
+            "ORDER BY rank DESC LIMIT :limit",
             nativeQuery = true)
-    List<Rawline> fullTextSearchRanked(@Param("searchTerms") String searchTerms);
+    List<Rawline> fullTextSearchRanked(@Param("searchTerms") String searchTerms, @Param("limit") int limit);
 
     // Search in JSON parsed data for a specific key-value pair (PostgreSQL specific)
     @Query(value = "SELECT * FROM rawline WHERE parseddata->>:key = :value",
@@ -78,25 +111,39 @@ public interface RawlineRepository extends JpaRepository<Rawline, String> {
     @Query("SELECT r.action.action, COUNT(r) FROM Rawline r WHERE r.action IS NOT NULL GROUP BY r.action.action")
     List<Object[]> countByAction();
 
-    // Combined search across multiple fields
-    @Query("SELECT r FROM Rawline r WHERE " +
+    // Combined search across multiple fields, as keyset pages in id order
+    String ADVANCED_SEARCH_WHERE = "WHERE " +
             "(:sourceDeviceId IS NULL OR r.sourcedeviceid.id = :sourceDeviceId) AND " +
             "(:destDeviceId IS NULL OR r.destinationdeviceid.id = :destDeviceId) AND " +
             "(:sourcePort IS NULL OR r.sourceport = :sourcePort) AND " +
             "(:destPort IS NULL OR r.destinationport = :destPort) AND " +
             "(:actionId IS NULL OR r.action.action = :actionId) AND " +
-            "(:messageText IS NULL OR LOWER(r.message) LIKE LOWER(CONCAT('%', :messageText, '%')))")
-    List<Rawline> advancedSearch(
+            "(:messageText IS NULL OR LOWER(r.message) LIKE LOWER(CONCAT('%', :messageText, '%'))) ";
+
+    @Query(VIEW_SELECT + ADVANCED_SEARCH_WHERE + "ORDER BY r.id")
+    List<RawlineView> advancedSearchPage(
+            @Param("sourceDeviceId") Integer sourceDeviceId,
+            @Param("destDeviceId") Integer destDeviceId,
+            @Param("sourcePort") Integer sourcePort,
+            @Param("destPort") Integer destPort,
+            @Param("actionId") String actionId,
+            @Param("messageText") String messageText,
+            Pageable pageable);
+
+    @Query(VIEW_SELECT + ADVANCED_SEARCH_WHERE + "AND r.id > :id ORDER BY r.id")
+    List<RawlineView> advancedSearchPageAfter(
             @Param("sourceDeviceId") Integer sourceDeviceId,
             @Param("destDeviceId") Integer destDeviceId,
             @Param("sourcePort") Integer sourcePort,
             @Param("destPort") Integer destPort,
             @Param("actionId") String actionId,
-            @Param("messageText") String messageText);
+            @Param("messageText") String messageText,
+            @Param("id") Long id,
+            Pageable pageable);
 
     @Query(nativeQuery = true, value =
             "SELECT d.deviceid, d.hostname, d.ipaddress, d.location, " +
-                    "COUNT(r.rawline) AS event_count " +
+                    "COUNT(r.rawlineid) AS event_count " +
                     "FROM device d " +
                     "JOIN rawline r ON d.deviceid = r.sourcedeviceid " +
                     "WHERE d.deviceid IN (" +
@@ -58,15 +58,18 @@ public interface ThreatintelRepository extends JpaRepository<Threatintel, Intege
     // Find threats by severity ordered by indicator
     List<Threatintel> findBySeverityOrderByIndicatorAsc(Severity severity);
 
-    // Advanced search with multiple optional criteria
+    // Advanced search with multiple optional criteria, one keyset page in id order; afterId is 0 on the first page
     @Query("SELECT t FROM Threatintel t WHERE " +
             "(:type IS NULL OR t.type = :type) AND " +
             "(:severity IS NULL OR t.severity = :severity) AND " +
-            "(:indicatorTerm IS NULL OR LOWER(t.indicator) LIKE LOWER(CONCAT('%', :indicatorTerm, '%')))")
-    List<Threatintel> advancedSearch(
+            "(:indicatorTerm IS NULL OR LOWER(t.indicator) LIKE LOWER(CONCAT('%', :indicatorTerm, '%'))) AND " +
+            "t.id > :afterId ORDER BY t.id")
+    List<Threatintel> advancedSearchPage(
             @Param("type") String type,
             @Param("severity") Severity severity,
-            @Param("indicatorTerm") String indicatorTerm);
+            @Param("indicatorTerm") String indicatorTerm,
+            @Param("afterId") Integer afterId,
+            org.springframework.data.domain.Pageable pageable);
 
     // Find all distinct threat types
     @Query("SELECT DISTINCT t.type FROM Threatintel t ORDER BY t.type")
@@ -80,4 +83,13 @@ public interface ThreatintelRepository extends JpaRepository<Threatintel, Intege
             "WHEN edu.trincoll.siem.Model.Enums.Severity.Low THEN 3 " +
             "ELSE 4 END")
     List<Threatintel> findTopThreats(org.springframework.data.domain.Pageable pageable);
+
+    // Keyset pages in id order
+    List<Threatintel> findAllByOrderByIdAsc(org.springframework.data.domain.Pageable pageable);
+
+    List<Threatintel> findByIdGreaterThanOrderByIdAsc(Integer id, org.springframework.data.domain.Pageable pageable);
+
+    List<Threatintel> findByTypeAndIdGreaterThanOrderByIdAsc(String type, Integer id, org.springframework.data.domain.Pageable pageable);
+
+    List<Threatintel> findBySeverityAndIdGreaterThanOrderByIdAsc(Severity severity, Integer id, org.springframework.data.domain.Pageable pageable);
 }
\ No newline at end of file
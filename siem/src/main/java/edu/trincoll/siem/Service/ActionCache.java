@@ -0,0 +1,103 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Model.Action;
+import edu.trincoll.siem.Repository.ActionRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of known actions used by the parser hot path. The action table is loaded
+ * once; after that, known actions are served from memory and unknown ones are inserted
+ * once per name. Uploads that see the same new action at the same time wait for the one
+ * that got to it first to insert it, and they all get the same reference.
+ */
+@Component
+public class ActionCache {
+
+    // ON CONFLICT covers another application instance inserting the same action first
+    private static final String INSERT_ACTION_SQL = "INSERT INTO action (action) VALUES (?) ON CONFLICT (action) DO NOTHING";
+
+    private final ActionRepository actionRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // A future per action, completed once the action is in the table
+    private final ConcurrentHashMap<String, CompletableFuture<Action>> actions = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public ActionCache(ActionRepository actionRepository, JdbcTemplate jdbcTemplate) {
+        this.actionRepository = actionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        for (Action action : actionRepository.findAll()) {
+            actions.putIfAbsent(action.getAction(), CompletableFuture.completedFuture(reference(action.getAction())));
+        }
+        loaded = true;
+    }
+
+    /**
+     * Get the action with this name, inserting it into the action table the first time it is seen.
+     * The caller that registers the pending future runs the insert, outside the map (not in
+     * computeIfAbsent), so a database round trip never blocks callers looking up other actions
+     * that hash to the same bin; callers asking for the same new action wait for that future.
+     * A failed insert is not cached, the next caller tries again.
+     */
+    public Action getOrCreate(String actionName) {
+        if (!loaded) {
+            load();
+        }
+        CompletableFuture<Action> action = actions.get(actionName);
+        if (action == null) {
+            CompletableFuture<Action> created = new CompletableFuture<>();
+            action = actions.putIfAbsent(actionName, created);
+            if (action == null) {
+                try {
+                    jdbcTemplate.update(INSERT_ACTION_SQL, actionName);
+                } catch (RuntimeException e) {
+                    actions.remove(actionName, created);
+                    created.completeExceptionally(e);
+                    throw e;
+                }
+                created.complete(reference(actionName));
+                action = created;
+            }
+        }
+        try {
+            return action.join();
+        } catch (CompletionException e) {
+            // Another caller's insert failed; surface its exception rather than the wrapper
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Keep the dictionary in sync with the action CRUD endpoints
+    public void put(Action action) {
+        actions.put(action.getAction(), CompletableFuture.completedFuture(reference(action.getAction())));
+    }
+
+    public void remove(String actionName) {
+        actions.remove(actionName);
+    }
+
+    public int size() {
+        return actions.size();
+    }
+
+    // Detached Action holding only the key; ingestion only needs the name for the foreign key
+    private static Action reference(String actionName) {
+        Action action = new Action();
+        action.setAction(actionName);
+        return action;
+    }
+}
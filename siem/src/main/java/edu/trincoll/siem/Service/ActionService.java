@@ -12,9 +12,11 @@ import java.util.Optional;
 public class ActionService {
 
     private final ActionRepository actionRepository;
+    private final ActionCache actionCache;
 
-    public ActionService(ActionRepository actionRepository) {
+    public ActionService(ActionRepository actionRepository, ActionCache actionCache) {
         this.actionRepository = actionRepository;
+        this.actionCache = actionCache;
     }
 
     // Basic CRUD operations
@@ -27,11 +29,14 @@ public class ActionService {
     }
 
     public Action saveAction(Action action) {
-        return actionRepository.save(action);
+        Action saved = actionRepository.save(action);
+        actionCache.put(saved);
+        return saved;
     }
 
     public void deleteAction(String actionName) {
         actionRepository.deleteById(actionName);
+        actionCache.remove(actionName);
     }
 
     // Find by category
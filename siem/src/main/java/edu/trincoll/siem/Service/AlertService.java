@@ -1,9 +1,9 @@
 package edu.trincoll.siem.Service;
 
 import edu.trincoll.siem.Model.Alert;
-import edu.trincoll.siem.Model.Alertrule;
 import edu.trincoll.siem.Model.Enums.AlertStatus;
 import edu.trincoll.siem.Model.Enums.Severity;
+import edu.trincoll.siem.Model.View.AlertView;
 import edu.trincoll.siem.Repository.AlertRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
@@ -19,10 +19,55 @@ public class AlertService {
     @Autowired
     private AlertRepository alertRepository;
 
+    @Autowired
+    private MaterializedViewRefresher materializedViewRefresher;
+
+    @Autowired
+    private PartitionManager partitionManager;
+
     public List<Alert> getAllAlerts() {
         return alertRepository.findAll();
     }
 
+    // Keyset pages, newest first. A null cursor returns the first page.
+
+    public CursorPage<AlertView> getAlertsPage(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<AlertView> rows = after == null
+                ? alertRepository.findPage(CursorPage.fetch(limit))
+                : alertRepository.findPageAfter(after.requireTimestamp(), after.intId(), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, AlertService::cursorOf);
+    }
+
+    public CursorPage<AlertView> getAlertsByStatusPage(AlertStatus status, String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<AlertView> rows = after == null
+                ? alertRepository.findByStatusPage(status, CursorPage.fetch(limit))
+                : alertRepository.findByStatusPageAfter(status, after.requireTimestamp(), after.intId(), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, AlertService::cursorOf);
+    }
+
+    public CursorPage<AlertView> getAlertsByTimeRangePage(Instant start, Instant end, String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<AlertView> rows = after == null
+                ? alertRepository.findRangePage(start, end, CursorPage.fetch(limit))
+                : alertRepository.findRangePageAfter(start, after.requireTimestamp(), after.intId(), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, AlertService::cursorOf);
+    }
+
+    // Keyset pages of a rule's alerts, newest first; a null status lists them all
+    public CursorPage<AlertView> getAlertsByRulePage(Integer ruleId, AlertStatus status, String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<AlertView> rows = after == null
+                ? alertRepository.findByRulePage(ruleId, status, CursorPage.fetch(limit))
+                : alertRepository.findByRulePageAfter(ruleId, status, after.requireTimestamp(), after.intId(), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, AlertService::cursorOf);
+    }
+
+    private static PageCursor cursorOf(AlertView alert) {
+        return new PageCursor(alert.triggeredat(), alert.id());
+    }
+
     public Optional<Alert> getAlertById(Integer id) {
         return alertRepository.findById(id);
     }
@@ -31,18 +76,10 @@ public class AlertService {
         return alertRepository.findByStatus(status);
     }
 
-    public List<Alert> getAlertsByRule(Alertrule rule) {
-        return alertRepository.findByRuleid(rule);
-    }
-
     public List<Alert> getAlertsByTimeRange(Instant start, Instant end) {
         return alertRepository.findByTriggeredatBetween(start, end);
     }
 
-    public List<Alert> getAlertsByRuleAndStatus(Alertrule rule, AlertStatus status) {
-        return alertRepository.findByRuleidAndStatus(rule, status);
-    }
-
     public List<Object[]> countAlertsByStatus() {
         return alertRepository.countAlertsByStatus();
     }
@@ -51,15 +88,20 @@ public class AlertService {
         return alertRepository.countAlertsByRule();
     }
 
-    public List<Alert> getLatestAlerts(int limit) {
-        return alertRepository.findLatestAlerts(PageRequest.of(0, limit));
+    public List<AlertView> getLatestAlerts(int limit) {
+        return alertRepository.findLatestViews(PageRequest.of(0, CursorPage.clamp(limit)));
     }
 
     public List<Alert> getAlertsByRuleSeverity(Severity severity) {
         return alertRepository.findByRuleSeverity(severity);
     }
 
+    // alert is partitioned by triggeredat, so every alert needs one
     public Alert saveAlert(Alert alert) {
+        if (alert.getTriggeredat() == null) {
+            alert.setTriggeredat(Instant.now());
+        }
+        partitionManager.ensurePartitions(PartitionManager.ALERT, List.of(alert.getTriggeredat()));
         return alertRepository.save(alert);
     }
 
@@ -70,4 +112,12 @@ public class AlertService {
     public List<Object[]> getAlertSummaryByRule() {
         return alertRepository.getAlertSummaryByRule();
     }
+
+    public List<Object[]> getAlertStatisticsFromMaterializedView() {
+        return alertRepository.getAlertStatistics();
+    }
+
+    public MaterializedViewRefresher.Freshness getAlertStatisticsFreshness() {
+        return materializedViewRefresher.getFreshness(MaterializedViewRefresher.ALERT_STATISTICS);
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package edu.trincoll.siem.Service;
 
+import edu.trincoll.siem.Detection.DetectionEngine;
 import edu.trincoll.siem.Model.Alertrule;
 import edu.trincoll.siem.Model.Enums.Severity;
 import edu.trincoll.siem.Model.User;
@@ -18,6 +19,9 @@ public class AlertruleService {
     @Autowired
     private AlertruleRepository alertruleRepository;
 
+    @Autowired
+    private DetectionEngine detectionEngine;
+
     public List<Alertrule> getAllAlertrules() {
         return alertruleRepository.findAll();
     }
@@ -75,11 +79,14 @@ public class AlertruleService {
     }
 
     public Alertrule saveAlertrule(Alertrule alertrule) {
-        return alertruleRepository.save(alertrule);
+        Alertrule saved = alertruleRepository.save(alertrule);
+        detectionEngine.invalidate();
+        return saved;
     }
 
     public void deleteAlertruleById(Integer id) {
         alertruleRepository.deleteById(id);
+        detectionEngine.invalidate();
     }
 
     public List<Object[]> getFrequentlyTriggeredRules(int minAlerts) {
@@ -0,0 +1,39 @@
+package edu.trincoll.siem.Service;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (seek) paginated list. Each page is read with
+ * {@code WHERE (sort key, id) < cursor ORDER BY sort key, id LIMIT n} against an index on the
+ * same columns, so a deep page costs the same as the first one. nextCursor is null on the last page.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    // One extra row tells us whether another page follows
+    public static Pageable fetch(int limit) {
+        return PageRequest.of(0, clamp(limit) + 1);
+    }
+
+    public static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Build a page from rows fetched with {@link #fetch(int)}.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, PageCursor> cursorOf) {
+        int size = clamp(limit);
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(items, cursorOf.apply(items.get(size - 1)).encode());
+    }
+}
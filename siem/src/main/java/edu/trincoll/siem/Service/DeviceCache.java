@@ -0,0 +1,142 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Model.Device;
+import edu.trincoll.siem.Parser.Ipv4;
+import edu.trincoll.siem.Repository.DeviceRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory copy of the device table used to resolve hostnames and IPs during ingestion.
+ * The whole table is held in an immutable snapshot, so a miss means "no such device"
+ * and never falls through to the database. DeviceService invalidates it on writes.
+ */
+@Component
+public class DeviceCache {
+
+    private final DeviceRepository deviceRepository;
+
+    private volatile Snapshot snapshot;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+
+    public DeviceCache(DeviceRepository deviceRepository) {
+        this.deviceRepository = deviceRepository;
+    }
+
+    // Warm the cache before the first upload arrives
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        reload();
+    }
+
+    public synchronized void reload() {
+        snapshot = new Snapshot(deviceRepository.findAll());
+        reloads.increment();
+    }
+
+    // Drop the snapshot; the next lookup reloads it from the database
+    public synchronized void invalidate() {
+        snapshot = null;
+    }
+
+    public Optional<Device> getByHostname(String hostname) {
+        if (hostname == null) {
+            return Optional.empty();
+        }
+        return record(snapshot().byHostname.get(hostname));
+    }
+
+    public Optional<Device> getByIpAddress(InetAddress ipAddress) {
+        if (ipAddress == null) {
+            return Optional.empty();
+        }
+        long ipv4 = Ipv4.fromInetAddress(ipAddress);
+        if (ipv4 != Ipv4.INVALID) {
+            return getByIpv4(ipv4);
+        }
+        return record(snapshot().byOtherAddress.get(ipAddress));
+    }
+
+    // Look up by the 32-bit value from Ipv4.parse
+    public Optional<Device> getByIpv4(long address) {
+        return record(snapshot().byIpv4.get((int) address));
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("devices", current != null ? current.size : 0);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("reloads", reloads.sum());
+        return stats;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private Optional<Device> record(Device device) {
+        if (device != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return Optional.ofNullable(device);
+    }
+
+    private static final class Snapshot {
+
+        private final int size;
+        private final Map<String, Device> byHostname = new HashMap<>();
+        private final Ipv4Table<Device> byIpv4;
+        private final Map<InetAddress, Device> byOtherAddress = new HashMap<>();
+
+        private Snapshot(List<Device> devices) {
+            this.size = devices.size();
+            this.byIpv4 = new Ipv4Table<>(devices.size());
+
+            // When several devices share a hostname or IP, the lowest ID wins
+            devices.sort(Comparator.comparing(Device::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+            for (Device device : devices) {
+                if (device.getHostname() != null) {
+                    byHostname.putIfAbsent(device.getHostname(), device);
+                }
+                if (device.getIpaddress() != null) {
+                    long ipv4 = Ipv4.fromInetAddress(device.getIpaddress());
+                    if (ipv4 != Ipv4.INVALID) {
+                        byIpv4.putIfAbsent((int) ipv4, device);
+                    } else {
+                        byOtherAddress.putIfAbsent(device.getIpaddress(), device);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.stereotype.Service;
 
 import java.net.InetAddress;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -15,37 +16,46 @@ public class DeviceService {
     @Autowired
     private DeviceRepository deviceRepository;
 
+    @Autowired
+    private DeviceCache deviceCache;
+
+    // Served from the in-memory device cache
     public Optional<Device> getDeviceByIpAddress(InetAddress ipAddress) {
-        List<Device> devices = deviceRepository.findByIpaddress(ipAddress);
-        if (devices.isEmpty()) {
-            return Optional.empty();
-        }
-        // Return the first device found
-        return Optional.of(devices.getFirst());
+        return deviceCache.getByIpAddress(ipAddress);
     }
 
+    // Served from the in-memory device cache
     public Optional<Device> getDeviceByHostname(String hostname) {
-        return deviceRepository.findByHostname(hostname);
+        return deviceCache.getByHostname(hostname);
+    }
+
+    public Map<String, Object> getCacheStats() {
+        return deviceCache.getStats();
     }
 
-    public List<Device> searchDevices(String searchTerm) {
-        return deviceRepository.searchDevices(searchTerm);
+    // The filtered lists are keyset paginated in id order, like getDevicesPage
+    public CursorPage<Device> searchDevicesPage(String searchTerm, String cursor, int limit) {
+        return page(deviceRepository.searchDevicesPage(searchTerm, PageCursor.afterId(cursor), CursorPage.fetch(limit)), limit);
     }
 
-    public List<Device> getDevicesByOperatingSystem(String os) {
-        return deviceRepository.findByOperatingsystem(os);
+    public CursorPage<Device> getDevicesByOperatingSystemPage(String os, String cursor, int limit) {
+        return page(deviceRepository.findByOperatingsystemAndIdGreaterThanOrderByIdAsc(
+                os, PageCursor.afterId(cursor), CursorPage.fetch(limit)), limit);
     }
 
-    public List<Device> getDevicesByLocation(String location) {
-        return deviceRepository.findByLocation(location);
+    public CursorPage<Device> getDevicesByLocationPage(String location, String cursor, int limit) {
+        return page(deviceRepository.findByLocationAndIdGreaterThanOrderByIdAsc(
+                location, PageCursor.afterId(cursor), CursorPage.fetch(limit)), limit);
     }
 
-    public List<Device> getDevicesByDeviceType(String deviceType) {
-        return deviceRepository.findByDevicetype(deviceType);
+    public CursorPage<Device> getDevicesByDeviceTypePage(String deviceType, String cursor, int limit) {
+        return page(deviceRepository.findByDevicetypeAndIdGreaterThanOrderByIdAsc(
+                deviceType, PageCursor.afterId(cursor), CursorPage.fetch(limit)), limit);
     }
 
-    public List<Device> getDevicesBySubnet(String subnet) {
-        return deviceRepository.findByIpaddressInSubnet(subnet);
+    public CursorPage<Device> getDevicesBySubnetPage(String subnet, String cursor, int limit) {
+        return page(deviceRepository.findByIpaddressInSubnetPage(
+                subnet, PageCursor.afterId(cursor), CursorPage.clamp(limit) + 1), limit);
     }
 
     public List<Object[]> countDevicesByOperatingSystem() {
@@ -60,22 +70,39 @@ public class DeviceService {
         return deviceRepository.countDevicesByDeviceType();
     }
 
-    public List<Device> getDevicesByLocationAndType(String location, String deviceType) {
-        return deviceRepository.findByLocationAndDevicetype(location, deviceType);
+    public CursorPage<Device> getDevicesByLocationAndTypePage(String location, String deviceType, String cursor, int limit) {
+        return page(deviceRepository.findByLocationAndDevicetypeAndIdGreaterThanOrderByIdAsc(
+                location, deviceType, PageCursor.afterId(cursor), CursorPage.fetch(limit)), limit);
     }
 
     public Device saveDevice(Device device) {
-        return deviceRepository.save(device);
+        Device saved = deviceRepository.save(device);
+        deviceCache.invalidate();
+        return saved;
     }
 
     public void deleteDeviceById(Integer id) {
         deviceRepository.deleteById(id);
+        deviceCache.invalidate();
     }
 
     public List<Device> getAllDevices() {
         return deviceRepository.findAll();
     }
 
+    // Keyset pages in id order. A null cursor returns the first page.
+    public CursorPage<Device> getDevicesPage(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<Device> rows = after == null
+                ? deviceRepository.findAllByOrderByIdAsc(CursorPage.fetch(limit))
+                : deviceRepository.findByIdGreaterThanOrderByIdAsc(after.intId(), CursorPage.fetch(limit));
+        return page(rows, limit);
+    }
+
+    private static CursorPage<Device> page(List<Device> rows, int limit) {
+        return CursorPage.of(rows, limit, device -> PageCursor.ofId(device.getId()));
+    }
+
     public Optional<Device> getDeviceById(Integer id) {
         return deviceRepository.findById(id);
     }
@@ -18,14 +18,18 @@ public class IncidenteventlinkService {
     @Autowired
     private IncidenteventlinkRepository incidenteventlinkRepository;
 
-    // Find all links by incident report
-    public List<Incidenteventlink> getLinksByIncidentReport(Incidentreport report) {
-        return incidenteventlinkRepository.findByReportid(report);
+    // Keyset pages of a report's links, in event id order
+    public CursorPage<Incidenteventlink> getLinksByReportPage(Integer reportId, String cursor, int limit) {
+        List<Incidenteventlink> rows = incidenteventlinkRepository.findByReportPage(
+                reportId, PageCursor.afterId(cursor), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, link -> PageCursor.ofId(link.getId().getLogeventid()));
     }
 
-    // Find all links by log event
-    public List<Incidenteventlink> getLinksByLogEvent(Logevent event) {
-        return incidenteventlinkRepository.findByLogeventid(event);
+    // Keyset pages of an event's links, in report id order
+    public CursorPage<Incidenteventlink> getLinksByEventPage(Integer eventId, String cursor, int limit) {
+        List<Incidenteventlink> rows = incidenteventlinkRepository.findByEventPage(
+                eventId, PageCursor.afterId(cursor), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, link -> PageCursor.ofId(link.getId().getReportid()));
     }
 
     // Find specific link by both report and event
@@ -58,9 +62,9 @@ public class IncidenteventlinkService {
         incidenteventlinkRepository.deleteByLogeventid(event);
     }
 
-    // Get reports with the most linked events (paginated)
+    // Get reports with the most linked events (offset paginated; size is capped at CursorPage.MAX_LIMIT)
     public List<Object[]> getReportsWithMostLinkedEvents(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = PageRequest.of(Math.max(0, page), CursorPage.clamp(size));
         return incidenteventlinkRepository.findReportsWithMostLinkedEvents(pageable);
     }
 
@@ -31,11 +31,13 @@ public class IncidentreportService {
         return incidentreportRepository.findByCreatedby(user);
     }
 
-    // Get reports by related alert
-    public List<Incidentreport> getReportsByAlert(Integer alertId) {
+    // Keyset pages of the reports on an alert, newest first
+    public CursorPage<Incidentreport> getReportsByAlertPage(Integer alertId, String cursor, int limit) {
         Alert alert = new Alert();
         alert.setId(alertId);
-        return incidentreportRepository.findByRelatedalertid(alert);
+        List<Incidentreport> rows = incidentreportRepository.findByRelatedalertidAndIdLessThanOrderByIdDesc(
+                alert, PageCursor.beforeId(cursor), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, IncidentreportService::idCursorOf);
     }
 
     // Get reports created within a date range
@@ -43,13 +45,48 @@ public class IncidentreportService {
         return incidentreportRepository.findByCreatedatBetween(startDate, endDate);
     }
 
+    // Keyset pages of a user's reports, newest first. A null cursor returns the first page.
+    public CursorPage<Incidentreport> getReportsByUserPage(Integer userId, String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<Incidentreport> rows = after == null
+                ? incidentreportRepository.findByCreatorPage(userId, CursorPage.fetch(limit))
+                : incidentreportRepository.findByCreatorPageAfter(userId, after.requireTimestamp(), after.intId(), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, IncidentreportService::cursorOf);
+    }
+
+    // Keyset pages of all reports, newest first
+    public CursorPage<Incidentreport> getReportsPage(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<Incidentreport> rows = after == null
+                ? incidentreportRepository.findPage(CursorPage.fetch(limit))
+                : incidentreportRepository.findPageAfter(after.requireTimestamp(), after.intId(), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, IncidentreportService::cursorOf);
+    }
+
+    // Keyset pages of reports in a date range, newest first
+    public CursorPage<Incidentreport> getReportsByDateRangePage(Instant startDate, Instant endDate, String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<Incidentreport> rows = after == null
+                ? incidentreportRepository.findByDateRangePage(startDate, endDate, CursorPage.fetch(limit))
+                : incidentreportRepository.findByDateRangePageAfter(startDate, after.requireTimestamp(), after.intId(), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, IncidentreportService::cursorOf);
+    }
+
+    private static PageCursor cursorOf(Incidentreport report) {
+        return new PageCursor(report.getCreatedat(), report.getId());
+    }
+
     // Get a specific report by its ID
     public Optional<Incidentreport> getReportById(Integer reportId) {
         return incidentreportRepository.findById(reportId);
     }
 
     // Create a new report
+    // createdat is the keyset of the report lists, so every report needs one
     public Incidentreport saveReport(Incidentreport incidentreport) {
+        if (incidentreport.getCreatedat() == null) {
+            incidentreport.setCreatedat(Instant.now());
+        }
         return incidentreportRepository.save(incidentreport);
     }
 
@@ -79,11 +116,20 @@ public class IncidentreportService {
         return incidentreportRepository.countReportsPerDay();
     }
 
-    public List<Incidentreport> getReportsWithCriticalEvents() {
-        return incidentreportRepository.getReportsWithCriticalEvents();
+    // Keyset pages, newest (highest id) first
+    public CursorPage<Incidentreport> getReportsWithCriticalEventsPage(String cursor, int limit) {
+        List<Incidentreport> rows = incidentreportRepository.getReportsWithCriticalEventsPage(
+                PageCursor.beforeId(cursor), CursorPage.clamp(limit) + 1);
+        return CursorPage.of(rows, limit, IncidentreportService::idCursorOf);
+    }
+
+    public CursorPage<Incidentreport> getReportsWithRelatedEventsPage(Integer alertId, String cursor, int limit) {
+        List<Incidentreport> rows = incidentreportRepository.getReportsWithRelatedEventsPage(
+                alertId, PageCursor.beforeId(cursor), CursorPage.clamp(limit) + 1);
+        return CursorPage.of(rows, limit, IncidentreportService::idCursorOf);
     }
 
-    public List<Incidentreport> getReportsWithRelatedEvents(Integer alertId) {
-        return incidentreportRepository.getReportsWithRelatedEvents(alertId);
+    private static PageCursor idCursorOf(Incidentreport report) {
+        return PageCursor.ofId(report.getId());
     }
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Model.Logfile;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Progress of one log file going through the ingestion scheduler.
+ */
+@Getter
+public class IngestionJob {
+
+    public enum State {
+        Queued,
+        Running,
+        Done,
+        Failed
+    }
+
+    private final long id;
+    private final Integer fileId;
+    private final String filename;
+    private final int priority;
+    private final Instant submittedAt = Instant.now();
+
+    private volatile State state = State.Queued;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    @Getter(AccessLevel.NONE)
+    private final LongAdder linesProcessed = new LongAdder();
+
+    public IngestionJob(long id, Logfile logfile, int priority) {
+        this.id = id;
+        this.fileId = logfile.getId();
+        this.filename = logfile.getFilename();
+        this.priority = priority;
+    }
+
+    public void addLines(long lines) {
+        linesProcessed.add(lines);
+    }
+
+    public long getLinesProcessed() {
+        return linesProcessed.sum();
+    }
+
+    // Average rate since the job started (up to now while it is still running)
+    public double getLinesPerSecond() {
+        Instant start = startedAt;
+        if (start == null) {
+            return 0.0;
+        }
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long millis = Math.max(1, Duration.between(start, end).toMillis());
+        return getLinesProcessed() * 1000.0 / millis;
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        state = State.Running;
+    }
+
+    void finish(State finalState) {
+        finishedAt = Instant.now();
+        state = finalState;
+    }
+}
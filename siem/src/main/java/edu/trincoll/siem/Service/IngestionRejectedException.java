@@ -0,0 +1,13 @@
+package edu.trincoll.siem.Service;
+
+/**
+ * Thrown when the ingestion queue is full and a new log file cannot be accepted.
+ */
+public class IngestionRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IngestionRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,225 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Model.Enums.LogFileStatus;
+import edu.trincoll.siem.Model.Logfile;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Runs uploaded log files through ingestion on a dedicated, bounded pool instead of the
+ * shared common ForkJoinPool. Jobs wait in a priority queue (higher priority first, then
+ * FIFO); once siem.ingest.queue-capacity jobs are waiting, new submissions are rejected.
+ * <p>
+ * Streamed uploads run on their request thread but take a place in the same queue and one of
+ * the same siem.ingest.concurrency slots, so they are limited (and rejected) like queued ones.
+ * <p>
+ * Queued content only lives in memory: files still Pending when the service stops (or that a
+ * crash left Pending) are marked Failed, on shutdown or on the next start, so they can be
+ * uploaded again. Files followed by {@link LogTailer} are Pending by design and left alone.
+ */
+@Component
+public class IngestionScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionScheduler.class);
+
+    private final LogfileService logfileService;
+    private final int queueCapacity;
+    private final int jobHistory;
+    private final ThreadPoolExecutor executor;
+    // One per file being ingested, queued or streamed; fair, so waiting streams go in arrival order
+    private final Semaphore slots;
+    private final Instant startedAt = Instant.now();
+
+    private final AtomicLong jobIds = new AtomicLong();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final Map<Long, IngestionJob> jobs = new ConcurrentHashMap<>();
+    private final Deque<IngestionJob> finished = new ConcurrentLinkedDeque<>();
+
+    public IngestionScheduler(LogfileService logfileService,
+                              @Value("${siem.ingest.concurrency:2}") int concurrency,
+                              @Value("${siem.ingest.queue-capacity:20}") int queueCapacity,
+                              @Value("${siem.ingest.job-history:100}") int jobHistory) {
+        this.logfileService = logfileService;
+        this.queueCapacity = queueCapacity;
+        this.jobHistory = jobHistory;
+        this.slots = new Semaphore(concurrency, true);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(),
+                runnable -> new Thread(runnable, "ingest-" + threadCount.incrementAndGet()));
+    }
+
+    // Uploads left Pending by the previous run will never be processed: their content is gone
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedUploads() {
+        int failed = logfileService.failPendingUploads(startedAt);
+        if (failed > 0) {
+            logger.warn("Marked {} log files left Pending by the previous run as Failed", failed);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Running jobs are interrupted and fail themselves; the queued ones never start
+        for (Runnable queuedJob : executor.shutdownNow()) {
+            abandon(((QueuedJob) queuedJob).job());
+        }
+    }
+
+    // A job that will never run: fail it, and its file so it is not left Pending
+    private void abandon(IngestionJob job) {
+        job.finish(IngestionJob.State.Failed);
+        retire(job);
+        try {
+            logfileService.markFailed(job.getFileId());
+        } catch (RuntimeException e) {
+            // Likely the database is already gone; the next start marks it Failed
+            logger.warn("Could not mark log file {} Failed: {}", job.getFileId(), e.toString());
+        }
+    }
+
+    /**
+     * Queue a saved log file for processing of its RawContent.
+     *
+     * @throws IngestionRejectedException if the queue is full
+     */
+    public IngestionJob submit(Logfile logfile, int priority) {
+        reserveQueuePlace();
+
+        IngestionJob job = new IngestionJob(jobIds.incrementAndGet(), logfile, priority);
+        jobs.put(job.getId(), job);
+
+        // execute (not submit) so the queued task stays Comparable for the priority queue
+        executor.execute(new QueuedJob(job, () -> {
+            try {
+                // A pool thread may wait here while streamed uploads hold the slots
+                slots.acquire();
+            } catch (InterruptedException e) {
+                // Shut down while waiting
+                queued.decrementAndGet();
+                abandon(job);
+                return;
+            }
+            queued.decrementAndGet();
+            try {
+                run(job, ignored -> logfileService.processLogfileContent(logfile, job));
+            } finally {
+                slots.release();
+            }
+        }));
+        return job;
+    }
+
+    /**
+     * Run work that has to happen on the calling thread, such as reading a streamed request
+     * body, once a slot is free. It waits in the queue meanwhile and shows up in the job list
+     * with progress like queued jobs.
+     *
+     * @throws IngestionRejectedException if the queue is full, or the thread is interrupted while waiting
+     */
+    public Logfile runInline(Logfile logfile, Function<IngestionJob, Logfile> work) {
+        reserveQueuePlace();
+        IngestionJob job = new IngestionJob(jobIds.incrementAndGet(), logfile, 0);
+        jobs.put(job.getId(), job);
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued.decrementAndGet();
+            abandon(job);
+            throw new IngestionRejectedException("Interrupted while waiting for an ingestion slot");
+        }
+        queued.decrementAndGet();
+        try {
+            return run(job, work);
+        } finally {
+            slots.release();
+        }
+    }
+
+    private void reserveQueuePlace() {
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            throw new IngestionRejectedException("Ingestion queue is full (" + queueCapacity + " jobs waiting)");
+        }
+    }
+
+    public List<IngestionJob> getJobs() {
+        List<IngestionJob> result = new ArrayList<>(jobs.values());
+        result.sort(Comparator.comparingLong(IngestionJob::getId).reversed());
+        return result;
+    }
+
+    public Optional<IngestionJob> getJob(long id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    // No job running or waiting; background maintenance uses this to stay out of ingestion's way
+    public boolean isIdle() {
+        return running.get() == 0 && queued.get() == 0;
+    }
+
+    private Logfile run(IngestionJob job, Function<IngestionJob, Logfile> work) {
+        job.start();
+        running.incrementAndGet();
+        Logfile result = null;
+        try {
+            result = work.apply(job);
+        } finally {
+            running.decrementAndGet();
+            boolean succeeded = result != null && result.getStatus() == LogFileStatus.Uploaded;
+            job.finish(succeeded ? IngestionJob.State.Done : IngestionJob.State.Failed);
+            retire(job);
+        }
+        return result;
+    }
+
+    // Keep only the most recent finished jobs visible
+    private void retire(IngestionJob job) {
+        finished.addLast(job);
+        while (finished.size() > jobHistory) {
+            IngestionJob oldest = finished.pollFirst();
+            if (oldest != null) {
+                jobs.remove(oldest.getId());
+            }
+        }
+    }
+
+    private record QueuedJob(IngestionJob job, Runnable task) implements Runnable, Comparable<QueuedJob> {
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(QueuedJob other) {
+            int byPriority = Integer.compare(other.job.getPriority(), job.getPriority());
+            return byPriority != 0 ? byPriority : Long.compare(job.getId(), other.job.getId());
+        }
+    }
+}
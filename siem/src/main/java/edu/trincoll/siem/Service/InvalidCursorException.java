@@ -0,0 +1,17 @@
+package edu.trincoll.siem.Service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a page cursor sent by a client cannot be decoded; answered with 400.
+ */
+@ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Invalid cursor")
+public class InvalidCursorException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidCursorException() {
+        super("Invalid cursor");
+    }
+}
@@ -0,0 +1,57 @@
+package edu.trincoll.siem.Service;
+
+/**
+ * Open-addressing map from a primitive IPv4 address (the 32-bit value from Ipv4.parse, as an
+ * int) to a value, so lookups do not box keys. Filled once and then only read, so it may be
+ * shared between threads once published. Null values cannot be stored.
+ */
+final class Ipv4Table<V> {
+
+    private final int[] keys;
+    private final Object[] values;
+    private final int mask;
+
+    /**
+     * @param expectedSize Entries to be added; the table stays at most half full with that many
+     */
+    Ipv4Table(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @return false if the key already had a value, which is kept
+     */
+    boolean putIfAbsent(int key, V value) {
+        int slot = slot(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        int slot = slot(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    // Fibonacci hashing: consecutive addresses in a subnet spread over the table
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
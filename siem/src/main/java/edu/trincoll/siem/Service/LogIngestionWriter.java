@@ -0,0 +1,286 @@
+package edu.trincoll.siem.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.trincoll.siem.Model.Logevent;
+import edu.trincoll.siem.Model.Logfile;
+import edu.trincoll.siem.Model.Rawline;
+import edu.trincoll.siem.Model.RawlineHash;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes parsed raw lines and log events with JDBC batch inserts instead of
+ * one JPA save per row. Each flushed batch is committed in its own transaction,
+ * together with its contribution to the event rollups and, when the original file is
+ * kept, the compressed chunk of content read since the previous flush.
+ */
+@Component
+public class LogIngestionWriter {
+
+    private static final String INSERT_RAWLINE_SQL =
+            "INSERT INTO rawline (rawlineid, rawline, sourcedeviceid, sourceport, destinationdeviceid, destinationport, action, message, parseddata) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?::jsonb) " +
+                    "ON CONFLICT (rawlineid) DO NOTHING";
+
+    // Lines (by md5) whose id is held by a different line, i.e. hash collisions
+    private static final String FIND_COLLISIONS_SQL =
+            "SELECT u.digest FROM unnest(?::bigint[], ?::text[]) AS u(rawlineid, digest) " +
+                    "JOIN rawline r ON r.rawlineid = u.rawlineid " +
+                    "WHERE md5(r.rawline) <> u.digest";
+
+    private static final String INSERT_LOGEVENT_SQL =
+            "INSERT INTO logevent (fileid, \"timestamp\", rawlineid, associatedalertid) VALUES (?, ?, ?, ?)";
+
+    // Raw lines are shared between files, so of the lines a discarded file's events referred to
+    // only those no remaining event refers to go. The ids are set aside while the events are
+    // deleted, as a statement does not see the rows its own WITH clause deleted.
+    private static final String CREATE_DISCARDED_RAWLINES_SQL =
+            "CREATE TEMP TABLE discarded_rawline (rawlineid BIGINT) ON COMMIT DROP";
+
+    private static final String DELETE_FILE_EVENTS_SQL =
+            "WITH deleted AS (DELETE FROM logevent WHERE fileid = ? RETURNING rawlineid) " +
+                    "INSERT INTO discarded_rawline SELECT DISTINCT rawlineid FROM deleted";
+
+    private static final String DELETE_ORPHAN_RAWLINES_SQL =
+            "DELETE FROM rawline r USING discarded_rawline d WHERE r.rawlineid = d.rawlineid " +
+                    "AND NOT EXISTS (SELECT 1 FROM logevent le WHERE le.rawlineid = r.rawlineid)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final EventRollups eventRollups;
+    private final PartitionManager partitionManager;
+    private final LogfileContentStore contentStore;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+
+    public LogIngestionWriter(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              EventRollups eventRollups,
+                              PartitionManager partitionManager,
+                              LogfileContentStore contentStore,
+                              @Value("${siem.ingest.batch-size:1000}") int batchSize,
+                              @Value("${siem.ingest.flush-interval-ms:1000}") long flushIntervalMillis) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("siem.ingest.batch-size must be at least 1");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.eventRollups = eventRollups;
+        this.partitionManager = partitionManager;
+        this.contentStore = contentStore;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Open a new batch for a log file. A batch is not thread-safe and should be used by a single ingest job.
+     */
+    public Batch openBatch(Logfile logfile) {
+        return new Batch(logfile);
+    }
+
+    /**
+     * Remove everything the batches of a file committed: its events, the raw lines only they
+     * referred to, its rollup counters and its stored content, in one transaction. Called when
+     * ingestion of the file fails part way, so uploading it again does not store those lines twice.
+     */
+    public void discard(int fileId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute(CREATE_DISCARDED_RAWLINES_SQL);
+            jdbcTemplate.update(DELETE_FILE_EVENTS_SQL, fileId);
+            jdbcTemplate.update(DELETE_ORPHAN_RAWLINES_SQL);
+            eventRollups.delete(fileId);
+            contentStore.delete(fileId);
+        });
+    }
+
+    public class Batch implements AutoCloseable {
+
+        private final Logfile logfile;
+        private final List<Logevent> pending = new ArrayList<>(batchSize);
+        private LogfileContentStore.Chunk rawContent;
+        private long lastFlushMillis = System.currentTimeMillis();
+        private long written;
+
+        private Batch(Logfile logfile) {
+            this.logfile = logfile;
+            this.rawContent = contentStore.newChunk();
+        }
+
+        /**
+         * Queue an event (and the raw line it references) for insertion. The batch is
+         * flushed once it is full or the flush interval has elapsed since the last flush.
+         */
+        public void add(Logevent event) {
+            pending.add(event);
+            if (pending.size() >= batchSize
+                    || System.currentTimeMillis() - lastFlushMillis >= flushIntervalMillis) {
+                flush();
+            }
+        }
+
+        /**
+         * Compress a line of the original file into the content chunk stored with the next flush.
+         */
+        public void appendRawContent(String line) {
+            rawContent.appendLine(line);
+            if (rawContent.length() >= LogfileContentStore.MAX_CHUNK_BYTES) {
+                flush();
+            }
+        }
+
+        public void flush() {
+            flush(null);
+        }
+
+        /**
+         * Flush, and run inTransaction (if not null) in the same transaction, e.g. to record how far
+         * a source has been read, so the position and the events it covers commit together. It runs
+         * even when there is nothing to write.
+         */
+        public void flush(Runnable inTransaction) {
+            lastFlushMillis = System.currentTimeMillis();
+            if (pending.isEmpty() && rawContent.isEmpty()) {
+                if (inTransaction != null) {
+                    transactionTemplate.executeWithoutResult(status -> inTransaction.run());
+                }
+                return;
+            }
+
+            if (!pending.isEmpty()) {
+                // Old logs may land on days that have no partition yet
+                partitionManager.ensurePartitions(PartitionManager.LOGEVENT,
+                        pending.stream().map(Logevent::getTimestamp).toList());
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!pending.isEmpty()) {
+                    storeRawlines(pending);
+                    jdbcTemplate.batchUpdate(INSERT_LOGEVENT_SQL, pending, pending.size(),
+                            (ps, event) -> bindLogevent(ps, event));
+                    eventRollups.record(logfile.getId(), pending);
+                }
+                contentStore.append(logfile.getId(), rawContent);
+                if (inTransaction != null) {
+                    inTransaction.run();
+                }
+            });
+
+            written += pending.size();
+            pending.clear();
+            if (!rawContent.isEmpty()) {
+                rawContent = contentStore.newChunk();
+            }
+        }
+
+        // Number of events committed so far
+        public long getWritten() {
+            return written;
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+    }
+
+    /**
+     * Insert the distinct raw lines of a batch under their hash ids and set the resolved id on
+     * every event. A line whose id turns out to hold a different line (checked by md5, after the
+     * insert so concurrent writers are seen too) is retried under the next id.
+     */
+    private void storeRawlines(List<Logevent> events) {
+        Map<String, Rawline> distinct = new LinkedHashMap<>();
+        for (Logevent event : events) {
+            distinct.putIfAbsent(event.getRawline().getRawline(), event.getRawline());
+        }
+
+        Map<String, Rawline> unresolved = new LinkedHashMap<>(distinct.size() * 2);
+        for (Rawline rawline : distinct.values()) {
+            byte[] md5 = RawlineHash.md5(rawline.getRawline());
+            rawline.setId(RawlineHash.id(md5));
+            unresolved.put(RawlineHash.hex(md5), rawline);
+        }
+
+        for (int probe = 0; !unresolved.isEmpty(); probe++) {
+            if (probe >= RawlineHash.MAX_PROBES) {
+                throw new IllegalStateException("No free raw line id within " + RawlineHash.MAX_PROBES + " probes");
+            }
+            List<Rawline> rows = new ArrayList<>(unresolved.values());
+            jdbcTemplate.batchUpdate(INSERT_RAWLINE_SQL, rows, rows.size(), this::bindRawline);
+
+            List<String> collided = findCollisions(unresolved);
+            unresolved.keySet().retainAll(collided);
+            unresolved.values().forEach(rawline -> rawline.setId(rawline.getId() + 1));
+        }
+
+        for (Logevent event : events) {
+            event.getRawline().setId(distinct.get(event.getRawline().getRawline()).getId());
+        }
+    }
+
+    private List<String> findCollisions(Map<String, Rawline> lines) {
+        Long[] ids = new Long[lines.size()];
+        String[] digests = new String[lines.size()];
+        int i = 0;
+        for (Map.Entry<String, Rawline> line : lines.entrySet()) {
+            ids[i] = line.getValue().getId();
+            digests[i] = line.getKey();
+            i++;
+        }
+        return jdbcTemplate.query(FIND_COLLISIONS_SQL, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids));
+            ps.setArray(2, ps.getConnection().createArrayOf("text", digests));
+        }, (rs, rowNum) -> rs.getString(1));
+    }
+
+    private void bindRawline(PreparedStatement ps, Rawline rawline) throws SQLException {
+        ps.setLong(1, rawline.getId());
+        ps.setString(2, rawline.getRawline());
+        ps.setObject(3, rawline.getSourcedeviceid() != null ? rawline.getSourcedeviceid().getId() : null, Types.INTEGER);
+        ps.setObject(4, rawline.getSourceport(), Types.INTEGER);
+        ps.setObject(5, rawline.getDestinationdeviceid() != null ? rawline.getDestinationdeviceid().getId() : null, Types.INTEGER);
+        ps.setObject(6, rawline.getDestinationport(), Types.INTEGER);
+        ps.setString(7, rawline.getAction() != null ? rawline.getAction().getAction() : null);
+        ps.setString(8, rawline.getMessage());
+        ps.setString(9, toJson(rawline.getParseddata()));
+    }
+
+    private void bindLogevent(PreparedStatement ps, Logevent event) throws SQLException {
+        ps.setInt(1, event.getFileid().getId());
+        ps.setObject(2, event.getTimestamp() != null ? event.getTimestamp().atOffset(ZoneOffset.UTC) : null, Types.TIMESTAMP_WITH_TIMEZONE);
+        ps.setLong(3, event.getRawline().getId());
+        ps.setObject(4, event.getAssociatedalertid() != null ? event.getAssociatedalertid().getId() : null, Types.INTEGER);
+    }
+
+    private String toJson(Map<String, Object> parseddata) {
+        if (parseddata == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(parseddata);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize parsed data", e);
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Model.Enums.LogFileStatus;
+import edu.trincoll.siem.Model.Logfile;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Follows the log files in local directories (siem.tail.directories) as they are written, like
+ * tail -F, and ingests new lines through {@link LogfileService#follow}. Each file is a Logfile
+ * that stays Pending while it is followed. A WatchService wakes the tail thread as soon as a
+ * directory changes; every followed file is also checked each poll-ms, since watch events can be
+ * late, coalesced or missing (e.g. on network file systems). The position after the last line
+ * ingested from a file is committed with its events (see {@link TailCheckpoints}), so a restart
+ * resumes there.
+ * <p>
+ * A file renamed or deleted (rotation) is read to its end and marked Uploaded, and the new file
+ * at its path gets a new Logfile; so does a file that shrinks (copytruncate), from its start.
+ * Lines written to a rotated file while the service was stopped are not recovered.
+ */
+@Component
+public class LogTailer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogTailer.class);
+
+    // Column lengths of logfile.filename and logfiletail.filekey
+    private static final int MAX_FILENAME = 100;
+    private static final int MAX_FILE_KEY = 200;
+
+    private final LogfileService logfileService;
+    private final TailCheckpoints checkpoints;
+    private final TransactionTemplate transactionTemplate;
+    private final List<Path> directories;
+    private final String glob;
+    private final PathMatcher matcher;
+    private final String sourcename;
+    private final String sourcetype;
+    private final String format;
+    private final long pollMillis;
+    private final long rescanMillis;
+    private final long maxReadBytes;
+    private final boolean startAtEnd;
+    // Lines committed per append: one batch, so an append is a single transaction
+    private final int maxLines;
+
+    // Followed files by path; changed only on the tail thread
+    private final Map<Path, Tailed> tailed = new ConcurrentHashMap<>();
+    private final Set<Path> watched = new HashSet<>();
+    private volatile ExecutorService executor;
+    private WatchService watchService;
+    private long lastScanMillis;
+    private boolean firstScan = true;
+    // Whether the last poll left a followed file with unread lines (max-read-bytes was reached)
+    private volatile boolean catchingUp;
+
+    private final LongAdder linesRead = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder rotations = new LongAdder();
+    private final LongAdder truncations = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public LogTailer(LogfileService logfileService,
+                     TailCheckpoints checkpoints,
+                     LogIngestionWriter ingestionWriter,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${siem.tail.directories:}") String directories,
+                     @Value("${siem.tail.glob:*.log}") String glob,
+                     @Value("${siem.tail.sourcename:}") String sourcename,
+                     @Value("${siem.tail.sourcetype:}") String sourcetype,
+                     @Value("${siem.tail.format:}") String format,
+                     @Value("${siem.tail.poll-ms:250}") long pollMillis,
+                     @Value("${siem.tail.rescan-ms:1000}") long rescanMillis,
+                     @Value("${siem.tail.max-read-bytes:1048576}") long maxReadBytes,
+                     @Value("${siem.tail.start-at-end:false}") boolean startAtEnd) {
+        if (pollMillis < 1 || maxReadBytes < 1) {
+            throw new IllegalArgumentException("siem.tail.poll-ms and siem.tail.max-read-bytes must be at least 1");
+        }
+        if (!format.isBlank() && !logfileService.getLogFormats().contains(format.trim())) {
+            throw new IllegalArgumentException("Unknown siem.tail.format: " + format);
+        }
+        this.logfileService = logfileService;
+        this.checkpoints = checkpoints;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.directories = Arrays.stream(directories.split(","))
+                .map(String::trim)
+                .filter(directory -> !directory.isEmpty())
+                .map(directory -> Path.of(directory).toAbsolutePath().normalize())
+                .distinct()
+                .toList();
+        this.glob = glob;
+        this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        this.sourcename = sourcename.isBlank() ? null : sourcename.trim();
+        this.sourcetype = sourcetype.isBlank() ? null : sourcetype.trim();
+        this.format = format.isBlank() ? null : format.trim();
+        this.pollMillis = pollMillis;
+        this.rescanMillis = rescanMillis;
+        this.maxReadBytes = maxReadBytes;
+        this.startAtEnd = startAtEnd;
+        this.maxLines = ingestionWriter.getBatchSize();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (directories.isEmpty()) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "tail-1"));
+        executor.execute(this::run);
+        logger.info("Following {} in {}", glob, directories);
+    }
+
+    /**
+     * Stop reading. Followed files stay Pending and are resumed from their checkpoints on the
+     * next start.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeQuietly(watchService);
+        tailed.values().forEach(file -> closeQuietly(file.reader()));
+        tailed.clear();
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                boolean created = awaitChanges();
+                if (created || System.currentTimeMillis() - lastScanMillis >= rescanMillis) {
+                    scan();
+                }
+                boolean behind = false;
+                for (Tailed file : new ArrayList<>(tailed.values())) {
+                    behind |= poll(file);
+                }
+                catchingUp = behind;
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("Tailing failed: {}", e.toString());
+                errors.increment();
+            }
+        }
+    }
+
+    /**
+     * Wait up to poll-ms for a change in a watched directory.
+     *
+     * @return Whether a file may have been created, so the directories should be listed again
+     */
+    private boolean awaitChanges() throws InterruptedException {
+        boolean created = false;
+        WatchKey key = watchService.poll(pollMillis, TimeUnit.MILLISECONDS);
+        while (key != null) {
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() != StandardWatchEventKinds.ENTRY_MODIFY) {
+                    created = true;
+                }
+            }
+            if (!key.reset()) {
+                // The directory is gone; it is registered again if it comes back
+                watched.remove((Path) key.watchable());
+            }
+            key = watchService.poll();
+        }
+        return created;
+    }
+
+    // Start following the matching files not followed yet
+    private void scan() {
+        lastScanMillis = System.currentTimeMillis();
+        for (Path directory : directories) {
+            register(directory);
+            DirectoryStream.Filter<Path> filter = path -> matcher.matches(path.getFileName()) && Files.isRegularFile(path);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, filter)) {
+                for (Path file : files) {
+                    if (!tailed.containsKey(file)) {
+                        open(file);
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                // Not created yet; listed again on the next scan
+            } catch (IOException e) {
+                logger.warn("Could not list {}: {}", directory, e.toString());
+                errors.increment();
+            }
+        }
+        firstScan = false;
+    }
+
+    private void register(Path directory) {
+        if (watched.contains(directory) || !Files.isDirectory(directory)) {
+            return;
+        }
+        try {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watched.add(directory);
+        } catch (IOException e) {
+            logger.warn("Could not watch {}, polling it instead: {}", directory, e.toString());
+        }
+    }
+
+    /**
+     * Follow a file from its checkpoint if it is the file the checkpoint was taken on, otherwise
+     * as a new Logfile from its start (or its end, for files already there on startup with
+     * siem.tail.start-at-end).
+     */
+    private void open(Path path) {
+        FileChannel channel = null;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            String fileKey = fileKey(attributes);
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            // Replaced between the two calls: the channel may be on another file than attributes
+            if (!fileKey.equals(fileKey(Files.readAttributes(path, BasicFileAttributes.class)))) {
+                channel.close();
+                return;
+            }
+
+            TailCheckpoints.Checkpoint checkpoint = checkpoints.findActive(path.toString());
+            Logfile logfile = null;
+            long offset = 0;
+            if (checkpoint != null && fileKey.equals(checkpoint.fileKey()) && attributes.size() >= checkpoint.offset()) {
+                logfile = logfileService.getLogfileById(checkpoint.fileId()).orElse(null);
+                offset = checkpoint.offset();
+            }
+            if (logfile == null) {
+                if (checkpoint != null) {
+                    // Rotated or truncated while the service was stopped
+                    retire(checkpoint.fileId());
+                }
+                offset = startAtEnd && firstScan ? attributes.size() : 0;
+                logfile = create(path, fileKey, offset);
+            }
+            tailed.put(path, new Tailed(path, fileKey, new TailReader(channel, offset), logfileService.follow(logfile)));
+        } catch (NoSuchFileException e) {
+            closeQuietly(channel);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not follow {}: {}", path, e.toString());
+            errors.increment();
+            closeQuietly(channel);
+        }
+    }
+
+    private Logfile create(Path path, String fileKey, long offset) {
+        Logfile logfile = new Logfile();
+        String filename = path.getFileName().toString();
+        logfile.setFilename(filename.length() > MAX_FILENAME ? filename.substring(0, MAX_FILENAME) : filename);
+        logfile.setSourcename(sourcename);
+        logfile.setSourcetype(sourcetype);
+        logfile.setLogformat(format);
+        logfile.setUploadtime(Instant.now());
+        logfile.setStatus(LogFileStatus.Pending);
+        return transactionTemplate.execute(status -> {
+            Logfile saved = logfileService.saveLogfile(logfile);
+            checkpoints.insert(new TailCheckpoints.Checkpoint(saved.getId(), path.toString(), fileKey, offset));
+            return saved;
+        });
+    }
+
+    // A checkpointed file that can no longer be read: stop following it and mark it Uploaded
+    private void retire(int fileId) {
+        checkpoints.deactivate(fileId);
+        logfileService.getLogfileById(fileId).ifPresent(logfile -> logfileService.follow(logfile).close());
+    }
+
+    /**
+     * Ingest what has been written to a followed file, or finish it if it was rotated or truncated.
+     *
+     * @return Whether lines were left unread because the file is further ahead than max-read-bytes
+     */
+    private boolean poll(Tailed file) {
+        try {
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file.path(), BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                rotations.increment();
+                finish(file, true);
+                return false;
+            }
+            if (!file.fileKey().equals(fileKey(attributes))) {
+                rotations.increment();
+                finish(file, true);
+                open(file.path());
+                return false;
+            }
+            TailReader reader = file.reader();
+            if (attributes.size() < reader.getPosition()) {
+                truncations.increment();
+                finish(file, false);
+                open(file.path());
+                return false;
+            }
+
+            long budget = maxReadBytes;
+            while (budget > 0 && attributes.size() > reader.getPosition()) {
+                long before = reader.getPosition();
+                List<String> lines = reader.read(budget, maxLines);
+                budget -= reader.getPosition() - before;
+                bytesRead.add(reader.getPosition() - before);
+                if (lines.isEmpty()) {
+                    break;
+                }
+                append(file, lines, false);
+            }
+            return attributes.size() > reader.getPosition();
+        } catch (IOException | RuntimeException e) {
+            // Nothing after the committed checkpoint is lost: the next scan reopens the file there
+            logger.warn("Tailing {} failed, resuming from its checkpoint: {}", file.path(), e.toString());
+            errors.increment();
+            tailed.remove(file.path());
+            closeQuietly(file.reader());
+            return false;
+        }
+    }
+
+    private void append(Tailed file, List<String> lines, boolean last) {
+        int fileId = file.fileId();
+        long lineEnd = file.reader().getLineEnd();
+        file.followed().append(lines, () -> {
+            checkpoints.updateOffset(fileId, lineEnd);
+            if (last) {
+                checkpoints.deactivate(fileId);
+            }
+        });
+        linesRead.add(lines.size());
+    }
+
+    /**
+     * Stop following a file, after reading it to its end if it can still be read (a rotated or
+     * deleted file), and mark it Uploaded.
+     */
+    private void finish(Tailed file, boolean drain) throws IOException {
+        tailed.remove(file.path());
+        try (TailReader reader = file.reader()) {
+            long before = reader.getPosition();
+            List<String> lines = drain ? reader.drain() : List.of();
+            bytesRead.add(reader.getPosition() - before);
+            append(file, lines, true);
+            file.followed().close();
+        }
+    }
+
+    // Identifies the file itself rather than its path (the inode on Unix)
+    private static String fileKey(BasicFileAttributes attributes) {
+        Object key = attributes.fileKey();
+        String fileKey = key != null ? key.toString() : "created:" + attributes.creationTime().toMillis();
+        return fileKey.length() > MAX_FILE_KEY ? fileKey.substring(0, MAX_FILE_KEY) : fileKey;
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            logger.debug("Close failed: {}", e.toString());
+        }
+    }
+
+    /**
+     * Whether the tailer is keeping up with the followed files: its last poll read everything
+     * written to them. A backlog (a burst, or lines written while the service was stopped) makes
+     * it false until it is read; background maintenance waits for that like for ingestion jobs.
+     */
+    public boolean isIdle() {
+        return !catchingUp;
+    }
+
+    public Map<String, Object> getStats() {
+        List<Map<String, Object>> files = new ArrayList<>();
+        for (Tailed file : tailed.values()) {
+            Map<String, Object> followed = new LinkedHashMap<>();
+            followed.put("path", file.path().toString());
+            followed.put("fileId", file.fileId());
+            followed.put("offset", file.reader().getLineEnd());
+            files.add(followed);
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", !directories.isEmpty());
+        stats.put("directories", directories.stream().map(Path::toString).toList());
+        stats.put("glob", glob);
+        stats.put("files", files);
+        stats.put("linesRead", linesRead.sum());
+        stats.put("bytesRead", bytesRead.sum());
+        stats.put("rotations", rotations.sum());
+        stats.put("truncations", truncations.sum());
+        stats.put("errors", errors.sum());
+        return stats;
+    }
+
+    // A file being followed: its path, the file at that path when it was opened, and its reader
+    private record Tailed(Path path, String fileKey, TailReader reader, LogfileService.FollowedFile followed) {
+
+        int fileId() {
+            return followed.getLogfile().getId();
+        }
+    }
+}
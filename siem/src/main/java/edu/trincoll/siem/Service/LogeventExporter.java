@@ -0,0 +1,244 @@
+package edu.trincoll.siem.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Locale;
+
+/**
+ * Streams log events in a time range to an output stream as NDJSON or CSV. Rows are read
+ * through a server-side cursor (fetch size rows at a time) and written as they arrive, with a
+ * flush every flush-rows rows, so memory use does not depend on how many events the range holds.
+ */
+@Service
+public class LogeventExporter {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format from(String name) {
+            return switch (name.toLowerCase(Locale.ROOT)) {
+                case "ndjson", "jsonl", "json" -> NDJSON;
+                case "csv" -> CSV;
+                default -> throw new IllegalArgumentException("Unsupported export format: " + name + " (use ndjson or csv)");
+            };
+        }
+    }
+
+    private static final String[] COLUMNS = {
+            "logeventid", "timestamp", "fileid", "associatedalertid", "rawlineid", "rawline", "message",
+            "action", "source_hostname", "sourceport", "dest_hostname", "destinationport", "parseddata"
+    };
+
+    // Ordered by the (timestamp, logeventid) index, so the cursor streams without a sort
+    private static final String EXPORT_SQL =
+            "SELECT le.logeventid, le.\"timestamp\", le.fileid, le.associatedalertid, r.rawlineid, r.rawline, r.message, " +
+                    "r.action, sd.hostname, r.sourceport, dd.hostname, r.destinationport, r.parseddata::text " +
+                    "FROM logevent le " +
+                    "JOIN rawline r ON r.rawlineid = le.rawlineid " +
+                    "LEFT JOIN device sd ON sd.deviceid = r.sourcedeviceid " +
+                    "LEFT JOIN device dd ON dd.deviceid = r.destinationdeviceid " +
+                    "WHERE le.\"timestamp\" BETWEEN ? AND ? ";
+
+    private static final String FILE_FILTER_SQL = "AND le.fileid = ? ";
+    private static final String ORDER_SQL = "ORDER BY le.\"timestamp\", le.logeventid";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    private final int flushRows;
+
+    public LogeventExporter(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            ObjectMapper objectMapper,
+                            @Value("${siem.export.fetch-size:5000}") int fetchSize,
+                            @Value("${siem.export.flush-rows:1000}") int flushRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        // PostgreSQL only uses a cursor for the fetch size inside a transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.fetchSize = Math.max(1, fetchSize);
+        this.flushRows = Math.max(1, flushRows);
+    }
+
+    /**
+     * Write all events with startTime <= timestamp <= endTime, oldest first.
+     *
+     * @param fileId Only export events of this log file, or null for all files
+     * @return The number of events written
+     * @throws IOException if writing fails, e.g. because the client went away
+     */
+    public long export(Instant startTime, Instant endTime, Integer fileId, Format format, OutputStream out)
+            throws IOException {
+        RowWriter writer = format == Format.NDJSON ? new NdjsonWriter(out) : new CsvWriter(out);
+        long[] written = {0};
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                String sql = EXPORT_SQL + (fileId != null ? FILE_FILTER_SQL : "") + ORDER_SQL;
+                PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                ps.setObject(1, startTime.atOffset(ZoneOffset.UTC), Types.TIMESTAMP_WITH_TIMEZONE);
+                ps.setObject(2, endTime.atOffset(ZoneOffset.UTC), Types.TIMESTAMP_WITH_TIMEZONE);
+                if (fileId != null) {
+                    ps.setInt(3, fileId);
+                }
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                try {
+                    writer.write(rs);
+                    if (++written[0] % flushRows == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    // Aborts the query; unwrapped below
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+        return written[0];
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void flush() throws IOException;
+    }
+
+    private class NdjsonWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonWriter(OutputStream out) throws IOException {
+            generator = objectMapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("logeventid", rs.getInt(1));
+            generator.writeStringField("timestamp", instantString(rs.getTimestamp(2)));
+            generator.writeNumberField("fileid", rs.getInt(3));
+            writeNullableInt("associatedalertid", rs.getObject(4, Integer.class));
+            generator.writeNumberField("rawlineid", rs.getLong(5));
+            generator.writeStringField("rawline", rs.getString(6));
+            generator.writeStringField("message", rs.getString(7));
+            generator.writeStringField("action", rs.getString(8));
+            generator.writeStringField("source_hostname", rs.getString(9));
+            writeNullableInt("sourceport", rs.getObject(10, Integer.class));
+            generator.writeStringField("dest_hostname", rs.getString(11));
+            writeNullableInt("destinationport", rs.getObject(12, Integer.class));
+            generator.writeFieldName("parseddata");
+            String parsedData = rs.getString(13);
+            if (parsedData != null) {
+                // Already JSON (jsonb::text), so copy it through without re-parsing
+                generator.writeRawValue(parsedData);
+            } else {
+                generator.writeNull();
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private void writeNullableInt(String field, Integer value) throws IOException {
+            if (value != null) {
+                generator.writeNumberField(field, value);
+            } else {
+                generator.writeNullField(field);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static class CsvWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvWriter(OutputStream out) throws IOException {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            for (int column = 1; column <= COLUMNS.length; column++) {
+                if (column > 1) {
+                    writer.write(',');
+                }
+                String value = column == 2 ? instantString(rs.getTimestamp(column)) : rs.getString(column);
+                writer.write(csv(value));
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private static String instantString(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant().toString() : null;
+    }
+
+    // RFC 4180 quoting; null becomes an empty field
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -4,21 +4,34 @@ import edu.trincoll.siem.Model.Alert;
 import edu.trincoll.siem.Model.Logfile;
 import edu.trincoll.siem.Model.Logevent;
 import edu.trincoll.siem.Model.Rawline;
+import edu.trincoll.siem.Model.View.LogeventView;
 import edu.trincoll.siem.Repository.LogeventRepository;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class LogeventService {
 
+    private static final Set<String> ROLLUP_GROUPS = Set.of("file", "action", "source");
+
     private final LogeventRepository logeventRepository;
+    private final EventRollups eventRollups;
+    private final MaterializedViewRefresher materializedViewRefresher;
+    private final PartitionManager partitionManager;
 
-    public LogeventService(LogeventRepository logeventRepository) {
+    public LogeventService(LogeventRepository logeventRepository, EventRollups eventRollups,
+                           MaterializedViewRefresher materializedViewRefresher, PartitionManager partitionManager) {
         this.logeventRepository = logeventRepository;
+        this.eventRollups = eventRollups;
+        this.materializedViewRefresher = materializedViewRefresher;
+        this.partitionManager = partitionManager;
     }
 
     // Basic CRUD operations
@@ -30,7 +43,12 @@ public class LogeventService {
         return logeventRepository.findById(id);
     }
 
+    // logevent is partitioned by timestamp, so every event needs one
     public Logevent saveEvent(Logevent event) {
+        if (event.getTimestamp() == null) {
+            event.setTimestamp(Instant.now());
+        }
+        partitionManager.ensurePartitions(PartitionManager.LOGEVENT, List.of(event.getTimestamp()));
         return logeventRepository.save(event);
     }
 
@@ -64,13 +82,33 @@ public class LogeventService {
     }
 
     // Get the latest events
-    public List<Logevent> getLatestEvents(int limit) {
-        return logeventRepository.findLatestEvents(PageRequest.of(0, limit));
+    public List<LogeventView> getLatestEvents(int limit) {
+        return logeventRepository.findLatestViews(PageRequest.of(0, CursorPage.clamp(limit)));
     }
 
-    // Get events count over time (for visualization)
+    // Get events count per hour over time (for visualization), read from the hourly rollups
     public List<Object[]> getEventCountTimeSeries(Instant startTime, Instant endTime) {
-        return logeventRepository.getEventCountTimeSeries(startTime, endTime);
+        return logeventRepository.getEventCountTimeSeries(EventRollups.Resolution.HOUR.truncate(startTime), endTime);
+    }
+
+    /**
+     * Event counts per minute or hour, broken down by file, action or source device.
+     *
+     * @throws IllegalArgumentException for an unknown resolution or groupBy
+     */
+    public List<Object[]> getEventRollup(Instant startTime, Instant endTime, String resolution, String groupBy) {
+        EventRollups.Resolution rollupResolution = EventRollups.Resolution.from(resolution);
+        String group = groupBy.toLowerCase(Locale.ROOT);
+        if (!ROLLUP_GROUPS.contains(group)) {
+            throw new IllegalArgumentException("Unsupported groupBy: " + groupBy + " (use file, action or source)");
+        }
+        return logeventRepository.getEventRollup(rollupResolution.getCode(), group,
+                rollupResolution.truncate(startTime), endTime);
+    }
+
+    // Recompute the rollups of a time range, e.g. after events were edited through the API
+    public int rebuildEventRollups(Instant startTime, Instant endTime) {
+        return eventRollups.rebuild(startTime, endTime);
     }
 
     // Count events by file
@@ -82,7 +120,74 @@ public class LogeventService {
         return logeventRepository.getLogEventCountPerHour(startTime, endTime);
     }
 
+    public MaterializedViewRefresher.Freshness getEventCountFreshness() {
+        return materializedViewRefresher.getFreshness(MaterializedViewRefresher.LOGEVENT_COUNT_PER_HOUR);
+    }
+
+    // Partition counts and day ranges of logevent and alert, and partitions created/dropped
+    public Map<String, Object> getPartitionStats() {
+        return partitionManager.getStats();
+    }
+
+    // Refresh timestamps, durations and skip counts of every materialized view
+    public Map<String, Object> getMaterializedViewStats() {
+        return materializedViewRefresher.getStats();
+    }
+
     public List<Object[]> getComplexEventReport() {
         return logeventRepository.getComplexEventReport();
     }
+
+    // Keyset pages, newest first. A null cursor returns the first page.
+
+    public CursorPage<LogeventView> getEventsPage(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<LogeventView> rows = after == null
+                ? logeventRepository.findPage(CursorPage.fetch(limit))
+                : logeventRepository.findPageAfter(after.requireTimestamp(), after.intId(), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, LogeventService::cursorOf);
+    }
+
+    public CursorPage<LogeventView> getEventsWithNoAlertPage(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<LogeventView> rows = after == null
+                ? logeventRepository.findNoAlertPage(CursorPage.fetch(limit))
+                : logeventRepository.findNoAlertPageAfter(after.requireTimestamp(), after.intId(), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, LogeventService::cursorOf);
+    }
+
+    public CursorPage<LogeventView> getEventsByFilePage(Integer fileId, String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<LogeventView> rows = after == null
+                ? logeventRepository.findByFilePage(fileId, CursorPage.fetch(limit))
+                : logeventRepository.findByFilePageAfter(fileId, after.requireTimestamp(), after.intId(), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, LogeventService::cursorOf);
+    }
+
+    public CursorPage<LogeventView> getEventsBetweenPage(Instant startTime, Instant endTime, String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<LogeventView> rows = after == null
+                ? logeventRepository.findRangePage(startTime, endTime, CursorPage.fetch(limit))
+                : logeventRepository.findRangePageAfter(startTime, after.requireTimestamp(), after.intId(), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, LogeventService::cursorOf);
+    }
+
+    // Rows start with (logeventid, timestamp)
+    public CursorPage<Object[]> getComplexEventReportPage(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        int fetch = CursorPage.clamp(limit) + 1;
+        List<Object[]> rows = after == null
+                ? logeventRepository.getComplexEventReportPage(fetch)
+                : logeventRepository.getComplexEventReportPageAfter(after.requireTimestamp(), after.intId(), fetch);
+        return CursorPage.of(rows, limit, row -> new PageCursor(toInstant(row[1]), ((Number) row[0]).longValue()));
+    }
+
+    private static PageCursor cursorOf(LogeventView event) {
+        return new PageCursor(event.timestamp(), event.id());
+    }
+
+    // Native queries may hand back a Timestamp or an Instant depending on the driver mapping
+    private static Instant toInstant(Object value) {
+        return value instanceof java.sql.Timestamp timestamp ? timestamp.toInstant() : (Instant) value;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,222 @@
+package edu.trincoll.siem.Service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores the original content of uploaded log files compressed, in the logfilecontent table
+ * (V14) rather than in a column of logfile, so reading log file metadata never touches it.
+ * <p>
+ * Content is written as it is ingested: each flushed ingestion batch appends one chunk, a gzip
+ * member compressed at the fastest level. Chunks are only decompressed when the content is
+ * downloaded, and their concatenation is itself a valid gzip file, which retention archives as is.
+ */
+@Component
+public class LogfileContentStore {
+
+    // Uncompressed bytes per chunk a writer should aim for at most
+    public static final int MAX_CHUNK_BYTES = 4 * 1024 * 1024;
+
+    // Chunks are numbered per file; one writer per file, so MAX + 1 does not race
+    private static final String APPEND_SQL =
+            "INSERT INTO logfilecontent (fileid, chunkno, length, content) " +
+                    "SELECT ?, COALESCE(MAX(chunkno) + 1, 0), ?, ? FROM logfilecontent WHERE fileid = ?";
+
+    private static final String SELECT_CHUNKS_SQL =
+            "SELECT content FROM logfilecontent WHERE fileid = ? ORDER BY chunkno";
+
+    private static final String LENGTH_SQL = "SELECT SUM(length) FROM logfilecontent WHERE fileid = ?";
+
+    private static final String DELETE_SQL = "DELETE FROM logfilecontent WHERE fileid = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readTransaction;
+
+    private final LongAdder chunksWritten = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesStored = new LongAdder();
+    private final LongAdder downloads = new LongAdder();
+
+    public LogfileContentStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        // PostgreSQL only uses a cursor for the fetch size inside a transaction
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Append a chunk to the content of a log file. Runs in the caller's transaction, if any.
+     */
+    public void append(int fileId, Chunk chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        byte[] compressed = chunk.finish();
+        jdbcTemplate.update(APPEND_SQL, fileId, chunk.length(), compressed, fileId);
+        chunksWritten.increment();
+        bytesIn.add(chunk.length());
+        bytesStored.add(compressed.length);
+    }
+
+    /**
+     * Append the lines of a whole stream, e.g. a file coming back from the archive, in chunks of
+     * up to MAX_CHUNK_BYTES. Each chunk is committed on its own unless the caller has a transaction.
+     */
+    public void appendAll(int fileId, InputStream content) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8));
+        Chunk chunk = newChunk();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            chunk.appendLine(line);
+            if (chunk.length() >= MAX_CHUNK_BYTES) {
+                append(fileId, chunk);
+                chunk = newChunk();
+            }
+        }
+        append(fileId, chunk);
+    }
+
+    /**
+     * Uncompressed length of the stored content in bytes, or null if the file has none.
+     */
+    public Long getLength(int fileId) {
+        return jdbcTemplate.queryForObject(LENGTH_SQL, Long.class, fileId);
+    }
+
+    /**
+     * Write the decompressed content of a log file, one chunk in memory at a time.
+     *
+     * @throws IOException if writing fails, e.g. because the client went away
+     */
+    public void copyTo(int fileId, OutputStream out) throws IOException {
+        forEachChunk(fileId, in -> {
+            try (InputStream gzip = new GZIPInputStream(in, 64 * 1024)) {
+                gzip.transferTo(out);
+            }
+        });
+        downloads.increment();
+    }
+
+    /**
+     * Write the stored chunks without decompressing them. The result is a (multi-member) gzip file.
+     */
+    public void copyCompressedTo(int fileId, OutputStream out) throws IOException {
+        forEachChunk(fileId, in -> in.transferTo(out));
+    }
+
+    public void delete(int fileId) {
+        jdbcTemplate.update(DELETE_SQL, fileId);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long in = bytesIn.sum();
+        long stored = bytesStored.sum();
+        stats.put("chunksWritten", chunksWritten.sum());
+        stats.put("bytesIn", in);
+        stats.put("bytesStored", stored);
+        stats.put("compressionRatio", stored > 0 ? (double) in / stored : null);
+        stats.put("downloads", downloads.sum());
+        return stats;
+    }
+
+    public Chunk newChunk() {
+        return new Chunk();
+    }
+
+    private void forEachChunk(int fileId, ChunkConsumer consumer) throws IOException {
+        try {
+            readTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(SELECT_CHUNKS_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(1);
+                ps.setInt(1, fileId);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                try (InputStream in = rs.getBinaryStream(1)) {
+                    consumer.accept(in);
+                } catch (IOException e) {
+                    // Aborts the query; unwrapped below
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private interface ChunkConsumer {
+        void accept(InputStream chunk) throws IOException;
+    }
+
+    /**
+     * Lines of a file being compressed into one gzip member. Only the compressed bytes are kept
+     * in memory. Not thread-safe.
+     */
+    public static final class Chunk {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        // Created with the first line, so an empty chunk holds no deflater
+        private GZIPOutputStream gzip;
+        private int length;
+
+        Chunk() {
+        }
+
+        public void appendLine(String line) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            try {
+                if (gzip == null) {
+                    gzip = new GZIPOutputStream(buffer, 16 * 1024) {
+                        {
+                            def.setLevel(Deflater.BEST_SPEED);
+                        }
+                    };
+                }
+                gzip.write(bytes);
+                gzip.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            length += bytes.length + 1;
+        }
+
+        public boolean isEmpty() {
+            return length == 0;
+        }
+
+        // Uncompressed bytes appended so far
+        public int length() {
+            return length;
+        }
+
+        // Completes the gzip member and releases the deflater; the chunk takes no more lines
+        byte[] finish() {
+            try {
+                gzip.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return buffer.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Model.Logfile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Content fingerprints of ingested log files (V17), used to recognize re-uploads. A file
+ * uploaded again under the same source and file name is compared chunk by chunk with its
+ * latest completed upload; the leading lines that match are not parsed or stored again. An
+ * upload whose whole content is already known from the same source is not even queued (see
+ * {@link LogfileService#findUploadedCopy}).
+ */
+@Component
+public class LogfileFingerprints {
+
+    private static final String FIND_PREVIOUS_SQL =
+            "SELECT fileid FROM logfile " +
+                    "WHERE filename = ? AND sourcename IS NOT DISTINCT FROM ? AND fileid < ? " +
+                    "AND status = 'Uploaded' AND contenthash IS NOT NULL " +
+                    "ORDER BY fileid DESC LIMIT 1";
+
+    private static final String FIND_BY_CONTENT_HASH_SQL =
+            "SELECT fileid FROM logfile WHERE contenthash = ? AND sourcename IS NOT DISTINCT FROM ? " +
+                    "AND status = 'Uploaded' ORDER BY fileid LIMIT 1";
+
+    private static final String SELECT_CHUNKS_SQL =
+            "SELECT chunkno, firstline, linecount, hash FROM logfilefingerprint WHERE fileid = ? ORDER BY chunkno";
+
+    private static final String INSERT_CHUNK_SQL =
+            "INSERT INTO logfilefingerprint (fileid, chunkno, firstline, linecount, hash) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_LOGFILE_SQL =
+            "UPDATE logfile SET contenthash = ?, linecount = ?, skippedlines = ?, duplicateof = ? WHERE fileid = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final LongAdder uploadsChecked = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder overlaps = new LongAdder();
+    private final LongAdder linesSkipped = new LongAdder();
+    private final LongAdder copiesRejected = new LongAdder();
+
+    public LogfileFingerprints(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * The latest completed upload of the same file (same file name and source name) before this
+     * one, or null if there is none.
+     */
+    public Integer findPrevious(Logfile logfile) {
+        if (logfile.getFilename() == null) {
+            return null;
+        }
+        List<Integer> ids = jdbcTemplate.queryForList(FIND_PREVIOUS_SQL, Integer.class,
+                logfile.getFilename(), logfile.getSourcename(), logfile.getId());
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    // The first completed upload from the same source with exactly this content, or null
+    public Integer findByContentHash(String contentHash, String sourcename) {
+        List<Integer> ids = jdbcTemplate.queryForList(FIND_BY_CONTENT_HASH_SQL, Integer.class, contentHash, sourcename);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    List<UploadFingerprint.Chunk> getChunks(int fileId) {
+        return jdbcTemplate.query(SELECT_CHUNKS_SQL, (rs, rowNum) -> new UploadFingerprint.Chunk(
+                rs.getInt(1), rs.getLong(2), rs.getInt(3), rs.getBytes(4)), fileId);
+    }
+
+    /**
+     * Store the fingerprint of a completely ingested file, and how much of it repeated the
+     * earlier upload previousId (null if it was not compared with one).
+     */
+    void save(int fileId, UploadFingerprint fingerprint, Integer previousId, long skipped, boolean complete) {
+        String contentHash = fingerprint.finish();
+        List<UploadFingerprint.Chunk> chunks = fingerprint.getChunks();
+        Integer duplicateOf = skipped > 0 ? previousId : null;
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_CHUNK_SQL, chunks, chunks.size(), (ps, chunk) -> {
+                ps.setInt(1, fileId);
+                ps.setInt(2, chunk.chunkNo());
+                ps.setLong(3, chunk.firstLine());
+                ps.setInt(4, chunk.lineCount());
+                ps.setBytes(5, chunk.hash());
+            });
+            jdbcTemplate.update(UPDATE_LOGFILE_SQL, contentHash, fingerprint.getLines(), skipped, duplicateOf, fileId);
+        });
+
+        if (previousId != null) {
+            uploadsChecked.increment();
+        }
+        if (skipped > 0) {
+            linesSkipped.add(skipped);
+            if (complete && skipped == fingerprint.getLines()) {
+                duplicates.increment();
+            } else {
+                overlaps.increment();
+            }
+        }
+    }
+
+    // An upload turned away because a completed upload has the same content
+    void countCopyRejected() {
+        copiesRejected.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("chunkLines", UploadFingerprint.CHUNK_LINES);
+        stats.put("uploadsCompared", uploadsChecked.sum());
+        stats.put("duplicates", duplicates.sum());
+        stats.put("overlaps", overlaps.sum());
+        stats.put("linesSkipped", linesSkipped.sum());
+        stats.put("copiesRejected", copiesRejected.sum());
+        return stats;
+    }
+}
@@ -1,53 +1,99 @@
 package edu.trincoll.siem.Service;
 
-import com.google.gson.Gson;
+import edu.trincoll.siem.Detection.DetectionEngine;
+import edu.trincoll.siem.Model.Device;
 import edu.trincoll.siem.Model.Enums.LogFileStatus;
 import edu.trincoll.siem.Model.Logevent;
 import edu.trincoll.siem.Model.Logfile;
 import edu.trincoll.siem.Model.Rawline;
+import edu.trincoll.siem.Parser.Ipv4;
+import edu.trincoll.siem.Parser.LogFormatParser;
+import edu.trincoll.siem.Parser.ParsedLogLine;
+import edu.trincoll.siem.Parser.ParserRegistry;
+import edu.trincoll.siem.Parser.TimestampParser;
 import edu.trincoll.siem.Repository.LogfileRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.net.InetAddress;
-import java.net.UnknownHostException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import java.util.Locale;
-import org.springframework.transaction.annotation.Transactional;
-import edu.trincoll.siem.Model.Device;
-import edu.trincoll.siem.Model.Action;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 @Service
 public class LogfileService {
 
+    private static final Logger logger = LoggerFactory.getLogger(LogfileService.class);
+
     private final LogfileRepository logfileRepository;
-    private final RawlineService rawlineService;
-    private final LogeventService logeventService;
-    private final ActionService actionService;
-    private final DeviceService deviceService;
+    private final ActionCache actionCache;
+    private final DeviceCache deviceCache;
+    private final LogIngestionWriter ingestionWriter;
+    private final LogfileContentStore contentStore;
+    private final ParserRegistry parserRegistry;
+    private final ParsePatternMatcher parsePatternMatcher;
+    private final LogfileFingerprints fingerprints;
+    private final DetectionEngine detectionEngine;
+    private final ThreatIntelMatcher threatIntelMatcher;
+
+    // Worker pool that parses chunks of a file in parallel while the caller thread reads and writes
+    private final ForkJoinPool parsePool;
+    private final int chunkLines;
+    private final int maxChunksInFlight;
+    private final boolean skipRepeatedLines;
 
     @Autowired  // This annotation is optional on a single constructor
     public LogfileService(LogfileRepository logfileRepository,
-                          LogeventService logeventService,
-                          RawlineService rawlineService,
-                          ActionService actionService,
-                          DeviceService deviceService) {
+                          ActionCache actionCache,
+                          DeviceCache deviceCache,
+                          LogIngestionWriter ingestionWriter,
+                          LogfileContentStore contentStore,
+                          ParserRegistry parserRegistry,
+                          ParsePatternMatcher parsePatternMatcher,
+                          LogfileFingerprints fingerprints,
+                          DetectionEngine detectionEngine,
+                          ThreatIntelMatcher threatIntelMatcher,
+                          @Value("${siem.ingest.parse-threads:0}") int parseThreads,
+                          @Value("${siem.ingest.chunk-lines:2000}") int chunkLines,
+                          @Value("${siem.ingest.skip-repeated-lines:true}") boolean skipRepeatedLines) {
         this.logfileRepository = logfileRepository;
-        this.logeventService = logeventService;
-        this.rawlineService = rawlineService;
-        this.actionService = actionService;
-        this.deviceService = deviceService;
+        this.actionCache = actionCache;
+        this.deviceCache = deviceCache;
+        this.ingestionWriter = ingestionWriter;
+        this.contentStore = contentStore;
+        this.parserRegistry = parserRegistry;
+        this.parsePatternMatcher = parsePatternMatcher;
+        this.fingerprints = fingerprints;
+        this.detectionEngine = detectionEngine;
+        this.threatIntelMatcher = threatIntelMatcher;
+
+        int threads = parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors();
+        this.parsePool = new ForkJoinPool(threads);
+        this.chunkLines = Math.max(1, chunkLines);
+        this.maxChunksInFlight = threads * 2;
+        this.skipRepeatedLines = skipRepeatedLines;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        parsePool.shutdownNow();
     }
 
     // Basic CRUD operations
@@ -55,6 +101,15 @@ public class LogfileService {
         return logfileRepository.findAll();
     }
 
+    // Keyset pages, most recently uploaded first. A null cursor returns the first page.
+    public CursorPage<Logfile> getLogfilesPage(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<Logfile> rows = after == null
+                ? logfileRepository.findAllByOrderByIdDesc(CursorPage.fetch(limit))
+                : logfileRepository.findByIdLessThanOrderByIdDesc(after.intId(), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, logfile -> PageCursor.ofId(logfile.getId()));
+    }
+
     public Optional<Logfile> getLogfileById(Integer id) {
         return logfileRepository.findById(id);
     }
@@ -63,371 +118,393 @@ public class LogfileService {
         return logfileRepository.save(logfile);
     }
 
+    /**
+     * Uploads that skipped lines already ingested with this file; those lines would go with it,
+     * so the file cannot be deleted while there are any.
+     */
+    public List<Integer> getDependentUploads(Integer id) {
+        return logfileRepository.findIdsByDuplicateof(id);
+    }
+
     public void deleteLogfile(Integer id) {
         logfileRepository.deleteById(id);
     }
 
-    public boolean logfileExists(Integer id) {
-        return logfileRepository.existsById(id);
+    public void markFailed(Integer id) {
+        logfileRepository.updateStatus(id, LogFileStatus.Failed);
     }
 
     /**
-     * Process a newly uploaded log file by parsing each line and creating log events
+     * Mark uploads left Pending from before a restart as Failed; their content was only held in
+     * memory, so they can never finish. The rows their batches committed are discarded, so they
+     * can be uploaded again. Followed files (see {@link LogTailer}) are not touched.
      *
-     * @param logfile The newly uploaded log file
-     * @return The updated log file with processed status
+     * @return The number of files marked Failed
      */
-    @Transactional
-    public Logfile processLogfileContent(Logfile logfile) {
-        if (logfile.getRawcontent() == null || logfile.getRawcontent().isEmpty()) {
-            logfile.setStatus(LogFileStatus.Failed);
-            return saveLogfile(logfile);
+    public int failPendingUploads(Instant uploadedBefore) {
+        List<Integer> ids = logfileRepository.findPendingIdsUploadedBefore(uploadedBefore);
+        for (Integer id : ids) {
+            discardIngested(id);
+            logfileRepository.updateStatus(id, LogFileStatus.Failed);
         }
+        return ids.size();
+    }
 
-        try {
-            // Split the content into lines
-            String[] lines = logfile.getRawcontent().split("\\r?\\n");
-
-            for (String line : lines) {
-                if (line.trim().isEmpty()) {
-                    continue; // Skip empty lines
-                }
+    public boolean logfileExists(Integer id) {
+        return logfileRepository.existsById(id);
+    }
 
-                // Create a raw line entry first
-                Rawline rawline = parseAndCreateRawline(line);
+    // Uncompressed size of the stored original file, or null if it was not kept (or is archived)
+    public Long getContentLength(Integer id) {
+        return contentStore.getLength(id);
+    }
 
-                // Create a log event that references the raw line and log file
-                Logevent logevent = new Logevent();
-                logevent.setFileid(logfile);
-                logevent.setRawline(rawline);
+    // Decompress the stored original file into out
+    public void copyContentTo(Integer id, OutputStream out) throws IOException {
+        contentStore.copyTo(id, out);
+    }
 
-                // Try to extract timestamp from the line
-                Instant timestamp = extractTimestampFromLine(line);
-                logevent.setTimestamp(timestamp != null ? timestamp : Instant.now());
+    public Map<String, Object> getContentStats() {
+        return contentStore.getStats();
+    }
 
-                // Save the log event
-                logeventService.saveEvent(logevent);
-            }
+    // Names of the log formats a file can be parsed with
+    public List<String> getLogFormats() {
+        return parserRegistry.getFormats();
+    }
 
-            // Update log file status to Uploaded after successful processing
-            logfile.setStatus(LogFileStatus.Uploaded);
-            return saveLogfile(logfile);
+    public Map<String, Object> getParserStats() {
+        return parserRegistry.getStats();
+    }
 
-        } catch (Exception e) {
-            logfile.setStatus(LogFileStatus.Failed);
-            return saveLogfile(logfile);
-        }
+    public Map<String, Object> getFingerprintStats() {
+        return fingerprints.getStats();
     }
 
     /**
-     * Parse a log line and create a raw line entry
+     * A completed upload from the same source with exactly this content, so that a retried
+     * upload is answered with the file already ingested instead of being ingested twice.
      */
-    private Rawline parseAndCreateRawline(String line) {
-        Rawline rawline = new Rawline();
-        rawline.setRawline(line);
-        rawline.setMessage(line); // Default message is the whole line
-
-        // Parse data from the line
-        parseLogLine(rawline, line);
-
-        // Save and return the raw line
-        return rawlineService.saveRawline(rawline);
+    public Optional<Logfile> findUploadedCopy(Logfile logfile) {
+        if (!skipRepeatedLines || logfile.getRawcontent() == null || logfile.getRawcontent().isEmpty()) {
+            return Optional.empty();
+        }
+        Integer copyId = fingerprints.findByContentHash(
+                UploadFingerprint.contentHash(logfile.getRawcontent()), logfile.getSourcename());
+        if (copyId == null) {
+            return Optional.empty();
+        }
+        fingerprints.countCopyRejected();
+        return logfileRepository.findById(copyId);
     }
 
     /**
-     * Extract structured data from a log line
+     * Process a newly uploaded log file by parsing each line and creating log events.
+     * Rows are written through {@link LogIngestionWriter}, which commits one batch at a time
+     * and stores the content compressed as it goes.
+     *
+     * @param logfile The newly uploaded log file
+     * @param job     Job to report progress to, or null
+     * @return The updated log file with processed status
      */
-    private void parseLogLine(Rawline rawline, String line) {
-        // Extract timestamp and hostname/source
-        Matcher timestampHostnameMatch = Pattern.compile("^(\\w{3}\\s+\\d{1,2}\\s+\\d{2}:\\d{2}:\\d{2})\\s+([^:]+):").matcher(line);
-        if (timestampHostnameMatch.find()) {
-            // No direct way to set hostname, but could be stored in parsed data
-            JsonObject hostnameData = new JsonObject();
-            hostnameData.addProperty("timestamp", timestampHostnameMatch.group(1));
-            hostnameData.addProperty("hostname", timestampHostnameMatch.group(2));
-
-            // Find the source device by hostname
-            Optional<Device> sourceDeviceOpt = deviceService.getDeviceByHostname(timestampHostnameMatch.group(2));
-            if (sourceDeviceOpt.isPresent()) {
-                Device sourceDevice = sourceDeviceOpt.get();
-                rawline.setSourcedeviceid(sourceDevice);
-            }
-
-            Gson gson = new Gson();
-            Map<String, Object> dataMap = gson.fromJson(hostnameData.toString(), Map.class);
-            rawline.setParseddata(dataMap);
+    public Logfile processLogfileContent(Logfile logfile, IngestionJob job) {
+        if (logfile.getRawcontent() == null || logfile.getRawcontent().isEmpty()) {
+            logfile.setStatus(LogFileStatus.Failed);
+            return saveLogfile(logfile);
         }
 
-        // Parse login failures
-        Matcher loginMatch = Pattern.compile("User\\s+(\\S+)\\s+failed\\s+login\\s+attempt").matcher(line);
-        if (loginMatch.find()) {
-            // Set action to LOGIN_FAILED
-            Action action = actionService.getActionByName("LOGIN_FAILED")
-                    .orElseGet(() -> {
-                        Action newAction = new Action();
-                        newAction.setAction("LOGIN_FAILED");
-                        return actionService.saveAction(newAction);
-                    });
-
-            rawline.setAction(action);
-            rawline.setMessage("Failed login attempt for user " + loginMatch.group(1));
-
-            // Extract reason if available
-            Matcher reasonMatch = Pattern.compile("Reason:\\s+(.+?)(?:$|-)").matcher(line);
-            if (reasonMatch.find()) {
-                // Get current parseddata as Map if it exists
-                Map<String, Object> currentDataMap = rawline.getParseddata();
-
-                // If null, create a new map
-                if (currentDataMap == null) {
-                    currentDataMap = new java.util.HashMap<>();
-                }
+        try {
+            return ingestLines(logfile, new BufferedReader(new StringReader(logfile.getRawcontent())), true, job);
+        } finally {
+            // Stored by now; the finished job keeps the entity, so don't keep the content with it
+            logfile.setRawcontent(null);
+        }
+    }
 
-                // Add the new properties to the map
-                currentDataMap.put("username", loginMatch.group(1));
-                currentDataMap.put("failureReason", reasonMatch.group(1).trim());
+    /**
+     * Parse and persist a log file read incrementally from a stream. Only one batch of
+     * lines is held in memory at a time, so heap usage does not grow with file size.
+     *
+     * @param logfile         An already saved log file row to attach events to
+     * @param content         The log file content, read as UTF-8
+     * @param storeRawContent Whether to also keep the content, compressed, in {@link LogfileContentStore}
+     * @param job             Job to report progress to, or null
+     * @return The log file with its final status
+     */
+    public Logfile ingestStream(Logfile logfile, InputStream content, boolean storeRawContent, IngestionJob job) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8));
+        return ingestLines(logfile, reader, storeRawContent, job);
+    }
 
-                // Set the updated map back to rawline
-                rawline.setParseddata(currentDataMap);
-            }
+    /**
+     * Read the file in line-aligned chunks and parse the chunks on the parse pool. Parsed
+     * chunks are handed to the batch writer in file order, and at most maxChunksInFlight
+     * chunks are buffered at once. The file is marked Failed if any chunk fails.
+     * <p>
+     * The parser is chosen once, from the first chunk, and every line goes through it alone,
+     * then through the user-defined parse patterns current when the file started.
+     * <p>
+     * A re-upload of a file (same file and source name) skips the leading lines that repeat its
+     * latest completed upload without parsing them; see {@link LogfileFingerprints}. The whole
+     * content is still fingerprinted, and stored if requested.
+     */
+    private Logfile ingestLines(Logfile logfile, BufferedReader reader, boolean storeRawContent, IngestionJob job) {
+        Deque<Future<List<ParsedEvent>>> inFlight = new ArrayDeque<>();
+        LineParser parser = null;
+
+        UploadFingerprint fingerprint = new UploadFingerprint();
+        Integer previousId = skipRepeatedLines ? fingerprints.findPrevious(logfile) : null;
+        UploadFingerprint.Prefix prefix = new UploadFingerprint.Prefix(
+                previousId != null ? fingerprints.getChunks(previousId) : List.of());
+        if (previousId != null && logfile.getLogformat() == null) {
+            // The new lines are in the format the earlier upload was parsed with
+            logfileRepository.findById(previousId).ifPresent(previous -> logfile.setLogformat(previous.getLogformat()));
         }
 
-        // Check for connection patterns
-        Matcher connectionMatch = Pattern.compile("Connection from (\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})(?::(\\d+))? to (\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})(?::(\\d+))?").matcher(line);
-        if (connectionMatch.find()) {
-            try {
-                // Find source device by IP
-                InetAddress sourceIpAddress = InetAddress.getByName(connectionMatch.group(1));
-                Optional<Device> sourceDeviceOpt = deviceService.getDeviceByIpAddress(sourceIpAddress);
-                if (sourceDeviceOpt.isPresent()) {
-                    Device sourceDevice = sourceDeviceOpt.get();
-                    rawline.setSourcedeviceid(sourceDevice);
+        try (LogIngestionWriter.Batch batch = ingestionWriter.openBatch(logfile)) {
+            List<String> chunk = new ArrayList<>(chunkLines);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (storeRawContent) {
+                    batch.appendRawContent(line);
                 }
-
-                // Find destination device by IP
-                InetAddress destIpAddress = InetAddress.getByName(connectionMatch.group(3));
-                Optional<Device> destDeviceOpt = deviceService.getDeviceByIpAddress(destIpAddress);
-                if (destDeviceOpt.isPresent()) {
-                    Device destDevice = destDeviceOpt.get();
-                    rawline.setDestinationdeviceid(destDevice);
-                }
-
-                // Set ports if present
-                if (connectionMatch.group(2) != null) {
-                    rawline.setSourceport(Integer.parseInt(connectionMatch.group(2)));
-                }
-
-                if (connectionMatch.group(4) != null) {
-                    rawline.setDestinationport(Integer.parseInt(connectionMatch.group(4)));
+                fingerprint.addLine(line);
+
+                for (String newLine : prefix.offer(line)) {
+                    chunk.add(newLine);
+                    if (chunk.size() >= chunkLines) {
+                        parser = parser != null ? parser : selectParser(logfile, chunk);
+                        submitChunk(parser, logfile, chunk, inFlight, batch, job);
+                        chunk = new ArrayList<>(chunkLines);
+                    }
                 }
+            }
+            chunk.addAll(prefix.finish());
+            if (!chunk.isEmpty()) {
+                parser = parser != null ? parser : selectParser(logfile, chunk);
+                submitChunk(parser, logfile, chunk, inFlight, batch, job);
+            }
 
-                // Set CONNECTION action
-                Action action = actionService.getActionByName("CONNECTION")
-                        .orElseGet(() -> {
-                            Action newAction = new Action();
-                            newAction.setAction("CONNECTION");
-                            return actionService.saveAction(newAction);
-                        });
-
-                rawline.setAction(action);
-                rawline.setMessage("Connection from " + connectionMatch.group(1) +
-                        (connectionMatch.group(2) != null ? ":" + connectionMatch.group(2) : "") +
-                        " to " + connectionMatch.group(3) +
-                        (connectionMatch.group(4) != null ? ":" + connectionMatch.group(4) : ""));
-            } catch (UnknownHostException e) {
-                // Log the error but continue processing
-                System.err.println("Invalid IP address format in connection pattern: " +
-                        connectionMatch.group(1) + " or " + connectionMatch.group(3));
-
-                // Still process what we can
-                // Set ports if present
-                if (connectionMatch.group(2) != null) {
-                    rawline.setSourceport(Integer.parseInt(connectionMatch.group(2)));
-                }
+            // Drain the remaining chunks in order
+            while (!inFlight.isEmpty()) {
+                writeChunk(inFlight.poll(), batch, job);
+            }
+            batch.flush();
 
-                if (connectionMatch.group(4) != null) {
-                    rawline.setDestinationport(Integer.parseInt(connectionMatch.group(4)));
-                }
+            fingerprints.save(logfile.getId(), fingerprint, previousId, prefix.getSkipped(), prefix.isComplete());
+            logfile.setContenthash(fingerprint.finish());
+            logfile.setLinecount(fingerprint.getLines());
+            logfile.setSkippedlines(prefix.getSkipped());
+            logfile.setDuplicateof(prefix.getSkipped() > 0 ? previousId : null);
 
-                // Set CONNECTION action
-                Action action = actionService.getActionByName("CONNECTION")
-                        .orElseGet(() -> {
-                            Action newAction = new Action();
-                            newAction.setAction("CONNECTION");
-                            return actionService.saveAction(newAction);
-                        });
-
-                rawline.setAction(action);
-                rawline.setMessage("Connection from " + connectionMatch.group(1) +
-                        (connectionMatch.group(2) != null ? ":" + connectionMatch.group(2) : "") +
-                        " to " + connectionMatch.group(3) +
-                        (connectionMatch.group(4) != null ? ":" + connectionMatch.group(4) : ""));
+            // Update log file status to Uploaded after successful processing
+            logfile.setStatus(LogFileStatus.Uploaded);
+        } catch (Exception e) {
+            inFlight.forEach(future -> future.cancel(true));
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
             }
+            // A chunk that failed on the parse pool arrives wrapped; log what the chunk threw
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            logger.error("Ingestion of log file {} ({}) failed", logfile.getId(), logfile.getFilename(), cause);
+            logfile.setStatus(LogFileStatus.Failed);
+            discardIngested(logfile.getId());
         }
 
-        // Look for HTTP requests
-        Matcher httpMatch = Pattern.compile("(GET|POST|PUT|DELETE|HEAD|OPTIONS|PATCH)\\s+(\\S+)\\s+-\\s+(\\d{3})").matcher(line);
-        if (httpMatch.find()) {
-            // Set action to HTTP method
-            Action action = actionService.getActionByName(httpMatch.group(1))
-                    .orElseGet(() -> {
-                        Action newAction = new Action();
-                        newAction.setAction(httpMatch.group(1));
-                        return actionService.saveAction(newAction);
-                    });
-
-            rawline.setAction(action);
-
-            // Get current parseddata as Map if it exists
-            Map<String, Object> currentDataMap = rawline.getParseddata();
-
-            // If null, create a new map
-            if (currentDataMap == null) {
-                currentDataMap = new java.util.HashMap<>();
-            }
-
-            // Add the new properties to the map
-            currentDataMap.put("url", httpMatch.group(2));
-            currentDataMap.put("statusCode", httpMatch.group(3));
-
-            // Set the updated map back to rawline
-            rawline.setParseddata(currentDataMap);
+        // Only touch the status column, the rest of the entity may be stale
+        logfileRepository.updateStatus(logfile.getId(), logfile.getStatus());
+        return logfile;
+    }
 
-            rawline.setMessage("HTTP " + httpMatch.group(1) + " request to " +
-                    httpMatch.group(2) + " returned " + httpMatch.group(3));
+    // The batches committed before a failure would be stored a second time when the file is
+    // uploaded again; the Failed row stays to show what happened
+    private void discardIngested(Integer id) {
+        try {
+            ingestionWriter.discard(id);
+        } catch (RuntimeException e) {
+            logger.warn("Could not discard the rows of failed log file {}: {}", id, e.toString());
         }
+    }
 
-        // Look for source IP addresses
-        Matcher sourceIpMatch = Pattern.compile("Source IP:\\s+(\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})(?::(\\d+))?").matcher(line);
-        if (sourceIpMatch.find()) {
-            try {
-                // Find source device by IP
-                InetAddress ipAddress = InetAddress.getByName(sourceIpMatch.group(1));
-                Optional<Device> sourceDeviceOpt = deviceService.getDeviceByIpAddress(ipAddress);
-                if (sourceDeviceOpt.isPresent()) {
-                    Device sourceDevice = sourceDeviceOpt.get();
-                    rawline.setSourcedeviceid(sourceDevice);
-                }
+    /**
+     * Requested, configured or detected format; stored on the file so it is visible and reused on re-ingestion.
+     * Timestamps are read in the source's zone, relative to the upload time.
+     */
+    private LineParser selectParser(Logfile logfile, List<String> sample) {
+        LogFormatParser format = parserRegistry.select(
+                logfile.getLogformat(), logfile.getSourcename(), logfile.getSourcetype(), sample);
+        if (!format.getName().equals(logfile.getLogformat())) {
+            logfile.setLogformat(format.getName());
+            logfileRepository.updateLogformat(logfile.getId(), format.getName());
+        }
+        Instant reference = logfile.getUploadtime() != null ? logfile.getUploadtime() : Instant.now();
+        return new LineParser(format, parsePatternMatcher.forSourceType(logfile.getSourcetype()),
+                parserRegistry.timestamps(logfile.getSourcename(), logfile.getSourcetype(), reference));
+    }
 
-                if (sourceIpMatch.group(2) != null) {
-                    rawline.setSourceport(Integer.parseInt(sourceIpMatch.group(2)));
-                }
+    // The file's format parser, the parse patterns for its source type and its timestamp parser
+    private record LineParser(LogFormatParser format, ParsePatternMatcher.FilePatterns patterns,
+                              TimestampParser timestamps) {
 
-                // Get current parseddata as Map if it exists
-                Map<String, Object> currentDataMap = rawline.getParseddata();
+        LineParser withTimestamps(TimestampParser timestamps) {
+            return new LineParser(format, patterns, timestamps);
+        }
+    }
 
-                // If null, create a new map
-                if (currentDataMap == null) {
-                    currentDataMap = new java.util.HashMap<>();
-                }
+    /**
+     * Start ingesting a log file that keeps growing, such as one followed by {@link LogTailer}.
+     * The file stays Pending until {@link FollowedFile#close()}.
+     *
+     * @param logfile An already saved log file row to attach events to
+     */
+    public FollowedFile follow(Logfile logfile) {
+        return new FollowedFile(logfile);
+    }
 
-                // Add the new property to the map
-                currentDataMap.put("sourceIp", sourceIpMatch.group(1));
+    /**
+     * A log file ingested a few lines at a time as they are written. Each append is parsed on
+     * the calling thread and committed before it returns. Not thread-safe.
+     */
+    public final class FollowedFile implements AutoCloseable {
 
-                // Set the updated map back to rawline
-                rawline.setParseddata(currentDataMap);
-            } catch (UnknownHostException e) {
-                // Log the error but continue processing
-                System.err.println("Invalid IP address format: " + sourceIpMatch.group(1));
+        private final Logfile logfile;
+        private final LogIngestionWriter.Batch batch;
+        // Chosen from the first lines appended
+        private LineParser parser;
 
-                // Still process the port and add to parsed data even if IP address is invalid
-                if (sourceIpMatch.group(2) != null) {
-                    rawline.setSourceport(Integer.parseInt(sourceIpMatch.group(2)));
-                }
+        private FollowedFile(Logfile logfile) {
+            this.logfile = logfile;
+            this.batch = ingestionWriter.openBatch(logfile);
+        }
 
-                // Get current parseddata as Map if it exists
-                Map<String, Object> currentDataMap = rawline.getParseddata();
+        public Logfile getLogfile() {
+            return logfile;
+        }
 
-                // If null, create a new map
-                if (currentDataMap == null) {
-                    currentDataMap = new java.util.HashMap<>();
+        /**
+         * Parse and commit lines, together with checkpoint (if not null) in the same transaction.
+         * Lines without a year are placed before now rather than before the file was first seen.
+         */
+        public void append(List<String> lines, Runnable checkpoint) {
+            if (!lines.isEmpty()) {
+                parser = parser == null ? selectParser(logfile, lines) : parser;
+                parser = parser.withTimestamps(
+                        parserRegistry.timestamps(logfile.getSourcename(), logfile.getSourcetype(), Instant.now()));
+                for (ParsedEvent event : parseChunk(parser, logfile, lines)) {
+                    detectionEngine.evaluate(event.logevent(), event.parsed());
+                    batch.add(event.logevent());
                 }
-
-                // Add the IP as a string even if it's invalid format
-                currentDataMap.put("sourceIp", sourceIpMatch.group(1));
-
-                // Set the updated map back to rawline
-                rawline.setParseddata(currentDataMap);
             }
+            batch.flush(checkpoint);
         }
 
-        // Look for destination IP addresses
-        Matcher destIpMatch = Pattern.compile("Destination IP:\\s+(\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3})(?::(\\d+))?").matcher(line);
-        if (destIpMatch.find()) {
-            try {
-                // Find destination device by IP
-                InetAddress ipAddress = InetAddress.getByName(destIpMatch.group(1));
-                Optional<Device> destDeviceOpt = deviceService.getDeviceByIpAddress(ipAddress);
-                if (destDeviceOpt.isPresent()) {
-                    Device destDevice = destDeviceOpt.get();
-                    rawline.setDestinationdeviceid(destDevice);
-                }
-
-                if (destIpMatch.group(2) != null) {
-                    rawline.setDestinationport(Integer.parseInt(destIpMatch.group(2)));
-                }
-
-                // Get current parseddata as Map if it exists
-                Map<String, Object> currentDataMap = rawline.getParseddata();
-
-                // If null, create a new map
-                if (currentDataMap == null) {
-                    currentDataMap = new java.util.HashMap<>();
-                }
-
-                // Add the new property to the map
-                currentDataMap.put("destinationIp", destIpMatch.group(1));
-
-                // Set the updated map back to rawline
-                rawline.setParseddata(currentDataMap);
-            } catch (UnknownHostException e) {
-                // Log the error but continue processing
-                System.err.println("Invalid IP address format: " + destIpMatch.group(1));
+        // The file will not grow any more (rotated away or deleted): mark it Uploaded
+        @Override
+        public void close() {
+            batch.flush();
+            logfile.setStatus(LogFileStatus.Uploaded);
+            logfileRepository.updateStatus(logfile.getId(), LogFileStatus.Uploaded);
+        }
+    }
 
-                // Still process the rest of the data even if IP address is invalid
-                if (destIpMatch.group(2) != null) {
-                    rawline.setDestinationport(Integer.parseInt(destIpMatch.group(2)));
-                }
+    private void submitChunk(LineParser parser, Logfile logfile, List<String> lines,
+                             Deque<Future<List<ParsedEvent>>> inFlight,
+                             LogIngestionWriter.Batch batch, IngestionJob job) throws InterruptedException, ExecutionException {
+        // Apply backpressure: write the oldest chunk before reading further ahead
+        if (inFlight.size() >= maxChunksInFlight) {
+            writeChunk(inFlight.poll(), batch, job);
+        }
+        inFlight.add(parsePool.submit(() -> parseChunk(parser, logfile, lines)));
+    }
 
-                // Get current parseddata as Map if it exists
-                Map<String, Object> currentDataMap = rawline.getParseddata();
+    private void writeChunk(Future<List<ParsedEvent>> parsedChunk, LogIngestionWriter.Batch batch, IngestionJob job)
+            throws InterruptedException, ExecutionException {
+        List<ParsedEvent> events = parsedChunk.get();
+        for (ParsedEvent event : events) {
+            // Rules see events in file order, and may link the event to an alert before it is written
+            detectionEngine.evaluate(event.logevent(), event.parsed());
 
-                // If null, create a new map
-                if (currentDataMap == null) {
-                    currentDataMap = new java.util.HashMap<>();
-                }
+            // Queue the log event (and its raw line) for the next batch insert
+            batch.add(event.logevent());
+        }
+        if (job != null) {
+            job.addLines(events.size());
+        }
+    }
 
-                // Add the IP as a string even if it's invalid format
-                currentDataMap.put("destinationIp", destIpMatch.group(1));
+    // Runs on the parse pool; the parsers and the device/action caches are thread-safe
+    private List<ParsedEvent> parseChunk(LineParser parser, Logfile logfile, List<String> lines) {
+        List<ParsedEvent> events = new ArrayList<>(lines.size());
+        // Lines without a readable time take the time of the line before them (or the upload time at the
+        // start of a chunk), so they stay in place in the file's timeline instead of landing at ingestion time
+        Instant previous = parser.timestamps().getReference();
+        long inferred = 0;
+        for (String line : lines) {
+            if (line.trim().isEmpty()) {
+                continue; // Skip empty lines
+            }
 
-                // Set the updated map back to rawline
-                rawline.setParseddata(currentDataMap);
+            // Parse the line and create a raw line entry first
+            ParsedLogLine parsed = parser.format().parse(line, parser.timestamps());
+            parser.patterns().apply(parsed, parser.timestamps());
+            if (parsed.getTimestamp() != null) {
+                previous = parsed.getTimestamp();
+            } else {
+                parsed.setTimestamp(previous);
+                parsed.putParsedData("timestampInferred", true);
+                inferred++;
             }
+            threatIntelMatcher.enrich(parsed);
+            Rawline rawline = createRawline(parsed);
+
+            // Create a log event that references the raw line and log file
+            Logevent logevent = new Logevent();
+            logevent.setFileid(logfile);
+            logevent.setRawline(rawline);
+            logevent.setTimestamp(parsed.getTimestamp());
+            events.add(new ParsedEvent(logevent, parsed));
         }
+        parserRegistry.countInferredTimestamps(parser.format().getName(), inferred);
+        return events;
+    }
+
+    // Keeps the parsed fields next to the event for the detection engine
+    private record ParsedEvent(Logevent logevent, ParsedLogLine parsed) {
     }
 
     /**
-     * Extract timestamp from a log line
+     * Create a raw line entry from a parsed line (persisted later by the batch writer)
      */
-    private Instant extractTimestampFromLine(String line) {
-        try {
-            // Look for timestamp pattern like "Apr 17 09:23:41"
-            Matcher matcher = Pattern.compile("^(\\w{3}\\s+\\d{1,2}\\s+\\d{2}:\\d{2}:\\d{2})").matcher(line);
-            if (matcher.find()) {
-                String timestamp = matcher.group(1);
-                // Add current year as the timestamp doesn't include year
-                int currentYear = LocalDate.now().getYear();
-                String fullTimestamp = timestamp + " " + currentYear;
-
-                // Parse the timestamp
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd HH:mm:ss yyyy", Locale.ENGLISH);
-                LocalDateTime localDateTime = LocalDateTime.parse(fullTimestamp, formatter);
-
-                return localDateTime.atZone(ZoneId.systemDefault()).toInstant();
-            }
-        } catch (Exception e) {
-            // If parsing fails, return null and caller will use current time
+    private Rawline createRawline(ParsedLogLine parsed) {
+        Rawline rawline = new Rawline();
+        rawline.setRawline(parsed.getLine());
+        rawline.setMessage(parsed.getMessage());
+        rawline.setSourceport(parsed.getSourceport());
+        rawline.setDestinationport(parsed.getDestinationport());
+        rawline.setParseddata(parsed.getParseddata());
+
+        // Explicit "Source IP:" fields win over connection IPs, which win over the header hostname
+        Optional<Device> sourceDevice = findDeviceByIp(parsed.getSourceIp())
+                .or(() -> findDeviceByIp(parsed.getConnectionSourceIp()))
+                .or(() -> deviceCache.getByHostname(parsed.getHostname()));
+        sourceDevice.ifPresent(rawline::setSourcedeviceid);
+
+        Optional<Device> destinationDevice = findDeviceByIp(parsed.getDestinationIp())
+                .or(() -> findDeviceByIp(parsed.getConnectionDestinationIp()));
+        destinationDevice.ifPresent(rawline::setDestinationdeviceid);
+
+        if (parsed.getAction() != null) {
+            rawline.setAction(actionCache.getOrCreate(parsed.getAction()));
+        }
+
+        return rawline;
+    }
+
+    private Optional<Device> findDeviceByIp(String ip) {
+        long address = Ipv4.parse(ip);
+        if (address == Ipv4.INVALID) {
+            return Optional.empty();
         }
-        return null;
+        return deviceCache.getByIpv4(address);
     }
-}
\ No newline at end of file
+}
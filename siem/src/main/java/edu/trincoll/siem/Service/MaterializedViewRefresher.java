@@ -0,0 +1,183 @@
+package edu.trincoll.siem.Service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the materialized views current. Each view is refreshed on its own schedule with
+ * REFRESH MATERIALIZED VIEW CONCURRENTLY, which lets readers keep querying the previous contents
+ * while the new ones are built. A refresh is skipped when none of the tables the view reads had a
+ * row inserted, updated or deleted since the last one (per the pg_stat_user_tables counters).
+ * <p>
+ * A partitioned table (logevent, alert) keeps no counters of its own: its rows live in the
+ * partitions, so their counters are summed instead. Dropping a partition lowers the sum, which
+ * also counts as a change.
+ */
+@Component
+public class MaterializedViewRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MaterializedViewRefresher.class);
+
+    public static final String ALERT_STATISTICS = "alert_statistics";
+    public static final String LOGEVENT_COUNT_PER_HOUR = "logevent_count_per_hour";
+
+    private static final String CHANGE_MARK_SQL =
+            "SELECT COALESCE(SUM(n_tup_ins + n_tup_upd + n_tup_del), 0) FROM pg_stat_user_tables " +
+            "WHERE relname = ANY (?) OR relid IN (SELECT i.inhrelid FROM pg_inherits i " +
+            "JOIN pg_class parent ON parent.oid = i.inhparent WHERE parent.relname = ANY (?))";
+
+    private static final String IS_POPULATED_SQL = "SELECT ispopulated FROM pg_matviews WHERE matviewname = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, ViewState> views = new LinkedHashMap<>();
+
+    public MaterializedViewRefresher(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        views.put(ALERT_STATISTICS, new ViewState(List.of("alert", "alertrule", "logevent")));
+        views.put(LOGEVENT_COUNT_PER_HOUR, new ViewState(List.of("logevent", "rawline")));
+    }
+
+    @Scheduled(initialDelayString = "${siem.matview.initial-delay-ms:10000}",
+            fixedDelayString = "${siem.matview.alert-statistics.refresh-ms:60000}")
+    public void refreshAlertStatistics() {
+        refreshScheduled(ALERT_STATISTICS);
+    }
+
+    @Scheduled(initialDelayString = "${siem.matview.initial-delay-ms:10000}",
+            fixedDelayString = "${siem.matview.logevent-count-per-hour.refresh-ms:300000}")
+    public void refreshLogeventCountPerHour() {
+        refreshScheduled(LOGEVENT_COUNT_PER_HOUR);
+    }
+
+    private void refreshScheduled(String view) {
+        try {
+            refresh(view);
+        } catch (DataAccessException e) {
+            // Already counted; the next run tries again
+            logger.warn("Could not refresh materialized view {}: {}", view, e.getMessage());
+        }
+    }
+
+    /**
+     * Refresh a view unless its source tables are unchanged since the last refresh.
+     *
+     * @return true if the view was refreshed, false if the refresh was skipped
+     */
+    public boolean refresh(String view) {
+        ViewState state = state(view);
+        synchronized (state) {
+            // Read before refreshing: changes that land during the refresh move the mark past this value
+            Instant checkedAt = Instant.now();
+            long changeMark = changeMark(state.sources);
+            if (state.refreshedAt != null && changeMark == state.changeMark) {
+                state.currentAsOf = checkedAt;
+                state.skips.increment();
+                return false;
+            }
+
+            long start = System.nanoTime();
+            try {
+                // A view created WITH NO DATA can only be populated by a plain refresh
+                jdbcTemplate.execute((isPopulated(view) ? "REFRESH MATERIALIZED VIEW CONCURRENTLY " : "REFRESH MATERIALIZED VIEW ") + view);
+            } catch (DataAccessException e) {
+                state.failures.increment();
+                state.lastError = e.getMostSpecificCause().getMessage();
+                throw e;
+            }
+
+            state.lastDurationMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            state.changeMark = changeMark;
+            state.refreshedAt = Instant.now();
+            state.currentAsOf = checkedAt;
+            state.lastError = null;
+            state.refreshes.increment();
+            return true;
+        }
+    }
+
+    /**
+     * When the view was last rebuilt, and the latest time its contents were known to match its
+     * source tables (a skipped refresh confirms the view is current). Both are null before the first refresh.
+     */
+    public Freshness getFreshness(String view) {
+        ViewState state = state(view);
+        return new Freshness(state.refreshedAt, state.currentAsOf);
+    }
+
+    public record Freshness(Instant refreshedAt, Instant currentAsOf) {
+
+        public Duration staleness(Instant now) {
+            return currentAsOf != null ? Duration.between(currentAsOf, now) : null;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        views.forEach((view, state) -> {
+            Map<String, Object> viewStats = new LinkedHashMap<>();
+            viewStats.put("lastRefreshed", state.refreshedAt);
+            viewStats.put("currentAsOf", state.currentAsOf);
+            viewStats.put("lastDurationMs", state.lastDurationMillis);
+            viewStats.put("refreshes", state.refreshes.sum());
+            viewStats.put("skipped", state.skips.sum());
+            viewStats.put("failures", state.failures.sum());
+            viewStats.put("lastError", state.lastError);
+            stats.put(view, viewStats);
+        });
+        return stats;
+    }
+
+    private ViewState state(String view) {
+        ViewState state = views.get(view);
+        if (state == null) {
+            throw new IllegalArgumentException("Unknown materialized view: " + view);
+        }
+        return state;
+    }
+
+    private long changeMark(List<String> tables) {
+        Long mark = jdbcTemplate.query(CHANGE_MARK_SQL,
+                ps -> {
+                    Array names = ps.getConnection().createArrayOf("text", tables.toArray());
+                    ps.setArray(1, names);
+                    ps.setArray(2, names);
+                },
+                rs -> rs.next() ? rs.getLong(1) : 0L);
+        return mark != null ? mark : 0L;
+    }
+
+    private boolean isPopulated(String view) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_POPULATED_SQL, Boolean.class, view));
+    }
+
+    private static final class ViewState {
+
+        private final List<String> sources;
+        private final LongAdder refreshes = new LongAdder();
+        private final LongAdder skips = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        // Written under the state's lock, read without it by getFreshness and getStats
+        private volatile long changeMark;
+        private volatile Instant refreshedAt;
+        private volatile Instant currentAsOf;
+        private volatile long lastDurationMillis;
+        private volatile String lastError;
+
+        private ViewState(List<String> sources) {
+            this.sources = sources;
+        }
+    }
+}
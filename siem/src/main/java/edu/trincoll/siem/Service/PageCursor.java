@@ -0,0 +1,79 @@
+package edu.trincoll.siem.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a keyset page: its sort timestamp (null for lists ordered by id
+ * only) and its id. Clients only ever see the opaque token from {@link #encode()}.
+ */
+public record PageCursor(Instant timestamp, long id) {
+
+    public static PageCursor ofId(long id) {
+        return new PageCursor(null, id);
+    }
+
+    public String encode() {
+        String plain = timestamp == null
+                ? "i:" + id
+                : "t:" + timestamp.getEpochSecond() + ":" + timestamp.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token from a previous page, or return null for a missing token (first page).
+     *
+     * @throws InvalidCursorException if the token was not produced by {@link #encode()}
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            if (parts.length == 2 && parts[0].equals("i")) {
+                return ofId(Long.parseLong(parts[1]));
+            }
+            if (parts.length == 4 && parts[0].equals("t")) {
+                Instant timestamp = Instant.ofEpochSecond(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                return new PageCursor(timestamp, Long.parseLong(parts[3]));
+            }
+        } catch (IllegalArgumentException | DateTimeException e) {
+            // Fall through to the error below
+        }
+        throw new InvalidCursorException();
+    }
+
+    /**
+     * Id to seek past in a list ordered by ascending serial id: 0, below every id, on the first page.
+     *
+     * @throws InvalidCursorException if the token was not produced by {@link #encode()}
+     */
+    public static int afterId(String token) {
+        PageCursor after = decode(token);
+        return after == null ? 0 : after.intId();
+    }
+
+    // The same for lists in descending id order, which start from the top on the first page
+    public static int beforeId(String token) {
+        PageCursor before = decode(token);
+        return before == null ? Integer.MAX_VALUE : before.intId();
+    }
+
+    // Keyset queries on a timestamp need one; a cursor from an id-ordered list doesn't have it
+    public Instant requireTimestamp() {
+        if (timestamp == null) {
+            throw new InvalidCursorException();
+        }
+        return timestamp;
+    }
+
+    public Integer intId() {
+        if (id < Integer.MIN_VALUE || id > Integer.MAX_VALUE) {
+            throw new InvalidCursorException();
+        }
+        return (int) id;
+    }
+}
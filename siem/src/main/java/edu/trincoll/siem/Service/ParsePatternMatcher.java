@@ -0,0 +1,268 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Model.Parsepattern;
+import edu.trincoll.siem.Parser.GrokPattern;
+import edu.trincoll.siem.Parser.ParsedLogLine;
+import edu.trincoll.siem.Parser.TimestampParser;
+import edu.trincoll.siem.Parser.WellKnownFields;
+import edu.trincoll.siem.Repository.ParsepatternRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Applies the user-defined ParsePattern rows to ingested lines. Active patterns are compiled
+ * once into an immutable, versioned {@link PatternSet}; edits through {@link ParsepatternService}
+ * swap in a new set right away, and a periodic check of the table picks up edits made anywhere
+ * else, so patterns change without a restart. A file is parsed with the set current when its
+ * ingestion starts.
+ * <p>
+ * Each pattern counts the lines it was tried on, the lines it matched and the time spent, so
+ * patterns that rarely match or cost the most per line show up in {@link #getStats()}.
+ */
+@Component
+public class ParsePatternMatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParsePatternMatcher.class);
+
+    private final ParsepatternRepository parsepatternRepository;
+
+    private volatile PatternSet patterns = new PatternSet(0, List.of(), Map.of());
+    // Table signature the current set was compiled from; null forces the next check to reload
+    private volatile String signature;
+
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder linesChecked = new LongAdder();
+    private final LongAdder linesMatched = new LongAdder();
+
+    public ParsePatternMatcher(ParsepatternRepository parsepatternRepository) {
+        this.parsepatternRepository = parsepatternRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        reload();
+    }
+
+    /**
+     * Recompile the active patterns. Patterns whose text did not change keep their compiled
+     * form and counters; patterns that do not compile are left out and listed in the stats.
+     */
+    public synchronized void reload() {
+        String current = parsepatternRepository.findVersionSignature();
+        patterns = PatternSet.compile(patterns, parsepatternRepository.findByIsactiveOrderByPriorityDescIdAsc(true));
+        signature = current;
+        reloads.increment();
+    }
+
+    // Cheap check of the table; reloads only if a pattern was added, edited or removed
+    @Scheduled(initialDelayString = "${siem.patterns.refresh-ms:10000}",
+            fixedDelayString = "${siem.patterns.refresh-ms:10000}")
+    public void reloadIfChanged() {
+        try {
+            if (!Objects.equals(signature, parsepatternRepository.findVersionSignature())) {
+                reload();
+            }
+        } catch (DataAccessException e) {
+            // Keep the current set; the next check tries again
+            logger.warn("Could not check parse patterns for changes: {}", e.getMessage());
+        }
+    }
+
+    public PatternSet current() {
+        return patterns;
+    }
+
+    /**
+     * The patterns to run on the lines of a file with this source type, in the order they are
+     * tried: those for the source type and those for every file, by priority.
+     */
+    public FilePatterns forSourceType(String sourceType) {
+        PatternSet set = patterns;
+        List<CompiledPattern> selected = new ArrayList<>();
+        for (CompiledPattern pattern : set.patterns()) {
+            if (pattern.sourceType() == null || pattern.sourceType().equals(sourceType)) {
+                selected.add(pattern);
+            }
+        }
+        return new FilePatterns(set.version(), List.copyOf(selected), linesChecked, linesMatched);
+    }
+
+    public Map<String, Object> getStats() {
+        PatternSet set = patterns;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("version", set.version());
+        stats.put("reloads", reloads.sum());
+        stats.put("linesChecked", linesChecked.sum());
+        stats.put("linesMatched", linesMatched.sum());
+        // Most expensive first
+        List<Map<String, Object>> patternStats = set.patterns().stream()
+                .sorted(Comparator.comparingLong((CompiledPattern pattern) -> pattern.nanos.sum()).reversed())
+                .map(CompiledPattern::getStats)
+                .toList();
+        stats.put("patterns", patternStats);
+        stats.put("skippedPatterns", set.skipped());
+        return stats;
+    }
+
+    /**
+     * One compiled version of the active patterns, highest priority first.
+     *
+     * @param skipped Patterns that did not compile, by id, with the reason
+     */
+    public record PatternSet(long version, List<CompiledPattern> patterns, Map<Integer, String> skipped) {
+
+        static PatternSet compile(PatternSet previous, List<Parsepattern> rows) {
+            Map<Integer, CompiledPattern> reusable = new HashMap<>();
+            for (CompiledPattern pattern : previous.patterns()) {
+                reusable.put(pattern.id(), pattern);
+            }
+            List<CompiledPattern> compiled = new ArrayList<>(rows.size());
+            Map<Integer, String> skipped = new LinkedHashMap<>();
+            for (Parsepattern row : rows) {
+                CompiledPattern old = reusable.get(row.getId());
+                if (old != null && old.grok().toString().equals(row.getPattern())) {
+                    compiled.add(old.withSettings(row));
+                    continue;
+                }
+                try {
+                    compiled.add(new CompiledPattern(row.getId(), row.getName(), row.getSourcetype(),
+                            GrokPattern.compile(row.getPattern())));
+                } catch (IllegalArgumentException e) {
+                    // Leave the pattern out rather than failing ingestion
+                    logger.warn("Skipping parse pattern {} ({}): {}", row.getId(), row.getName(), e.getMessage());
+                    skipped.put(row.getId(), e.getMessage());
+                }
+            }
+            return new PatternSet(previous.version() + 1, List.copyOf(compiled), skipped);
+        }
+    }
+
+    /**
+     * An active pattern with its counters. The counters carry over to the next version of the
+     * set as long as the pattern text stays the same.
+     */
+    public static final class CompiledPattern {
+
+        private final int id;
+        private final String name;
+        private final String sourceType;
+        private final GrokPattern grok;
+
+        private final LongAdder attempts;
+        private final LongAdder matches;
+        private final LongAdder nanos;
+
+        CompiledPattern(int id, String name, String sourceType, GrokPattern grok) {
+            this(id, name, sourceType, grok, new LongAdder(), new LongAdder(), new LongAdder());
+        }
+
+        private CompiledPattern(int id, String name, String sourceType, GrokPattern grok,
+                                LongAdder attempts, LongAdder matches, LongAdder nanos) {
+            this.id = id;
+            this.name = name;
+            this.sourceType = sourceType;
+            this.grok = grok;
+            this.attempts = attempts;
+            this.matches = matches;
+            this.nanos = nanos;
+        }
+
+        // Same compiled pattern and counters under a possibly renamed or re-scoped row
+        private CompiledPattern withSettings(Parsepattern row) {
+            return new CompiledPattern(id, row.getName(), row.getSourcetype(), grok, attempts, matches, nanos);
+        }
+
+        public int id() {
+            return id;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public String sourceType() {
+            return sourceType;
+        }
+
+        public GrokPattern grok() {
+            return grok;
+        }
+
+        // Captured fields, or null; counts the attempt and its cost
+        Map<String, Object> match(String line) {
+            long start = System.nanoTime();
+            Map<String, Object> fields = grok.match(line);
+            nanos.add(System.nanoTime() - start);
+            attempts.increment();
+            if (fields != null) {
+                matches.increment();
+            }
+            return fields;
+        }
+
+        Map<String, Object> getStats() {
+            long tried = attempts.sum();
+            long matched = matches.sum();
+            long spent = nanos.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("id", id);
+            stats.put("name", name);
+            stats.put("sourceType", sourceType);
+            stats.put("attempts", tried);
+            stats.put("matches", matched);
+            stats.put("matchRate", tried > 0 ? (double) matched / tried : null);
+            stats.put("avgNanosPerLine", tried > 0 ? spent / tried : null);
+            stats.put("totalMillis", spent / 1_000_000);
+            stats.put("literalPrefilter", grok.hasRequiredLiteral());
+            return stats;
+        }
+    }
+
+    /**
+     * The patterns for one file, fixed when its ingestion starts. Thread-safe.
+     */
+    public record FilePatterns(long version, List<CompiledPattern> patterns, LongAdder linesChecked,
+                               LongAdder linesMatched) {
+
+        /**
+         * Run the line through the patterns until one matches, and write that pattern's fields
+         * into the parsed data (well-known names also fill the event columns).
+         *
+         * @param timestamps Reads a captured timestamp field
+         * @return Whether a pattern matched
+         */
+        public boolean apply(ParsedLogLine parsed, TimestampParser timestamps) {
+            if (patterns.isEmpty()) {
+                return false;
+            }
+            linesChecked.increment();
+            for (CompiledPattern pattern : patterns) {
+                Map<String, Object> fields = pattern.match(parsed.getLine());
+                if (fields != null) {
+                    fields.forEach((name, value) -> {
+                        parsed.putParsedData(name, value);
+                        WellKnownFields.apply(parsed, name, value, timestamps);
+                    });
+                    parsed.putParsedData("parsePattern", pattern.name());
+                    linesMatched.increment();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
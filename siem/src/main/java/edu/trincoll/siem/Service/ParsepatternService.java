@@ -0,0 +1,85 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Model.Parsepattern;
+import edu.trincoll.siem.Parser.GrokPattern;
+import edu.trincoll.siem.Repository.ParsepatternRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Service
+public class ParsepatternService {
+
+    private final ParsepatternRepository parsepatternRepository;
+    private final ParsePatternMatcher parsePatternMatcher;
+
+    public ParsepatternService(ParsepatternRepository parsepatternRepository, ParsePatternMatcher parsePatternMatcher) {
+        this.parsepatternRepository = parsepatternRepository;
+        this.parsePatternMatcher = parsePatternMatcher;
+    }
+
+    public List<Parsepattern> getAllParsepatterns() {
+        return parsepatternRepository.findAll();
+    }
+
+    public Optional<Parsepattern> getParsepatternById(Integer id) {
+        return parsepatternRepository.findById(id);
+    }
+
+    /**
+     * Save a pattern and recompile the active set, so files ingested from now on use it.
+     *
+     * @throws IllegalArgumentException if the pattern does not compile or its name is taken
+     */
+    public Parsepattern saveParsepattern(Parsepattern parsepattern) {
+        if (parsepattern.getName() == null || parsepattern.getName().isBlank()) {
+            throw new IllegalArgumentException("Pattern name is required");
+        }
+        GrokPattern.compile(parsepattern.getPattern());
+        Parsepattern existing = parsepatternRepository.findByName(parsepattern.getName());
+        if (existing != null && !existing.getId().equals(parsepattern.getId())) {
+            throw new IllegalArgumentException("A pattern named " + parsepattern.getName() + " already exists");
+        }
+        if (parsepattern.getPriority() == null) {
+            parsepattern.setPriority(0);
+        }
+        if (parsepattern.getIsactive() == null) {
+            parsepattern.setIsactive(true);
+        }
+        parsepattern.setUpdatedat(Instant.now());
+
+        Parsepattern saved = parsepatternRepository.save(parsepattern);
+        parsePatternMatcher.reload();
+        return saved;
+    }
+
+    public void deleteParsepatternById(Integer id) {
+        parsepatternRepository.deleteById(id);
+        parsePatternMatcher.reload();
+    }
+
+    public boolean parsepatternExists(Integer id) {
+        return parsepatternRepository.existsById(id);
+    }
+
+    /**
+     * Try a pattern on a sample line without saving it.
+     *
+     * @return The captured fields, or null if the line does not match
+     * @throws IllegalArgumentException if the pattern does not compile
+     */
+    public Map<String, Object> testPattern(String pattern, String line) {
+        return GrokPattern.compile(pattern).match(line);
+    }
+
+    public Map<String, String> getLibrary() {
+        return GrokPattern.library();
+    }
+
+    public Map<String, Object> getStats() {
+        return parsePatternMatcher.getStats();
+    }
+}
@@ -0,0 +1,252 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Config.SchedulingConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the daily range partitions of logevent and alert (V12). The partitions of today and
+ * the next days-ahead days are created at startup and every night; ingestion asks for the
+ * partitions of older days when it meets them. Retention drops every partition whose day lies
+ * entirely before the retention period, which frees the space at once, unlike a DELETE.
+ * <p>
+ * Partitions hold local-time days: the timestamp columns store the JDBC session time zone, which
+ * the driver takes from the JVM default.
+ */
+@Component
+public class PartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionManager.class);
+
+    public static final String LOGEVENT = "logevent";
+    public static final String ALERT = "alert";
+
+    private static final String CREATE_SQL = "SELECT create_daily_partition(?, ?)";
+
+    private static final String LIST_SQL =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                    "WHERE i.inhparent = CAST(? AS regclass)";
+
+    // Formatted with the partition name. A partition holding rows an incident refers to, or events
+    // restored from the archive and still on hold, is kept past retention (as RetentionArchiver
+    // keeps those events) until the references are gone or the hold expires.
+    private static final Map<String, String> KEEP_SQL = Map.of(
+            LOGEVENT, "SELECT EXISTS (SELECT 1 FROM incidenteventlink l JOIN %1$s le ON le.logeventid = l.logeventid) " +
+                    "OR EXISTS (SELECT 1 FROM archivehold h JOIN %1$s le ON le.fileid = h.fileid " +
+                    "AND le.\"timestamp\" BETWEEN h.starttime AND h.endtime WHERE h.expiresat > LOCALTIMESTAMP)",
+            ALERT, "SELECT EXISTS (SELECT 1 FROM incidentreport i JOIN %1$s a ON a.alertid = i.relatedalertid)");
+
+    // Blocks new references until the drop commits, so none appear between the check and the drop
+    private static final Map<String, String> LOCK_REFERENCES_SQL = Map.of(
+            LOGEVENT, "LOCK TABLE incidenteventlink, archivehold IN SHARE MODE",
+            ALERT, "LOCK TABLE incidentreport IN SHARE MODE");
+
+    // Formatted with the partition name. References into a partition that no foreign key
+    // enforces; cleared in the transaction that drops it.
+    private static final Map<String, List<String>> CLEAR_REFERENCES_SQL = Map.of(
+            LOGEVENT, List.of(),
+            ALERT, List.of(
+                    "UPDATE logevent SET associatedalertid = NULL WHERE associatedalertid IN (SELECT alertid FROM %s)"));
+
+    // Raw lines are shared between files, so of the lines a dropped logevent partition referred to
+    // only those no remaining event refers to go (as in RetentionArchiver). Deleting them before the
+    // drop would cascade into the partition row by row, so their ids are set aside first.
+    private static final String SAVE_RAWLINE_IDS_SQL =
+            "CREATE TEMP TABLE dropped_rawline ON COMMIT DROP AS SELECT DISTINCT rawlineid FROM %s";
+
+    private static final String DELETE_ORPHAN_RAWLINES_SQL =
+            "DELETE FROM rawline r USING dropped_rawline d WHERE r.rawlineid = d.rawlineid " +
+                    "AND NOT EXISTS (SELECT 1 FROM logevent le WHERE le.rawlineid = r.rawlineid)";
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("^([a-z]+)_p(\\d{8})$");
+    private static final DateTimeFormatter DAY_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int daysAhead;
+    private final Map<String, Integer> retentionDays = new LinkedHashMap<>();
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Partition names known to exist, so ingestion only runs DDL for a day it has not seen
+    private final Set<String> known = ConcurrentHashMap.newKeySet();
+    private final Object createLock = new Object();
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder kept = new LongAdder();
+    private final LongAdder rawlinesPurged = new LongAdder();
+    private volatile Instant lastMaintenance;
+
+    public PartitionManager(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${siem.partition.days-ahead:7}") int daysAhead,
+                            @Value("${siem.partition.logevent.retention-days:0}") int logeventRetentionDays,
+                            @Value("${siem.partition.alert.retention-days:0}") int alertRetentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.daysAhead = Math.max(0, daysAhead);
+        retentionDays.put(LOGEVENT, logeventRetentionDays);
+        retentionDays.put(ALERT, alertRetentionDays);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        maintain();
+    }
+
+    /**
+     * Create the partitions of today and the days ahead, and drop the partitions past retention.
+     */
+    @Scheduled(cron = "${siem.partition.maintenance-cron:0 5 0 * * *}", scheduler = SchedulingConfig.MAINTENANCE_SCHEDULER)
+    public synchronized void maintain() {
+        LocalDate today = LocalDate.now(zone);
+        for (String table : retentionDays.keySet()) {
+            List<String> partitions = listPartitions(table);
+            known.addAll(partitions);
+
+            for (int day = 0; day <= daysAhead; day++) {
+                ensurePartition(table, today.plusDays(day));
+            }
+
+            int retention = retentionDays.get(table);
+            if (retention > 0) {
+                dropBefore(table, partitions, today.minusDays(retention));
+            }
+        }
+        lastMaintenance = Instant.now();
+    }
+
+    /**
+     * Make sure the partitions holding these times exist. Creating a partition briefly locks the
+     * parent table, so this runs in its own transaction and should be called before the
+     * transaction that inserts the rows.
+     */
+    public void ensurePartitions(String table, Collection<Instant> times) {
+        Set<LocalDate> days = new TreeSet<>();
+        for (Instant time : times) {
+            if (time != null) {
+                days.add(LocalDate.ofInstant(time, zone));
+            }
+        }
+        for (LocalDate day : days) {
+            ensurePartition(table, day);
+        }
+    }
+
+    private void ensurePartition(String table, LocalDate day) {
+        String name = partitionName(table, day);
+        if (known.contains(name)) {
+            return;
+        }
+        synchronized (createLock) {
+            if (!known.contains(name)) {
+                jdbcTemplate.queryForObject(CREATE_SQL, String.class, table, Date.valueOf(day));
+                known.add(name);
+                created.increment();
+            }
+        }
+    }
+
+    // Drop the partitions of days before cutoff, oldest first, except those an incident or an
+    // archive hold still needs
+    private void dropBefore(String table, List<String> partitions, LocalDate cutoff) {
+        new TreeSet<>(partitions).stream()
+                .filter(name -> {
+                    LocalDate day = partitionDay(table, name);
+                    return day != null && day.isBefore(cutoff);
+                })
+                .forEach(name -> {
+                    Boolean removed = transactionTemplate.execute(status -> {
+                        jdbcTemplate.execute(LOCK_REFERENCES_SQL.get(table));
+                        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(KEEP_SQL.get(table).formatted(name), Boolean.class))) {
+                            return false;
+                        }
+                        for (String sql : CLEAR_REFERENCES_SQL.get(table)) {
+                            jdbcTemplate.update(sql.formatted(name));
+                        }
+                        if (table.equals(LOGEVENT)) {
+                            jdbcTemplate.execute(SAVE_RAWLINE_IDS_SQL.formatted(name));
+                        }
+                        jdbcTemplate.execute("DROP TABLE " + name);
+                        if (table.equals(LOGEVENT)) {
+                            rawlinesPurged.add(jdbcTemplate.update(DELETE_ORPHAN_RAWLINES_SQL));
+                        }
+                        return true;
+                    });
+                    if (Boolean.TRUE.equals(removed)) {
+                        known.remove(name);
+                        dropped.increment();
+                        logger.info("Dropped partition {} (retention {} days)", name, retentionDays.get(table));
+                    } else {
+                        kept.increment();
+                        logger.info("Kept partition {} past retention: an incident or archive hold refers to its rows", name);
+                    }
+                });
+    }
+
+    private List<String> listPartitions(String table) {
+        return jdbcTemplate.queryForList(LIST_SQL, String.class, table);
+    }
+
+    static String partitionName(String table, LocalDate day) {
+        return table + "_p" + day.format(DAY_SUFFIX);
+    }
+
+    // Day of a partition of table, or null for a name this class did not create
+    static LocalDate partitionDay(String table, String name) {
+        Matcher matcher = PARTITION_NAME.matcher(name);
+        if (!matcher.matches() || !matcher.group(1).equals(table)) {
+            return null;
+        }
+        return LocalDate.parse(matcher.group(2), DAY_SUFFIX);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (String table : retentionDays.keySet()) {
+            TreeSet<LocalDate> days = new TreeSet<>();
+            for (String name : known) {
+                LocalDate day = partitionDay(table, name);
+                if (day != null) {
+                    days.add(day);
+                }
+            }
+            Map<String, Object> tableStats = new LinkedHashMap<>();
+            tableStats.put("partitions", days.size());
+            tableStats.put("oldest", days.isEmpty() ? null : days.first().toString());
+            tableStats.put("newest", days.isEmpty() ? null : days.last().toString());
+            tableStats.put("retentionDays", retentionDays.get(table));
+            stats.put(table, tableStats);
+        }
+        stats.put("created", created.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("keptPastRetention", kept.sum());
+        stats.put("rawlinesPurged", rawlinesPurged.sum());
+        stats.put("lastMaintenance", lastMaintenance);
+        return stats;
+    }
+}
@@ -3,11 +3,15 @@ package edu.trincoll.siem.Service;
 import edu.trincoll.siem.Model.Action;
 import edu.trincoll.siem.Model.Device;
 import edu.trincoll.siem.Model.Rawline;
+import edu.trincoll.siem.Model.RawlineHash;
+import edu.trincoll.siem.Model.View.RawlineView;
 import edu.trincoll.siem.Repository.RawlineRepository;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class RawlineService {
@@ -23,16 +27,42 @@ public class RawlineService {
         return rawlineRepository.findAll();
     }
 
+    // Keyset pages in id order. A null cursor returns the first page.
+    public CursorPage<RawlineView> getRawlinesPage(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<RawlineView> rows = after == null
+                ? rawlineRepository.findPage(CursorPage.fetch(limit))
+                : rawlineRepository.findPageAfter(after.id(), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, rawline -> PageCursor.ofId(rawline.id()));
+    }
+
     public Optional<Rawline> getRawlineByContent(String rawline) {
         return rawlineRepository.findByRawline(rawline);
     }
 
     public Rawline saveRawline(Rawline rawline) {
+        if (rawline.getId() == null) {
+            rawline.setId(resolveId(rawline.getRawline()));
+        }
         return rawlineRepository.save(rawline);
     }
 
     public void deleteRawline(String rawline) {
-        rawlineRepository.deleteById(rawline);
+        rawlineRepository.findByRawline(rawline).ifPresent(rawlineRepository::delete);
+    }
+
+    // The id this line is stored under, or the first free id in its probe sequence
+    private Long resolveId(String rawline) {
+        List<Long> candidates = RawlineHash.candidates(rawline);
+        Map<Long, String> taken = rawlineRepository.findByIdIn(candidates).stream()
+                .collect(Collectors.toMap(Rawline::getId, Rawline::getRawline));
+        for (Long candidate : candidates) {
+            String existing = taken.get(candidate);
+            if (existing == null || existing.equals(rawline)) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("No free raw line id within " + RawlineHash.MAX_PROBES + " probes");
     }
 
     // Find by source device
@@ -50,26 +80,37 @@ public class RawlineService {
         return rawlineRepository.findByAction(action);
     }
 
-    // Find by message containing text
-    public List<Rawline> searchRawlinesByMessage(String searchTerm) {
-        return rawlineRepository.findByMessageContainingIgnoreCase(searchTerm);
+    // Keyset pages of lines whose message contains the text, in id order
+    public CursorPage<RawlineView> searchRawlinesByMessagePage(String searchTerm, String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<RawlineView> rows = after == null
+                ? rawlineRepository.searchByMessagePage(searchTerm, CursorPage.fetch(limit))
+                : rawlineRepository.searchByMessagePageAfter(searchTerm, after.id(), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, rawline -> PageCursor.ofId(rawline.id()));
     }
 
-    // Full text search
-    public List<Rawline> fullTextSearch(String searchTerms) {
-        return rawlineRepository.fullTextSearchRanked(searchTerms);
+    // Full text search: the most relevant lines first, at most CursorPage.MAX_LIMIT of them
+    public List<Rawline> fullTextSearch(String searchTerms, int limit) {
+        return rawlineRepository.fullTextSearchRanked(searchTerms, CursorPage.clamp(limit));
     }
 
-    // Advanced search
-    public List<Rawline> advancedSearch(
+    // Advanced search, as keyset pages in id order
+    public CursorPage<RawlineView> advancedSearchPage(
             Integer sourceDeviceId,
             Integer destDeviceId,
             Integer sourcePort,
             Integer destPort,
             String actionId,
-            String messageText) {
-        return rawlineRepository.advancedSearch(
-                sourceDeviceId, destDeviceId, sourcePort, destPort, actionId, messageText);
+            String messageText,
+            String cursor,
+            int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<RawlineView> rows = after == null
+                ? rawlineRepository.advancedSearchPage(sourceDeviceId, destDeviceId, sourcePort, destPort,
+                        actionId, messageText, CursorPage.fetch(limit))
+                : rawlineRepository.advancedSearchPageAfter(sourceDeviceId, destDeviceId, sourcePort, destPort,
+                        actionId, messageText, after.id(), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, rawline -> PageCursor.ofId(rawline.id()));
     }
 
     // Count statistics
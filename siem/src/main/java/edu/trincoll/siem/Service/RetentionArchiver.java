@@ -0,0 +1,584 @@
+package edu.trincoll.siem.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.trincoll.siem.Config.SchedulingConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves log events older than their file's retention policy out of PostgreSQL into compressed
+ * NDJSON segments on local disk, one per file and day:
+ * {@code <archive-dir>/<source type>/<file id>/<yyyy-MM-dd>.ndjson.gz}. Once all of a file's
+ * events are past the hot period its stored content ({@link LogfileContentStore}) is moved next
+ * to them as rawcontent.txt.gz.
+ * <p>
+ * The hot period is set per log file SourceType (siem.retention.hot-days-by-source-type, e.g.
+ * {@code Firewall:7,Server:30}), falling back to siem.retention.hot-days; 0 keeps data forever.
+ * Events linked to an incident report are never archived.
+ * <p>
+ * Work is done in batches of batch-size events with a pause between batches, and waits while any
+ * ingestion job (queued or streamed) is running or waiting, or {@link LogTailer} is catching up on a backlog. A batch is written and synced to disk before it is deleted,
+ * so a crash can only leave an event in both places; segments are appended to (as extra gzip
+ * members) and restoring skips rows that already exist, so that is harmless.
+ */
+@Component
+public class RetentionArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetentionArchiver.class);
+
+    private static final String LIST_FILES_SQL = "SELECT fileid, sourcetype, uploadtime FROM logfile ORDER BY fileid";
+
+    private static final String SELECT_BATCH_SQL =
+            "SELECT le.logeventid, le.\"timestamp\", le.associatedalertid, r.rawlineid, r.rawline, " +
+                    "r.sourcedeviceid, r.sourceport, r.destinationdeviceid, r.destinationport, r.action, r.message, " +
+                    "r.parseddata::text " +
+                    "FROM logevent le JOIN rawline r ON r.rawlineid = le.rawlineid " +
+                    "WHERE le.fileid = ? AND le.\"timestamp\" < ? " +
+                    "AND NOT EXISTS (SELECT 1 FROM incidenteventlink l WHERE l.logeventid = le.logeventid) " +
+                    "AND NOT EXISTS (SELECT 1 FROM archivehold h WHERE h.fileid = le.fileid AND h.expiresat > LOCALTIMESTAMP " +
+                    "AND le.\"timestamp\" BETWEEN h.starttime AND h.endtime) " +
+                    "ORDER BY le.\"timestamp\", le.logeventid LIMIT ?";
+
+    // The time bounds let the delete skip every partition outside the batch
+    private static final String DELETE_EVENTS_SQL =
+            "DELETE FROM logevent WHERE fileid = ? AND \"timestamp\" BETWEEN ? AND ? AND logeventid = ANY (?)";
+
+    // Raw lines are shared between files, so only lines no remaining event refers to go
+    private static final String DELETE_ORPHAN_RAWLINES_SQL =
+            "DELETE FROM rawline r WHERE r.rawlineid = ANY (?) " +
+                    "AND NOT EXISTS (SELECT 1 FROM logevent le WHERE le.rawlineid = r.rawlineid)";
+
+    private static final String HAS_EVENTS_BEFORE_SQL =
+            "SELECT EXISTS (SELECT 1 FROM logevent WHERE fileid = ? AND \"timestamp\" < ? " +
+                    "AND NOT EXISTS (SELECT 1 FROM incidenteventlink l WHERE l.logeventid = logevent.logeventid))";
+
+    // Devices and actions deleted since the event was archived are restored as null
+    private static final String RESTORE_RAWLINE_SQL =
+            "INSERT INTO rawline (rawlineid, rawline, sourcedeviceid, sourceport, destinationdeviceid, destinationport, action, message, parseddata) " +
+                    "VALUES (?, ?, (SELECT deviceid FROM device WHERE deviceid = ?), ?, (SELECT deviceid FROM device WHERE deviceid = ?), ?, " +
+                    "(SELECT action FROM action WHERE action = ?), ?, ?::jsonb) " +
+                    "ON CONFLICT (rawlineid) DO NOTHING";
+
+    // So are alerts deleted, or dropped with their partition, since the event was archived
+    private static final String RESTORE_LOGEVENT_SQL =
+            "INSERT INTO logevent (logeventid, fileid, \"timestamp\", rawlineid, associatedalertid) " +
+                    "VALUES (?, ?, ?, ?, (SELECT alertid FROM alert WHERE alertid = ? LIMIT 1)) " +
+                    "ON CONFLICT (logeventid, \"timestamp\") DO NOTHING";
+
+    private static final String INSERT_HOLD_SQL =
+            "INSERT INTO archivehold (fileid, starttime, endtime, expiresat) VALUES (?, ?, ?, ?)";
+
+    private static final String FILE_SOURCE_TYPE_SQL = "SELECT sourcetype FROM logfile WHERE fileid = ?";
+
+    private static final String FILE_DUPLICATE_OF_SQL = "SELECT duplicateof FROM logfile WHERE fileid = ?";
+
+    private static final String SEGMENT_SUFFIX = ".ndjson.gz";
+    private static final String RAWCONTENT_FILE = "rawcontent.txt.gz";
+    // Directory of one log file under its source type directory, named after its FileID
+    private static final Pattern FILE_DIR_NAME = Pattern.compile("\\d{1,9}");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final IngestionScheduler ingestionScheduler;
+    private final LogTailer logTailer;
+    private final PartitionManager partitionManager;
+    private final LogfileContentStore contentStore;
+    private final Path archiveDir;
+    private final int defaultHotDays;
+    private final Map<String, Integer> hotDaysBySourceType;
+    private final int batchSize;
+    private final long batchPauseMillis;
+    private final int restoreHoldDays;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder eventsArchived = new LongAdder();
+    private final LongAdder rawlinesPurged = new LongAdder();
+    private final LongAdder rawContentsArchived = new LongAdder();
+    private final LongAdder eventsRestored = new LongAdder();
+    private final LongAdder ingestionWaits = new LongAdder();
+    private volatile Instant lastRun;
+    private volatile long lastRunMillis;
+    private volatile String lastError;
+
+    public RetentionArchiver(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             IngestionScheduler ingestionScheduler,
+                             LogTailer logTailer,
+                             PartitionManager partitionManager,
+                             LogfileContentStore contentStore,
+                             @Value("${siem.retention.archive-dir:archive}") String archiveDir,
+                             @Value("${siem.retention.hot-days:0}") int defaultHotDays,
+                             @Value("${siem.retention.hot-days-by-source-type:}") String hotDaysBySourceType,
+                             @Value("${siem.retention.batch-size:5000}") int batchSize,
+                             @Value("${siem.retention.batch-pause-ms:250}") long batchPauseMillis,
+                             @Value("${siem.retention.restore-hold-days:7}") int restoreHoldDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.ingestionScheduler = ingestionScheduler;
+        this.logTailer = logTailer;
+        this.partitionManager = partitionManager;
+        this.contentStore = contentStore;
+        this.archiveDir = Paths.get(archiveDir);
+        this.defaultHotDays = defaultHotDays;
+        this.hotDaysBySourceType = parsePolicies(hotDaysBySourceType);
+        this.batchSize = Math.max(1, batchSize);
+        this.batchPauseMillis = Math.max(0, batchPauseMillis);
+        this.restoreHoldDays = Math.max(0, restoreHoldDays);
+    }
+
+    // "Firewall:7, Server:30" -> {Firewall=7, Server=30}
+    static Map<String, Integer> parsePolicies(String policies) {
+        Map<String, Integer> result = new HashMap<>();
+        if (policies == null || policies.isBlank()) {
+            return result;
+        }
+        for (String policy : policies.split(",")) {
+            int colon = policy.lastIndexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("siem.retention.hot-days-by-source-type: expected <source type>:<days>, got " + policy);
+            }
+            result.put(policy.substring(0, colon).trim(), Integer.parseInt(policy.substring(colon + 1).trim()));
+        }
+        return result;
+    }
+
+    int hotDays(String sourceType) {
+        return sourceType != null ? hotDaysBySourceType.getOrDefault(sourceType, defaultHotDays) : defaultHotDays;
+    }
+
+    /**
+     * Archive everything past its hot period. Skipped if a run is already in progress.
+     */
+    @Scheduled(cron = "${siem.retention.cron:0 30 1 * * *}", scheduler = SchedulingConfig.MAINTENANCE_SCHEDULER)
+    public void run() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            List<ArchivedFile> files = jdbcTemplate.query(LIST_FILES_SQL, (rs, rowNum) -> new ArchivedFile(
+                    rs.getInt(1), rs.getString(2), instant(rs.getTimestamp(3))));
+            for (ArchivedFile file : files) {
+                int hotDays = hotDays(file.sourceType());
+                if (hotDays > 0) {
+                    Instant cutoff = LocalDate.now(zone).minusDays(hotDays).atStartOfDay(zone).toInstant();
+                    archiveFile(file, cutoff);
+                }
+            }
+            lastError = null;
+        } catch (IOException | RuntimeException e) {
+            lastError = e.getMessage();
+            logger.error("Retention run failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lastRun = Instant.now();
+            lastRunMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            running.set(false);
+        }
+    }
+
+    private void archiveFile(ArchivedFile file, Instant cutoff) throws IOException, InterruptedException {
+        Path dir = fileDir(file.sourceType(), file.id());
+        while (true) {
+            throttle();
+            List<ArchivedEvent> batch = jdbcTemplate.query(SELECT_BATCH_SQL, ps -> {
+                ps.setInt(1, file.id());
+                ps.setObject(2, cutoff.atOffset(ZoneOffset.UTC), Types.TIMESTAMP_WITH_TIMEZONE);
+                ps.setInt(3, batchSize);
+            }, (rs, rowNum) -> ArchivedEvent.read(rs));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            writeSegments(dir, batch);
+            purge(file.id(), batch);
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+
+        // The original file goes once it was uploaded before the cutoff and all its events before
+        // the cutoff are archived (none are linked to an incident or on hold)
+        boolean uploadedBeforeCutoff = file.uploadTime() != null && file.uploadTime().isBefore(cutoff);
+        if (uploadedBeforeCutoff && !hasEventsBefore(file.id(), cutoff)) {
+            archiveRawContent(file.id(), dir);
+        }
+    }
+
+    // Waits while ingestion (uploads or the tailer) is busy, then pauses between batches
+    private void throttle() throws InterruptedException {
+        while (!ingestionScheduler.isIdle() || !logTailer.isIdle()) {
+            ingestionWaits.increment();
+            Thread.sleep(Math.max(batchPauseMillis, 1000));
+        }
+        if (batchPauseMillis > 0) {
+            Thread.sleep(batchPauseMillis);
+        }
+    }
+
+    private void writeSegments(Path dir, List<ArchivedEvent> batch) throws IOException {
+        Map<LocalDate, List<ArchivedEvent>> byDay = new TreeMap<>();
+        for (ArchivedEvent event : batch) {
+            byDay.computeIfAbsent(LocalDate.ofInstant(event.timestamp(), zone), day -> new ArrayList<>()).add(event);
+        }
+
+        Files.createDirectories(dir);
+        for (Map.Entry<LocalDate, List<ArchivedEvent>> day : byDay.entrySet()) {
+            Path segment = dir.resolve(day.getKey() + SEGMENT_SUFFIX);
+            // Appending starts a new gzip member; GZIPInputStream reads them back as one stream
+            try (FileOutputStream file = new FileOutputStream(segment.toFile(), true);
+                 GZIPOutputStream gzip = new GZIPOutputStream(file, 64 * 1024)) {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(gzip);
+                generator.setRootValueSeparator(null);
+                for (ArchivedEvent event : day.getValue()) {
+                    event.write(generator);
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+                gzip.finish();
+                file.getFD().sync();
+            }
+        }
+    }
+
+    private void purge(int fileId, List<ArchivedEvent> batch) {
+        Integer[] eventIds = batch.stream().map(ArchivedEvent::logeventId).toArray(Integer[]::new);
+        Long[] rawlineIds = batch.stream().map(ArchivedEvent::rawlineId).distinct().toArray(Long[]::new);
+        Instant first = batch.get(0).timestamp();
+        Instant last = batch.get(batch.size() - 1).timestamp();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            int events = jdbcTemplate.update(DELETE_EVENTS_SQL, ps -> {
+                ps.setInt(1, fileId);
+                ps.setObject(2, first.atOffset(ZoneOffset.UTC), Types.TIMESTAMP_WITH_TIMEZONE);
+                ps.setObject(3, last.atOffset(ZoneOffset.UTC), Types.TIMESTAMP_WITH_TIMEZONE);
+                ps.setArray(4, ps.getConnection().createArrayOf("integer", eventIds));
+            });
+            int rawlines = jdbcTemplate.update(DELETE_ORPHAN_RAWLINES_SQL,
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", rawlineIds)));
+            eventsArchived.add(events);
+            rawlinesPurged.add(rawlines);
+        });
+    }
+
+    private boolean hasEventsBefore(int fileId, Instant cutoff) {
+        return Boolean.TRUE.equals(jdbcTemplate.query(HAS_EVENTS_BEFORE_SQL, ps -> {
+            ps.setInt(1, fileId);
+            ps.setObject(2, cutoff.atOffset(ZoneOffset.UTC), Types.TIMESTAMP_WITH_TIMEZONE);
+        }, rs -> rs.next() && rs.getBoolean(1)));
+    }
+
+    private void archiveRawContent(int fileId, Path dir) throws IOException {
+        if (contentStore.getLength(fileId) == null) {
+            return;
+        }
+        Files.createDirectories(dir);
+        Path target = dir.resolve(RAWCONTENT_FILE);
+        // The stored chunks are gzip members already, so they are copied without recompressing
+        try (FileOutputStream file = new FileOutputStream(target.toFile())) {
+            contentStore.copyCompressedTo(fileId, file);
+            file.getFD().sync();
+        }
+        contentStore.delete(fileId);
+        rawContentsArchived.increment();
+    }
+
+    /**
+     * Load archived events with startTime <= timestamp <= endTime back into PostgreSQL, for every
+     * file of a source type or for one file. The restored window is held for restore-hold-days
+     * before retention archives it again. A file's stored content is restored too if it was archived.
+     * Restoring one file also restores the earlier uploads (duplicateof) its skipped leading lines
+     * were ingested and archived with.
+     *
+     * @param sourceType Restore the files of this source type (ignored when fileId is given)
+     * @return The number of archived events found in the window and the number of files they belong to;
+     * events still (or already) in the database are skipped by the inserts
+     * @throws IllegalArgumentException if neither sourceType nor fileId is given, or fileId does not exist
+     */
+    public Map<String, Long> restore(String sourceType, Integer fileId, Instant startTime, Instant endTime)
+            throws IOException {
+        if (sourceType == null && fileId == null) {
+            throw new IllegalArgumentException("Restore needs a sourceType or a fileId");
+        }
+        List<Path> fileDirs = new ArrayList<>();
+        if (fileId != null) {
+            List<String> types = jdbcTemplate.queryForList(FILE_SOURCE_TYPE_SQL, String.class, fileId);
+            if (types.isEmpty()) {
+                throw new IllegalArgumentException("No log file " + fileId);
+            }
+            fileDirs.add(fileDir(types.get(0), fileId));
+
+            Set<Integer> seen = new HashSet<>(List.of(fileId));
+            Integer earlier = duplicateOf(fileId);
+            while (earlier != null && seen.add(earlier)) {
+                List<String> earlierTypes = jdbcTemplate.queryForList(FILE_SOURCE_TYPE_SQL, String.class, earlier);
+                if (earlierTypes.isEmpty()) {
+                    break;
+                }
+                fileDirs.add(fileDir(earlierTypes.get(0), earlier));
+                earlier = duplicateOf(earlier);
+            }
+        } else {
+            Path typeDir = archiveDir.resolve(directoryName(sourceType));
+            if (Files.isDirectory(typeDir)) {
+                try (Stream<Path> dirs = Files.list(typeDir)) {
+                    // Skip anything not created by the archiver (lost+found, backups, ...)
+                    dirs.filter(Files::isDirectory)
+                            .filter(dir -> FILE_DIR_NAME.matcher(dir.getFileName().toString()).matches())
+                            .sorted()
+                            .forEach(fileDirs::add);
+                }
+            }
+        }
+
+        long events = 0;
+        long files = 0;
+        for (Path dir : fileDirs) {
+            int id = Integer.parseInt(dir.getFileName().toString());
+            if (jdbcTemplate.queryForList(FILE_SOURCE_TYPE_SQL, String.class, id).isEmpty()) {
+                // The log file was deleted; its events have nothing to belong to
+                continue;
+            }
+            events += restoreFile(id, dir, startTime, endTime);
+            restoreRawContent(id, dir);
+            files++;
+        }
+        eventsRestored.add(events);
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("events", events);
+        result.put("files", files);
+        return result;
+    }
+
+    private Integer duplicateOf(int fileId) {
+        List<Integer> ids = jdbcTemplate.queryForList(FILE_DUPLICATE_OF_SQL, Integer.class, fileId);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    private long restoreFile(int fileId, Path dir, Instant startTime, Instant endTime) throws IOException {
+        long restored = 0;
+        LocalDate firstDay = LocalDate.ofInstant(startTime, zone);
+        LocalDate lastDay = LocalDate.ofInstant(endTime, zone);
+        for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            Path segment = dir.resolve(day + SEGMENT_SUFFIX);
+            if (!Files.exists(segment)) {
+                continue;
+            }
+            List<ArchivedEvent> batch = new ArrayList<>(batchSize);
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(segment), 64 * 1024);
+                 MappingIterator<JsonNode> rows = objectMapper.readerFor(JsonNode.class).readValues(in)) {
+                while (rows.hasNextValue()) {
+                    ArchivedEvent event = ArchivedEvent.from(rows.nextValue());
+                    if (event.timestamp().isBefore(startTime) || event.timestamp().isAfter(endTime)) {
+                        continue;
+                    }
+                    batch.add(event);
+                    if (batch.size() >= batchSize) {
+                        insert(fileId, batch);
+                        restored += batch.size();
+                        batch.clear();
+                    }
+                }
+            }
+            insert(fileId, batch);
+            restored += batch.size();
+        }
+
+        // Keep the window hot for a while, or the next retention run would archive it straight away
+        Instant expiresAt = Instant.now().plus(restoreHoldDays, ChronoUnit.DAYS);
+        jdbcTemplate.update(INSERT_HOLD_SQL, ps -> {
+            ps.setInt(1, fileId);
+            ps.setObject(2, startTime.atOffset(ZoneOffset.UTC), Types.TIMESTAMP_WITH_TIMEZONE);
+            ps.setObject(3, endTime.atOffset(ZoneOffset.UTC), Types.TIMESTAMP_WITH_TIMEZONE);
+            ps.setObject(4, expiresAt.atOffset(ZoneOffset.UTC), Types.TIMESTAMP_WITH_TIMEZONE);
+        });
+        return restored;
+    }
+
+    private void insert(int fileId, List<ArchivedEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        partitionManager.ensurePartitions(PartitionManager.LOGEVENT, batch.stream().map(ArchivedEvent::timestamp).toList());
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(RESTORE_RAWLINE_SQL, batch, batch.size(), (ps, event) -> event.bindRawline(ps));
+            jdbcTemplate.batchUpdate(RESTORE_LOGEVENT_SQL, batch, batch.size(), (ps, event) -> event.bindLogevent(ps, fileId));
+        });
+    }
+
+    private void restoreRawContent(int fileId, Path dir) throws IOException {
+        Path source = dir.resolve(RAWCONTENT_FILE);
+        if (!Files.exists(source) || contentStore.getLength(fileId) != null) {
+            return;
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(source), 64 * 1024)) {
+            contentStore.appendAll(fileId, in);
+        }
+    }
+
+    private Path fileDir(String sourceType, int fileId) {
+        return archiveDir.resolve(directoryName(sourceType)).resolve(Integer.toString(fileId));
+    }
+
+    // Source types are free text; keep the directory name to a safe character set
+    static String directoryName(String sourceType) {
+        if (sourceType == null || sourceType.isBlank()) {
+            return "_none";
+        }
+        return sourceType.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("archiveDir", archiveDir.toAbsolutePath().toString());
+        stats.put("defaultHotDays", defaultHotDays);
+        stats.put("hotDaysBySourceType", new TreeMap<>(hotDaysBySourceType));
+        stats.put("running", running.get());
+        stats.put("eventsArchived", eventsArchived.sum());
+        stats.put("rawlinesPurged", rawlinesPurged.sum());
+        stats.put("rawContentsArchived", rawContentsArchived.sum());
+        stats.put("eventsRestored", eventsRestored.sum());
+        stats.put("ingestionWaits", ingestionWaits.sum());
+        stats.put("lastRun", lastRun);
+        stats.put("lastRunMs", lastRunMillis);
+        stats.put("lastError", lastError);
+        return stats;
+    }
+
+    private static Instant instant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+
+    private record ArchivedFile(int id, String sourceType, Instant uploadTime) {
+    }
+
+    // One archived event with its raw line, as one NDJSON row
+    record ArchivedEvent(Integer logeventId, Instant timestamp, Integer associatedAlertId, Long rawlineId,
+                         String rawline, Integer sourceDeviceId, Integer sourcePort, Integer destinationDeviceId,
+                         Integer destinationPort, String action, String message, String parsedData) {
+
+        static ArchivedEvent read(ResultSet rs) throws SQLException {
+            return new ArchivedEvent(rs.getInt(1), rs.getTimestamp(2).toInstant(), rs.getObject(3, Integer.class),
+                    rs.getLong(4), rs.getString(5), rs.getObject(6, Integer.class), rs.getObject(7, Integer.class),
+                    rs.getObject(8, Integer.class), rs.getObject(9, Integer.class), rs.getString(10),
+                    rs.getString(11), rs.getString(12));
+        }
+
+        void write(JsonGenerator generator) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("logeventid", logeventId);
+            generator.writeStringField("timestamp", timestamp.toString());
+            writeNullable(generator, "associatedalertid", associatedAlertId);
+            generator.writeNumberField("rawlineid", rawlineId);
+            generator.writeStringField("rawline", rawline);
+            writeNullable(generator, "sourcedeviceid", sourceDeviceId);
+            writeNullable(generator, "sourceport", sourcePort);
+            writeNullable(generator, "destinationdeviceid", destinationDeviceId);
+            writeNullable(generator, "destinationport", destinationPort);
+            generator.writeStringField("action", action);
+            generator.writeStringField("message", message);
+            generator.writeFieldName("parseddata");
+            if (parsedData != null) {
+                generator.writeRawValue(parsedData);
+            } else {
+                generator.writeNull();
+            }
+            generator.writeEndObject();
+        }
+
+        static ArchivedEvent from(JsonNode row) {
+            JsonNode parsedData = row.get("parseddata");
+            return new ArchivedEvent(row.get("logeventid").asInt(), Instant.parse(row.get("timestamp").asText()),
+                    nullableInt(row, "associatedalertid"), row.get("rawlineid").asLong(), row.get("rawline").asText(),
+                    nullableInt(row, "sourcedeviceid"), nullableInt(row, "sourceport"),
+                    nullableInt(row, "destinationdeviceid"), nullableInt(row, "destinationport"),
+                    nullableText(row, "action"), nullableText(row, "message"),
+                    parsedData == null || parsedData.isNull() ? null : parsedData.toString());
+        }
+
+        void bindRawline(PreparedStatement ps) throws SQLException {
+            ps.setLong(1, rawlineId);
+            ps.setString(2, rawline);
+            ps.setObject(3, sourceDeviceId, Types.INTEGER);
+            ps.setObject(4, sourcePort, Types.INTEGER);
+            ps.setObject(5, destinationDeviceId, Types.INTEGER);
+            ps.setObject(6, destinationPort, Types.INTEGER);
+            ps.setString(7, action);
+            ps.setString(8, message);
+            ps.setString(9, parsedData);
+        }
+
+        void bindLogevent(PreparedStatement ps, int fileId) throws SQLException {
+            ps.setInt(1, logeventId);
+            ps.setInt(2, fileId);
+            ps.setObject(3, timestamp.atOffset(ZoneOffset.UTC), Types.TIMESTAMP_WITH_TIMEZONE);
+            ps.setLong(4, rawlineId);
+            ps.setObject(5, associatedAlertId, Types.INTEGER);
+        }
+
+        private static void writeNullable(JsonGenerator generator, String field, Integer value) throws IOException {
+            if (value != null) {
+                generator.writeNumberField(field, value);
+            } else {
+                generator.writeNullField(field);
+            }
+        }
+
+        private static Integer nullableInt(JsonNode row, String field) {
+            JsonNode value = row.get(field);
+            return value == null || value.isNull() ? null : value.asInt();
+        }
+
+        private static String nullableText(JsonNode row, String field) {
+            JsonNode value = row.get(field);
+            return value == null || value.isNull() ? null : value.asText();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package edu.trincoll.siem.Service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * How far each followed file has been read (V18), so {@link LogTailer} resumes there after a
+ * restart. The offset is written in the transaction that stores the events read up to it.
+ */
+@Component
+public class TailCheckpoints {
+
+    private static final String FIND_ACTIVE_SQL =
+            "SELECT fileid, path, filekey, readoffset FROM logfiletail " +
+                    "WHERE path = ? AND active ORDER BY fileid DESC LIMIT 1";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO logfiletail (fileid, path, filekey, readoffset) VALUES (?, ?, ?, ?)";
+
+    private static final String UPDATE_OFFSET_SQL =
+            "UPDATE logfiletail SET readoffset = ?, updatedat = CURRENT_TIMESTAMP WHERE fileid = ?";
+
+    private static final String DEACTIVATE_SQL =
+            "UPDATE logfiletail SET active = FALSE, updatedat = CURRENT_TIMESTAMP WHERE fileid = ?";
+
+    /**
+     * The log file a path is read into, its file key when it was opened, and the position after
+     * the last line ingested.
+     */
+    public record Checkpoint(int fileId, String path, String fileKey, long offset) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TailCheckpoints(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // The file still being followed at a path, or null
+    public Checkpoint findActive(String path) {
+        List<Checkpoint> checkpoints = jdbcTemplate.query(FIND_ACTIVE_SQL, (rs, rowNum) -> new Checkpoint(
+                rs.getInt(1), rs.getString(2), rs.getString(3), rs.getLong(4)), path);
+        return checkpoints.isEmpty() ? null : checkpoints.get(0);
+    }
+
+    public void insert(Checkpoint checkpoint) {
+        jdbcTemplate.update(INSERT_SQL, checkpoint.fileId(), checkpoint.path(), checkpoint.fileKey(), checkpoint.offset());
+    }
+
+    // Joins the caller's transaction, if any
+    public void updateOffset(int fileId, long offset) {
+        jdbcTemplate.update(UPDATE_OFFSET_SQL, offset, fileId);
+    }
+
+    // The file will not be read any more (rotated away, deleted or truncated)
+    public void deactivate(int fileId) {
+        jdbcTemplate.update(DEACTIVATE_SQL, fileId);
+    }
+}
@@ -0,0 +1,123 @@
+package edu.trincoll.siem.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the lines appended to a file since the last read, by position on its FileChannel, so
+ * it keeps reading the same file after it has been renamed. Bytes after the last newline are
+ * held until the rest of their line is written. Lines end in '\n' or "\r\n". Not thread-safe.
+ */
+final class TailReader implements AutoCloseable {
+
+    // A line longer than this is cut, so a file without newlines cannot fill the heap
+    static final int MAX_LINE_BYTES = 1024 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private final ByteArrayOutputStream partial = new ByteArrayOutputStream();
+    private long position;
+
+    /**
+     * @param position Where to start reading, at the start of a line
+     */
+    TailReader(FileChannel channel, long position) {
+        this.channel = channel;
+        this.position = position;
+    }
+
+    /**
+     * The complete lines in at most maxBytes more bytes of the file, up to maxLines of them; the
+     * next read starts after the last line returned.
+     */
+    List<String> read(long maxBytes, int maxLines) throws IOException {
+        List<String> lines = new ArrayList<>();
+        long limit = position + maxBytes;
+        while (position < limit) {
+            buffer.clear();
+            if (limit - position < buffer.capacity()) {
+                buffer.limit((int) (limit - position));
+            }
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+
+            byte[] bytes = buffer.array();
+            int start = 0;
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '\n') {
+                    lines.add(line(bytes, start, i));
+                    start = i + 1;
+                    if (lines.size() == maxLines) {
+                        position += start;
+                        return lines;
+                    }
+                }
+            }
+            position += read;
+            partial.write(bytes, start, read - start);
+            if (partial.size() >= MAX_LINE_BYTES) {
+                lines.add(line(bytes, read, read));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Everything left in the file, including a last line without a newline; for a file that
+     * will not be written any more.
+     */
+    List<String> drain() throws IOException {
+        List<String> lines = new ArrayList<>();
+        List<String> read;
+        do {
+            read = read(MAX_LINE_BYTES, Integer.MAX_VALUE);
+            lines.addAll(read);
+        } while (!read.isEmpty() || channel.size() > position);
+        if (partial.size() > 0) {
+            lines.add(line(new byte[0], 0, 0));
+        }
+        return lines;
+    }
+
+    // The held partial line followed by bytes[from, to), without a trailing '\r'
+    private String line(byte[] bytes, int from, int to) {
+        if (partial.size() > 0) {
+            partial.write(bytes, from, to - from);
+            byte[] whole = partial.toByteArray();
+            partial.reset();
+            return decode(whole, 0, whole.length);
+        }
+        return decode(bytes, from, to);
+    }
+
+    private static String decode(byte[] bytes, int from, int to) {
+        if (to > from && bytes[to - 1] == '\r') {
+            to--;
+        }
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    // The position up to which the file has been read, including a held partial line
+    long getPosition() {
+        return position;
+    }
+
+    /**
+     * The position just after the last complete line read: where reading resumes after a restart.
+     */
+    long getLineEnd() {
+        return position - partial.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
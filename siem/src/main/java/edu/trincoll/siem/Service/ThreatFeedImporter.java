@@ -0,0 +1,356 @@
+package edu.trincoll.siem.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.trincoll.siem.Model.Enums.Severity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies a threat-intel feed as one delta. The feed is streamed into a temporary staging
+ * table with batched inserts, then merged with three set-based statements: an upsert that
+ * only touches new or changed indicators, a delete for revoked ones and, for a full refresh,
+ * a delete for this feed's indicators that are no longer listed. Everything commits together,
+ * after which the in-memory matcher is reloaded.
+ * <p>
+ * A feed only updates or removes indicators it imported itself; ones entered by hand or by
+ * another feed are left alone.
+ * <p>
+ * Formats, one indicator per line:
+ * <ul>
+ *   <li>csv: {@code indicator,type,severity[,description[,action]]}, optional header row</li>
+ *   <li>jsonl: {@code {"indicator":"1.2.3.4","type":"IP","severity":"High","description":"..."}};
+ *   a STIX-style {@code "pattern":"[ipv4-addr:value = '1.2.3.4']"} may replace indicator and type</li>
+ * </ul>
+ * An action of "remove" (or {@code "revoked":true}) deletes the indicator. Severity defaults to Medium.
+ */
+@Service
+public class ThreatFeedImporter {
+
+    public record Result(String source, long lines, long invalid, long inserted, long updated,
+                         long removed, List<String> errors, long durationMillis) {
+    }
+
+    record FeedEntry(String indicator, String type, Severity severity, String description, boolean removed) {
+    }
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final int MAX_INDICATOR_LENGTH = 100;
+    private static final int MAX_TYPE_LENGTH = 50;
+
+    private static final Pattern STIX_PATTERN = Pattern.compile("\\[([a-z0-9-]+):(?:value|name)\\s*=\\s*'([^']*)'\\]");
+    private static final Map<String, String> STIX_TYPES = Map.of(
+            "ipv4-addr", "IP",
+            "ipv6-addr", "IP",
+            "domain-name", "Domain",
+            "url", "URL",
+            "file", "Filename");
+
+    private static final String CREATE_STAGING_SQL =
+            "CREATE TEMP TABLE threat_feed_staging (" +
+                    "seq BIGINT, indicator VARCHAR(100), type VARCHAR(50), severity VARCHAR(50), " +
+                    "description TEXT, removed BOOLEAN) ON COMMIT DROP";
+
+    private static final String INSERT_STAGING_SQL =
+            "INSERT INTO threat_feed_staging (seq, indicator, type, severity, description, removed) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Serializes imports of the same feed
+    private static final String LOCK_SOURCE_SQL = "SELECT pg_advisory_xact_lock(hashtext(?))";
+
+    // When a feed lists an indicator more than once, its last line wins
+    private static final String LATEST_SQL =
+            "SELECT DISTINCT ON (indicator) * FROM threat_feed_staging ORDER BY indicator, seq DESC";
+
+    private static final String UPSERT_SQL =
+            "WITH latest AS (" + LATEST_SQL + "), " +
+                    "upserted AS (" +
+                    "    INSERT INTO threatintel (indicator, type, severity, description, source) " +
+                    "    SELECT indicator, type, severity, description, ? FROM latest WHERE NOT removed " +
+                    "    ON CONFLICT (indicator) DO UPDATE " +
+                    "        SET type = EXCLUDED.type, severity = EXCLUDED.severity, description = EXCLUDED.description " +
+                    "        WHERE threatintel.source = EXCLUDED.source " +
+                    "          AND (threatintel.type, threatintel.severity, threatintel.description) " +
+                    "              IS DISTINCT FROM (EXCLUDED.type, EXCLUDED.severity, EXCLUDED.description) " +
+                    "    RETURNING (xmax = 0) AS inserted" +
+                    ") " +
+                    "SELECT COUNT(*) FILTER (WHERE inserted) AS inserted, " +
+                    "       COUNT(*) FILTER (WHERE NOT inserted) AS updated " +
+                    "FROM upserted";
+
+    private static final String DELETE_REVOKED_SQL =
+            "DELETE FROM threatintel t USING (" + LATEST_SQL + ") s " +
+                    "WHERE s.removed AND t.indicator = s.indicator AND t.source = ?";
+
+    private static final String DELETE_MISSING_SQL =
+            "DELETE FROM threatintel t WHERE t.source = ? AND NOT EXISTS (" +
+                    "SELECT 1 FROM threat_feed_staging s WHERE s.indicator = t.indicator AND NOT s.removed)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ThreatIntelMatcher threatIntelMatcher;
+    private final int batchSize;
+
+    public ThreatFeedImporter(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              ThreatIntelMatcher threatIntelMatcher,
+                              @Value("${siem.threatintel.feed-batch-size:5000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.threatIntelMatcher = threatIntelMatcher;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * @param content     the feed, read as UTF-8
+     * @param format      "csv" or "jsonl"
+     * @param source      name of the feed; recorded on imported indicators
+     * @param fullRefresh whether the feed is complete, so this source's indicators missing from it are removed
+     * @throws IllegalArgumentException for an unknown format, a blank source, or a full refresh with no valid lines
+     */
+    public Result importFeed(InputStream content, String format, String source, boolean fullRefresh) throws IOException {
+        if (source == null || source.isBlank() || source.length() > 100) {
+            throw new IllegalArgumentException("source must be 1-100 characters");
+        }
+        boolean json = switch (format.toLowerCase(Locale.ROOT)) {
+            case "csv" -> false;
+            case "jsonl", "ndjson", "json" -> true;
+            default -> throw new IllegalArgumentException("Unsupported feed format '" + format + "' (expected csv or jsonl)");
+        };
+
+        long started = System.currentTimeMillis();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8));
+        Result result;
+        try {
+            result = transactionTemplate.execute(status -> {
+                try {
+                    return apply(reader, json, source, fullRefresh, started);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        threatIntelMatcher.reload();
+        return result;
+    }
+
+    private Result apply(BufferedReader reader, boolean json, String source, boolean fullRefresh, long started)
+            throws IOException {
+        jdbcTemplate.query(LOCK_SOURCE_SQL, (RowCallbackHandler) rs -> { }, source);
+        jdbcTemplate.execute(CREATE_STAGING_SQL);
+
+        List<FeedEntry> batch = new ArrayList<>(batchSize);
+        List<String> errors = new ArrayList<>();
+        long lines = 0;
+        long invalid = 0;
+        long seq = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            try {
+                FeedEntry entry = json ? parseJsonLine(objectMapper, trimmed) : parseCsvLine(trimmed);
+                if (entry == null) {
+                    continue; // CSV header
+                }
+                batch.add(entry);
+            } catch (IllegalArgumentException e) {
+                invalid++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add("line " + lines + ": " + e.getMessage());
+                }
+                continue;
+            }
+            if (batch.size() >= batchSize) {
+                seq = stage(batch, seq);
+            }
+        }
+        seq = stage(batch, seq);
+        if (fullRefresh && seq == 0) {
+            // Most likely a truncated download; refusing keeps the feed's current indicators
+            throw new IllegalArgumentException("A full refresh needs at least one valid indicator");
+        }
+
+        jdbcTemplate.execute("CREATE INDEX ON threat_feed_staging (indicator)");
+        jdbcTemplate.execute("ANALYZE threat_feed_staging");
+
+        Map<String, Object> counts = jdbcTemplate.queryForMap(UPSERT_SQL, source);
+        long removed = jdbcTemplate.update(DELETE_REVOKED_SQL, source);
+        if (fullRefresh) {
+            removed += jdbcTemplate.update(DELETE_MISSING_SQL, source);
+        }
+
+        return new Result(source, lines, invalid,
+                ((Number) counts.get("inserted")).longValue(),
+                ((Number) counts.get("updated")).longValue(),
+                removed, errors, System.currentTimeMillis() - started);
+    }
+
+    // Write a batch to the staging table, numbering rows in feed order
+    private long stage(List<FeedEntry> batch, long seq) {
+        if (batch.isEmpty()) {
+            return seq;
+        }
+        long first = seq;
+        jdbcTemplate.batchUpdate(INSERT_STAGING_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                FeedEntry entry = batch.get(i);
+                ps.setLong(1, first + i);
+                ps.setString(2, entry.indicator());
+                ps.setString(3, entry.type());
+                ps.setString(4, entry.severity() != null ? entry.severity().name() : null);
+                ps.setString(5, entry.description());
+                ps.setBoolean(6, entry.removed());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+        seq += batch.size();
+        batch.clear();
+        return seq;
+    }
+
+    static FeedEntry parseCsvLine(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.get(0).equalsIgnoreCase("indicator")) {
+            return null;
+        }
+        return entry(fields.get(0),
+                fields.size() > 1 ? fields.get(1) : null,
+                fields.size() > 2 ? fields.get(2) : null,
+                fields.size() > 3 ? fields.get(3) : null,
+                fields.size() > 4 && isRemoval(fields.get(4)));
+    }
+
+    static FeedEntry parseJsonLine(ObjectMapper objectMapper, String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("invalid JSON");
+        }
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("expected a JSON object");
+        }
+
+        String indicator = text(node, "indicator");
+        String type = text(node, "type");
+        String pattern = text(node, "pattern");
+        if (indicator == null && pattern != null) {
+            Matcher matcher = STIX_PATTERN.matcher(pattern);
+            if (!matcher.find()) {
+                throw new IllegalArgumentException("unsupported pattern");
+            }
+            indicator = matcher.group(2);
+            type = STIX_TYPES.getOrDefault(matcher.group(1), matcher.group(1));
+        }
+        boolean removed = node.path("revoked").asBoolean(false) || isRemoval(text(node, "action"));
+        return entry(indicator, type, text(node, "severity"), text(node, "description"), removed);
+    }
+
+    private static FeedEntry entry(String indicator, String type, String severity, String description, boolean removed) {
+        if (indicator == null || indicator.isBlank()) {
+            throw new IllegalArgumentException("missing indicator");
+        }
+        indicator = indicator.trim();
+        if (indicator.length() > MAX_INDICATOR_LENGTH) {
+            throw new IllegalArgumentException("indicator longer than " + MAX_INDICATOR_LENGTH + " characters");
+        }
+        if (removed) {
+            return new FeedEntry(indicator, null, null, null, true);
+        }
+        if (type == null || type.isBlank() || type.trim().length() > MAX_TYPE_LENGTH) {
+            throw new IllegalArgumentException("missing or too long type");
+        }
+        return new FeedEntry(indicator, type.trim(), severity(severity),
+                description != null && !description.isBlank() ? description : null, false);
+    }
+
+    private static Severity severity(String value) {
+        if (value == null || value.isBlank()) {
+            return Severity.Medium;
+        }
+        for (Severity severity : Severity.values()) {
+            if (severity.name().equalsIgnoreCase(value.trim())) {
+                return severity;
+            }
+        }
+        throw new IllegalArgumentException("unknown severity '" + value + "'");
+    }
+
+    private static boolean isRemoval(String action) {
+        if (action == null) {
+            return false;
+        }
+        String normalized = action.trim().toLowerCase(Locale.ROOT);
+        return normalized.equals("remove") || normalized.equals("delete") || normalized.equals("revoke");
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && !value.isNull() ? value.asText() : null;
+    }
+
+    // Comma-separated fields; double quotes around a field allow commas, and "" is a literal quote
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+}
@@ -0,0 +1,327 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Model.Enums.Severity;
+import edu.trincoll.siem.Model.Threatintel;
+import edu.trincoll.siem.Parser.Ipv4;
+import edu.trincoll.siem.Parser.ParsedLogLine;
+import edu.trincoll.siem.Repository.ThreatintelRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory index of the ThreatIntel table for matching log fields at ingest time.
+ * <ul>
+ *   <li>IP indicators (single addresses or CIDR blocks) go into one primitive hash table per
+ *   prefix length; a lookup masks the address once per prefix length in use, most specific first.</li>
+ *   <li>Domains, URLs and filenames go into hash maps; a host also matches its parent domains.</li>
+ * </ul>
+ * The index is an immutable snapshot: reload builds a new one and swaps it in, so lookups
+ * never block and always see a complete index.
+ */
+@Component
+public class ThreatIntelMatcher {
+
+    public record Match(Integer threatId, String indicator, String type, Severity severity) {
+    }
+
+    private final ThreatintelRepository threatintelRepository;
+
+    private volatile Snapshot snapshot;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+
+    public ThreatIntelMatcher(ThreatintelRepository threatintelRepository) {
+        this.threatintelRepository = threatintelRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        reload();
+    }
+
+    // Readers keep using the previous snapshot until the new one is ready
+    public synchronized void reload() {
+        snapshot = new Snapshot(threatintelRepository.findAll());
+        reloads.increment();
+    }
+
+    public Optional<Match> matchIp(String ip) {
+        long address = Ipv4.parse(ip);
+        if (address == Ipv4.INVALID) {
+            return ip != null ? record(snapshot().other.get(ip.toLowerCase(Locale.ROOT))) : Optional.empty();
+        }
+        return record(snapshot().matchIpv4(address));
+    }
+
+    // Matches the host itself or any parent domain ("a.evil.com" matches "evil.com")
+    public Optional<Match> matchDomain(String host) {
+        if (host == null || host.isEmpty()) {
+            return Optional.empty();
+        }
+        return record(snapshot().matchDomain(host.toLowerCase(Locale.ROOT)));
+    }
+
+    // Exact URL, then the file name at the end of its path
+    public Optional<Match> matchUrl(String url) {
+        if (url == null || url.isEmpty()) {
+            return Optional.empty();
+        }
+        return record(snapshot().matchUrl(url.toLowerCase(Locale.ROOT)));
+    }
+
+    // Match a value of unknown kind against every indicator type
+    public Optional<Match> match(String value) {
+        if (value == null || value.isEmpty()) {
+            return Optional.empty();
+        }
+        long address = Ipv4.parse(value);
+        if (address != Ipv4.INVALID) {
+            return record(snapshot().matchIpv4(address));
+        }
+        String lower = value.toLowerCase(Locale.ROOT);
+        Snapshot current = snapshot();
+        Match match = current.matchDomain(lower);
+        if (match == null) {
+            match = current.matchUrl(lower);
+        }
+        if (match == null) {
+            match = current.other.get(lower);
+        }
+        return record(match);
+    }
+
+    /**
+     * Check the IPs, hostname and URL of a parsed line and record any hits under
+     * "threatMatches" in its parsed data (threat id, severity, indicator and the field that matched).
+     */
+    public void enrich(ParsedLogLine parsed) {
+        Snapshot current = snapshot();
+        if (current.size == 0) {
+            return;
+        }
+        List<Map<String, Object>> hits = null;
+        hits = add(hits, "sourceIp", matchIp(parsed.getSourceIp()));
+        hits = add(hits, "destinationIp", matchIp(parsed.getDestinationIp()));
+        hits = add(hits, "connectionSourceIp", matchIp(parsed.getConnectionSourceIp()));
+        hits = add(hits, "connectionDestinationIp", matchIp(parsed.getConnectionDestinationIp()));
+        hits = add(hits, "hostname", matchDomain(parsed.getHostname()));
+        if (parsed.getParseddata() != null && parsed.getParseddata().get("url") instanceof String url) {
+            hits = add(hits, "url", matchUrl(url));
+        }
+        if (hits != null) {
+            parsed.putParsedData("threatMatches", hits);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("indicators", current != null ? current.size : 0);
+        stats.put("ipv4", current != null ? current.ipv4Count : 0);
+        stats.put("ipv4PrefixLengths", current != null ? current.prefixLengths.length : 0);
+        stats.put("domains", current != null ? current.domains.size() : 0);
+        stats.put("urls", current != null ? current.urls.size() : 0);
+        stats.put("filenames", current != null ? current.filenames.size() : 0);
+        stats.put("other", current != null ? current.other.size() : 0);
+        stats.put("loadedAt", current != null ? current.loadedAt : null);
+        stats.put("lookups", lookups.sum());
+        stats.put("matches", matches.sum());
+        stats.put("reloads", reloads.sum());
+        return stats;
+    }
+
+    private static List<Map<String, Object>> add(List<Map<String, Object>> hits, String field, Optional<Match> match) {
+        if (match.isEmpty()) {
+            return hits;
+        }
+        if (hits == null) {
+            hits = new ArrayList<>(2);
+        }
+        Map<String, Object> hit = new LinkedHashMap<>();
+        hit.put("field", field);
+        hit.put("threatId", match.get().threatId());
+        hit.put("indicator", match.get().indicator());
+        hit.put("severity", match.get().severity() != null ? match.get().severity().name() : null);
+        hits.add(hit);
+        return hits;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private Optional<Match> record(Match match) {
+        lookups.increment();
+        if (match != null) {
+            matches.increment();
+        }
+        return Optional.ofNullable(match);
+    }
+
+    private static final class Snapshot {
+
+        private final int size;
+        private final Instant loadedAt = Instant.now();
+
+        // Indexed by prefix length; prefixLengths lists the non-empty ones, longest first
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private final Ipv4Table<Match>[] byPrefix = new Ipv4Table[33];
+        private final int[] prefixLengths;
+        private int ipv4Count;
+
+        private final Map<String, Match> domains = new HashMap<>();
+        private final Map<String, Match> urls = new HashMap<>();
+        private final Map<String, Match> filenames = new HashMap<>();
+        // Anything else (IPv6, unknown types), matched exactly
+        private final Map<String, Match> other = new HashMap<>();
+
+        private Snapshot(List<Threatintel> all) {
+            this.size = all.size();
+            List<Threatintel> threats = new ArrayList<>(all);
+
+            // When an indicator is listed more than once, the most severe entry wins
+            threats.sort(Comparator.comparing(Threatintel::getSeverity, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(Threatintel::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+            int[] perPrefix = new int[33];
+            List<long[]> networks = new ArrayList<>();
+            List<Match> networkMatches = new ArrayList<>();
+            for (Threatintel threat : threats) {
+                if (threat.getIndicator() == null) {
+                    continue;
+                }
+                String indicator = threat.getIndicator().trim().toLowerCase(Locale.ROOT);
+                String type = threat.getType() != null ? threat.getType().toLowerCase(Locale.ROOT) : "";
+                Match match = new Match(threat.getId(), threat.getIndicator(), threat.getType(), threat.getSeverity());
+
+                long[] network = parseNetwork(indicator);
+                if (network != null) {
+                    networks.add(network);
+                    networkMatches.add(match);
+                    perPrefix[(int) network[1]]++;
+                    continue;
+                }
+                switch (type) {
+                    case "domain", "hostname" -> domains.putIfAbsent(stripDot(indicator), match);
+                    case "url" -> urls.putIfAbsent(indicator, match);
+                    case "filename", "file" -> filenames.putIfAbsent(indicator, match);
+                    default -> other.putIfAbsent(indicator, match);
+                }
+            }
+
+            int lengths = 0;
+            for (int prefix = 32; prefix >= 0; prefix--) {
+                if (perPrefix[prefix] > 0) {
+                    byPrefix[prefix] = new Ipv4Table<>(perPrefix[prefix]);
+                    lengths++;
+                }
+            }
+            prefixLengths = new int[lengths];
+            for (int prefix = 32, i = 0; prefix >= 0; prefix--) {
+                if (byPrefix[prefix] != null) {
+                    prefixLengths[i++] = prefix;
+                }
+            }
+            for (int i = 0; i < networks.size(); i++) {
+                long[] network = networks.get(i);
+                if (byPrefix[(int) network[1]].putIfAbsent((int) network[0], networkMatches.get(i))) {
+                    ipv4Count++;
+                }
+            }
+        }
+
+        private Match matchIpv4(long address) {
+            for (int prefix : prefixLengths) {
+                Match match = byPrefix[prefix].get((int) (address & mask(prefix)));
+                if (match != null) {
+                    return match;
+                }
+            }
+            return null;
+        }
+
+        private Match matchDomain(String host) {
+            String candidate = stripDot(host);
+            while (true) {
+                Match match = domains.get(candidate);
+                if (match != null) {
+                    return match;
+                }
+                int dot = candidate.indexOf('.');
+                if (dot < 0) {
+                    return null;
+                }
+                candidate = candidate.substring(dot + 1);
+            }
+        }
+
+        private Match matchUrl(String url) {
+            Match match = urls.get(url);
+            if (match != null || filenames.isEmpty()) {
+                return match;
+            }
+            int end = url.length();
+            for (int i = 0; i < url.length(); i++) {
+                char c = url.charAt(i);
+                if (c == '?' || c == '#') {
+                    end = i;
+                    break;
+                }
+            }
+            int start = url.lastIndexOf('/', end - 1) + 1;
+            return start < end ? filenames.get(url.substring(start, end)) : null;
+        }
+
+        // {network, prefixLength} for "a.b.c.d" or "a.b.c.d/n", or null if not IPv4
+        private static long[] parseNetwork(String indicator) {
+            int slash = indicator.indexOf('/');
+            long address = Ipv4.parse(indicator, 0, slash < 0 ? indicator.length() : slash);
+            if (address == Ipv4.INVALID) {
+                return null;
+            }
+            int prefix = 32;
+            if (slash >= 0) {
+                try {
+                    prefix = Integer.parseInt(indicator.substring(slash + 1));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                if (prefix < 0 || prefix > 32) {
+                    return null;
+                }
+            }
+            return new long[]{address & mask(prefix), prefix};
+        }
+
+        private static long mask(int prefix) {
+            return prefix == 0 ? 0L : (0xFFFFFFFFL << (32 - prefix)) & 0xFFFFFFFFL;
+        }
+
+        private static String stripDot(String host) {
+            return host.endsWith(".") ? host.substring(0, host.length() - 1) : host;
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -16,10 +17,41 @@ public class ThreatintelService {
     @Autowired
     private ThreatintelRepository threatintelRepository;
 
+    @Autowired
+    private ThreatIntelMatcher threatIntelMatcher;
+
     public List<Threatintel> getAllThreats() {
         return threatintelRepository.findAll();
     }
 
+    // Keyset pages in id order. A null cursor returns the first page.
+    public CursorPage<Threatintel> getThreatsPage(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<Threatintel> rows = after == null
+                ? threatintelRepository.findAllByOrderByIdAsc(CursorPage.fetch(limit))
+                : threatintelRepository.findByIdGreaterThanOrderByIdAsc(after.intId(), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, threat -> PageCursor.ofId(threat.getId()));
+    }
+
+    public CursorPage<Threatintel> getThreatsByTypePage(String type, String cursor, int limit) {
+        List<Threatintel> rows = threatintelRepository.findByTypeAndIdGreaterThanOrderByIdAsc(
+                type, PageCursor.afterId(cursor), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, threat -> PageCursor.ofId(threat.getId()));
+    }
+
+    public CursorPage<Threatintel> getThreatsBySeverityPage(Severity severity, String cursor, int limit) {
+        List<Threatintel> rows = threatintelRepository.findBySeverityAndIdGreaterThanOrderByIdAsc(
+                severity, PageCursor.afterId(cursor), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, threat -> PageCursor.ofId(threat.getId()));
+    }
+
+    public CursorPage<Threatintel> advancedSearchPage(String type, Severity severity, String indicatorTerm,
+                                                      String cursor, int limit) {
+        List<Threatintel> rows = threatintelRepository.advancedSearchPage(
+                type, severity, indicatorTerm, PageCursor.afterId(cursor), CursorPage.fetch(limit));
+        return CursorPage.of(rows, limit, threat -> PageCursor.ofId(threat.getId()));
+    }
+
     public Optional<Threatintel> getThreatById(Integer id) {
         return threatintelRepository.findById(id);
     }
@@ -32,18 +64,10 @@ public class ThreatintelService {
         return threatintelRepository.findByIndicatorContainingIgnoreCase(indicatorSubstring);
     }
 
-    public List<Threatintel> getThreatsByType(String type) {
-        return threatintelRepository.findByType(type);
-    }
-
     public List<Threatintel> getThreatsByTypeContaining(String typeSubstring) {
         return threatintelRepository.findByTypeContainingIgnoreCase(typeSubstring);
     }
 
-    public List<Threatintel> getThreatsBySeverity(Severity severity) {
-        return threatintelRepository.findBySeverity(severity);
-    }
-
     public List<Threatintel> getThreatsByDescriptionContaining(String descriptionSubstring) {
         return threatintelRepository.findByDescriptionContainingIgnoreCase(descriptionSubstring);
     }
@@ -76,10 +100,6 @@ public class ThreatintelService {
         return threatintelRepository.findBySeverityOrderByIndicatorAsc(severity);
     }
 
-    public List<Threatintel> advancedSearch(String type, Severity severity, String indicatorTerm) {
-        return threatintelRepository.advancedSearch(type, severity, indicatorTerm);
-    }
-
     public List<String> getAllDistinctTypes() {
         return threatintelRepository.findAllDistinctTypes();
     }
@@ -89,10 +109,17 @@ public class ThreatintelService {
     }
 
     public Threatintel saveThreatintel(Threatintel threatintel) {
-        return threatintelRepository.save(threatintel);
+        Threatintel saved = threatintelRepository.save(threatintel);
+        threatIntelMatcher.reload();
+        return saved;
     }
 
     public void deleteThreatintelById(Integer id) {
         threatintelRepository.deleteById(id);
+        threatIntelMatcher.reload();
+    }
+
+    public Map<String, Object> getMatcherStats() {
+        return threatIntelMatcher.getStats();
     }
 }
\ No newline at end of file
@@ -0,0 +1,162 @@
+package edu.trincoll.siem.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Fingerprint of a log file computed while it is read: the SHA-256 of the whole content and of
+ * every run of CHUNK_LINES lines. Each line is hashed as its UTF-8 bytes followed by '\n', so
+ * CRLF and LF copies of a file, or one with and without a final newline, match. Not thread-safe.
+ */
+final class UploadFingerprint {
+
+    static final int CHUNK_LINES = 1000;
+
+    /**
+     * SHA-256 of lines [firstLine, firstLine + lineCount) of a file.
+     */
+    record Chunk(int chunkNo, long firstLine, int lineCount, byte[] hash) {
+    }
+
+    private final MessageDigest content = sha256();
+    private final MessageDigest chunk = sha256();
+    private final List<Chunk> chunks = new ArrayList<>();
+    private long lines;
+    private int chunkLines;
+    private String contentHash;
+
+    void addLine(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        content.update(bytes);
+        content.update((byte) '\n');
+        chunk.update(bytes);
+        chunk.update((byte) '\n');
+        lines++;
+        if (++chunkLines == CHUNK_LINES) {
+            closeChunk();
+        }
+    }
+
+    /**
+     * Close the last, partial chunk. No more lines can be added afterwards.
+     *
+     * @return The content hash, in lowercase hex
+     */
+    String finish() {
+        if (contentHash == null) {
+            if (chunkLines > 0) {
+                closeChunk();
+            }
+            contentHash = HexFormat.of().formatHex(content.digest());
+        }
+        return contentHash;
+    }
+
+    long getLines() {
+        return lines;
+    }
+
+    List<Chunk> getChunks() {
+        return chunks;
+    }
+
+    private void closeChunk() {
+        chunks.add(new Chunk(chunks.size(), lines - chunkLines, chunkLines, chunk.digest()));
+        chunkLines = 0;
+    }
+
+    // Content hash of a whole file held in memory, the same as reading it line by line would give
+    static String contentHash(String content) {
+        UploadFingerprint fingerprint = new UploadFingerprint();
+        content.lines().forEach(fingerprint::addLine);
+        return fingerprint.finish();
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Compares the start of a new upload with the chunks of an earlier one, and holds back the
+     * lines it has read of a chunk until the whole chunk is known to match (they are skipped) or
+     * not (they are handed back to be ingested, and so is every line after). At most one chunk of
+     * lines is held at a time. Not thread-safe.
+     */
+    static final class Prefix {
+
+        private final List<Chunk> previous;
+        private final MessageDigest digest = sha256();
+        private final List<String> held = new ArrayList<>();
+        private int chunkNo;
+        private long skipped;
+        private boolean matching;
+
+        /**
+         * @param previous Chunks of the earlier upload, in order; an empty list matches nothing
+         */
+        Prefix(List<Chunk> previous) {
+            this.previous = previous;
+            this.matching = !previous.isEmpty();
+        }
+
+        /**
+         * The lines to ingest now: none while the line is held for comparison, the held lines
+         * when their chunk turns out to differ, or just this line once the prefix has ended.
+         */
+        List<String> offer(String line) {
+            if (!matching) {
+                return List.of(line);
+            }
+            held.add(line);
+            digest.update(line.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            Chunk expected = previous.get(chunkNo);
+            if (held.size() < expected.lineCount()) {
+                return List.of();
+            }
+            if (!Arrays.equals(digest.digest(), expected.hash())) {
+                return release();
+            }
+            skipped += held.size();
+            held.clear();
+            if (++chunkNo == previous.size()) {
+                matching = false;
+            }
+            return List.of();
+        }
+
+        /**
+         * At the end of the upload: the held lines of a chunk the upload ended inside of. They
+         * cannot be compared with a whole chunk, so they are ingested.
+         */
+        List<String> finish() {
+            return release();
+        }
+
+        private List<String> release() {
+            matching = false;
+            List<String> released = new ArrayList<>(held);
+            held.clear();
+            return released;
+        }
+
+        // Lines matched with the earlier upload so far
+        long getSkipped() {
+            return skipped;
+        }
+
+        // Whether every chunk of the earlier upload was matched
+        boolean isComplete() {
+            return !previous.isEmpty() && chunkNo == previous.size();
+        }
+    }
+}
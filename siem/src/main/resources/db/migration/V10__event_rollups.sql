@@ -0,0 +1,34 @@
+-- Per-minute ('m') and per-hour ('h') event counters by file, action and source device,
+-- maintained by the application as events are ingested (EventRollups).
+-- A missing action / source device is stored as '' / 0 so it can be part of the key.
+CREATE TABLE IF NOT EXISTS EventRollup (
+    Resolution CHAR(1) NOT NULL CHECK (Resolution IN ('m', 'h')),
+    Bucket TIMESTAMP NOT NULL,
+    FileID INTEGER NOT NULL,
+    Action VARCHAR(100) NOT NULL DEFAULT '',
+    SourceDeviceID INTEGER NOT NULL DEFAULT 0,
+    EventCount BIGINT NOT NULL DEFAULT 0,
+    MessageLengthSum BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (Resolution, Bucket, FileID, Action, SourceDeviceID),
+    FOREIGN KEY (FileID) REFERENCES LogFile(FileID)
+        ON DELETE CASCADE
+        ON UPDATE CASCADE
+);
+
+-- Deleting a log file removes its rollups through the foreign key
+CREATE INDEX IF NOT EXISTS idx_eventrollup_fileid ON EventRollup (FileID);
+
+-- Backfill from the events already stored
+INSERT INTO EventRollup (Resolution, Bucket, FileID, Action, SourceDeviceID, EventCount, MessageLengthSum)
+SELECT 'm', date_trunc('minute', le.Timestamp), le.FileID, COALESCE(r.Action, ''), COALESCE(r.SourceDeviceID, 0),
+       COUNT(*), COALESCE(SUM(LENGTH(r.Message)), 0)
+FROM LogEvent le
+         JOIN RawLine r ON r.RawLineID = le.RawLineID
+WHERE le.Timestamp IS NOT NULL
+GROUP BY 2, 3, 4, 5;
+
+INSERT INTO EventRollup (Resolution, Bucket, FileID, Action, SourceDeviceID, EventCount, MessageLengthSum)
+SELECT 'h', date_trunc('hour', Bucket), FileID, Action, SourceDeviceID, SUM(EventCount), SUM(MessageLengthSum)
+FROM EventRollup
+WHERE Resolution = 'm'
+GROUP BY 2, 3, 4, 5;
@@ -0,0 +1,13 @@
+-- REFRESH MATERIALIZED VIEW CONCURRENTLY needs a unique index on the view and a populated view.
+-- alert_statistics already has both; logevent_count_per_hour was recreated WITH NO DATA in V7.
+CREATE UNIQUE INDEX IF NOT EXISTS idx_logevent_count_per_hour_bucket ON logevent_count_per_hour (bucket);
+REFRESH MATERIALIZED VIEW logevent_count_per_hour;
+
+-- Readers keep seeing the previous contents while a view is rebuilt
+CREATE OR REPLACE FUNCTION refresh_materialized_views()
+    RETURNS void AS $$
+BEGIN
+    REFRESH MATERIALIZED VIEW CONCURRENTLY alert_statistics;
+    REFRESH MATERIALIZED VIEW CONCURRENTLY logevent_count_per_hour;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,160 @@
+-- Range-partition LogEvent (by Timestamp) and Alert (by TriggeredAt) into one partition per day.
+-- Time-range queries only scan the partitions of the days they cover, and retention drops whole
+-- partitions (PartitionManager) instead of deleting rows.
+--
+-- A primary key of a partitioned table must include the partition key, so both become
+-- (id, time), and ids can no longer be the target of a foreign key. The references to them are
+-- kept consistent by triggers instead (and by PartitionManager when it drops a partition).
+
+-- Read the tables being replaced; recreated at the end
+DROP MATERIALIZED VIEW IF EXISTS alert_statistics;
+DROP MATERIALIZED VIEW IF EXISTS logevent_count_per_hour;
+
+ALTER TABLE IncidentEventLink DROP CONSTRAINT IF EXISTS incidenteventlink_logeventid_fkey;
+ALTER TABLE IncidentReport DROP CONSTRAINT IF EXISTS incidentreport_relatedalertid_fkey;
+ALTER TABLE LogEvent DROP CONSTRAINT IF EXISTS logevent_associatedalertid_fkey;
+
+-- Rows need a partition key; events fall back to the upload time of their file
+UPDATE LogEvent le SET Timestamp = COALESCE(lf.UploadTime, LOCALTIMESTAMP)
+FROM LogFile lf
+WHERE lf.FileID = le.FileID AND le.Timestamp IS NULL;
+UPDATE Alert SET TriggeredAt = LOCALTIMESTAMP WHERE TriggeredAt IS NULL;
+
+ALTER TABLE LogEvent RENAME TO LogEvent_old;
+ALTER TABLE Alert RENAME TO Alert_old;
+
+-- Keep the id sequences when the old tables are dropped
+ALTER SEQUENCE logevent_logeventid_seq OWNED BY NONE;
+ALTER SEQUENCE alert_alertid_seq OWNED BY NONE;
+
+CREATE TABLE LogEvent (
+    LogEventID INTEGER NOT NULL DEFAULT nextval('logevent_logeventid_seq'),
+    FileID INTEGER NOT NULL,
+    Timestamp TIMESTAMP NOT NULL,
+    AssociatedAlertID INTEGER,
+    RawLineID BIGINT NOT NULL
+) PARTITION BY RANGE (Timestamp);
+
+CREATE TABLE Alert (
+    AlertID INTEGER NOT NULL DEFAULT nextval('alert_alertid_seq'),
+    TriggeredAt TIMESTAMP NOT NULL,
+    RuleID INTEGER NOT NULL,
+    Status VARCHAR(50) NOT NULL CHECK (Status IN ('Open', 'Investigating', 'Resolved'))
+) PARTITION BY RANGE (TriggeredAt);
+
+ALTER SEQUENCE logevent_logeventid_seq OWNED BY LogEvent.LogEventID;
+ALTER SEQUENCE alert_alertid_seq OWNED BY Alert.AlertID;
+
+-- Partition <parent>_pYYYYMMDD holds [day, day + 1). Also called by PartitionManager.
+CREATE OR REPLACE FUNCTION create_daily_partition(parent TEXT, day DATE)
+    RETURNS TEXT AS $$
+DECLARE
+    part_name TEXT := lower(parent) || '_p' || to_char(day, 'YYYYMMDD');
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                   part_name, lower(parent), day::timestamp, (day + 1)::timestamp);
+    RETURN part_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions for every day with data, plus the coming week
+DO $$
+DECLARE
+    day DATE;
+BEGIN
+    FOR day IN SELECT DISTINCT Timestamp::date FROM LogEvent_old LOOP
+        PERFORM create_daily_partition('logevent', day);
+    END LOOP;
+    FOR day IN SELECT DISTINCT TriggeredAt::date FROM Alert_old LOOP
+        PERFORM create_daily_partition('alert', day);
+    END LOOP;
+    FOR day IN SELECT generate_series(CURRENT_DATE, CURRENT_DATE + 7, INTERVAL '1 day')::date LOOP
+        PERFORM create_daily_partition('logevent', day);
+        PERFORM create_daily_partition('alert', day);
+    END LOOP;
+END $$;
+
+INSERT INTO LogEvent (LogEventID, FileID, Timestamp, AssociatedAlertID, RawLineID)
+SELECT LogEventID, FileID, Timestamp, AssociatedAlertID, RawLineID FROM LogEvent_old;
+INSERT INTO Alert (AlertID, TriggeredAt, RuleID, Status)
+SELECT AlertID, TriggeredAt, RuleID, Status FROM Alert_old;
+
+DROP TABLE LogEvent_old;
+DROP TABLE Alert_old;
+
+ALTER TABLE LogEvent ADD PRIMARY KEY (LogEventID, Timestamp);
+ALTER TABLE LogEvent ADD FOREIGN KEY (FileID) REFERENCES LogFile(FileID)
+    ON DELETE CASCADE
+    ON UPDATE CASCADE;
+ALTER TABLE LogEvent ADD FOREIGN KEY (RawLineID) REFERENCES RawLine(RawLineID)
+    ON DELETE CASCADE;
+
+ALTER TABLE Alert ADD PRIMARY KEY (AlertID, TriggeredAt);
+ALTER TABLE Alert ADD FOREIGN KEY (RuleID) REFERENCES AlertRule(RuleID)
+    ON DELETE CASCADE
+    ON UPDATE CASCADE;
+
+-- The V7 / V9 indexes, now created on every partition. The V1 BRIN indexes are not recreated:
+-- a day's partition is already the time range they narrowed a scan to.
+-- Lookups by id alone (findById) probe the primary key index of each partition.
+CREATE INDEX idx_logevent_time_id ON LogEvent (Timestamp DESC, LogEventID DESC);
+CREATE INDEX idx_logevent_noalert_time_id ON LogEvent (Timestamp DESC, LogEventID DESC)
+    WHERE AssociatedAlertID IS NULL;
+CREATE INDEX idx_logevent_file_time_id ON LogEvent (FileID, Timestamp DESC, LogEventID DESC);
+CREATE INDEX idx_logevent_rawlineid ON LogEvent (RawLineID);
+-- Used to clear references to deleted alerts
+CREATE INDEX idx_logevent_alertid ON LogEvent (AssociatedAlertID) WHERE AssociatedAlertID IS NOT NULL;
+
+CREATE INDEX idx_alert_time_id ON Alert (TriggeredAt DESC, AlertID DESC);
+CREATE INDEX idx_alert_status_time_id ON Alert (Status, TriggeredAt DESC, AlertID DESC);
+CREATE INDEX idx_alert_ruleid ON Alert (RuleID);
+
+-- What the dropped foreign keys did on delete. Dropping a partition does not fire these;
+-- PartitionManager clears the references before it drops one.
+CREATE OR REPLACE FUNCTION logevent_delete_links()
+    RETURNS TRIGGER AS $$
+BEGIN
+    DELETE FROM IncidentEventLink WHERE LogEventID = OLD.LogEventID;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER logevent_delete_links AFTER DELETE ON LogEvent
+    FOR EACH ROW EXECUTE FUNCTION logevent_delete_links();
+
+CREATE OR REPLACE FUNCTION alert_clear_references()
+    RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE LogEvent SET AssociatedAlertID = NULL WHERE AssociatedAlertID = OLD.AlertID;
+    UPDATE IncidentReport SET RelatedAlertID = NULL WHERE RelatedAlertID = OLD.AlertID;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER alert_clear_references AFTER DELETE ON Alert
+    FOR EACH ROW EXECUTE FUNCTION alert_clear_references();
+
+CREATE INDEX IF NOT EXISTS idx_incidenteventlink_logeventid ON IncidentEventLink (LogEventID);
+CREATE INDEX IF NOT EXISTS idx_incidentreport_relatedalertid ON IncidentReport (RelatedAlertID);
+
+-- As defined in V1 / V7 / V11
+CREATE MATERIALIZED VIEW alert_statistics AS
+SELECT
+    ar.Severity,
+    COUNT(a.AlertID) as alert_count,
+    AVG(EXTRACT(EPOCH FROM (a.TriggeredAt - le.Timestamp))) as avg_detection_time
+FROM Alert a
+         JOIN AlertRule ar ON a.RuleID = ar.RuleID
+         JOIN LogEvent le ON a.AlertID = le.AssociatedAlertID
+GROUP BY ar.Severity;
+CREATE UNIQUE INDEX ON alert_statistics (Severity);
+
+CREATE MATERIALIZED VIEW logevent_count_per_hour AS
+SELECT
+    time_bucket('1 hour', "timestamp") AS bucket,
+    COUNT(*) AS logs_count,
+    AVG(LENGTH(r.message)) AS avg_message_length
+FROM LogEvent le
+         JOIN RawLine r ON le.RawLineID = r.RawLineID
+GROUP BY bucket;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_logevent_count_per_hour_bucket ON logevent_count_per_hour (bucket);
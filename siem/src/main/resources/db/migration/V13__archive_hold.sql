@@ -0,0 +1,14 @@
+-- Windows of a log file restored from the archive, kept in PostgreSQL until ExpiresAt instead of
+-- being archived again by the next retention run (RetentionArchiver)
+CREATE TABLE IF NOT EXISTS ArchiveHold (
+    HoldID SERIAL PRIMARY KEY,
+    FileID INTEGER NOT NULL,
+    StartTime TIMESTAMP NOT NULL,
+    EndTime TIMESTAMP NOT NULL,
+    ExpiresAt TIMESTAMP NOT NULL,
+    FOREIGN KEY (FileID) REFERENCES LogFile(FileID)
+        ON DELETE CASCADE
+        ON UPDATE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_archivehold_file ON ArchiveHold (FileID, ExpiresAt);
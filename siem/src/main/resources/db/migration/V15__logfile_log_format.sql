@@ -0,0 +1,3 @@
+-- Log format a file is parsed with (ParserRegistry): requested on upload, or set by ingestion from
+-- siem.parser.formats-by-source or detection. NULL for files ingested before formats existed.
+ALTER TABLE LogFile ADD COLUMN IF NOT EXISTS LogFormat VARCHAR(20);
@@ -0,0 +1,12 @@
+-- User-defined grok-style parsing patterns (ParsePatternMatcher). Active patterns run against
+-- every line of files with a matching SourceType (any file when NULL), highest Priority first;
+-- the first match writes its captured fields into RawLine.ParsedData.
+CREATE TABLE IF NOT EXISTS ParsePattern (
+    PatternID SERIAL PRIMARY KEY,
+    Name VARCHAR(100) NOT NULL UNIQUE,
+    Pattern TEXT NOT NULL,
+    SourceType VARCHAR(50),
+    Priority INTEGER NOT NULL DEFAULT 0,
+    IsActive BOOLEAN NOT NULL DEFAULT TRUE,
+    UpdatedAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,27 @@
+-- Content fingerprints of ingested log files (LogfileFingerprints), so a re-uploaded file is
+-- recognized and only the lines after the part already ingested are parsed.
+-- ContentHash is the SHA-256 of the whole file with each line ending in '\n'; LineCount its lines.
+-- SkippedLines of an upload were already ingested with the file in DuplicateOf only, so deleting
+-- that file is refused while a later upload depends on it (the API answers 409 with the uploads).
+ALTER TABLE LogFile ADD COLUMN IF NOT EXISTS ContentHash VARCHAR(64);
+ALTER TABLE LogFile ADD COLUMN IF NOT EXISTS LineCount BIGINT;
+ALTER TABLE LogFile ADD COLUMN IF NOT EXISTS SkippedLines BIGINT;
+ALTER TABLE LogFile ADD COLUMN IF NOT EXISTS DuplicateOf INTEGER
+    REFERENCES LogFile(FileID) ON DELETE RESTRICT;
+
+CREATE INDEX IF NOT EXISTS idx_logfile_contenthash ON LogFile (ContentHash);
+-- The latest earlier upload of the same file
+CREATE INDEX IF NOT EXISTS idx_logfile_filename_source ON LogFile (FileName, SourceName, FileID DESC);
+
+-- SHA-256 of each run of LineCount lines starting at line FirstLine (0-based) of a file
+CREATE TABLE IF NOT EXISTS LogFileFingerprint (
+    FileID INTEGER NOT NULL,
+    ChunkNo INTEGER NOT NULL,
+    FirstLine BIGINT NOT NULL,
+    LineCount INTEGER NOT NULL,
+    Hash BYTEA NOT NULL,
+    PRIMARY KEY (FileID, ChunkNo),
+    FOREIGN KEY (FileID) REFERENCES LogFile(FileID)
+        ON DELETE CASCADE
+        ON UPDATE CASCADE
+);
@@ -0,0 +1,18 @@
+-- Files followed in a local log directory (LogTailer). Each file, and each generation of it
+-- after a truncation, is a LogFile row; ReadOffset is the byte position after the last line
+-- ingested from it, committed with its events, so a restart resumes there.
+-- FileKey identifies the file on disk (inode) so a rotated file is not mistaken for its successor.
+CREATE TABLE IF NOT EXISTS LogFileTail (
+    FileID INTEGER PRIMARY KEY,
+    Path TEXT NOT NULL,
+    FileKey VARCHAR(200),
+    ReadOffset BIGINT NOT NULL DEFAULT 0,
+    Active BOOLEAN NOT NULL DEFAULT TRUE,
+    UpdatedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (FileID) REFERENCES LogFile(FileID)
+        ON DELETE CASCADE
+        ON UPDATE CASCADE
+);
+
+-- The file being followed at a path
+CREATE INDEX IF NOT EXISTS idx_logfiletail_path ON LogFileTail (Path) WHERE Active;
@@ -0,0 +1,7 @@
+-- The seeded "Multiple Failed Logins" rule counted the action 'Failed Login', which no parser
+-- produces (they emit LOGIN_FAILED), so it never fired. Count LOGIN_FAILED per user instead,
+-- matching the rule's description. Rules edited since seeding are left alone.
+UPDATE AlertRule
+SET ConditionLogic = '{"condition": "count", "field": "Action", "value": "LOGIN_FAILED", "threshold": 5, "timeWindow": 600, "groupBy": "username"}'
+WHERE Name = 'Multiple Failed Logins'
+  AND ConditionLogic ->> 'value' = 'Failed Login';
@@ -0,0 +1,6 @@
+-- Incident report lists are keyset paginated on (CreatedAt, ReportID), which skips rows whose
+-- CreatedAt is NULL. Reports saved through JPA without a date got NULL rather than the column
+-- default; stamp them with the migration time and require a date from now on (the service sets it).
+UPDATE IncidentReport SET CreatedAt = CURRENT_TIMESTAMP WHERE CreatedAt IS NULL;
+
+ALTER TABLE IncidentReport ALTER COLUMN CreatedAt SET NOT NULL;
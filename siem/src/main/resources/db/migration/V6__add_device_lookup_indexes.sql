@@ -0,0 +1,3 @@
+-- Device lookups by IP address and hostname (used when resolving parsed log lines)
+CREATE INDEX IF NOT EXISTS idx_device_ipaddress ON Device (IPAddress);
+CREATE INDEX IF NOT EXISTS idx_device_hostname ON Device (Hostname);
@@ -0,0 +1,53 @@
+-- Address raw lines by a 64-bit hash id instead of the full text.
+-- RawLineID is the first 64 bits of md5(RawLine) (same as RawlineHash in the application);
+-- a line whose hash is already taken by a different line moves to the next free id.
+
+-- Depends on LogEvent.RawLine; recreated below
+DROP MATERIALIZED VIEW IF EXISTS logevent_count_per_hour;
+
+-- The text does not change, so skip recomputing search_vector for every row
+ALTER TABLE RawLine DISABLE TRIGGER tsvectorupdate;
+
+ALTER TABLE RawLine ADD COLUMN RawLineID BIGINT;
+UPDATE RawLine SET RawLineID = ('x' || substr(md5(RawLine), 1, 16))::bit(64)::bigint;
+
+-- Resolve collisions: keep the first line (by text) on each id and shift the others up by one
+DO $$
+BEGIN
+    WHILE EXISTS (SELECT 1 FROM RawLine GROUP BY RawLineID HAVING COUNT(*) > 1) LOOP
+        UPDATE RawLine r
+        SET RawLineID = r.RawLineID + 1
+        FROM (SELECT ctid AS row_ctid,
+                     ROW_NUMBER() OVER (PARTITION BY RawLineID ORDER BY RawLine) AS rn
+              FROM RawLine) d
+        WHERE r.ctid = d.row_ctid AND d.rn > 1;
+    END LOOP;
+END $$;
+
+ALTER TABLE RawLine ENABLE TRIGGER tsvectorupdate;
+
+-- Point log events at the new id
+ALTER TABLE LogEvent ADD COLUMN RawLineID BIGINT;
+UPDATE LogEvent le SET RawLineID = r.RawLineID FROM RawLine r WHERE r.RawLine = le.RawLine;
+ALTER TABLE LogEvent DROP COLUMN RawLine;  -- also drops its foreign key
+ALTER TABLE LogEvent ALTER COLUMN RawLineID SET NOT NULL;
+
+-- Swap the primary key (the text index was the largest index in the schema)
+ALTER TABLE RawLine DROP CONSTRAINT rawline_pkey;
+ALTER TABLE RawLine ALTER COLUMN RawLine SET NOT NULL;
+ALTER TABLE RawLine ALTER COLUMN RawLineID SET NOT NULL;
+ALTER TABLE RawLine ADD PRIMARY KEY (RawLineID);
+
+ALTER TABLE LogEvent ADD FOREIGN KEY (RawLineID) REFERENCES RawLine(RawLineID)
+    ON DELETE CASCADE;
+CREATE INDEX idx_logevent_rawlineid ON LogEvent (RawLineID);
+
+CREATE MATERIALIZED VIEW logevent_count_per_hour AS
+SELECT
+    time_bucket('1 hour', "timestamp") AS bucket,
+    COUNT(*) AS logs_count,
+    AVG(LENGTH(r.message)) AS avg_message_length
+FROM LogEvent le
+         JOIN RawLine r ON le.RawLineID = r.RawLineID
+GROUP BY bucket
+WITH NO DATA;
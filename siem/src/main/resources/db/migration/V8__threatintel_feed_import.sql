@@ -0,0 +1,9 @@
+-- One row per indicator, so feeds can be applied with upserts (keep the oldest duplicate)
+DELETE FROM ThreatIntel t
+    USING ThreatIntel d
+WHERE t.Indicator = d.Indicator AND t.ThreatID > d.ThreatID;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_threatintel_indicator ON ThreatIntel (Indicator);
+
+-- Feed an indicator was imported from (NULL for indicators entered by hand)
+ALTER TABLE ThreatIntel ADD COLUMN IF NOT EXISTS Source VARCHAR(100);
+CREATE INDEX IF NOT EXISTS idx_threatintel_source ON ThreatIntel (Source);
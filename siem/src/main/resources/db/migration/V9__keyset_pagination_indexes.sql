@@ -0,0 +1,15 @@
+-- Composite (sort key, id) indexes for keyset pagination: each page is one index seek to the
+-- cursor followed by a LIMIT, however deep the client has paged.
+CREATE INDEX IF NOT EXISTS idx_logevent_time_id ON LogEvent (Timestamp DESC, LogEventID DESC);
+CREATE INDEX IF NOT EXISTS idx_logevent_noalert_time_id ON LogEvent (Timestamp DESC, LogEventID DESC)
+    WHERE AssociatedAlertID IS NULL;
+
+-- Replaces (FileID, timestamp) with a version that also orders ties by id
+CREATE INDEX IF NOT EXISTS idx_logevent_file_time_id ON LogEvent (FileID, Timestamp DESC, LogEventID DESC);
+DROP INDEX IF EXISTS idx_logevent_file_time;
+
+CREATE INDEX IF NOT EXISTS idx_alert_time_id ON Alert (TriggeredAt DESC, AlertID DESC);
+CREATE INDEX IF NOT EXISTS idx_alert_status_time_id ON Alert (Status, TriggeredAt DESC, AlertID DESC);
+
+CREATE INDEX IF NOT EXISTS idx_incidentreport_time_id ON IncidentReport (CreatedAt DESC, ReportID DESC);
+CREATE INDEX IF NOT EXISTS idx_incidentreport_creator_time_id ON IncidentReport (CreatedBy, CreatedAt DESC, ReportID DESC);
@@ -1,6 +1,8 @@
 package edu.trincoll.siem.Controller;
 
 import edu.trincoll.siem.Model.*;
+import edu.trincoll.siem.Model.View.LogeventView;
+import edu.trincoll.siem.Model.View.RawlineView;
 import edu.trincoll.siem.Service.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,15 +11,26 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -41,6 +54,18 @@ public class EventControllerTest {
     @Mock
     private LogfileService logfileService;
 
+    @Mock
+    private IngestionScheduler ingestionScheduler;
+
+    @Mock
+    private LogeventExporter logeventExporter;
+
+    @Mock
+    private RetentionArchiver retentionArchiver;
+
+    @Mock
+    private LogTailer logTailer;
+
     @InjectMocks
     private EventController eventController;
 
@@ -134,21 +159,113 @@ public class EventControllerTest {
     // LogEvent Tests
     @Test
     public void testGetAllEvents() throws Exception {
-        Logevent event1 = new Logevent();
-        event1.setId(1);
-        event1.setTimestamp(Instant.now());
+        LogeventView event1 = new LogeventView(1, Instant.now(), 7, "system.log", 10L, "log line 1", "Login ok",
+                "LOGIN", 3, "web01", 22, null, null, null, null, null);
+        LogeventView event2 = new LogeventView(2, Instant.now(), 7, "system.log", 11L, "log line 2", null,
+                null, null, null, null, null, null, null, null, 5);
 
-        Logevent event2 = new Logevent();
-        event2.setId(2);
-        event2.setTimestamp(Instant.now());
-
-        when(logeventService.getAllEvents()).thenReturn(Arrays.asList(event1, event2));
+        when(logeventService.getEventsPage(null, 100)).thenReturn(new CursorPage<>(Arrays.asList(event1, event2), null));
 
         mockMvc.perform(get("/api/events/logevents"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0].id", is(1)))
-                .andExpect(jsonPath("$[1].id", is(2)));
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.nextCursor").value(nullValue()))
+                .andExpect(jsonPath("$.items[0].id", is(1)))
+                .andExpect(jsonPath("$.items[0].fileid.id", is(7)))
+                .andExpect(jsonPath("$.items[0].rawline.rawline", is("log line 1")))
+                .andExpect(jsonPath("$.items[0].rawline.action.action", is("LOGIN")))
+                .andExpect(jsonPath("$.items[0].rawline.sourcedeviceid.hostname", is("web01")))
+                .andExpect(jsonPath("$.items[0].associatedalertid").value(nullValue()))
+                .andExpect(jsonPath("$.items[1].id", is(2)))
+                .andExpect(jsonPath("$.items[1].rawline.action").value(nullValue()))
+                .andExpect(jsonPath("$.items[1].associatedalertid.id", is(5)));
+    }
+
+    @Test
+    public void testGetEventsNextPage() throws Exception {
+        LogeventView event = new LogeventView(3, Instant.now(), null, null, null);
+
+        String cursor = new PageCursor(Instant.parse("2023-01-01T00:00:00Z"), 4).encode();
+        String next = new PageCursor(event.timestamp(), 3).encode();
+        when(logeventService.getEventsPage(cursor, 1)).thenReturn(new CursorPage<>(List.of(event), next));
+
+        mockMvc.perform(get("/api/events/logevents").param("cursor", cursor).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", next))
+                .andExpect(jsonPath("$.nextCursor", is(next)))
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id", is(3)));
+    }
+
+    @Test
+    public void testGetEventsInvalidCursor() throws Exception {
+        when(logeventService.getEventsPage("bogus", 100)).thenThrow(new InvalidCursorException());
+
+        mockMvc.perform(get("/api/events/logevents").param("cursor", "bogus"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testExportEvents() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(4);
+            out.write("{\"logeventid\":1}\n{\"logeventid\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        }).when(logeventExporter).export(any(Instant.class), any(Instant.class), isNull(),
+                eq(LogeventExporter.Format.NDJSON), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/events/logevents/export")
+                        .param("startTime", "2023-01-01T00:00:00Z")
+                        .param("endTime", "2023-01-02T00:00:00Z"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(content().string("{\"logeventid\":1}\n{\"logeventid\":2}\n"));
+    }
+
+    @Test
+    public void testExportEventsUnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/events/logevents/export")
+                        .param("startTime", "2023-01-01T00:00:00Z")
+                        .param("endTime", "2023-01-02T00:00:00Z")
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testEventCountMaterializedStalenessHeaders() throws Exception {
+        Instant refreshedAt = Instant.now().minusSeconds(120);
+        when(logeventService.getEventCountFromMaterializedView(any(Instant.class), any(Instant.class)))
+                .thenReturn(List.<Object[]>of(new Object[]{"2023-01-01T00:00:00Z", 5}));
+        when(logeventService.getEventCountFreshness())
+                .thenReturn(new MaterializedViewRefresher.Freshness(refreshedAt, refreshedAt.plusSeconds(60)));
+
+        mockMvc.perform(get("/api/events/event-count/materialized")
+                        .param("startTime", "2023-01-01T00:00:00Z")
+                        .param("endTime", "2023-01-02T00:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string("X-Refreshed-At", refreshedAt.toString()))
+                .andExpect(header().string("X-Staleness-Seconds", anyOf(is("60"), is("61"))));
+    }
+
+    @Test
+    public void testEventCountMaterializedBeforeFirstRefresh() throws Exception {
+        when(logeventService.getEventCountFromMaterializedView(any(Instant.class), any(Instant.class)))
+                .thenReturn(List.of());
+        when(logeventService.getEventCountFreshness())
+                .thenReturn(new MaterializedViewRefresher.Freshness(null, null));
+
+        mockMvc.perform(get("/api/events/event-count/materialized")
+                        .param("startTime", "2023-01-01T00:00:00Z")
+                        .param("endTime", "2023-01-02T00:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Refreshed-At"))
+                .andExpect(header().doesNotExist("X-Staleness-Seconds"));
     }
 
     @Test
@@ -182,34 +299,46 @@ public class EventControllerTest {
     // RawLine Tests
     @Test
     public void testGetAllRawlines() throws Exception {
-        Rawline rawline1 = new Rawline();
-        rawline1.setRawline("log line 1");
+        RawlineView rawline1 = new RawlineView(1L, "log line 1", null, null, null, null, null, null, null);
+        RawlineView rawline2 = new RawlineView(2L, "log line 2", null, null, null, null, null, null, null);
 
-        Rawline rawline2 = new Rawline();
-        rawline2.setRawline("log line 2");
-
-        when(rawlineService.getAllRawlines()).thenReturn(Arrays.asList(rawline1, rawline2));
+        when(rawlineService.getRawlinesPage(null, 100)).thenReturn(new CursorPage<>(Arrays.asList(rawline1, rawline2), null));
 
         mockMvc.perform(get("/api/events/rawlines"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0].rawline", is("log line 1")))
-                .andExpect(jsonPath("$[1].rawline", is("log line 2")));
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].rawline", is("log line 1")))
+                .andExpect(jsonPath("$.items[1].rawline", is("log line 2")));
     }
 
     @Test
     public void testSearchRawlines() throws Exception {
+        RawlineView rawline = new RawlineView(1L, "log line with error", null, null, null, null, null,
+                "System error occurred", null);
+        String next = PageCursor.ofId(1L).encode();
+
+        when(rawlineService.searchRawlinesByMessagePage("error", null, 1))
+                .thenReturn(new CursorPage<>(List.of(rawline), next));
+
+        mockMvc.perform(get("/api/events/rawlines/search?term=error&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].rawline", is("log line with error")))
+                .andExpect(jsonPath("$.items[0].message", is("System error occurred")))
+                .andExpect(jsonPath("$.nextCursor", is(next)));
+    }
+
+    @Test
+    public void testFullTextSearchIsCappedByLimit() throws Exception {
         Rawline rawline = new Rawline();
         rawline.setRawline("log line with error");
-        rawline.setMessage("System error occurred");
 
-        when(rawlineService.searchRawlinesByMessage("error")).thenReturn(Arrays.asList(rawline));
+        when(rawlineService.fullTextSearch("error", 100)).thenReturn(List.of(rawline));
 
-        mockMvc.perform(get("/api/events/rawlines/search?term=error"))
+        mockMvc.perform(get("/api/events/rawlines/fulltext?term=error"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].rawline", is("log line with error")))
-                .andExpect(jsonPath("$[0].message", is("System error occurred")));
+                .andExpect(jsonPath("$[0].rawline", is("log line with error")));
     }
 
     // LogFile Tests
@@ -223,15 +352,15 @@ public class EventControllerTest {
         logfile2.setId(2);
         logfile2.setFilename("access.log");
 
-        when(logfileService.getAllLogfiles()).thenReturn(Arrays.asList(logfile1, logfile2));
+        when(logfileService.getLogfilesPage(null, 100)).thenReturn(new CursorPage<>(Arrays.asList(logfile1, logfile2), null));
 
         mockMvc.perform(get("/api/events/logfiles"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(2)))
-                .andExpect(jsonPath("$[0].id", is(1)))
-                .andExpect(jsonPath("$[0].filename", is("system.log")))
-                .andExpect(jsonPath("$[1].id", is(2)))
-                .andExpect(jsonPath("$[1].filename", is("access.log")));
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].id", is(1)))
+                .andExpect(jsonPath("$.items[0].filename", is("system.log")))
+                .andExpect(jsonPath("$.items[1].id", is(2)))
+                .andExpect(jsonPath("$.items[1].filename", is("access.log")));
     }
 
     @Test
@@ -248,6 +377,56 @@ public class EventControllerTest {
                 .andExpect(jsonPath("$.filename", is("system.log")));
     }
 
+    @Test
+    public void testGetLogfileNeverReturnsContent() throws Exception {
+        Logfile logfile = new Logfile();
+        logfile.setId(1);
+        logfile.setRawcontent("line 1\n");
+
+        when(logfileService.getLogfileById(1)).thenReturn(Optional.of(logfile));
+
+        mockMvc.perform(get("/api/events/logfiles/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rawcontent").doesNotExist());
+    }
+
+    @Test
+    public void testDownloadLogfileContent() throws Exception {
+        Logfile logfile = new Logfile();
+        logfile.setId(1);
+        logfile.setFilename("system.log");
+
+        when(logfileService.getLogfileById(1)).thenReturn(Optional.of(logfile));
+        when(logfileService.getContentLength(1)).thenReturn(14L);
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("line 1\nline 2\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(logfileService).copyContentTo(eq(1), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/events/logfiles/1/content"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Length", "14"))
+                .andExpect(header().string("Content-Disposition", containsString("system.log")))
+                .andExpect(content().string("line 1\nline 2\n"));
+    }
+
+    @Test
+    public void testDownloadLogfileContentNotKept() throws Exception {
+        Logfile logfile = new Logfile();
+        logfile.setId(1);
+
+        when(logfileService.getLogfileById(1)).thenReturn(Optional.of(logfile));
+        when(logfileService.getContentLength(1)).thenReturn(null);
+
+        mockMvc.perform(get("/api/events/logfiles/1/content"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     public void testCreateLogfile() throws Exception {
         Logfile logfile = new Logfile();
@@ -264,6 +443,99 @@ public class EventControllerTest {
                 .andExpect(jsonPath("$.filename", is("system.log")));
     }
 
+    @Test
+    public void testCreateLogfileQueueFull() throws Exception {
+        Logfile logfile = new Logfile();
+        logfile.setId(1);
+        logfile.setFilename("system.log");
+
+        when(logfileService.saveLogfile(any(Logfile.class))).thenReturn(logfile);
+        when(ingestionScheduler.submit(any(Logfile.class), anyInt()))
+                .thenThrow(new IngestionRejectedException("Ingestion queue is full"));
+
+        mockMvc.perform(post("/api/events/logfiles")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":1,\"filename\":\"system.log\"}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+
+        verify(logfileService).deleteLogfile(1);
+    }
+
+    @Test
+    public void testStreamLogfileQueueFull() throws Exception {
+        Logfile logfile = new Logfile();
+        logfile.setId(2);
+        logfile.setFilename("stream.log");
+
+        when(logfileService.saveLogfile(any(Logfile.class))).thenReturn(logfile);
+        when(ingestionScheduler.runInline(any(Logfile.class), any()))
+                .thenThrow(new IngestionRejectedException("Ingestion queue is full"));
+
+        mockMvc.perform(post("/api/events/logfiles/stream")
+                        .param("filename", "stream.log")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content("Mar  9 10:15:30 host: line\n"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+
+        verify(logfileService).deleteLogfile(2);
+        verify(logfileService, never()).ingestStream(any(), any(), anyBoolean(), any());
+    }
+
+    @Test
+    public void testDeleteLogfile() throws Exception {
+        when(logfileService.logfileExists(3)).thenReturn(true);
+        when(logfileService.getDependentUploads(3)).thenReturn(List.of());
+
+        mockMvc.perform(delete("/api/events/logfiles/3"))
+                .andExpect(status().isNoContent());
+
+        verify(logfileService).deleteLogfile(3);
+    }
+
+    @Test
+    public void testDeleteLogfileWithDependentUploads() throws Exception {
+        when(logfileService.logfileExists(3)).thenReturn(true);
+        when(logfileService.getDependentUploads(3)).thenReturn(List.of(5, 9));
+
+        mockMvc.perform(delete("/api/events/logfiles/3"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.dependentFileIds", contains(5, 9)));
+
+        verify(logfileService, never()).deleteLogfile(anyInt());
+    }
+
+    @Test
+    public void testCreateLogfileAlreadyIngested() throws Exception {
+        Logfile existing = new Logfile();
+        existing.setId(7);
+        existing.setFilename("system.log");
+
+        when(logfileService.findUploadedCopy(any(Logfile.class))).thenReturn(Optional.of(existing));
+
+        mockMvc.perform(post("/api/events/logfiles")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"filename\":\"system.log\",\"rawcontent\":\"line 1\\n\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(7)));
+
+        verify(logfileService, never()).saveLogfile(any(Logfile.class));
+        verify(ingestionScheduler, never()).submit(any(Logfile.class), anyInt());
+    }
+
+    @Test
+    public void testCreateLogfileUnknownFormat() throws Exception {
+        when(logfileService.getLogFormats()).thenReturn(Arrays.asList("generic", "syslog", "cef"));
+
+        mockMvc.perform(post("/api/events/logfiles")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"filename\":\"fw.log\",\"logformat\":\"xml\"}"))
+                .andExpect(status().isBadRequest());
+
+        verify(logfileService, never()).saveLogfile(any(Logfile.class));
+    }
+
     // Statistics Tests
     @Test
     public void testGetEventCountsByFile() throws Exception {
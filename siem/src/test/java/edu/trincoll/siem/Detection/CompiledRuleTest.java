@@ -0,0 +1,118 @@
+package edu.trincoll.siem.Detection;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.trincoll.siem.Model.Alertrule;
+import edu.trincoll.siem.Parser.LogLineParser;
+import edu.trincoll.siem.Parser.ParsedLogLine;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledRuleTest {
+
+    private final LogLineParser parser = new LogLineParser();
+    private final SlidingWindowStore windows = new SlidingWindowStore(16, 1000, System::currentTimeMillis);
+
+    private static Alertrule rule(Map<String, Object> logic) {
+        Alertrule rule = new Alertrule();
+        rule.setId(1);
+        rule.setName("test");
+        rule.setConditionlogic(logic);
+        return rule;
+    }
+
+    @Test
+    public void testCountRuleFiresAtThresholdPerGroup() {
+        RuleEvaluator evaluator = CompiledRule.compile(rule(Map.of(
+                "condition", "count", "field", "Action", "value", "LOGIN_FAILED",
+                "threshold", 3, "timeWindow", 60, "groupBy", "username")), windows, null).evaluator();
+
+        ParsedLogLine bob = parser.parse("Apr 17 09:23:41 dc01.corp.local: User bob failed login attempt - Reason: wrong password");
+        ParsedLogLine alice = parser.parse("Apr 17 09:23:42 dc01.corp.local: User alice failed login attempt - Reason: wrong password");
+
+        assertEquals("bob", evaluator.match(bob));
+        assertEquals("alice", evaluator.match(alice));
+
+        assertFalse(evaluator.record("bob", 0));
+        assertFalse(evaluator.record("bob", 10_000));
+        assertFalse(evaluator.record("alice", 20_000));
+        assertTrue(evaluator.record("bob", 20_000));
+
+        // The window restarts after firing
+        assertFalse(evaluator.record("bob", 21_000));
+    }
+
+    @Test
+    public void testSeededFailedLoginRuleFiresOnParserOutput() throws Exception {
+        // The condition logic as the migration stores it, not a copy that could drift from it
+        String sql;
+        try (InputStream in = getClass().getResourceAsStream("/db/migration/V19__failed_login_rule_action.sql")) {
+            assertNotNull(in);
+            sql = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        Matcher literal = Pattern.compile("ConditionLogic = '(\\{.*?})'").matcher(sql);
+        assertTrue(literal.find());
+        Map<String, Object> logic = new ObjectMapper().readValue(literal.group(1), new TypeReference<>() {
+        });
+
+        RuleEvaluator evaluator = CompiledRule.compile(rule(logic), windows, null).evaluator();
+
+        String bob = "Apr 17 09:23:41 dc01.corp.local: User bob failed login attempt - Reason: wrong password";
+        String alice = "Apr 17 09:23:42 dc01.corp.local: User alice failed login attempt";
+        boolean fired = false;
+        for (int i = 0; i < 4; i++) {
+            fired |= evaluator.record(evaluator.match(parser.parse(bob)), i * 1000L);
+            fired |= evaluator.record(evaluator.match(parser.parse(alice)), i * 1000L);
+        }
+        assertFalse(fired);
+        assertEquals("bob", evaluator.match(parser.parse(bob)));
+        assertTrue(evaluator.record("bob", 5000));
+    }
+
+    @Test
+    public void testCountRuleForgetsEventsOutsideWindow() {
+        RuleEvaluator evaluator = CompiledRule.compile(rule(Map.of(
+                "condition", "count", "field", "Action", "value", "LOGIN_FAILED",
+                "threshold", 2, "timeWindow", 60)), windows, null).evaluator();
+
+        assertFalse(evaluator.record("", 0));
+        assertFalse(evaluator.record("", 60_000));
+        assertTrue(evaluator.record("", 61_000));
+    }
+
+    @Test
+    public void testCountRuleIgnoresOtherActions() {
+        RuleEvaluator evaluator = CompiledRule.compile(rule(Map.of(
+                "condition", "count", "field", "Action", "value", "LOGIN_FAILED",
+                "threshold", 2, "timeWindow", 60)), windows, null).evaluator();
+
+        assertNull(evaluator.match(parser.parse("Apr 17 09:25:18 fw01.corp.local: Connection from 192.168.1.45:52631 to 8.8.8.8:53")));
+    }
+
+    @Test
+    public void testMatchRuleOnConnectionSourceIp() {
+        RuleEvaluator evaluator = CompiledRule.compile(rule(Map.of(
+                "condition", "match", "field", "SourceIP", "values", List.of("192.168.1.45", "10.0.0.1"))), windows, null).evaluator();
+
+        String key = evaluator.match(parser.parse("Apr 17 09:25:18 fw01.corp.local: Connection from 192.168.1.45:52631 to 8.8.8.8:53"));
+        assertEquals("192.168.1.45", key);
+        assertTrue(evaluator.record(key, 0));
+        assertNull(evaluator.match(parser.parse("Apr 17 09:25:18 fw01.corp.local: Connection from 192.168.1.46:52631 to 8.8.8.8:53")));
+    }
+
+    @Test
+    public void testUnsupportedConditionIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CompiledRule.compile(rule(Map.of(
+                "condition", "anomaly", "field", "Action", "value", "Error", "multiplier", 2)), windows, null));
+        assertThrows(IllegalArgumentException.class, () -> CompiledRule.compile(rule(Map.of(
+                "condition", "count", "field", "Action", "value", "Failed Login")), windows, null));
+    }
+}
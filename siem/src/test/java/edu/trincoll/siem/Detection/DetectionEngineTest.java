@@ -0,0 +1,112 @@
+package edu.trincoll.siem.Detection;
+
+import edu.trincoll.siem.Model.Alertrule;
+import edu.trincoll.siem.Model.Logevent;
+import edu.trincoll.siem.Parser.LogLineParser;
+import edu.trincoll.siem.Parser.ParsedLogLine;
+import edu.trincoll.siem.Repository.AlertruleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DetectionEngineTest {
+
+    private static final String BOB = "Apr 17 09:23:41 dc01.corp.local: User bob failed login attempt";
+
+    private final LogLineParser parser = new LogLineParser();
+    private JdbcTemplate jdbcTemplate;
+    private DetectionEngine engine;
+
+    @BeforeEach
+    public void setup() {
+        Alertrule rule = new Alertrule();
+        rule.setId(1);
+        rule.setName("Multiple Failed Logins");
+        rule.setConditionlogic(Map.of("condition", "count", "field", "Action", "value", "LOGIN_FAILED",
+                "threshold", 2, "timeWindow", 60, "groupBy", "username"));
+        AlertruleRepository alertruleRepository = mock(AlertruleRepository.class);
+        when(alertruleRepository.findByIsactive(true)).thenReturn(List.of(rule));
+
+        jdbcTemplate = mock(JdbcTemplate.class);
+        engine = new DetectionEngine(alertruleRepository, jdbcTemplate,
+                new SlidingWindowStore(16, 1000, System::currentTimeMillis), null);
+    }
+
+    private Logevent evaluate(long epochMillis) {
+        Logevent event = new Logevent();
+        event.setTimestamp(Instant.ofEpochMilli(epochMillis));
+        ParsedLogLine parsed = parser.parse(BOB);
+        engine.evaluate(event, parsed);
+        return event;
+    }
+
+    private void insertReturns(Integer alertId) {
+        when(jdbcTemplate.queryForObject(anyString(), any(Object[].class), any(int[].class), eq(Integer.class)))
+                .thenReturn(alertId);
+    }
+
+    @Test
+    public void testLaterEventsAttachToTheRaisedAlert() {
+        insertReturns(7);
+
+        assertNull(evaluate(0).getAssociatedalertid());
+        assertEquals(7, evaluate(1000).getAssociatedalertid().getId());
+        assertEquals(7, evaluate(2000).getAssociatedalertid().getId());
+
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), any(Object[].class), any(int[].class), eq(Integer.class));
+        assertEquals(1L, engine.getStats().get("alertsRaised"));
+    }
+
+    @Test
+    public void testFailedInsertLetsTheRuleFireAgain() {
+        when(jdbcTemplate.queryForObject(anyString(), any(Object[].class), any(int[].class), eq(Integer.class)))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(8);
+
+        evaluate(0);
+        assertNull(evaluate(1000).getAssociatedalertid());
+        evaluate(2000);
+        assertEquals(8, evaluate(3000).getAssociatedalertid().getId());
+    }
+
+    @Test
+    public void testInsertDoesNotBlockEventsOfTheSameGroup() throws Exception {
+        CountDownLatch inserting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.queryForObject(anyString(), any(Object[].class), any(int[].class), eq(Integer.class)))
+                .thenAnswer(invocation -> {
+                    inserting.countDown();
+                    release.await(10, TimeUnit.SECONDS);
+                    return 9;
+                });
+
+        evaluate(0);
+        CompletableFuture<Logevent> firing = CompletableFuture.supplyAsync(() -> evaluate(1000));
+        assertTrue(inserting.await(5, TimeUnit.SECONDS));
+
+        // Absorbed by the alert being raised, without waiting for its insert
+        Logevent during = CompletableFuture.supplyAsync(() -> evaluate(1500)).get(5, TimeUnit.SECONDS);
+        assertNull(during.getAssociatedalertid());
+
+        release.countDown();
+        assertEquals(9, firing.get(5, TimeUnit.SECONDS).getAssociatedalertid().getId());
+        assertEquals(9, evaluate(2000).getAssociatedalertid().getId());
+    }
+}
@@ -0,0 +1,90 @@
+package edu.trincoll.siem.Detection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlidingWindowStoreTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void testCountsWithinWindow() {
+        SlidingWindowStore store = new SlidingWindowStore(10, 100, clock::get);
+
+        assertEquals(1, store.increment(1, "bob", 0, 10_000));
+        assertEquals(2, store.increment(1, "bob", 5_000, 10_000));
+        assertEquals(1, store.increment(1, "alice", 5_000, 10_000));
+        assertEquals(1, store.increment(2, "bob", 5_000, 10_000));
+
+        // The first event slides out once the window has moved past its bucket
+        assertEquals(2, store.increment(1, "bob", 10_000, 10_000));
+        assertEquals(3, store.increment(1, "bob", 14_000, 10_000));
+        assertEquals(2, store.increment(1, "bob", 20_000, 10_000));
+    }
+
+    @Test
+    public void testLateEventsInsideWindowAreCounted() {
+        SlidingWindowStore store = new SlidingWindowStore(10, 100, clock::get);
+
+        store.increment(1, "bob", 9_000, 10_000);
+        assertEquals(2, store.increment(1, "bob", 2_000, 10_000));
+        // Older than the window: ignored
+        assertEquals(2, store.increment(1, "bob", -5_000, 10_000));
+    }
+
+    @Test
+    public void testResetStartsOver() {
+        SlidingWindowStore store = new SlidingWindowStore(10, 100, clock::get);
+
+        store.increment(1, "bob", 0, 10_000);
+        store.reset(1, "bob");
+
+        assertEquals(0, store.size());
+        assertEquals(1, store.increment(1, "bob", 1_000, 10_000));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedKeyIsDroppedAtCapacity() {
+        SlidingWindowStore store = new SlidingWindowStore(4, 2, clock::get);
+
+        store.increment(1, "a", 0, 10_000);
+        store.increment(1, "b", 0, 10_000);
+        store.increment(1, "a", 0, 10_000);
+        store.increment(1, "c", 0, 10_000);
+
+        assertEquals(2, store.size());
+        assertEquals(1L, store.getStats().get("evictedLru"));
+        // "a" was used more recently than "b", so it kept its count
+        assertEquals(3, store.increment(1, "a", 0, 10_000));
+        assertEquals(1, store.increment(1, "b", 0, 10_000));
+    }
+
+    @Test
+    public void testIdleKeysAreEvicted() {
+        SlidingWindowStore store = new SlidingWindowStore(4, 100, clock::get);
+
+        store.increment(1, "a", 0, 10_000);
+        clock.set(5_000);
+        store.increment(1, "b", 0, 10_000);
+        clock.set(12_000);
+        store.increment(1, "b", 0, 10_000);
+
+        assertEquals(1, store.size());
+        assertEquals(1L, store.getStats().get("evictedIdle"));
+    }
+
+    @Test
+    public void testManyKeysStayWithinCap() {
+        SlidingWindowStore store = new SlidingWindowStore(16, 50_000, clock::get);
+
+        for (int i = 0; i < 200_000; i++) {
+            store.increment(1, "user" + i, i, 600_000);
+        }
+
+        assertEquals(50_000, store.size());
+        assertEquals(150_000L, store.getStats().get("evictedLru"));
+    }
+}
@@ -0,0 +1,32 @@
+package edu.trincoll.siem.Model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RawlineHashTest {
+
+    // Expected values from PostgreSQL: ('x' || substr(md5(line), 1, 16))::bit(64)::bigint
+    @Test
+    public void testIdMatchesPostgres() {
+        assertEquals(-3162216497309240828L, RawlineHash.id(""));
+        assertEquals(-8584685974263150754L, RawlineHash.id("Mar 10 10:00:01 fw01 sshd[1]: Failed password"));
+    }
+
+    @Test
+    public void testHexMatchesPostgresMd5() {
+        assertEquals("88dd11970bc4475ed4af534522ab9a50",
+                RawlineHash.hex(RawlineHash.md5("Mar 10 10:00:01 fw01 sshd[1]: Failed password")));
+    }
+
+    @Test
+    public void testCandidatesProbeConsecutiveIds() {
+        List<Long> candidates = RawlineHash.candidates("");
+
+        assertEquals(RawlineHash.MAX_PROBES, candidates.size());
+        assertEquals(Long.valueOf(RawlineHash.id("")), candidates.get(0));
+        assertEquals(Long.valueOf(RawlineHash.id("") + 1), candidates.get(1));
+    }
+}
@@ -0,0 +1,59 @@
+package edu.trincoll.siem.Parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccessLogParserTest {
+
+    private final AccessLogParser parser = new AccessLogParser();
+
+    @Test
+    public void testParseCombined() {
+        ParsedLogLine parsed = parser.parse(
+                "10.0.0.5 - bob [09/Mar/2025:10:15:30 +0100] \"GET /login.php?next=%2F HTTP/1.1\" 404 512 \"https://example.com/\" \"Mozilla/5.0 (X11) \\\"quoted\\\"\"");
+
+        assertEquals(Instant.parse("2025-03-09T09:15:30Z"), parsed.getTimestamp());
+        assertEquals("10.0.0.5", parsed.getSourceIp());
+        assertEquals("bob", parsed.getParseddata().get("username"));
+        assertEquals("GET", parsed.getAction());
+        assertEquals("/login.php?next=%2F", parsed.getParseddata().get("url"));
+        assertEquals("HTTP/1.1", parsed.getParseddata().get("protocol"));
+        assertEquals("404", parsed.getParseddata().get("statusCode"));
+        assertEquals("512", parsed.getParseddata().get("bytes"));
+        assertEquals("https://example.com/", parsed.getParseddata().get("referer"));
+        assertEquals("Mozilla/5.0 (X11) \"quoted\"", parsed.getParseddata().get("userAgent"));
+        assertEquals("HTTP GET request to /login.php?next=%2F returned 404", parsed.getMessage());
+    }
+
+    @Test
+    public void testParseCommonWithHostname() {
+        ParsedLogLine parsed = parser.parse("proxy.corp.local - - [01/Jan/2025:00:00:01 -0500] \"POST /api HTTP/1.0\" 200 -");
+
+        assertNull(parsed.getSourceIp());
+        assertEquals("proxy.corp.local", parsed.getHostname());
+        assertFalse(parsed.getParseddata().containsKey("username"));
+        assertFalse(parsed.getParseddata().containsKey("bytes"));
+        assertFalse(parsed.getParseddata().containsKey("userAgent"));
+        assertEquals(Instant.parse("2025-01-01T05:00:01Z"), parsed.getTimestamp());
+        assertEquals("POST", parsed.getAction());
+    }
+
+    @Test
+    public void testMatches() {
+        assertTrue(parser.matches("1.2.3.4 - - [09/Mar/2025:10:15:30 +0000] \"GET / HTTP/1.1\" 200 10"));
+        assertFalse(parser.matches("1.2.3.4 - - [09/Xyz/2025:10:15:30 +0000] \"GET / HTTP/1.1\" 200 10"));
+        assertFalse(parser.matches("1.2.3.4 - - [09/Mar/2025:10:15:30 +0000] \"GET / HTTP/1.1\" ok 10"));
+        assertFalse(parser.matches("Apr 17 09:27:33 web01.corp.local: GET /login.php - 404"));
+    }
+
+    @Test
+    public void testUnmatchedLineKeepsMessage() {
+        ParsedLogLine parsed = parser.parse("garbage");
+
+        assertEquals("garbage", parsed.getMessage());
+        assertNull(parsed.getParseddata());
+    }
+}
@@ -0,0 +1,63 @@
+package edu.trincoll.siem.Parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CefParserTest {
+
+    private final CefParser parser = new CefParser();
+
+    @Test
+    public void testParse() {
+        ParsedLogLine parsed = parser.parse(
+                "CEF:0|Security|threatmanager|1.0|100|worm successfully stopped|10|src=10.0.0.1 dst=2.1.2.2 spt=1232 dpt=22 act=blocked msg=Detected a threat. No action needed rt=1741515330000");
+
+        assertEquals("0", parsed.getParseddata().get("cefVersion"));
+        assertEquals("Security", parsed.getParseddata().get("deviceVendor"));
+        assertEquals("threatmanager", parsed.getParseddata().get("deviceProduct"));
+        assertEquals("100", parsed.getParseddata().get("signatureId"));
+        assertEquals("worm successfully stopped", parsed.getParseddata().get("name"));
+        assertEquals("10", parsed.getParseddata().get("severity"));
+        assertEquals("10.0.0.1", parsed.getSourceIp());
+        assertEquals("2.1.2.2", parsed.getDestinationIp());
+        assertEquals(Integer.valueOf(1232), parsed.getSourceport());
+        assertEquals(Integer.valueOf(22), parsed.getDestinationport());
+        assertEquals("blocked", parsed.getAction());
+        assertEquals("Detected a threat. No action needed", parsed.getMessage());
+        assertEquals(Instant.ofEpochMilli(1741515330000L), parsed.getTimestamp());
+    }
+
+    @Test
+    public void testEscapes() {
+        ParsedLogLine parsed = parser.parse(
+                "CEF:0|Vendor\\|Inc|Prod|1|7|Name \\\\ slash|3|request=http://x/?a\\=b&c=d cs1=line1\\nline2");
+
+        assertEquals("Vendor|Inc", parsed.getParseddata().get("deviceVendor"));
+        assertEquals("Name \\ slash", parsed.getParseddata().get("name"));
+        assertEquals("http://x/?a=b&c=d", parsed.getParseddata().get("request"));
+        assertEquals("line1\nline2", parsed.getParseddata().get("cs1"));
+        // No msg extension: the event name is the message
+        assertEquals("Name \\ slash", parsed.getMessage());
+    }
+
+    @Test
+    public void testSyslogPrefix() {
+        ParsedLogLine parsed = parser.parse("<134>Mar  9 10:15:30 fw01 CEF:0|V|P|1|1|Port scan|5|src=10.0.0.7");
+
+        assertEquals("fw01", parsed.getHostname());
+        assertNotNull(parsed.getTimestamp());
+        assertEquals("10.0.0.7", parsed.getSourceIp());
+        assertEquals("Port scan", parsed.getMessage());
+    }
+
+    @Test
+    public void testMatches() {
+        assertTrue(parser.matches("CEF:0|V|P|1|1|N|5|"));
+        assertTrue(parser.matches("Mar  9 10:15:30 fw01 CEF:0|V|P|1|1|N|5|src=1.2.3.4"));
+        assertFalse(parser.matches("CEF:0|V|P|1|1|N"));
+        assertFalse(parser.matches("Apr 17 09:23:41 dc01.corp.local: User bob failed login attempt"));
+    }
+}
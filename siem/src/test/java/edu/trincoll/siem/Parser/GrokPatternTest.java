@@ -0,0 +1,85 @@
+package edu.trincoll.siem.Parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GrokPatternTest {
+
+    @Test
+    public void testMatchCapturesFields() {
+        GrokPattern pattern = GrokPattern.compile(
+                "%{SYSLOGTIMESTAMP:ts} %{HOSTNAME:host} vpn: user=%{USERNAME:username} from %{IP:sourceIp}:%{INT:sourcePort:int} took %{NUMBER:seconds:float}s");
+
+        Map<String, Object> fields = pattern.match(
+                "Mar  9 10:15:30 gw01.corp.local vpn: user=alice.b from 10.1.2.3:51515 took 1.5s");
+
+        assertEquals(List.of("ts", "host", "username", "sourceIp", "sourcePort", "seconds"), pattern.getFields());
+        assertEquals("Mar  9 10:15:30", fields.get("ts"));
+        assertEquals("gw01.corp.local", fields.get("host"));
+        assertEquals("alice.b", fields.get("username"));
+        assertEquals("10.1.2.3", fields.get("sourceIp"));
+        assertEquals(51515L, fields.get("sourcePort"));
+        assertEquals(1.5, fields.get("seconds"));
+    }
+
+    @Test
+    public void testNoMatch() {
+        GrokPattern pattern = GrokPattern.compile("user=%{USERNAME:username} from %{IPV4:sourceIp}");
+
+        assertNull(pattern.match("user=bob from somewhere"));
+        assertNull(pattern.match("nothing to see"));
+    }
+
+    @Test
+    public void testPlainRegexAndOptionalGroups() {
+        GrokPattern pattern = GrokPattern.compile("^(?:%{LOGLEVEL:level} )?\\[%{WORD:module}\\] %{GREEDYDATA:message}$");
+
+        Map<String, Object> withLevel = pattern.match("WARN [auth] too many attempts");
+        assertEquals("WARN", withLevel.get("level"));
+        assertEquals("auth", withLevel.get("module"));
+        assertEquals("too many attempts", withLevel.get("message"));
+
+        Map<String, Object> withoutLevel = pattern.match("[auth] ok");
+        assertFalse(withoutLevel.containsKey("level"));
+        assertEquals("ok", withoutLevel.get("message"));
+    }
+
+    @Test
+    public void testRequiredLiteral() {
+        assertEquals(" from ", GrokPattern.requiredLiteral("user=%{USERNAME:u} from %{IP:ip}"));
+        assertEquals("user=", GrokPattern.requiredLiteral("user=%{USERNAME:u}x?"));
+        // Escaped metacharacters are literals; quantified characters and groups are not required
+        assertEquals("[auth] ", GrokPattern.requiredLiteral("\\[auth\\] %{GREEDYDATA:m}"));
+        assertEquals(" abc", GrokPattern.requiredLiteral("(?:optional-text)? abcd?e{2}%{WORD:w}"));
+        assertNull(GrokPattern.requiredLiteral("a|b %{WORD:w}"));
+        assertNull(GrokPattern.requiredLiteral("%{WORD:w}"));
+        assertTrue(GrokPattern.compile("user=%{USERNAME:u}").hasRequiredLiteral());
+    }
+
+    @Test
+    public void testRejectsInvalidPatterns() {
+        assertThrows(IllegalArgumentException.class, () -> GrokPattern.compile("%{NOPE:x}"));
+        assertThrows(IllegalArgumentException.class, () -> GrokPattern.compile("%{WORD:x"));
+        assertThrows(IllegalArgumentException.class, () -> GrokPattern.compile("%{WORD:x:date}"));
+        assertThrows(IllegalArgumentException.class, () -> GrokPattern.compile("%{WORD:}"));
+        assertThrows(IllegalArgumentException.class, () -> GrokPattern.compile("(%{WORD:x}"));
+        assertThrows(IllegalArgumentException.class, () -> GrokPattern.compile("no fields %{WORD}"));
+        assertThrows(IllegalArgumentException.class, () -> GrokPattern.compile(" "));
+    }
+
+    @Test
+    public void testLibraryPatterns() {
+        assertEquals("192.168.0.1", GrokPattern.compile("%{IPORHOST:h} now").match("192.168.0.1 now").get("h"));
+        assertEquals("fe80::1", GrokPattern.compile("addr %{IP:ip}").match("addr fe80::1").get("ip"));
+        assertEquals("09/Mar/2025:10:15:30 +0100",
+                GrokPattern.compile("\\[%{HTTPDATE:t}\\]").match("[09/Mar/2025:10:15:30 +0100]").get("t"));
+        assertEquals("2025-03-09T10:15:30.003Z",
+                GrokPattern.compile("%{TIMESTAMP_ISO8601:t}").match("at 2025-03-09T10:15:30.003Z").get("t"));
+        assertEquals("\"a \\\"b\\\"\"", GrokPattern.compile("%{QUOTEDSTRING:q}").match("x \"a \\\"b\\\"\" y").get("q"));
+        assertTrue(GrokPattern.library().containsKey("SYSLOGTIMESTAMP"));
+    }
+}
@@ -0,0 +1,55 @@
+package edu.trincoll.siem.Parser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonLineParserTest {
+
+    private final JsonLineParser parser = new JsonLineParser(new ObjectMapper());
+
+    @Test
+    public void testParse() {
+        ParsedLogLine parsed = parser.parse(
+                "{\"@timestamp\":\"2025-03-09T10:15:30.5+01:00\",\"host\":\"web01\",\"src_ip\":\"10.0.0.5\",\"dst_port\":443,"
+                        + "\"action\":\"DENY\",\"message\":\"blocked\",\"tags\":[\"a\",\"b\"],\"user\":{\"name\":\"bob\"},\"ok\":false,\"n\":null}");
+
+        assertEquals(Instant.parse("2025-03-09T09:15:30.5Z"), parsed.getTimestamp());
+        assertEquals("web01", parsed.getHostname());
+        assertEquals("10.0.0.5", parsed.getSourceIp());
+        assertEquals(Integer.valueOf(443), parsed.getDestinationport());
+        assertEquals("DENY", parsed.getAction());
+        assertEquals("blocked", parsed.getMessage());
+        assertEquals(List.of("a", "b"), parsed.getParseddata().get("tags"));
+        assertEquals(Map.of("name", "bob"), parsed.getParseddata().get("user"));
+        assertEquals(Boolean.FALSE, parsed.getParseddata().get("ok"));
+        assertFalse(parsed.getParseddata().containsKey("n"));
+    }
+
+    @Test
+    public void testEpochTimestamps() {
+        assertEquals(Instant.ofEpochSecond(1741515330L), parser.parse("{\"ts\":1741515330}").getTimestamp());
+        assertEquals(Instant.ofEpochMilli(1741515330123L), parser.parse("{\"time\":1741515330123}").getTimestamp());
+    }
+
+    @Test
+    public void testInvalidJsonKeepsLine() {
+        String line = "{\"message\": oops}";
+        ParsedLogLine parsed = parser.parse(line);
+
+        assertEquals(line, parsed.getMessage());
+        assertNull(parsed.getTimestamp());
+    }
+
+    @Test
+    public void testMatches() {
+        assertTrue(parser.matches("  {\"a\":1} "));
+        assertFalse(parser.matches("[1,2]"));
+        assertFalse(parser.matches("Apr 17 09:23:41 dc01.corp.local: {json}x"));
+    }
+}
@@ -0,0 +1,84 @@
+package edu.trincoll.siem.Parser;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogLineParserTest {
+
+    private final LogLineParser parser = new LogLineParser();
+
+    @Test
+    public void testParseFailedLogin() {
+        ParsedLogLine parsed = parser.parse("Apr 17 09:23:41 dc01.corp.local: User bob failed login attempt - Reason: wrong password");
+
+        assertEquals("dc01.corp.local", parsed.getHostname());
+        assertEquals("LOGIN_FAILED", parsed.getAction());
+        assertEquals("Failed login attempt for user bob", parsed.getMessage());
+        assertEquals("Apr 17 09:23:41", parsed.getParseddata().get("timestamp"));
+        assertEquals("bob", parsed.getParseddata().get("username"));
+        assertEquals("wrong password", parsed.getParseddata().get("failureReason"));
+        assertNotNull(parsed.getTimestamp());
+    }
+
+    @Test
+    public void testParseFailedLoginWithoutReason() {
+        ParsedLogLine parsed = parser.parse("Apr 17 09:23:41 dc01.corp.local: User bob failed login attempt");
+
+        assertEquals("LOGIN_FAILED", parsed.getAction());
+        assertEquals("bob", parsed.getParseddata().get("username"));
+        assertFalse(parsed.getParseddata().containsKey("failureReason"));
+    }
+
+    @Test
+    public void testParseConnection() {
+        ParsedLogLine parsed = parser.parse("Apr 17 09:25:18 fw01.corp.local: Connection from 192.168.1.45:52631 to 8.8.8.8:53");
+
+        assertEquals("CONNECTION", parsed.getAction());
+        assertEquals("192.168.1.45", parsed.getConnectionSourceIp());
+        assertEquals("8.8.8.8", parsed.getConnectionDestinationIp());
+        assertEquals(Integer.valueOf(52631), parsed.getSourceport());
+        assertEquals(Integer.valueOf(53), parsed.getDestinationport());
+        assertEquals("Connection from 192.168.1.45:52631 to 8.8.8.8:53", parsed.getMessage());
+    }
+
+    @Test
+    public void testParseHttpRequest() {
+        ParsedLogLine parsed = parser.parse("Apr 17 09:27:33 web01.corp.local: GET /login.php - 404");
+
+        assertEquals("GET", parsed.getAction());
+        assertEquals("/login.php", parsed.getParseddata().get("url"));
+        assertEquals("404", parsed.getParseddata().get("statusCode"));
+        assertEquals("HTTP GET request to /login.php returned 404", parsed.getMessage());
+    }
+
+    @Test
+    public void testParseSourceAndDestinationIp() {
+        ParsedLogLine parsed = parser.parse("Apr 17 09:32:55 mail01.corp.local: Source IP: 192.168.1.100 Destination IP: 10.0.0.25:25");
+
+        assertEquals("192.168.1.100", parsed.getSourceIp());
+        assertEquals("10.0.0.25", parsed.getDestinationIp());
+        assertNull(parsed.getSourceport());
+        assertEquals(Integer.valueOf(25), parsed.getDestinationport());
+        assertEquals("192.168.1.100", parsed.getParseddata().get("sourceIp"));
+        assertNull(parsed.getAction());
+    }
+
+    @Test
+    public void testParseLineWithoutHeader() {
+        ParsedLogLine parsed = parser.parse("free form message");
+
+        assertNull(parsed.getTimestamp());
+        assertNull(parsed.getHostname());
+        assertNull(parsed.getParseddata());
+        assertEquals("free form message", parsed.getMessage());
+    }
+
+    @Test
+    public void testIpv4Parse() {
+        assertEquals(0xC0A80101L, Ipv4.parse("192.168.1.1"));
+        assertEquals(Ipv4.INVALID, Ipv4.parse("256.1.1.1"));
+        assertEquals(Ipv4.INVALID, Ipv4.parse("1.2.3"));
+        assertEquals(Ipv4.INVALID, Ipv4.parse("host.local"));
+    }
+}
@@ -0,0 +1,98 @@
+package edu.trincoll.siem.Parser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParserRegistryTest {
+
+    private final LogLineParser generic = new LogLineParser();
+
+    private ParserRegistry registry(String formatsBySource) {
+        return registry(formatsBySource, "UTC", "");
+    }
+
+    private ParserRegistry registry(String formatsBySource, String defaultZone, String zonesBySource) {
+        List<LogFormatParser> parsers = List.of(generic, new SyslogParser(generic), new AccessLogParser(),
+                new CefParser(), new JsonLineParser(new ObjectMapper()));
+        return new ParserRegistry(parsers, generic, formatsBySource, 50, defaultZone, zonesBySource);
+    }
+
+    @Test
+    public void testDetectsFormat() {
+        ParserRegistry registry = registry("");
+
+        assertEquals("cef", registry.select(null, "fw", "Firewall",
+                List.of("CEF:0|V|P|1|1|N|5|src=1.2.3.4", "", "CEF:0|V|P|1|2|N|5|src=1.2.3.5")).getName());
+        assertEquals("json", registry.select(null, null, null, List.of("{\"a\":1}", "{\"b\":2}")).getName());
+        assertEquals("access", registry.select(null, null, null,
+                List.of("1.2.3.4 - - [09/Mar/2025:10:15:30 +0000] \"GET / HTTP/1.1\" 200 10")).getName());
+        assertEquals("syslog", registry.select(null, null, null,
+                List.of("<34>Oct 11 22:14:15 mymachine su: 'su root' failed")).getName());
+    }
+
+    @Test
+    public void testFallsBackToGeneric() {
+        ParserRegistry registry = registry("");
+
+        assertSame(generic, registry.select(null, null, null,
+                List.of("Apr 17 09:23:41 dc01.corp.local: User bob failed login attempt")));
+        assertSame(generic, registry.select(null, null, null, List.of()));
+        // One CEF line out of three is not enough
+        assertSame(generic, registry.select(null, null, null, List.of("CEF:0|V|P|1|1|N|5|", "a", "b")));
+    }
+
+    @Test
+    public void testRequestedAndConfiguredFormats() {
+        ParserRegistry registry = registry("Firewall:cef, nginx-01:access");
+        List<String> jsonSample = List.of("{\"a\":1}");
+
+        assertEquals("syslog", registry.select("syslog", "nginx-01", "Firewall", jsonSample).getName());
+        // Source name wins over source type, which wins over detection
+        assertEquals("access", registry.select(null, "nginx-01", "Firewall", jsonSample).getName());
+        assertEquals("cef", registry.select(null, "other", "Firewall", jsonSample).getName());
+        assertEquals("json", registry.select(null, "other", "Server", jsonSample).getName());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStats() {
+        ParserRegistry registry = registry("Firewall:cef");
+        registry.select(null, null, "Firewall", List.of());
+        registry.select(null, null, null, List.of("{\"a\":1}"));
+
+        Map<String, Object> stats = registry.getStats();
+        assertEquals(1L, ((Map<String, Object>) stats.get("cef")).get("files"));
+        assertEquals(0L, ((Map<String, Object>) stats.get("cef")).get("detected"));
+        assertEquals(1L, ((Map<String, Object>) stats.get("json")).get("detected"));
+        assertEquals(List.of("generic", "syslog", "access", "cef", "json"), registry.getFormats());
+    }
+
+    @Test
+    public void testRejectsUnknownFormats() {
+        assertThrows(IllegalArgumentException.class, () -> registry("Firewall:nope"));
+        assertThrows(IllegalArgumentException.class, () -> registry("Firewall"));
+        assertThrows(IllegalArgumentException.class, () -> registry("").select("xml", null, null, List.of()));
+    }
+
+    @Test
+    public void testZonesBySource() {
+        ParserRegistry registry = registry("", "UTC", "Firewall:America/New_York, web-01:+05:30");
+        Instant upload = Instant.parse("2025-03-09T12:00:00Z");
+
+        assertEquals(ZoneId.of("+05:30"), registry.timestamps("web-01", "Firewall", upload).getZone());
+        assertEquals(ZoneId.of("America/New_York"), registry.timestamps("fw-02", "Firewall", upload).getZone());
+        assertEquals(ZoneId.of("UTC"), registry.timestamps(null, null, upload).getZone());
+        assertEquals(ZoneId.systemDefault(), registry("", "", "").timestamps(null, null, upload).getZone());
+
+        assertThrows(IllegalArgumentException.class, () -> registry("", "Mars/Olympus", ""));
+        assertThrows(IllegalArgumentException.class, () -> registry("", "UTC", "Firewall"));
+        assertThrows(IllegalArgumentException.class, () -> registry("", "UTC", "Firewall:Nowhere"));
+    }
+}
@@ -0,0 +1,91 @@
+package edu.trincoll.siem.Parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SyslogParserTest {
+
+    private final SyslogParser parser = new SyslogParser(new LogLineParser());
+
+    @Test
+    public void testParseRfc3164() {
+        ParsedLogLine parsed = parser.parse("<38>Mar  9 10:15:30 fw01 sshd[4242]: User bob failed login attempt - Reason: bad key");
+
+        assertEquals(4, parsed.getParseddata().get("facility"));
+        assertEquals(6, parsed.getParseddata().get("severity"));
+        assertEquals("fw01", parsed.getHostname());
+        assertEquals("sshd", parsed.getParseddata().get("program"));
+        assertEquals("4242", parsed.getParseddata().get("pid"));
+        assertEquals("Mar  9 10:15:30", parsed.getParseddata().get("timestamp"));
+        assertNotNull(parsed.getTimestamp());
+        // The message goes through the generic message rules
+        assertEquals("LOGIN_FAILED", parsed.getAction());
+        assertEquals("bob", parsed.getParseddata().get("username"));
+    }
+
+    @Test
+    public void testParseRfc3164WithoutPriority() {
+        ParsedLogLine parsed = parser.parse("Mar 19 10:15:30 web01 nginx: Connection from 10.0.0.5:5000 to 10.0.0.9:80");
+
+        assertEquals("web01", parsed.getHostname());
+        assertEquals("nginx", parsed.getParseddata().get("program"));
+        assertFalse(parsed.getParseddata().containsKey("pid"));
+        assertEquals("CONNECTION", parsed.getAction());
+        assertEquals("10.0.0.5", parsed.getConnectionSourceIp());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testParseRfc5424() {
+        ParsedLogLine parsed = parser.parse(
+                "<165>1 2025-03-09T10:15:30.003Z host01 app 42 ID47 [exampleSDID@32473 iut=\"3\" eventSource=\"App\\\"lication\"][meta x=\"y\"] \uFEFFstarted");
+
+        assertEquals(20, parsed.getParseddata().get("facility"));
+        assertEquals(5, parsed.getParseddata().get("severity"));
+        assertEquals(Instant.parse("2025-03-09T10:15:30.003Z"), parsed.getTimestamp());
+        assertEquals("host01", parsed.getHostname());
+        assertEquals("app", parsed.getParseddata().get("program"));
+        assertEquals("42", parsed.getParseddata().get("pid"));
+        assertEquals("ID47", parsed.getParseddata().get("msgid"));
+        assertEquals("started", parsed.getMessage());
+
+        Map<String, Map<String, String>> structuredData =
+                (Map<String, Map<String, String>>) parsed.getParseddata().get("structuredData");
+        assertEquals("3", structuredData.get("exampleSDID@32473").get("iut"));
+        assertEquals("App\"lication", structuredData.get("exampleSDID@32473").get("eventSource"));
+        assertEquals("y", structuredData.get("meta").get("x"));
+    }
+
+    @Test
+    public void testParseRfc5424NilFields() {
+        ParsedLogLine parsed = parser.parse("<13>1 - - - - - - hello");
+
+        assertNull(parsed.getTimestamp());
+        assertNull(parsed.getHostname());
+        assertFalse(parsed.getParseddata().containsKey("msgid"));
+        assertEquals("hello", parsed.getMessage());
+    }
+
+    @Test
+    public void testMalformedHeaderKeepsLine() {
+        String line = "<13>not a syslog header";
+        ParsedLogLine parsed = parser.parse(line);
+
+        assertEquals(line, parsed.getMessage());
+        assertNull(parsed.getHostname());
+    }
+
+    @Test
+    public void testMatches() {
+        assertTrue(parser.matches("<34>Oct 11 22:14:15 mymachine su: 'su root' failed"));
+        assertTrue(parser.matches("Oct 11 22:14:15 mymachine su[12]: 'su root' failed"));
+        // The generic "host:" header is not syslog
+        assertFalse(parser.matches("Apr 17 09:23:41 dc01.corp.local: User bob failed login attempt"));
+        assertFalse(parser.matches("<999>Oct 11 22:14:15 mymachine su: x"));
+        assertFalse(parser.matches("plain text"));
+    }
+}
@@ -0,0 +1,113 @@
+package edu.trincoll.siem.Parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimestampParserTest {
+
+    private static final Instant UPLOAD = Instant.parse("2025-03-09T12:00:00Z");
+
+    private final TimestampParser utc = TimestampParser.of(UPLOAD, ZoneOffset.UTC);
+
+    @Test
+    public void testSyslogTimestamps() {
+        assertEquals(Instant.parse("2025-03-09T10:15:30Z"), utc.parse("Mar  9 10:15:30"));
+        assertEquals(Instant.parse("2025-03-09T10:15:30Z"), utc.parse("Mar 09 10:15:30"));
+        assertEquals(Instant.parse("2025-02-17T09:23:41.250Z"), utc.parse("Feb 17 09:23:41.25"));
+        // With a year, as in CEF receipt times
+        assertEquals(Instant.parse("2023-03-09T10:15:30Z"), utc.parse("Mar 09 2023 10:15:30"));
+        // Only [from, to) is read
+        assertEquals(Instant.parse("2025-03-09T10:15:30Z"), utc.parse("<34>Mar  9 10:15:30 host", 4, 19));
+    }
+
+    @Test
+    public void testYearRollover() {
+        TimestampParser january = TimestampParser.of(Instant.parse("2025-01-02T00:30:00Z"), ZoneOffset.UTC);
+
+        // Written before the upload: this year
+        assertEquals(Instant.parse("2025-01-01T23:59:59Z"), january.parse("Jan  1 23:59:59"));
+        // December lines uploaded in January are from last year
+        assertEquals(Instant.parse("2024-12-31T23:59:59Z"), january.parse("Dec 31 23:59:59"));
+        // A little clock skew past the upload time stays in this year
+        assertEquals(Instant.parse("2025-01-02T08:00:00Z"), january.parse("Jan  2 08:00:00"));
+
+        // Feb 29 goes back to the last leap year
+        assertEquals(Instant.parse("2024-02-29T12:00:00Z"), utc.parse("Feb 29 12:00:00"));
+    }
+
+    @Test
+    public void testIsoTimestamps() {
+        assertEquals(Instant.parse("2025-03-09T10:15:30.003Z"), utc.parse("2025-03-09T10:15:30.003Z"));
+        assertEquals(Instant.parse("2025-03-09T09:15:30Z"), utc.parse("2025-03-09T10:15:30+01:00"));
+        assertEquals(Instant.parse("2025-03-09T15:15:30Z"), utc.parse("2025-03-09 10:15:30-0500"));
+        assertEquals(Instant.parse("2025-03-09T08:15:30Z"), utc.parse("2025-03-09T10:15:30+02"));
+        assertEquals(Instant.parse("2025-03-09T10:15:30.123456789Z"), utc.parse("2025-03-09T10:15:30,1234567891Z"));
+        assertEquals(Instant.parse("2025-03-09T10:15:00Z"), utc.parse("2025-03-09T10:15"));
+        assertEquals(Instant.parse("2025-03-09T00:00:00Z"), utc.parse("2025-03-09"));
+    }
+
+    @Test
+    public void testApacheTimestamps() {
+        assertEquals(Instant.parse("2025-03-09T09:15:30Z"), utc.parse("09/Mar/2025:10:15:30 +0100"));
+        assertEquals(Instant.parse("2025-01-01T05:00:01Z"), utc.parse("01/Jan/2025:00:00:01 -0500"));
+    }
+
+    @Test
+    public void testEpochTimestamps() {
+        assertEquals(Instant.ofEpochSecond(1741515330L), utc.parse("1741515330"));
+        assertEquals(Instant.ofEpochMilli(1741515330123L), utc.parse("1741515330123"));
+        assertEquals(Instant.ofEpochSecond(1741515330L, 123456000), utc.parse("1741515330123456"));
+        assertEquals(Instant.ofEpochSecond(1741515330L, 123456789), utc.parse("1741515330123456789"));
+        assertEquals(Instant.ofEpochSecond(1741515330L, 250_000_000), utc.parse("1741515330.25"));
+
+        assertEquals(Instant.ofEpochMilli(1741515330123L), TimestampParser.fromEpoch(1741515330123L));
+    }
+
+    @Test
+    public void testLocalTimesUseTheSourceZone() {
+        TimestampParser newYork = TimestampParser.of(Instant.parse("2025-07-01T00:00:00Z"), ZoneId.of("America/New_York"));
+
+        // EST in winter, EDT in summer
+        assertEquals(Instant.parse("2025-01-15T15:00:00Z"), newYork.parse("2025-01-15 10:00:00"));
+        assertEquals(Instant.parse("2025-06-15T14:00:00Z"), newYork.parse("Jun 15 10:00:00"));
+        // An explicit offset wins over the zone
+        assertEquals(Instant.parse("2025-06-15T10:00:00Z"), newYork.parse("2025-06-15T10:00:00Z"));
+    }
+
+    @Test
+    public void testDaylightSavingTransitions() {
+        ZoneId newYork = ZoneId.of("America/New_York");
+        TimestampParser parser = TimestampParser.of(Instant.parse("2025-12-31T00:00:00Z"), newYork);
+
+        // Same results as ZonedDateTime: a time in the spring gap moves forward, an ambiguous autumn time takes the earlier offset
+        assertEquals(Instant.parse("2025-03-09T07:30:00Z"), parser.parse("Mar  9 02:30:00"));
+        assertEquals(Instant.parse("2025-11-02T05:30:00Z"), parser.parse("Nov  2 01:30:00"));
+        // Either side of the transitions, including after the cached window changes
+        assertEquals(Instant.parse("2025-03-09T06:59:59Z"), parser.parse("Mar  9 01:59:59"));
+        assertEquals(Instant.parse("2025-03-09T07:00:00Z"), parser.parse("Mar  9 03:00:00"));
+        assertEquals(Instant.parse("2025-11-02T07:00:00Z"), parser.parse("Nov  2 02:00:00"));
+        assertEquals(Instant.parse("2025-03-09T06:59:59Z"), parser.parse("Mar  9 01:59:59"));
+    }
+
+    @Test
+    public void testRejectsMalformedTimestamps() {
+        assertNull(utc.parse("free form message"));
+        assertNull(utc.parse("Foo  9 10:15:30"));
+        assertNull(utc.parse("Mar 32 10:15:30"));
+        assertNull(utc.parse("Mar  9 25:15:30"));
+        assertNull(utc.parse("Mar  9 10:15:30 extra"));
+        assertNull(utc.parse("2025-02-30T10:15:30Z"));
+        assertNull(utc.parse("2025-03-09T10:15:30+25:00"));
+        assertNull(utc.parse("2025-03-09X10:15:30"));
+        assertNull(utc.parse("09/Mar/2025:10:15:30 0100"));
+        assertNull(utc.parse("12345"));
+        assertNull(utc.parse("1741515330."));
+        assertNull(utc.parse(""));
+        assertNull(utc.parse(null));
+    }
+}
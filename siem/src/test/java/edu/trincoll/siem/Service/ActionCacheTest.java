@@ -0,0 +1,98 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Model.Action;
+import edu.trincoll.siem.Repository.ActionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ActionCacheTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ActionCache cache;
+
+    @BeforeEach
+    public void setup() {
+        Action known = new Action();
+        known.setAction("LOGIN_FAILED");
+        ActionRepository repository = mock(ActionRepository.class);
+        when(repository.findAll()).thenReturn(List.of(known));
+        jdbcTemplate = mock(JdbcTemplate.class);
+        cache = new ActionCache(repository, jdbcTemplate);
+        cache.load();
+    }
+
+    @Test
+    public void testKnownActionIsNotInserted() {
+        assertEquals("LOGIN_FAILED", cache.getOrCreate("LOGIN_FAILED").getAction());
+        verify(jdbcTemplate, never()).update(anyString(), eq("LOGIN_FAILED"));
+    }
+
+    @Test
+    public void testNewActionIsCreatedOnce() {
+        Action first = cache.getOrCreate("PORT_SCAN");
+        Action second = cache.getOrCreate("PORT_SCAN");
+
+        assertSame(first, second);
+        verify(jdbcTemplate, times(1)).update(anyString(), eq("PORT_SCAN"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testFailedInsertIsRetried() {
+        when(jdbcTemplate.update(anyString(), eq("PORT_SCAN")))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(1);
+
+        assertThrows(QueryTimeoutException.class, () -> cache.getOrCreate("PORT_SCAN"));
+        assertEquals("PORT_SCAN", cache.getOrCreate("PORT_SCAN").getAction());
+        verify(jdbcTemplate, times(2)).update(anyString(), eq("PORT_SCAN"));
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneReference() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Action>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return cache.getOrCreate("DNS_TUNNEL");
+                }));
+            }
+            start.countDown();
+
+            Action action = results.get(0).get();
+            for (Future<Action> result : results) {
+                assertSame(action, result.get());
+            }
+            // Racing first sightings wait for a single insert
+            verify(jdbcTemplate, times(1)).update(anyString(), eq("DNS_TUNNEL"));
+            int calls = mockingDetails(jdbcTemplate).getInvocations().size();
+            assertSame(action, cache.getOrCreate("DNS_TUNNEL"));
+            assertEquals(calls, mockingDetails(jdbcTemplate).getInvocations().size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package edu.trincoll.siem.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CursorPageTest {
+
+    @Test
+    public void testCursorRoundTrip() {
+        PageCursor cursor = new PageCursor(Instant.parse("2024-03-10T10:00:01.123456Z"), 42);
+
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+        assertEquals(PageCursor.ofId(-7L), PageCursor.decode(PageCursor.ofId(-7L).encode()));
+    }
+
+    @Test
+    public void testMissingCursorIsFirstPage() {
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode(""));
+    }
+
+    @Test
+    public void testInvalidCursorIsRejected() {
+        String tampered = Base64.getUrlEncoder().encodeToString("t:abc:0:1".getBytes());
+
+        assertThrows(InvalidCursorException.class, () -> PageCursor.decode("not base64!"));
+        assertThrows(InvalidCursorException.class, () -> PageCursor.decode(tampered));
+        assertThrows(InvalidCursorException.class, () -> PageCursor.ofId(1).requireTimestamp());
+        assertThrows(InvalidCursorException.class, () -> PageCursor.ofId(Long.MAX_VALUE).intId());
+    }
+
+    @Test
+    public void testIdSeekStartsOutsideTheIdRange() {
+        assertEquals(0, PageCursor.afterId(null));
+        assertEquals(Integer.MAX_VALUE, PageCursor.beforeId(null));
+        assertEquals(42, PageCursor.afterId(PageCursor.ofId(42).encode()));
+        assertEquals(42, PageCursor.beforeId(PageCursor.ofId(42).encode()));
+        assertThrows(InvalidCursorException.class, () -> PageCursor.afterId("not base64!"));
+    }
+
+    @Test
+    public void testLastPageHasNoCursor() {
+        CursorPage<Integer> page = CursorPage.of(List.of(1, 2), 2, (Integer id) -> PageCursor.ofId(id));
+
+        assertEquals(List.of(1, 2), page.items());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    public void testExtraRowProducesCursorFromLastItem() {
+        CursorPage<Integer> page = CursorPage.of(List.of(1, 2, 3), 2, (Integer id) -> PageCursor.ofId(id));
+
+        assertEquals(List.of(1, 2), page.items());
+        assertEquals(PageCursor.ofId(2), PageCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    public void testLimitIsCapped() {
+        assertEquals(CursorPage.MAX_LIMIT, CursorPage.clamp(1_000_000));
+        assertEquals(1, CursorPage.clamp(0));
+        assertEquals(CursorPage.MAX_LIMIT + 1, CursorPage.fetch(5_000).getPageSize());
+    }
+}
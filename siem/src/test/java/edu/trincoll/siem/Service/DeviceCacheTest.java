@@ -0,0 +1,101 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Model.Device;
+import edu.trincoll.siem.Parser.Ipv4;
+import edu.trincoll.siem.Repository.DeviceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DeviceCacheTest {
+
+    private DeviceRepository repository;
+    private DeviceCache cache;
+    private List<Device> devices;
+
+    private static Device device(int id, String hostname, String ip) throws Exception {
+        Device device = new Device();
+        device.setId(id);
+        device.setHostname(hostname);
+        device.setIpaddress(ip != null ? InetAddress.getByName(ip) : null);
+        return device;
+    }
+
+    @BeforeEach
+    public void setup() throws Exception {
+        devices = new ArrayList<>(List.of(
+                device(1, "web01", "192.168.1.10"),
+                device(2, "db01", "192.168.1.20"),
+                device(3, "web01", "192.168.1.30"),
+                device(4, "v6host", "2001:db8::1")));
+        repository = mock(DeviceRepository.class);
+        // The cache sorts what it loads, so hand it a copy
+        when(repository.findAll()).thenAnswer(invocation -> new ArrayList<>(devices));
+        cache = new DeviceCache(repository);
+    }
+
+    @Test
+    public void testHostnameLookup() {
+        // Shared hostname: the lowest id wins
+        assertEquals(Integer.valueOf(1), cache.getByHostname("web01").orElseThrow().getId());
+        assertEquals(Integer.valueOf(2), cache.getByHostname("db01").orElseThrow().getId());
+        assertTrue(cache.getByHostname("mail01").isEmpty());
+        assertTrue(cache.getByHostname(null).isEmpty());
+    }
+
+    @Test
+    public void testIpLookup() throws Exception {
+        assertEquals(Integer.valueOf(2), cache.getByIpAddress(InetAddress.getByName("192.168.1.20")).orElseThrow().getId());
+        assertEquals(Integer.valueOf(3), cache.getByIpv4(Ipv4.parse("192.168.1.30")).orElseThrow().getId());
+        assertEquals(Integer.valueOf(4), cache.getByIpAddress(InetAddress.getByName("2001:db8::1")).orElseThrow().getId());
+        assertTrue(cache.getByIpAddress(InetAddress.getByName("192.168.1.99")).isEmpty());
+        assertTrue(cache.getByIpv4(Ipv4.parse("10.0.0.1")).isEmpty());
+
+        // Misses are answered from the snapshot, never from the database
+        verify(repository, times(1)).findAll();
+        assertEquals(3L, cache.getStats().get("hits"));
+        assertEquals(2L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    public void testEditedDeviceIsSeenAfterSave() throws Exception {
+        DeviceService service = new DeviceService();
+        ReflectionTestUtils.setField(service, "deviceRepository", repository);
+        ReflectionTestUtils.setField(service, "deviceCache", cache);
+        assertTrue(service.getDeviceByHostname("db01").isPresent());
+
+        Device edited = device(2, "db02", "192.168.1.21");
+        devices.set(1, edited);
+        when(repository.save(edited)).thenReturn(edited);
+        service.saveDevice(edited);
+
+        assertTrue(service.getDeviceByHostname("db01").isEmpty());
+        assertEquals(Integer.valueOf(2), service.getDeviceByHostname("db02").orElseThrow().getId());
+        assertTrue(service.getDeviceByIpAddress(InetAddress.getByName("192.168.1.20")).isEmpty());
+        assertEquals(Integer.valueOf(2), service.getDeviceByIpAddress(InetAddress.getByName("192.168.1.21")).orElseThrow().getId());
+        verify(repository, times(2)).findAll();
+    }
+
+    @Test
+    public void testDeletedDeviceIsDropped() {
+        DeviceService service = new DeviceService();
+        ReflectionTestUtils.setField(service, "deviceRepository", repository);
+        ReflectionTestUtils.setField(service, "deviceCache", cache);
+        assertTrue(service.getDeviceByHostname("db01").isPresent());
+
+        devices.remove(1);
+        service.deleteDeviceById(2);
+
+        assertTrue(service.getDeviceByHostname("db01").isEmpty());
+    }
+}
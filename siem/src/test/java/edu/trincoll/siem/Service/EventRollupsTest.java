@@ -0,0 +1,79 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Model.Action;
+import edu.trincoll.siem.Model.Device;
+import edu.trincoll.siem.Model.Logevent;
+import edu.trincoll.siem.Model.Rawline;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventRollupsTest {
+
+    private static Logevent event(String timestamp, String action, Integer sourceDeviceId, String message) {
+        Rawline rawline = new Rawline();
+        rawline.setMessage(message);
+        if (action != null) {
+            Action a = new Action();
+            a.setAction(action);
+            rawline.setAction(a);
+        }
+        if (sourceDeviceId != null) {
+            Device device = new Device();
+            device.setId(sourceDeviceId);
+            rawline.setSourcedeviceid(device);
+        }
+        Logevent event = new Logevent();
+        event.setTimestamp(timestamp != null ? Instant.parse(timestamp) : null);
+        event.setRawline(rawline);
+        return event;
+    }
+
+    @Test
+    public void testAggregateByBucketActionAndSource() {
+        List<Logevent> events = List.of(
+                event("2025-03-01T10:15:20Z", "LOGIN", 7, "ok"),
+                event("2025-03-01T10:15:59Z", "LOGIN", 7, "fail"),
+                event("2025-03-01T10:47:00Z", "LOGIN", 7, "ok"),
+                event("2025-03-01T10:47:00Z", null, null, null),
+                event(null, "LOGIN", 7, "no timestamp"));
+
+        Map<EventRollups.Key, long[]> counters = EventRollups.aggregate(3, events);
+
+        Instant hour = Instant.parse("2025-03-01T10:00:00Z");
+        long[] hourly = counters.get(new EventRollups.Key(EventRollups.Resolution.HOUR, hour, 3, "LOGIN", 7));
+        assertArrayEquals(new long[]{3, 8}, hourly);
+
+        Instant minute = Instant.parse("2025-03-01T10:15:00Z");
+        long[] perMinute = counters.get(new EventRollups.Key(EventRollups.Resolution.MINUTE, minute, 3, "LOGIN", 7));
+        assertArrayEquals(new long[]{2, 6}, perMinute);
+
+        // Missing action and source device use the '' / 0 sentinels
+        long[] unknown = counters.get(new EventRollups.Key(EventRollups.Resolution.HOUR, hour, 3, "", 0));
+        assertArrayEquals(new long[]{1, 0}, unknown);
+
+        // 2 hourly keys and 3 minute keys; the event without a timestamp is skipped
+        assertEquals(5, counters.size());
+    }
+
+    @Test
+    public void testTruncateInZone() {
+        Instant time = Instant.parse("2025-03-01T10:15:20Z");
+        assertEquals(Instant.parse("2025-03-01T10:00:00Z"), EventRollups.Resolution.HOUR.truncate(time, ZoneId.of("UTC")));
+        // 15:45 in India is truncated to 15:00 there, as date_trunc does on the local wall time
+        assertEquals(Instant.parse("2025-03-01T09:30:00Z"), EventRollups.Resolution.HOUR.truncate(time, ZoneId.of("Asia/Kolkata")));
+        assertEquals(Instant.parse("2025-03-01T10:15:00Z"), EventRollups.Resolution.MINUTE.truncate(time, ZoneId.of("Asia/Kolkata")));
+    }
+
+    @Test
+    public void testResolutionNames() {
+        assertEquals(EventRollups.Resolution.MINUTE, EventRollups.Resolution.from("minute"));
+        assertEquals(EventRollups.Resolution.HOUR, EventRollups.Resolution.from("H"));
+        assertThrows(IllegalArgumentException.class, () -> EventRollups.Resolution.from("day"));
+    }
+}
@@ -0,0 +1,123 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Model.Enums.LogFileStatus;
+import edu.trincoll.siem.Model.Logfile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IngestionSchedulerTest {
+
+    private LogfileService logfileService;
+    private IngestionScheduler scheduler;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    public void setup() {
+        logfileService = mock(LogfileService.class);
+        // One slot, one place in the queue
+        scheduler = new IngestionScheduler(logfileService, 1, 1, 10);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        release.countDown();
+        scheduler.shutdown();
+    }
+
+    private static Logfile logfile(int id) {
+        Logfile logfile = new Logfile();
+        logfile.setId(id);
+        logfile.setFilename("file" + id + ".log");
+        return logfile;
+    }
+
+    // A streamed upload that holds its slot until released
+    private CompletableFuture<Logfile> stream(Logfile logfile, CountDownLatch started) {
+        return CompletableFuture.supplyAsync(() -> scheduler.runInline(logfile, job -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            logfile.setStatus(LogFileStatus.Uploaded);
+            return logfile;
+        }));
+    }
+
+    @Test
+    public void testStreamedUploadsShareTheQueueAndSlots() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CompletableFuture<Logfile> first = stream(logfile(1), firstStarted);
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        assertFalse(scheduler.isIdle());
+
+        // The second stream waits for the slot in the only queue place
+        CountDownLatch secondStarted = new CountDownLatch(1);
+        CompletableFuture<Logfile> second = stream(logfile(2), secondStarted);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (scheduler.getJobs().size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(secondStarted.await(200, TimeUnit.MILLISECONDS));
+
+        // Full: both a third stream and a queued upload are turned away
+        assertThrows(IngestionRejectedException.class, () -> scheduler.runInline(logfile(3), job -> logfile(3)));
+        assertThrows(IngestionRejectedException.class, () -> scheduler.submit(logfile(4), 0));
+
+        release.countDown();
+        assertEquals(LogFileStatus.Uploaded, first.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(LogFileStatus.Uploaded, second.get(5, TimeUnit.SECONDS).getStatus());
+        assertTrue(scheduler.isIdle());
+    }
+
+    @Test
+    public void testQueuedUploadWaitsForAStreamedOne() throws Exception {
+        Logfile queued = logfile(2);
+        CountDownLatch processed = new CountDownLatch(1);
+        when(logfileService.processLogfileContent(any(), any())).thenAnswer(invocation -> {
+            processed.countDown();
+            queued.setStatus(LogFileStatus.Uploaded);
+            return queued;
+        });
+
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Logfile> stream = stream(logfile(1), started);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        scheduler.submit(queued, 0);
+        assertFalse(processed.await(200, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        stream.get(5, TimeUnit.SECONDS);
+        assertTrue(processed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testShutdownFailsWaitingUploads() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        stream(logfile(1), started);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        IngestionJob job = scheduler.submit(logfile(2), 0);
+
+        // Whether the job is still in the pool's queue or a pool thread waits for the slot, the
+        // file must not stay Pending
+        scheduler.shutdown();
+
+        verify(logfileService, timeout(5000)).markFailed(2);
+        assertEquals(IngestionJob.State.Failed, job.getState());
+        verify(logfileService, never()).processLogfileContent(any(), any());
+    }
+}
@@ -0,0 +1,36 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Parser.Ipv4;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Ipv4TableTest {
+
+    @Test
+    public void testPutAndGet() {
+        Ipv4Table<String> table = new Ipv4Table<>(2);
+        assertTrue(table.putIfAbsent((int) Ipv4.parse("10.0.0.1"), "first"));
+        assertFalse(table.putIfAbsent((int) Ipv4.parse("10.0.0.1"), "second"));
+        assertTrue(table.putIfAbsent((int) Ipv4.parse("255.255.255.255"), "broadcast"));
+
+        assertEquals("first", table.get((int) Ipv4.parse("10.0.0.1")));
+        assertEquals("broadcast", table.get((int) Ipv4.parse("255.255.255.255")));
+        assertNull(table.get((int) Ipv4.parse("10.0.0.2")));
+        assertNull(table.get(0));
+    }
+
+    @Test
+    public void testWholeSubnet() {
+        // Consecutive addresses, the usual shape of a device list
+        Ipv4Table<Integer> table = new Ipv4Table<>(1024);
+        long base = Ipv4.parse("192.168.0.0");
+        for (int i = 0; i < 1024; i++) {
+            assertTrue(table.putIfAbsent((int) (base + i), i));
+        }
+        for (int i = 0; i < 1024; i++) {
+            assertEquals(Integer.valueOf(i), table.get((int) (base + i)));
+        }
+        assertNull(table.get((int) (base + 1024)));
+    }
+}
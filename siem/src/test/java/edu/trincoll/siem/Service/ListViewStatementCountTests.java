@@ -0,0 +1,137 @@
+package edu.trincoll.siem.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.trincoll.siem.Model.View.LogeventView;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// List endpoints must cost one SQL statement per request, including serializing the result.
+// Rows with every association filled are seeded (and rolled back) so the count covers the joins.
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class ListViewStatementCountTests {
+
+    // Smaller than the rows seeded, so each list has a follow-up page
+    private static final int PAGE = 2;
+    private static final int SEEDED = 3;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LogeventService logeventService;
+
+    @Autowired
+    private RawlineService rawlineService;
+
+    @Autowired
+    private AlertService alertService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        seed();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    // Today's partitions exist from startup; creating others here would be rolled back
+    private void seed() {
+        Integer fileId = jdbcTemplate.queryForObject(
+                "INSERT INTO logfile (filename, sourcename, sourcetype, status) " +
+                        "VALUES ('statement-count.log', 'statement-count', 'Server', 'Uploaded') RETURNING fileid",
+                Integer.class);
+        Integer sourceId = jdbcTemplate.queryForObject(
+                "INSERT INTO device (ipaddress, hostname) VALUES ('198.51.100.1', 'statement-count-src') RETURNING deviceid",
+                Integer.class);
+        Integer destinationId = jdbcTemplate.queryForObject(
+                "INSERT INTO device (ipaddress, hostname) VALUES ('198.51.100.2', 'statement-count-dst') RETURNING deviceid",
+                Integer.class);
+        jdbcTemplate.update("INSERT INTO action (action) VALUES ('STATEMENT_COUNT_TEST') ON CONFLICT DO NOTHING");
+
+        for (int i = 0; i < SEEDED; i++) {
+            Integer alertId = jdbcTemplate.queryForObject(
+                    "INSERT INTO alert (triggeredat, ruleid, status) SELECT LOCALTIMESTAMP, MIN(ruleid), 'Open' " +
+                            "FROM alertrule RETURNING alertid",
+                    Integer.class);
+            long rawlineId = -900_000L - i;
+            jdbcTemplate.update(
+                    "INSERT INTO rawline (rawlineid, rawline, sourcedeviceid, sourceport, destinationdeviceid, " +
+                            "destinationport, action, message, parseddata) " +
+                            "VALUES (?, ?, ?, 40000, ?, 443, 'STATEMENT_COUNT_TEST', ?, '{\"user\": \"alice\"}'::jsonb)",
+                    rawlineId, "statement count line " + i, sourceId, destinationId, "message " + i);
+            jdbcTemplate.update(
+                    "INSERT INTO logevent (fileid, \"timestamp\", rawlineid, associatedalertid) VALUES (?, LOCALTIMESTAMP, ?, ?)",
+                    fileId, rawlineId, alertId);
+        }
+    }
+
+    // The first page and the one after it are non-empty and cost one statement each
+    private <T> void assertOneStatementPerPage(Function<String, CursorPage<T>> pages) throws Exception {
+        CursorPage<T> page = pages.apply(null);
+        objectMapper.writeValueAsString(page.items());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(PAGE, page.items().size());
+        assertNotNull(page.nextCursor());
+
+        statistics.clear();
+        CursorPage<T> next = pages.apply(page.nextCursor());
+        objectMapper.writeValueAsString(next.items());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertFalse(next.items().isEmpty());
+    }
+
+    @Test
+    void eventPageIsOneStatement() throws Exception {
+        CursorPage<LogeventView> page = logeventService.getEventsPage(null, PAGE);
+        // The seeded events are the latest, with every association the view joins
+        LogeventView event = page.items().get(0);
+        assertEquals("statement-count.log", event.fileid().filename());
+        assertEquals("statement-count-src", event.rawline().sourcedeviceid().hostname());
+        assertEquals("statement-count-dst", event.rawline().destinationdeviceid().hostname());
+        assertEquals("STATEMENT_COUNT_TEST", event.rawline().action().action());
+        assertNotNull(event.associatedalertid());
+
+        statistics.clear();
+        assertOneStatementPerPage(cursor -> logeventService.getEventsPage(cursor, PAGE));
+    }
+
+    @Test
+    void latestEventsIsOneStatement() throws Exception {
+        List<LogeventView> events = logeventService.getLatestEvents(PAGE);
+        objectMapper.writeValueAsString(events);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(PAGE, events.size());
+    }
+
+    @Test
+    void rawlinePageIsOneStatement() throws Exception {
+        assertOneStatementPerPage(cursor -> rawlineService.getRawlinesPage(cursor, PAGE));
+    }
+
+    @Test
+    void alertPageIsOneStatement() throws Exception {
+        assertOneStatementPerPage(cursor -> alertService.getAlertsPage(cursor, PAGE));
+    }
+}
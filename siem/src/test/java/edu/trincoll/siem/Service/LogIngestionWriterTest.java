@@ -0,0 +1,55 @@
+package edu.trincoll.siem.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.trincoll.siem.Model.Logfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+public class LogIngestionWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private LogfileContentStore contentStore;
+    private LogIngestionWriter writer;
+
+    @BeforeEach
+    public void setup() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        contentStore = new LogfileContentStore(jdbcTemplate, mock(PlatformTransactionManager.class));
+        writer = new LogIngestionWriter(jdbcTemplate, mock(PlatformTransactionManager.class), new ObjectMapper(),
+                mock(EventRollups.class), mock(PartitionManager.class), contentStore, 1000, 60_000);
+    }
+
+    @Test
+    public void testRawContentIsAppendedAsOneChunkPerFlush() {
+        Logfile logfile = new Logfile();
+        logfile.setId(7);
+
+        try (LogIngestionWriter.Batch batch = writer.openBatch(logfile)) {
+            for (int flush = 0; flush < 3; flush++) {
+                for (int i = 0; i < 100; i++) {
+                    batch.appendRawContent("Mar  9 10:15:30 host: line " + i);
+                }
+                batch.flush();
+            }
+        }
+
+        // Each flush inserts only the lines read since the last one; the stored content is never
+        // read back and rewritten, so a streamed upload costs linear time in its size
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(3)).update(sql.capture(), eq(7), eq(2990), any(byte[].class), eq(7));
+        assertTrue(sql.getAllValues().stream().allMatch(statement -> statement.startsWith("INSERT INTO logfilecontent")));
+        verifyNoMoreInteractions(jdbcTemplate);
+        assertEquals(3L, contentStore.getStats().get("chunksWritten"));
+    }
+}
@@ -0,0 +1,24 @@
+package edu.trincoll.siem.Service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogeventExporterTest {
+
+    @Test
+    public void testCsvQuoting() {
+        assertEquals("", LogeventExporter.csv(null));
+        assertEquals("plain", LogeventExporter.csv("plain"));
+        assertEquals("\"a,b\"", LogeventExporter.csv("a,b"));
+        assertEquals("\"say \"\"hi\"\"\"", LogeventExporter.csv("say \"hi\""));
+        assertEquals("\"line\nbreak\"", LogeventExporter.csv("line\nbreak"));
+    }
+
+    @Test
+    public void testFormatNames() {
+        assertEquals(LogeventExporter.Format.NDJSON, LogeventExporter.Format.from("jsonl"));
+        assertEquals(LogeventExporter.Format.CSV, LogeventExporter.Format.from("CSV"));
+        assertThrows(IllegalArgumentException.class, () -> LogeventExporter.Format.from("xml"));
+    }
+}
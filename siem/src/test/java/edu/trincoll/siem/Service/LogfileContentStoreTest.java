@@ -0,0 +1,57 @@
+package edu.trincoll.siem.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogfileContentStoreTest {
+
+    @Test
+    public void testChunkRoundTrip() throws Exception {
+        LogfileContentStore.Chunk chunk = new LogfileContentStore.Chunk();
+        assertTrue(chunk.isEmpty());
+        chunk.appendLine("Mar  9 10:15:30 web01 sshd[42]: Accepted password for root");
+        chunk.appendLine("");
+        chunk.appendLine("caf\u00e9");
+
+        String expected = "Mar  9 10:15:30 web01 sshd[42]: Accepted password for root\n\ncaf\u00e9\n";
+        assertEquals(expected.getBytes(StandardCharsets.UTF_8).length, chunk.length());
+        assertEquals(expected, gunzip(chunk.finish()));
+    }
+
+    @Test
+    public void testRepeatedLinesCompress() {
+        LogfileContentStore.Chunk chunk = new LogfileContentStore.Chunk();
+        for (int i = 0; i < 10_000; i++) {
+            chunk.appendLine("Mar  9 10:15:30 fw01 kernel: DROP IN=eth0 SRC=10.0.0." + (i % 250) + " DST=10.0.1.1");
+        }
+        assertTrue(chunk.finish().length < chunk.length() / 5);
+    }
+
+    @Test
+    public void testConcatenatedChunksAreOneGzipFile() throws Exception {
+        // What retention writes to rawcontent.txt.gz
+        LogfileContentStore.Chunk first = new LogfileContentStore.Chunk();
+        first.appendLine("line 1");
+        LogfileContentStore.Chunk second = new LogfileContentStore.Chunk();
+        second.appendLine("line 2");
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(first.finish());
+        file.write(second.finish());
+
+        assertEquals("line 1\nline 2\n", gunzip(file.toByteArray()));
+    }
+
+    private static String gunzip(byte[] gzip) throws Exception {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Detection.DetectionEngine;
+import edu.trincoll.siem.Model.Enums.LogFileStatus;
+import edu.trincoll.siem.Model.Logevent;
+import edu.trincoll.siem.Model.Logfile;
+import edu.trincoll.siem.Parser.LogFormatParser;
+import edu.trincoll.siem.Parser.ParsedLogLine;
+import edu.trincoll.siem.Parser.ParserRegistry;
+import edu.trincoll.siem.Parser.TimestampParser;
+import edu.trincoll.siem.Repository.LogfileRepository;
+import edu.trincoll.siem.Repository.ParsepatternRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LogfileServiceTest {
+
+    private static final int CHUNK_LINES = 10;
+
+    private LogfileRepository logfileRepository;
+    private ParserRegistry parserRegistry;
+    private LogIngestionWriter.Batch batch;
+    private final List<String> written = Collections.synchronizedList(new ArrayList<>());
+    private LogfileService service;
+
+    // Runs for every line parsed, on the parse pool
+    private volatile Consumer<String> onParse = line -> {
+    };
+
+    private final LogFormatParser parser = new LogFormatParser() {
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @Override
+        public boolean matches(String line) {
+            return true;
+        }
+
+        @Override
+        public ParsedLogLine parse(String line, TimestampParser timestamps) {
+            onParse.accept(line);
+            return new ParsedLogLine(line);
+        }
+    };
+
+    @BeforeEach
+    public void setup() {
+        logfileRepository = mock(LogfileRepository.class);
+        parserRegistry = mock(ParserRegistry.class);
+        when(parserRegistry.select(any(), any(), any(), anyList())).thenReturn(parser);
+        when(parserRegistry.timestamps(any(), any(), any())).thenReturn(TimestampParser.systemDefault());
+
+        batch = mock(LogIngestionWriter.Batch.class);
+        doAnswer(invocation -> {
+            Logevent event = invocation.getArgument(0);
+            written.add(event.getRawline().getRawline());
+            return null;
+        }).when(batch).add(any());
+        service = newService(mockWriter(), patterns(), 4);
+    }
+
+    private LogfileService newService(LogIngestionWriter ingestionWriter, ParsePatternMatcher patterns, int parseThreads) {
+        return new LogfileService(logfileRepository, mock(ActionCache.class), mock(DeviceCache.class), ingestionWriter,
+                mock(LogfileContentStore.class), parserRegistry, patterns, mock(LogfileFingerprints.class),
+                mock(DetectionEngine.class), mock(ThreatIntelMatcher.class), parseThreads, CHUNK_LINES, false);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        service.shutdown();
+    }
+
+    private static Logfile logfile() {
+        Logfile logfile = new Logfile();
+        logfile.setId(42);
+        logfile.setFilename("test.log");
+        return logfile;
+    }
+
+    private static List<String> lines(int count) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add("line " + i);
+        }
+        return lines;
+    }
+
+    private static InputStream stream(List<String> lines) {
+        return new ByteArrayInputStream((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testChunksReachTheWriterInFileOrder() {
+        // Chunks finish out of order on the pool
+        onParse = line -> {
+            if (line.endsWith("0")) {
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        List<String> lines = lines(CHUNK_LINES * 25 + 3);
+
+        Logfile result = service.ingestStream(logfile(), stream(lines), false, null);
+
+        assertEquals(LogFileStatus.Uploaded, result.getStatus());
+        assertEquals(lines, written);
+        verify(logfileRepository).updateStatus(42, LogFileStatus.Uploaded);
+    }
+
+    @Test
+    public void testFailingChunkFailsTheFileAndCancelsTheRest() throws Exception {
+        service.shutdown();
+        LogIngestionWriter ingestionWriter = mockWriter();
+        service = newService(ingestionWriter, patterns(), 1);
+
+        // One parse thread and two chunks in flight: chunk 1 fails while chunk 2 is being parsed.
+        // Chunk 2 is cancelled and nothing after chunk 0 is written or read any further
+        CountDownLatch release = new CountDownLatch(1);
+        Set<Integer> parsedChunks = ConcurrentHashMap.newKeySet();
+        onParse = line -> {
+            int chunk = Integer.parseInt(line.substring(5)) / CHUNK_LINES;
+            parsedChunks.add(chunk);
+            if (chunk == 1) {
+                throw new IllegalStateException("unparseable");
+            }
+            if (chunk == 2) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        Logfile result;
+        try {
+            result = service.ingestStream(logfile(), stream(lines(CHUNK_LINES * 5)), false, null);
+        } finally {
+            release.countDown();
+        }
+        Thread.sleep(200);
+
+        assertEquals(LogFileStatus.Failed, result.getStatus());
+        verify(logfileRepository).updateStatus(42, LogFileStatus.Failed);
+        // Chunk 0 was committed; it is removed again so a re-upload does not store it twice
+        verify(ingestionWriter).discard(42);
+        assertEquals(lines(CHUNK_LINES), written);
+        assertFalse(parsedChunks.contains(3));
+        assertFalse(parsedChunks.contains(4));
+    }
+
+    @Test
+    public void testReadingStopsWhileChunksAreNotWritten() throws Exception {
+        service.shutdown();
+        service = newService(mockWriter(), patterns(), 1);
+
+        // Nothing finishes parsing until released: the reader may only get maxChunksInFlight
+        // (two per parse thread) chunks ahead, plus what the readers buffer
+        CountDownLatch release = new CountDownLatch(1);
+        onParse = line -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        String padding = "x".repeat(1000);
+        int lineCount = 10_000;
+        AtomicLong bytesRead = new AtomicLong();
+        InputStream content = new InputStream() {
+            private byte[] line = new byte[0];
+            private int pos;
+            private int lines;
+
+            @Override
+            public int read() {
+                if (pos == line.length) {
+                    if (lines == lineCount) {
+                        return -1;
+                    }
+                    line = ("line " + lines++ + " " + padding + "\n").getBytes(StandardCharsets.UTF_8);
+                    pos = 0;
+                }
+                bytesRead.incrementAndGet();
+                return line[pos++];
+            }
+        };
+
+        CompletableFuture<Logfile> result = CompletableFuture.supplyAsync(
+                () -> service.ingestStream(logfile(), content, false, null));
+        Thread.sleep(500);
+        long readWhileBlocked = bytesRead.get();
+        release.countDown();
+
+        // Two chunks in flight, one being read and up to two 8 KB read-ahead buffers: about 50 KB of 10 MB
+        assertTrue(readWhileBlocked < 100_000, "read " + readWhileBlocked + " bytes ahead");
+        assertEquals(LogFileStatus.Uploaded, result.get(30, TimeUnit.SECONDS).getStatus());
+        assertEquals(lineCount, written.size());
+    }
+
+    private LogIngestionWriter mockWriter() {
+        LogIngestionWriter ingestionWriter = mock(LogIngestionWriter.class);
+        when(ingestionWriter.openBatch(any())).thenReturn(batch);
+        return ingestionWriter;
+    }
+
+    private static ParsePatternMatcher patterns() {
+        ParsePatternMatcher patterns = new ParsePatternMatcher(mock(ParsepatternRepository.class));
+        patterns.reload();
+        return patterns;
+    }
+}
@@ -0,0 +1,52 @@
+package edu.trincoll.siem.Service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A write to a partition of alert or logevent is a change to the views that read them
+@SpringBootTest
+class MaterializedViewRefresherTests {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2020, 1, 15, 12, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PartitionManager partitionManager;
+
+    @Autowired
+    private MaterializedViewRefresher refresher;
+
+    @Test
+    void alertInsertedIntoPartitionRefreshesStatistics() throws InterruptedException {
+        partitionManager.ensurePartitions(PartitionManager.ALERT, List.of(NOON.atZone(ZoneId.systemDefault()).toInstant()));
+        refresher.refresh(MaterializedViewRefresher.ALERT_STATISTICS);
+
+        Integer alertId = jdbcTemplate.queryForObject(
+                "INSERT INTO alert (triggeredat, ruleid, status) SELECT ?, MIN(ruleid), 'Open' FROM alertrule RETURNING alertid",
+                Integer.class, Timestamp.valueOf(NOON));
+        try {
+            // The insert reaches pg_stat_user_tables asynchronously
+            boolean refreshed = false;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!refreshed && System.nanoTime() < deadline) {
+                Thread.sleep(200);
+                refreshed = refresher.refresh(MaterializedViewRefresher.ALERT_STATISTICS);
+            }
+            assertTrue(refreshed, "alert_statistics was not refreshed after an alert was inserted");
+        } finally {
+            jdbcTemplate.update("DELETE FROM alert WHERE alertid = ?", alertId);
+        }
+    }
+}
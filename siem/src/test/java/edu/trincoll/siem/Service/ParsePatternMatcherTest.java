@@ -0,0 +1,72 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Model.Parsepattern;
+import edu.trincoll.siem.Parser.ParsedLogLine;
+import edu.trincoll.siem.Parser.TimestampParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParsePatternMatcherTest {
+
+    private static Parsepattern row(int id, String name, String pattern, String sourceType) {
+        Parsepattern row = new Parsepattern();
+        row.setId(id);
+        row.setName(name);
+        row.setPattern(pattern);
+        row.setSourcetype(sourceType);
+        return row;
+    }
+
+    private static ParsePatternMatcher.PatternSet compile(List<Parsepattern> rows) {
+        return ParsePatternMatcher.PatternSet.compile(new ParsePatternMatcher.PatternSet(0, List.of(), Map.of()), rows);
+    }
+
+    @Test
+    public void testFirstMatchWritesParsedData() {
+        ParsePatternMatcher.PatternSet set = compile(List.of(
+                row(1, "vpn-login", "vpn: user=%{USERNAME:username} from %{IPV4:sourceIp}", null),
+                row(2, "any-user", "user=%{USERNAME:otherUser}", null)));
+        ParsePatternMatcher.FilePatterns patterns =
+                new ParsePatternMatcher.FilePatterns(set.version(), set.patterns(), new LongAdder(), new LongAdder());
+
+        ParsedLogLine parsed = new ParsedLogLine("Mar  9 10:15:30 gw01: vpn: user=alice from 10.1.2.3");
+        assertTrue(patterns.apply(parsed, TimestampParser.systemDefault()));
+
+        assertEquals("alice", parsed.getParseddata().get("username"));
+        assertEquals("10.1.2.3", parsed.getParseddata().get("sourceIp"));
+        assertEquals("vpn-login", parsed.getParseddata().get("parsePattern"));
+        // Well-known names fill the event columns
+        assertEquals("10.1.2.3", parsed.getSourceIp());
+        // Only the first matching pattern applies
+        assertFalse(parsed.getParseddata().containsKey("otherUser"));
+
+        ParsedLogLine unmatched = new ParsedLogLine("nothing here");
+        assertFalse(patterns.apply(unmatched, TimestampParser.systemDefault()));
+        assertNull(unmatched.getParseddata());
+        assertEquals(2L, patterns.linesChecked().sum());
+        assertEquals(1L, patterns.linesMatched().sum());
+    }
+
+    @Test
+    public void testRecompileKeepsUnchangedPatternsAndSkipsInvalid() {
+        ParsePatternMatcher.PatternSet first = compile(List.of(row(1, "a", "a=%{WORD:a}", null)));
+        first.patterns().get(0).match("a=1");
+
+        ParsePatternMatcher.PatternSet second = ParsePatternMatcher.PatternSet.compile(first, List.of(
+                row(1, "renamed", "a=%{WORD:a}", "Firewall"),
+                row(2, "broken", "%{NOPE:x}", null)));
+
+        assertEquals(first.version() + 1, second.version());
+        assertEquals(1, second.patterns().size());
+        assertSame(first.patterns().get(0).grok(), second.patterns().get(0).grok());
+        assertEquals("renamed", second.patterns().get(0).name());
+        assertEquals("Firewall", second.patterns().get(0).sourceType());
+        assertEquals(1L, second.patterns().get(0).getStats().get("attempts"));
+        assertTrue(second.skipped().containsKey(2));
+    }
+}
@@ -0,0 +1,41 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Repository.ParsepatternRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+// Edits made straight in the database, without touching UpdatedAt, must still reach the matcher
+@SpringBootTest
+class ParsePatternSignatureTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ParsepatternRepository parsepatternRepository;
+
+    @Test
+    void directUpdateChangesTheSignature() {
+        Integer patternId = jdbcTemplate.queryForObject(
+                "INSERT INTO parsepattern (name, pattern) VALUES ('signature-test', 'user=%{WORD:user}') RETURNING patternid",
+                Integer.class);
+        try {
+            String before = parsepatternRepository.findVersionSignature();
+            assertEquals(before, parsepatternRepository.findVersionSignature());
+
+            jdbcTemplate.update("UPDATE parsepattern SET pattern = 'login=%{WORD:user}' WHERE patternid = ?", patternId);
+            String edited = parsepatternRepository.findVersionSignature();
+            assertNotEquals(before, edited);
+
+            jdbcTemplate.update("UPDATE parsepattern SET isactive = FALSE WHERE patternid = ?", patternId);
+            assertNotEquals(edited, parsepatternRepository.findVersionSignature());
+        } finally {
+            jdbcTemplate.update("DELETE FROM parsepattern WHERE patternid = ?", patternId);
+        }
+    }
+}
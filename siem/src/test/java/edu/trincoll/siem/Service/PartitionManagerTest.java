@@ -0,0 +1,26 @@
+package edu.trincoll.siem.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionManagerTest {
+
+    @Test
+    public void testPartitionNames() {
+        LocalDate day = LocalDate.of(2025, 3, 9);
+        assertEquals("logevent_p20250309", PartitionManager.partitionName(PartitionManager.LOGEVENT, day));
+        assertEquals(day, PartitionManager.partitionDay(PartitionManager.LOGEVENT, "logevent_p20250309"));
+        assertEquals(day, PartitionManager.partitionDay(PartitionManager.ALERT, "alert_p20250309"));
+    }
+
+    @Test
+    public void testForeignPartitionNamesAreIgnored() {
+        // Never dropped by retention
+        assertNull(PartitionManager.partitionDay(PartitionManager.LOGEVENT, "alert_p20250309"));
+        assertNull(PartitionManager.partitionDay(PartitionManager.LOGEVENT, "logevent_archive"));
+        assertNull(PartitionManager.partitionDay(PartitionManager.LOGEVENT, "logevent_p2025"));
+    }
+}
@@ -0,0 +1,67 @@
+package edu.trincoll.siem.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Time-range queries on logevent and alert must only scan the partitions of the days they cover
+@SpringBootTest
+class PartitionPruningTests {
+
+    private static final LocalDate DAY = LocalDate.of(2020, 1, 15);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PartitionManager partitionManager;
+
+    @BeforeEach
+    void setup() {
+        for (LocalDate day : List.of(DAY.minusDays(1), DAY, DAY.plusDays(1))) {
+            List<Instant> noon = List.of(day.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant());
+            partitionManager.ensurePartitions(PartitionManager.LOGEVENT, noon);
+            partitionManager.ensurePartitions(PartitionManager.ALERT, noon);
+        }
+    }
+
+    private String plan(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+    }
+
+    @Test
+    void eventRangeScansOnlyItsDay() {
+        String plan = plan("SELECT logeventid FROM logevent " +
+                "WHERE \"timestamp\" BETWEEN '2020-01-15 10:00' AND '2020-01-15 11:00'");
+        assertTrue(plan.contains("logevent_p20200115"), plan);
+        assertFalse(plan.contains("logevent_p20200114"), plan);
+        assertFalse(plan.contains("logevent_p20200116"), plan);
+    }
+
+    @Test
+    void eventKeysetPageSkipsLaterDays() {
+        String plan = plan("SELECT logeventid FROM logevent " +
+                "WHERE \"timestamp\" <= '2020-01-15 10:00' AND (\"timestamp\" < '2020-01-15 10:00' OR logeventid < 100) " +
+                "ORDER BY \"timestamp\" DESC, logeventid DESC LIMIT 100");
+        assertFalse(plan.contains("logevent_p20200116"), plan);
+    }
+
+    @Test
+    void alertRangeScansOnlyItsDay() {
+        String plan = plan("SELECT alertid FROM alert " +
+                "WHERE triggeredat BETWEEN '2020-01-15 00:00' AND '2020-01-15 23:59'");
+        assertTrue(plan.contains("alert_p20200115"), plan);
+        assertFalse(plan.contains("alert_p20200114"), plan);
+        assertFalse(plan.contains("alert_p20200116"), plan);
+    }
+}
@@ -0,0 +1,65 @@
+package edu.trincoll.siem.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetentionArchiverTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testParsePolicies() {
+        Map<String, Integer> policies = RetentionArchiver.parsePolicies("Firewall:7, Web Server : 30");
+        assertEquals(Map.of("Firewall", 7, "Web Server", 30), policies);
+        assertTrue(RetentionArchiver.parsePolicies("").isEmpty());
+        assertTrue(RetentionArchiver.parsePolicies(null).isEmpty());
+    }
+
+    @Test
+    public void testParsePoliciesRejectsMissingDays() {
+        assertThrows(IllegalArgumentException.class, () -> RetentionArchiver.parsePolicies("Firewall"));
+        assertThrows(NumberFormatException.class, () -> RetentionArchiver.parsePolicies("Firewall:week"));
+    }
+
+    @Test
+    public void testDirectoryName() {
+        assertEquals("Firewall", RetentionArchiver.directoryName("Firewall"));
+        assertEquals("____etc", RetentionArchiver.directoryName("/../etc"));
+        assertEquals("_none", RetentionArchiver.directoryName(null));
+        assertEquals("_none", RetentionArchiver.directoryName(" "));
+    }
+
+    @Test
+    public void testArchivedEventRoundTrip() throws Exception {
+        RetentionArchiver.ArchivedEvent event = new RetentionArchiver.ArchivedEvent(42,
+                Instant.parse("2025-03-09T10:15:30.123Z"), null, 9000000000L, "Mar  9 10:15:30 sshd: ok",
+                3, 22, null, null, "LOGIN", "Accepted password", "{\"user\":\"root\"}");
+
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            event.write(generator);
+        }
+
+        assertEquals(event, RetentionArchiver.ArchivedEvent.from(objectMapper.readTree(out.toString())));
+    }
+
+    @Test
+    public void testArchivedEventWithoutParsedData() throws Exception {
+        RetentionArchiver.ArchivedEvent event = new RetentionArchiver.ArchivedEvent(1,
+                Instant.parse("2025-03-09T00:00:00Z"), 5, 1L, "line", null, null, null, null, null, null, null);
+
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            event.write(generator);
+        }
+
+        assertEquals(event, RetentionArchiver.ArchivedEvent.from(objectMapper.readTree(out.toString())));
+    }
+}
@@ -0,0 +1,109 @@
+package edu.trincoll.siem.Service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TailReaderTest {
+
+    private Path file;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        file = Files.createTempFile("tail", ".log");
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private void write(String text) throws IOException {
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+    private TailReader open(long position) throws IOException {
+        return new TailReader(FileChannel.open(file, StandardOpenOption.READ), position);
+    }
+
+    @Test
+    public void testPartialLineIsHeldUntilComplete() throws IOException {
+        try (TailReader reader = open(0)) {
+            write("first line\nsecond ");
+            assertEquals(List.of("first line"), reader.read(1 << 20, 100));
+            assertEquals(11, reader.getLineEnd());
+            assertEquals(18, reader.getPosition());
+
+            write("half\r\nthird\n");
+            assertEquals(List.of("second half", "third"), reader.read(1 << 20, 100));
+            assertEquals(reader.getPosition(), reader.getLineEnd());
+            assertEquals(List.of(), reader.read(1 << 20, 100));
+        }
+    }
+
+    @Test
+    public void testMaxLinesStopsAfterTheLastLineReturned() throws IOException {
+        write("a\nb\nc\nd\n");
+        try (TailReader reader = open(0)) {
+            assertEquals(List.of("a", "b"), reader.read(1 << 20, 2));
+            assertEquals(4, reader.getLineEnd());
+            assertEquals(List.of("c", "d"), reader.read(1 << 20, 2));
+            assertEquals(8, reader.getLineEnd());
+        }
+    }
+
+    @Test
+    public void testMultibyteCharacterAcrossReads() throws IOException {
+        // 64 KB buffer: the three bytes of '€' straddle the first read
+        String line = "x".repeat(64 * 1024 - 1) + "€ end";
+        write(line + "\nnext\n");
+        try (TailReader reader = open(0)) {
+            assertEquals(List.of(line, "next"), reader.read(1 << 20, 100));
+        }
+    }
+
+    @Test
+    public void testResumeFromLineEnd() throws IOException {
+        write("one\ntw");
+        long checkpoint;
+        try (TailReader reader = open(0)) {
+            reader.read(1 << 20, 100);
+            checkpoint = reader.getLineEnd();
+        }
+        write("o\n");
+        try (TailReader reader = open(checkpoint)) {
+            assertEquals(List.of("two"), reader.read(1 << 20, 100));
+        }
+    }
+
+    @Test
+    public void testDrainReturnsUnterminatedLastLine() throws IOException {
+        write("one\ntwo\nlast");
+        try (TailReader reader = open(0)) {
+            assertEquals(List.of("one"), reader.read(1 << 20, 1));
+            assertEquals(List.of("two", "last"), reader.drain());
+            assertEquals(Files.size(file), reader.getLineEnd());
+        }
+    }
+
+    @Test
+    public void testOverlongLineIsCut() throws IOException {
+        write("y".repeat(TailReader.MAX_LINE_BYTES + 10) + "\n");
+        try (TailReader reader = open(0)) {
+            List<String> lines = reader.read(Long.MAX_VALUE / 2, 100);
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(0).length() >= TailReader.MAX_LINE_BYTES);
+            assertEquals(TailReader.MAX_LINE_BYTES + 10, lines.get(0).length() + lines.get(1).length());
+        }
+    }
+}
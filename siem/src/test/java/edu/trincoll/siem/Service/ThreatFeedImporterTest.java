@@ -0,0 +1,74 @@
+package edu.trincoll.siem.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.trincoll.siem.Model.Enums.Severity;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThreatFeedImporterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testParseCsvLine() {
+        ThreatFeedImporter.FeedEntry entry = ThreatFeedImporter.parseCsvLine(
+                "192.168.100.50,IP,high,\"C2 server, seen in \"\"campaign\"\"\"");
+
+        assertEquals("192.168.100.50", entry.indicator());
+        assertEquals("IP", entry.type());
+        assertEquals(Severity.High, entry.severity());
+        assertEquals("C2 server, seen in \"campaign\"", entry.description());
+        assertFalse(entry.removed());
+    }
+
+    @Test
+    public void testParseCsvHeaderAndRemoval() {
+        assertNull(ThreatFeedImporter.parseCsvLine("indicator,type,severity,description,action"));
+
+        ThreatFeedImporter.FeedEntry entry = ThreatFeedImporter.parseCsvLine("evil.example.com,Domain,,,remove");
+        assertEquals("evil.example.com", entry.indicator());
+        assertTrue(entry.removed());
+    }
+
+    @Test
+    public void testParseCsvDefaultsSeverity() {
+        assertEquals(Severity.Medium, ThreatFeedImporter.parseCsvLine("evil.example.com,Domain").severity());
+    }
+
+    @Test
+    public void testParseCsvRejectsBadLines() {
+        assertThrows(IllegalArgumentException.class, () -> ThreatFeedImporter.parseCsvLine("1.2.3.4"));
+        assertThrows(IllegalArgumentException.class, () -> ThreatFeedImporter.parseCsvLine("1.2.3.4,IP,Critical"));
+        assertThrows(IllegalArgumentException.class, () -> ThreatFeedImporter.parseCsvLine(",IP,High"));
+    }
+
+    @Test
+    public void testParseJsonLine() {
+        ThreatFeedImporter.FeedEntry entry = ThreatFeedImporter.parseJsonLine(objectMapper,
+                "{\"indicator\":\"8.8.4.4\",\"type\":\"IP\",\"severity\":\"Low\",\"description\":\"test\"}");
+
+        assertEquals("8.8.4.4", entry.indicator());
+        assertEquals(Severity.Low, entry.severity());
+        assertEquals("test", entry.description());
+    }
+
+    @Test
+    public void testParseStixPatternAndRevocation() {
+        ThreatFeedImporter.FeedEntry entry = ThreatFeedImporter.parseJsonLine(objectMapper,
+                "{\"pattern\":\"[domain-name:value = 'malware.example.com']\",\"severity\":\"High\"}");
+        assertEquals("malware.example.com", entry.indicator());
+        assertEquals("Domain", entry.type());
+
+        ThreatFeedImporter.FeedEntry revoked = ThreatFeedImporter.parseJsonLine(objectMapper,
+                "{\"pattern\":\"[ipv4-addr:value = '1.2.3.4']\",\"revoked\":true}");
+        assertEquals("1.2.3.4", revoked.indicator());
+        assertTrue(revoked.removed());
+    }
+
+    @Test
+    public void testParseJsonRejectsInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> ThreatFeedImporter.parseJsonLine(objectMapper, "{not json"));
+        assertThrows(IllegalArgumentException.class, () -> ThreatFeedImporter.parseJsonLine(objectMapper, "{\"type\":\"IP\"}"));
+    }
+}
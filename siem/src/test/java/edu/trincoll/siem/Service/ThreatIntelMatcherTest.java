@@ -0,0 +1,96 @@
+package edu.trincoll.siem.Service;
+
+import edu.trincoll.siem.Model.Enums.Severity;
+import edu.trincoll.siem.Model.Threatintel;
+import edu.trincoll.siem.Parser.LogLineParser;
+import edu.trincoll.siem.Parser.ParsedLogLine;
+import edu.trincoll.siem.Repository.ThreatintelRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ThreatIntelMatcherTest {
+
+    private ThreatintelRepository repository;
+    private ThreatIntelMatcher matcher;
+
+    private static Threatintel threat(int id, String indicator, String type, Severity severity) {
+        Threatintel threat = new Threatintel();
+        threat.setId(id);
+        threat.setIndicator(indicator);
+        threat.setType(type);
+        threat.setSeverity(severity);
+        return threat;
+    }
+
+    @BeforeEach
+    public void setup() {
+        repository = mock(ThreatintelRepository.class);
+        when(repository.findAll()).thenReturn(new ArrayList<>(List.of(
+                threat(1, "192.168.100.50", "IP", Severity.High),
+                threat(2, "10.20.0.0/16", "IP", Severity.Medium),
+                threat(3, "malware.example.com", "Domain", Severity.High),
+                threat(4, "suspicious.js", "Filename", Severity.Medium),
+                threat(5, "10.20.30.0/24", "IP", Severity.Low))));
+        matcher = new ThreatIntelMatcher(repository);
+        matcher.reload();
+    }
+
+    @Test
+    public void testMatchExactIp() {
+        assertEquals(Integer.valueOf(1), matcher.matchIp("192.168.100.50").orElseThrow().threatId());
+        assertTrue(matcher.matchIp("192.168.100.51").isEmpty());
+        assertTrue(matcher.matchIp("not an ip").isEmpty());
+    }
+
+    @Test
+    public void testMatchMostSpecificCidr() {
+        assertEquals(Integer.valueOf(5), matcher.matchIp("10.20.30.40").orElseThrow().threatId());
+        assertEquals(Integer.valueOf(2), matcher.matchIp("10.20.99.1").orElseThrow().threatId());
+        assertTrue(matcher.matchIp("10.21.0.1").isEmpty());
+    }
+
+    @Test
+    public void testMatchDomainAndSubdomain() {
+        assertEquals(Integer.valueOf(3), matcher.matchDomain("malware.example.com").orElseThrow().threatId());
+        assertEquals(Integer.valueOf(3), matcher.matchDomain("CDN.Malware.Example.com").orElseThrow().threatId());
+        assertTrue(matcher.matchDomain("example.com").isEmpty());
+    }
+
+    @Test
+    public void testMatchUrlFilename() {
+        assertEquals(Integer.valueOf(4), matcher.matchUrl("/static/suspicious.js?v=2").orElseThrow().threatId());
+        assertTrue(matcher.matchUrl("/static/app.js").isEmpty());
+    }
+
+    @Test
+    public void testEnrichAddsThreatMatches() {
+        ParsedLogLine parsed = new LogLineParser().parse(
+                "Apr 17 09:25:18 fw01.corp.local: Connection from 192.168.100.50:443 to 192.168.1.101:39156");
+
+        matcher.enrich(parsed);
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> hits = (List<Map<String, Object>>) parsed.getParseddata().get("threatMatches");
+        assertEquals(1, hits.size());
+        assertEquals("connectionSourceIp", hits.get(0).get("field"));
+        assertEquals(1, hits.get(0).get("threatId"));
+        assertEquals("High", hits.get(0).get("severity"));
+    }
+
+    @Test
+    public void testReloadSwapsSnapshot() {
+        when(repository.findAll()).thenReturn(new ArrayList<>(List.of(threat(9, "8.8.8.8", "IP", Severity.Low))));
+        matcher.reload();
+
+        assertTrue(matcher.matchIp("192.168.100.50").isEmpty());
+        assertEquals(Integer.valueOf(9), matcher.matchIp("8.8.8.8").orElseThrow().threatId());
+    }
+}
@@ -0,0 +1,102 @@
+package edu.trincoll.siem.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UploadFingerprintTest {
+
+    private static List<String> lines(int from, int to) {
+        List<String> lines = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            lines.add("Mar  9 10:15:30 host: line " + i);
+        }
+        return lines;
+    }
+
+    private static UploadFingerprint fingerprint(List<String> lines) {
+        UploadFingerprint fingerprint = new UploadFingerprint();
+        lines.forEach(fingerprint::addLine);
+        fingerprint.finish();
+        return fingerprint;
+    }
+
+    // The lines that would be ingested for an upload compared with an earlier one
+    private static List<String> ingested(UploadFingerprint.Prefix prefix, List<String> upload) {
+        List<String> ingested = new ArrayList<>();
+        for (String line : upload) {
+            ingested.addAll(prefix.offer(line));
+        }
+        ingested.addAll(prefix.finish());
+        return ingested;
+    }
+
+    @Test
+    public void testChunksAndContentHash() {
+        UploadFingerprint fingerprint = fingerprint(lines(0, 2500));
+
+        assertEquals(2500, fingerprint.getLines());
+        assertEquals(3, fingerprint.getChunks().size());
+        assertEquals(2000, fingerprint.getChunks().get(2).firstLine());
+        assertEquals(500, fingerprint.getChunks().get(2).lineCount());
+        assertEquals(64, fingerprint.finish().length());
+
+        // The same whole file gives the same hash whatever its line endings
+        String content = String.join("\r\n", lines(0, 2500)) + "\r\n";
+        assertEquals(fingerprint.finish(), UploadFingerprint.contentHash(content));
+        assertNotEquals(fingerprint.finish(), UploadFingerprint.contentHash(String.join("\n", lines(0, 2499))));
+    }
+
+    @Test
+    public void testDuplicateUploadIsSkipped() {
+        List<String> upload = lines(0, 2500);
+        UploadFingerprint.Prefix prefix = new UploadFingerprint.Prefix(fingerprint(upload).getChunks());
+
+        assertEquals(List.of(), ingested(prefix, upload));
+        assertEquals(2500, prefix.getSkipped());
+        assertTrue(prefix.isComplete());
+    }
+
+    @Test
+    public void testOnlyTheNewTailIsIngested() {
+        UploadFingerprint.Prefix prefix = new UploadFingerprint.Prefix(fingerprint(lines(0, 2500)).getChunks());
+
+        // The earlier upload ended inside a chunk; the grown file still matches it line for line
+        assertEquals(lines(2500, 3100), ingested(prefix, lines(0, 3100)));
+        assertEquals(2500, prefix.getSkipped());
+        assertTrue(prefix.isComplete());
+    }
+
+    @Test
+    public void testDifferingChunkIsIngestedWithEverythingAfter() {
+        List<String> upload = lines(0, 2500);
+        upload.set(1500, "Mar  9 10:15:31 host: changed");
+        UploadFingerprint.Prefix prefix = new UploadFingerprint.Prefix(fingerprint(lines(0, 2500)).getChunks());
+
+        assertEquals(upload.subList(1000, 2500), ingested(prefix, upload));
+        assertEquals(1000, prefix.getSkipped());
+        assertFalse(prefix.isComplete());
+    }
+
+    @Test
+    public void testShorterUploadEndingInsideAChunk() {
+        UploadFingerprint.Prefix prefix = new UploadFingerprint.Prefix(fingerprint(lines(0, 2500)).getChunks());
+
+        // The held lines cannot be checked against a whole chunk, so they are ingested
+        assertEquals(lines(1000, 1200), ingested(prefix, lines(0, 1200)));
+        assertEquals(1000, prefix.getSkipped());
+        assertFalse(prefix.isComplete());
+    }
+
+    @Test
+    public void testNoEarlierUpload() {
+        UploadFingerprint.Prefix prefix = new UploadFingerprint.Prefix(List.of());
+
+        assertEquals(lines(0, 10), ingested(prefix, lines(0, 10)));
+        assertEquals(0, prefix.getSkipped());
+        assertFalse(prefix.isComplete());
+    }
+}